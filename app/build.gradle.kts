@@ -16,6 +16,12 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        
+        // Backend base URL; an https:// URL lets OkHttp negotiate HTTP/2
+        buildConfigField("String", "API_BASE_URL", "\"http://face-recognition-lb-297173275.eu-north-1.elb.amazonaws.com/\"")
+        // Gzip JSON request bodies over 1 KB. Deploy the backend's GzipRequestMiddleware
+        // to every instance first; older backends reject compressed bodies.
+        buildConfigField("boolean", "GZIP_REQUESTS", "false")
     }
 
     buildTypes {
@@ -23,6 +29,12 @@ android {
             isMinifyEnabled = false
             proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
         }
+        // Release-like build the macrobenchmark module measures and profiles
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
     }
     
     compileOptions {
@@ -36,6 +48,17 @@ android {
     
     buildFeatures {
         viewBinding = true
+        buildConfig = true
+    }
+    
+    testOptions {
+        unitTests.all {
+            // JMH benchmarks in src/test only run when requested: -Pbenchmark=true
+            it.systemProperty("benchmark", project.findProperty("benchmark") ?: "false")
+            project.findProperty("benchmarkInclude")?.let { include ->
+                it.systemProperty("benchmarkInclude", include)
+            }
+        }
     }
     
     packaging {
@@ -98,8 +121,16 @@ dependencies {
     // ML Kit for face detection
     implementation("com.google.mlkit:face-detection:16.1.5")
     
+    // WorkManager for syncing the offline attendance journal
+    implementation("androidx.work:work-runtime:2.9.0")
+    
+    // Installs the baseline profile (src/main/baseline-prof.txt) on sideloaded and older installs
+    implementation("androidx.profileinstaller:profileinstaller:1.3.1")
+    
     // Testing
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.openjdk.jmh:jmh-core:1.37")
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
\ No newline at end of file
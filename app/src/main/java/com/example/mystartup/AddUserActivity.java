@@ -671,7 +671,7 @@ public class AddUserActivity extends AppCompatActivity {
         
         // Get API Service from RetrofitClient
         com.example.mystartup.api.ApiService apiService = 
-            com.example.mystartup.api.RetrofitClient.getInstance().getApiService();
+            com.example.mystartup.api.RetrofitClient.getInstance(this).getApiService();
         
         // Create request object
         com.example.mystartup.api.AdminRegistrationRequest request = 
@@ -22,11 +22,16 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.mystartup.adapters.AttendanceAdapter;
 import com.example.mystartup.databinding.ActivityAttendanceHistoryBinding;
 import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserProfileCache;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.android.gms.tasks.OnFailureListener;
 import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
@@ -46,12 +51,27 @@ import java.util.TimeZone;
 
 public class AttendanceHistoryActivity extends AppCompatActivity {
     private static final String TAG = "AttendanceHistory";
+    private static final int ESTIMATED_ITEM_HEIGHT_DP = 88; // item_attendance_record plus spacing
+    private static final int MIN_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 50;
     private ActivityAttendanceHistoryBinding binding;
     private AttendanceAdapter adapter;
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
     private ListenerRegistration attendanceListener;
     private String currentFilter = "all"; // Default filter
+    
+    // Cursor pagination state
+    private int pageSize;
+    private Query pagedQuery;
+    private DocumentSnapshot lastVisibleDocument;
+    private boolean loadingPage;
+    private boolean allPagesLoaded;
+    
+    // Opt-in live updates for the records of the first page and anything newer
+    private static final String KEY_LIVE_UPDATES = "attendance_history_live";
+    private boolean liveUpdates;
+    private DocumentSnapshot liveBoundary;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -79,6 +99,7 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
 
         // Setup filter chips
         setupFilterChips();
+        setupLiveToggle();
 
         // Load attendance records
         loadAttendanceRecords();
@@ -126,6 +147,18 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
         binding.attendanceRecyclerView.setLayoutManager(layoutManager);
         binding.attendanceRecyclerView.setAdapter(adapter);
         
+        pageSize = calculatePageSize();
+        
+        // Fetch the next page as the user nears the end of what's loaded
+        binding.attendanceRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    loadNextPageIfNeeded();
+                }
+            }
+        });
+        
         // Add layout animation
         binding.attendanceRecyclerView.setLayoutAnimation(
                 AnimationUtils.loadLayoutAnimation(this, R.anim.layout_animation_fall_down));
@@ -144,6 +177,17 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Two screens' worth of rows: enough to fill the first screen and scroll a
+     * little before the next page is needed
+     */
+    private int calculatePageSize() {
+        float density = getResources().getDisplayMetrics().density;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        int rowsPerScreen = (int) Math.ceil(screenHeight / (ESTIMATED_ITEM_HEIGHT_DP * density));
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, rowsPerScreen * 2));
+    }
+    
     private void setupFilterChips() {
         // Apply animations to chips
         binding.chipAll.setOnClickListener(v -> {
@@ -151,6 +195,7 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             currentFilter = "all";
             adapter.filterByType(currentFilter);
             binding.attendanceRecyclerView.scheduleLayoutAnimation();
+            binding.attendanceRecyclerView.post(this::loadNextPageIfNeeded);
         });
         
         binding.chipCheckIn.setOnClickListener(v -> {
@@ -158,6 +203,7 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             currentFilter = "check_in";
             adapter.filterByType(currentFilter);
             binding.attendanceRecyclerView.scheduleLayoutAnimation();
+            binding.attendanceRecyclerView.post(this::loadNextPageIfNeeded);
         });
         
         binding.chipCheckOut.setOnClickListener(v -> {
@@ -165,9 +211,98 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             currentFilter = "check_out";
             adapter.filterByType(currentFilter);
             binding.attendanceRecyclerView.scheduleLayoutAnimation();
+            binding.attendanceRecyclerView.post(this::loadNextPageIfNeeded);
         });
     }
     
+    private void setupLiveToggle() {
+        liveUpdates = getSharedPreferences("user_prefs", Context.MODE_PRIVATE)
+                .getBoolean(KEY_LIVE_UPDATES, false);
+        binding.chipLive.setChecked(liveUpdates);
+        binding.chipLive.setOnCheckedChangeListener((chip, isChecked) -> {
+            animateChip(binding.chipLive);
+            liveUpdates = isChecked;
+            getSharedPreferences("user_prefs", Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(KEY_LIVE_UPDATES, isChecked)
+                .apply();
+            
+            if (isChecked) {
+                startLiveUpdates();
+            } else {
+                stopLiveUpdates();
+            }
+        });
+    }
+    
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (liveUpdates) {
+            startLiveUpdates();
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopLiveUpdates();
+    }
+    
+    /**
+     * Listen to the newest records, down to the last record of the first page.
+     * After the initial snapshot only document changes arrive, and they are
+     * applied to the list one by one instead of reloading the history.
+     */
+    private void startLiveUpdates() {
+        if (pagedQuery == null || liveBoundary == null) {
+            return; // Started once the first page is in
+        }
+        stopLiveUpdates();
+        
+        Log.d(TAG, "Starting live attendance updates");
+        attendanceListener = pagedQuery.endAt(liveBoundary)
+            .addSnapshotListener((snapshots, e) -> {
+                if (e != null) {
+                    Log.e(TAG, "Live attendance updates failed: " + e.getMessage());
+                    return;
+                }
+                if (snapshots == null) {
+                    return;
+                }
+                
+                List<AttendanceRecord> upserts = new ArrayList<>();
+                List<String> removedIds = new ArrayList<>();
+                for (DocumentChange change : snapshots.getDocumentChanges()) {
+                    DocumentSnapshot document = change.getDocument();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        removedIds.add(document.getId());
+                        continue;
+                    }
+                    // Added or modified; records already shown are replaced in place
+                    AttendanceRecord record = toAttendanceRecord(document);
+                    if (record != null) {
+                        upserts.add(record);
+                    }
+                }
+                
+                if (upserts.isEmpty() && removedIds.isEmpty()) {
+                    return;
+                }
+                Log.d(TAG, "Live update: " + upserts.size() + " added/modified, "
+                        + removedIds.size() + " removed");
+                adapter.applyChanges(upserts, removedIds);
+                showEmptyView(adapter.getLoadedCount() == 0);
+            });
+    }
+    
+    private void stopLiveUpdates() {
+        if (attendanceListener != null) {
+            attendanceListener.remove();
+            attendanceListener = null;
+        }
+    }
+    
     private void animateChip(Chip chip) {
         ObjectAnimator scaleX = ObjectAnimator.ofFloat(chip, "scaleX", 0.8f, 1.0f);
         ObjectAnimator scaleY = ObjectAnimator.ofFloat(chip, "scaleY", 0.8f, 1.0f);
@@ -223,21 +358,15 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             }
         }
 
-        // Try to find user document
-        Log.d(TAG, "Querying users collection for user with UID: " + currentUserId);
+        // Try to find user document; usually answered from the profile cache filled at login
+        Log.d(TAG, "Looking up user profile for UID: " + currentUserId);
         
-        db.collection("users")
-            .whereEqualTo("uid", currentUserId)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                Log.d(TAG, "User query by UID returned " + queryDocumentSnapshots.size() + " documents");
-                
-                if (!queryDocumentSnapshots.isEmpty()) {
-                    // Get sevarthId from user document
-                    String sevarthId = queryDocumentSnapshots.getDocuments()
-                            .get(0).getString("sevarthId");
-                    
-                    Log.d(TAG, "Retrieved sevarthId from user document: " + sevarthId);
+        LifecycleResults.deliver(this, UserProfileCache.getInstance(this).getByUid(currentUserId),
+            new LifecycleResults.Callback<UserProfile>() {
+                @Override
+                public void onSuccess(UserProfile profile) {
+                    String sevarthId = profile != null ? profile.getSevarthId() : null;
+                    Log.d(TAG, "Retrieved sevarthId from user profile: " + sevarthId);
 
                     if (sevarthId != null && !sevarthId.isEmpty()) {
                         // Save to shared preferences for future use
@@ -249,18 +378,16 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
                         // Set up real-time listener for this user's attendance records
                         setupAttendanceListener(sevarthId, currentUserId);
                     } else {
-                        Log.e(TAG, "sevarthId in user document is null or empty");
-                        // Try direct query instead of showing error
+                        // Try direct query
                         tryDirectQuery();
                     }
-                } else {
-                    // Try direct query
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Failed to query user: " + error.getMessage());
                     tryDirectQuery();
                 }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Failed to query user: " + e.getMessage());
-                tryDirectQuery();
             });
     }
     
@@ -281,28 +408,13 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             showLoading(true);
             
             // Try both ways of querying to be more tolerant across devices 
-            // First try the sevarthId query
-            db.collection("face-recognition-attendance")
-                .whereEqualTo("sevarthId", sevarthId)
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(snapshots -> {
-                    int count = snapshots.size();
-                    Log.d(TAG, "Query by sevarthId returned " + count + " records");
-                    
-                    if (count > 0) {
-                        // We found records - process them
-                        processAttendanceSnapshots(snapshots);
-                    } else {
-                        // If no records found by sevarthId, try with userId
-                        tryBackupQuery(currentUserId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Query by sevarthId failed: " + e.getMessage());
-                    // Try the backup query
-                    tryBackupQuery(currentUserId);
-                });
+            // First try the sevarthId query, then fall back to userId
+            startPagedQuery(
+                db.collection("face-recognition-attendance")
+                    .whereEqualTo("sevarthId", sevarthId)
+                    .orderBy("timestamp", Query.Direction.DESCENDING),
+                () -> tryBackupQuery(currentUserId),
+                e -> tryBackupQuery(currentUserId));
         } catch (Exception e) {
             Log.e(TAG, "Error setting up attendance listener", e);
             showError("Error: " + e.getMessage());
@@ -311,69 +423,171 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
         }
     }
     
-    private void processAttendanceSnapshots(com.google.firebase.firestore.QuerySnapshot snapshots) {
-        List<AttendanceRecord> records = new ArrayList<>();
+    /**
+     * Load the first page of a history query and remember it for further pages
+     * 
+     * @param query The history query, ordered but without a limit
+     * @param onEmpty Called if the first page is empty
+     * @param onFailure Called if the first page fails to load
+     */
+    private void startPagedQuery(Query query, Runnable onEmpty, OnFailureListener onFailure) {
+        pagedQuery = query;
+        lastVisibleDocument = null;
+        liveBoundary = null;
+        allPagesLoaded = false;
+        loadingPage = true;
         
-        for (QueryDocumentSnapshot document : snapshots) {
-            try {
-                Log.d(TAG, "Processing document: " + document.getId());
-                AttendanceRecord record = document.toObject(AttendanceRecord.class);
-                record.setId(document.getId());
-                
-                // Add default values for missing fields to improve compatibility
-                if (record.getDate() == null) {
-                    // Try to extract date from timestamp
-                    com.google.firebase.Timestamp timestamp = document.getTimestamp("timestamp");
-                    if (timestamp != null) {
-                        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-                        dateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata"));
-                        record.setDate(dateFormat.format(timestamp.toDate()));
-                    } else {
-                        record.setDate("Unknown Date");
-                    }
-                }
-                
-                if (record.getTime() == null) {
-                    // Try to extract time from timestamp
-                    com.google.firebase.Timestamp timestamp = document.getTimestamp("timestamp");
-                    if (timestamp != null) {
-                        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
-                        timeFormat.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata"));
-                        record.setTime(timeFormat.format(timestamp.toDate()));
-                    } else {
-                        record.setTime("00:00:00");
-                    }
-                }
+        query.limit(pageSize)
+            .get()
+            .addOnSuccessListener(snapshots -> {
+                loadingPage = false;
+                Log.d(TAG, "First page returned " + snapshots.size() + " records");
                 
-                if (record.getType() == null) {
-                    // Default to "Unknown" if type is missing
-                    record.setType("Unknown");
+                if (snapshots.isEmpty()) {
+                    pagedQuery = null;
+                    onEmpty.run();
+                    return;
                 }
-                
-                // Log the record details
-                Log.d(TAG, "Record details: date=" + record.getDate() + 
-                           ", time=" + record.getTime() + 
-                           ", type=" + record.getType() + 
-                           ", office=" + record.getOfficeName());
-                
+                processAttendanceSnapshots(snapshots, false);
+            })
+            .addOnFailureListener(e -> {
+                loadingPage = false;
+                pagedQuery = null;
+                Log.e(TAG, "First page query failed: " + e.getMessage());
+                onFailure.onFailure(e);
+            });
+    }
+    
+    /**
+     * Fetch the page after the last loaded record once the list is scrolled close
+     * to its end, or when the type filter leaves too few rows to scroll
+     */
+    private void loadNextPageIfNeeded() {
+        if (pagedQuery == null || lastVisibleDocument == null || loadingPage || allPagesLoaded) {
+            return;
+        }
+        
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.attendanceRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        int lastVisiblePosition = layoutManager.findLastVisibleItemPosition();
+        if (lastVisiblePosition < adapter.getItemCount() - pageSize / 2) {
+            return;
+        }
+        
+        loadingPage = true;
+        pagedQuery.startAfter(lastVisibleDocument)
+            .limit(pageSize)
+            .get()
+            .addOnSuccessListener(snapshots -> {
+                loadingPage = false;
+                Log.d(TAG, "Next page returned " + snapshots.size() + " records");
+                processAttendanceSnapshots(snapshots, true);
+            })
+            .addOnFailureListener(e -> {
+                loadingPage = false;
+                Log.e(TAG, "Next page query failed: " + e.getMessage());
+                showError("Could not load more attendance records");
+            });
+    }
+    
+    private void processAttendanceSnapshots(com.google.firebase.firestore.QuerySnapshot snapshots, boolean append) {
+        // Remember the cursor for the next page
+        List<DocumentSnapshot> documents = snapshots.getDocuments();
+        if (!documents.isEmpty()) {
+            lastVisibleDocument = documents.get(documents.size() - 1);
+        }
+        allPagesLoaded = documents.size() < pageSize;
+        
+        List<AttendanceRecord> records = new ArrayList<>();
+        
+        for (QueryDocumentSnapshot document : snapshots) {
+            AttendanceRecord record = toAttendanceRecord(document);
+            if (record != null) {
                 records.add(record);
-            } catch (Exception e) {
-                Log.e(TAG, "Error parsing document: " + document.getId(), e);
             }
         }
         
         // Update UI on main thread
         runOnUiThread(() -> {
-            adapter.setRecords(records);
-            showLoading(false);
-            showEmptyView(records.isEmpty());
-            
-            if (!records.isEmpty()) {
-                binding.attendanceRecyclerView.scheduleLayoutAnimation();
+            if (append) {
+                adapter.appendRecords(records);
+            } else {
+                adapter.setRecords(records);
+                showLoading(false);
+                showEmptyView(records.isEmpty());
+                
+                if (!records.isEmpty()) {
+                    binding.attendanceRecyclerView.scheduleLayoutAnimation();
+                }
+                
+                // Live updates cover the first page and anything newer
+                liveBoundary = lastVisibleDocument;
+                if (liveUpdates) {
+                    startLiveUpdates();
+                }
             }
+            
+            // A filtered page may not fill the screen; keep loading until it does
+            binding.attendanceRecyclerView.post(this::loadNextPageIfNeeded);
         });
     }
     
+    /**
+     * Map an attendance document, filling in fields that older records lack
+     *
+     * @return The record, or null if the document could not be parsed
+     */
+    private AttendanceRecord toAttendanceRecord(DocumentSnapshot document) {
+        try {
+            Log.d(TAG, "Processing document: " + document.getId());
+            AttendanceRecord record = document.toObject(AttendanceRecord.class);
+            record.setId(document.getId());
+            
+            // Add default values for missing fields to improve compatibility
+            if (record.getDate() == null) {
+                // Try to extract date from timestamp
+                com.google.firebase.Timestamp timestamp = document.getTimestamp("timestamp");
+                if (timestamp != null) {
+                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+                    dateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata"));
+                    record.setDate(dateFormat.format(timestamp.toDate()));
+                } else {
+                    record.setDate("Unknown Date");
+                }
+            }
+            
+            if (record.getTime() == null) {
+                // Try to extract time from timestamp
+                com.google.firebase.Timestamp timestamp = document.getTimestamp("timestamp");
+                if (timestamp != null) {
+                    SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
+                    timeFormat.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata"));
+                    record.setTime(timeFormat.format(timestamp.toDate()));
+                } else {
+                    record.setTime("00:00:00");
+                }
+            }
+            
+            if (record.getType() == null) {
+                // Default to "Unknown" if type is missing
+                record.setType("Unknown");
+            }
+            
+            // Log the record details
+            Log.d(TAG, "Record details: date=" + record.getDate() + 
+                       ", time=" + record.getTime() + 
+                       ", type=" + record.getType() + 
+                       ", office=" + record.getOfficeName());
+            
+            return record;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing document: " + document.getId(), e);
+            return null;
+        }
+    }
+    
     // Try a backup query using userId if sevarthId query returns no results
     private void tryBackupQuery(String userId) {
         if (userId == null || userId.isEmpty()) {
@@ -385,47 +599,17 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
         
         Log.d(TAG, "Trying backup query with userId: " + userId);
         
-        db.collection("face-recognition-attendance")
-            .whereEqualTo("userId", userId)
-            .orderBy("timestamp", Query.Direction.DESCENDING)
-            .get()
-            .addOnSuccessListener(snapshots -> {
-                int count = snapshots.size();
-                Log.d(TAG, "Backup query returned " + count + " records");
-                
-                if (count == 0) {
-                    // If no records found with userId either, try a more basic query
-                    tryDirectQuery();
-                    return;
-                }
-                
-                List<AttendanceRecord> records = new ArrayList<>();
-                
-                for (QueryDocumentSnapshot document : snapshots) {
-                    try {
-                        AttendanceRecord record = document.toObject(AttendanceRecord.class);
-                        record.setId(document.getId());
-                        records.add(record);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing document in backup query: " + document.getId(), e);
-                    }
-                }
-                
-                runOnUiThread(() -> {
-                    adapter.setRecords(records);
-                    showLoading(false);
-                    showEmptyView(records.isEmpty());
-                    
-                    if (!records.isEmpty()) {
-                        binding.attendanceRecyclerView.scheduleLayoutAnimation();
-                    }
-                });
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Backup query failed: " + e.getMessage(), e);
-                // If backup query fails, try a direct query as last resort
-                tryDirectQuery();
-            });
+        startPagedQuery(
+            db.collection("face-recognition-attendance")
+                .whereEqualTo("userId", userId)
+                .orderBy("timestamp", Query.Direction.DESCENDING),
+            () -> {
+                Log.d(TAG, "No attendance records found by sevarthId or userId");
+                showLoading(false);
+                showEmptyView(true);
+            },
+            // If the backup query fails, try a direct query as last resort
+            e -> tryDirectQuery());
     }
     
     // Last resort - try a direct query without where clause
@@ -15,23 +15,27 @@ import androidx.recyclerview.widget.RecyclerView.ItemDecoration;
 import android.graphics.Rect;
 
 import com.example.mystartup.adapters.LocationSelectionAdapter;
-import com.example.mystartup.api.RetrofitClient;
 import com.example.mystartup.databinding.ActivityLocationSelectionBinding;
 import com.example.mystartup.models.OfficeLocation;
-import com.example.mystartup.models.User;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.OfficeLocationRepository;
+import com.example.mystartup.repository.Results;
+import com.example.mystartup.repository.UserProfileCache;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 
 public class LocationSelectionActivity extends AppCompatActivity implements LocationSelectionAdapter.OnLocationSelectedListener {
     private ActivityLocationSelectionBinding binding;
     private LocationSelectionAdapter adapter;
     private List<OfficeLocation> locations = new ArrayList<>();
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private UserProfileCache profileCache;
+    private OfficeLocationRepository locationRepository;
     private static final String PREF_NAME = "AuthPrefs";
     private static final String KEY_SEVARTH_ID = "sevarth_id";
     private static final String KEY_SELECTED_LOCATION_ID = "selected_location_id";
@@ -45,7 +49,8 @@ public class LocationSelectionActivity extends AppCompatActivity implements Loca
 
         // Initialize Firebase
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        profileCache = UserProfileCache.getInstance(this);
+        locationRepository = new OfficeLocationRepository(this);
 
         setupRecyclerView();
         setupLogoutButton();
@@ -81,6 +86,7 @@ public class LocationSelectionActivity extends AppCompatActivity implements Loca
                 .edit()
                 .clear()
                 .apply();
+            profileCache.clear();
 
             // Sign out from Firebase
             mAuth.signOut();
@@ -100,118 +106,55 @@ public class LocationSelectionActivity extends AppCompatActivity implements Loca
         SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         String sevarthId = prefs.getString(KEY_SEVARTH_ID, "");
 
-        if (sevarthId.isEmpty()) {
+        CompletableFuture<UserProfile> userLookup;
+        if (!sevarthId.isEmpty()) {
+            userLookup = profileCache.getBySevarthId(sevarthId);
+        } else {
             // If Sevarth ID is not found, try to get it from the user document using UID
             String uid = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : null;
-            if (uid != null) {
-                db.collection("users")
-                    .whereEqualTo("uid", uid)
-                    .get()
-                    .addOnSuccessListener(queryDocumentSnapshots -> {
-                        if (!queryDocumentSnapshots.isEmpty()) {
-                            User user = queryDocumentSnapshots.getDocuments().get(0).toObject(User.class);
-                            if (user != null) {
-                                // Save the Sevarth ID for future use
-                                prefs.edit().putString(KEY_SEVARTH_ID, user.getSevarthId()).apply();
-                                // Load locations using the retrieved Sevarth ID
-                                fetchUserLocations(user.getSevarthId());
-                            } else {
-                                showError("Failed to load user data");
-                            }
-                        } else {
-                            showError("User not found");
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        showError("Error fetching user data: " + e.getMessage());
-                    });
-            } else {
+            if (uid == null) {
                 showError("User authentication required");
                 navigateToLogin();
+                return;
             }
-        } else {
-            fetchUserLocations(sevarthId);
+            userLookup = profileCache.getByUid(uid);
         }
-    }
 
-    private void fetchUserLocations(String sevarthId) {
-        // First, get the user document to retrieve assigned location IDs
-        db.collection("users")
-            .whereEqualTo("sevarthId", sevarthId)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                if (!queryDocumentSnapshots.isEmpty()) {
-                    QueryDocumentSnapshot userDoc = (QueryDocumentSnapshot) queryDocumentSnapshots.getDocuments().get(0);
-                    User user = userDoc.toObject(User.class);
-                    
-                    if (user != null && user.getLocationIds() != null && !user.getLocationIds().isEmpty()) {
-                        // User has assigned locations, fetch each location's details
-                        fetchLocationDetails(user.getLocationIds());
-                    } else {
-                        // User has no assigned locations
-                        showLoading(false);
-                        showEmptyView(true);
-                    }
-                } else {
-                    showError("User not found");
-                    showLoading(false);
-                }
-            })
-            .addOnFailureListener(e -> {
-                showError("Error fetching user data: " + e.getMessage());
+        // The user document lists the assigned location IDs
+        CompletableFuture<List<OfficeLocation>> assignedLocations = Results.chain(userLookup, user -> {
+            if (user == null) {
+                return Results.failed(new NoSuchElementException("User not found"));
+            }
+            if (sevarthId.isEmpty()) {
+                // Save the Sevarth ID for future use
+                prefs.edit().putString(KEY_SEVARTH_ID, user.getSevarthId()).apply();
+            }
+            if (user.getLocationIds().isEmpty()) {
+                return CompletableFuture.completedFuture(new ArrayList<>());
+            }
+            return locationRepository.loadLocations(user.getLocationIds());
+        });
+
+        LifecycleResults.deliver(this, assignedLocations, new LifecycleResults.Callback<List<OfficeLocation>>() {
+            @Override
+            public void onSuccess(List<OfficeLocation> result) {
                 showLoading(false);
-            });
-    }
+                locations.clear();
+                locations.addAll(result);
+                adapter.notifyDataSetChanged();
+                showEmptyView(locations.isEmpty());
+            }
 
-    private void fetchLocationDetails(List<String> locationIds) {
-        // Counter to track fetched locations
-        final int[] count = {0};
-        
-        // Clear previous locations
-        locations.clear();
-        
-        // Fetch each location by ID
-        for (String locationId : locationIds) {
-            db.collection("office_locations")
-                .document(locationId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    count[0]++;
-                    
-                    if (documentSnapshot.exists()) {
-                        OfficeLocation location = documentSnapshot.toObject(OfficeLocation.class);
-                        if (location != null) {
-                            locations.add(location);
-                            adapter.notifyItemInserted(locations.size() - 1);
-                        }
-                    }
-                    
-                    // Check if all locations have been fetched
-                    if (count[0] == locationIds.size()) {
-                        showLoading(false);
-                        if (locations.isEmpty()) {
-                            showEmptyView(true);
-                        } else {
-                            showEmptyView(false);
-                        }
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    count[0]++;
-                    
-                    // Check if all locations have been attempted
-                    if (count[0] == locationIds.size()) {
-                        showLoading(false);
-                        if (locations.isEmpty()) {
-                            showEmptyView(true);
-                        } else {
-                            showEmptyView(false);
-                        }
-                    }
-                    
-                    showError("Error fetching location data: " + e.getMessage());
-                });
-        }
+            @Override
+            public void onError(Throwable error) {
+                showLoading(false);
+                if (error instanceof NoSuchElementException) {
+                    showError(error.getMessage());
+                } else {
+                    showError("Error fetching location data: " + error.getMessage());
+                }
+            }
+        });
     }
 
     private void showEmptyView(boolean show) {
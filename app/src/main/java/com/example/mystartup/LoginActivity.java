@@ -20,6 +20,9 @@ import com.example.mystartup.api.RetrofitClient;
 import com.example.mystartup.api.LoginRequest;
 import com.example.mystartup.api.LoginResponse;
 import com.example.mystartup.databinding.ActivityLoginBinding;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserProfileCache;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 
@@ -91,7 +94,7 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     private void setupRetrofit() {
-        apiService = RetrofitClient.getInstance().getApiService();
+        apiService = RetrofitClient.getInstance(this).getApiService();
     }
 
     private void setupClickListeners() {
@@ -444,88 +447,92 @@ public class LoginActivity extends AppCompatActivity {
     private void fetchUserDataAndLogin(String userId, String role, String authMethod, AlertDialog progressDialog) {
         Log.d("LoginActivity", "Attempting to fetch user data from Firestore for userId: " + userId);
         
-        db.collection("users")
-            .document(userId)
-            .get()
-            .addOnSuccessListener(documentSnapshot -> {
-                progressDialog.dismiss();
-                binding.loginButton.setEnabled(true);
+        // Loads the profile into the session cache that the other screens read from
+        LifecycleResults.deliver(this, UserProfileCache.getInstance(this).loadAtLogin(userId),
+            new LifecycleResults.Callback<UserProfile>() {
+                @Override
+                public void onSuccess(UserProfile profile) {
+                    progressDialog.dismiss();
+                    binding.loginButton.setEnabled(true);
                 
-                // Create a placeholder token
-                String placeholderToken = authMethod + "_" + System.currentTimeMillis();
+                    // Create a placeholder token
+                    String placeholderToken = authMethod + "_" + System.currentTimeMillis();
                 
-                if (documentSnapshot.exists()) {
-                    // We found the user, save their data for app use
-                    String userName = documentSnapshot.getString("name");
-                    String userEmail = documentSnapshot.getString("email");
-                    String userPhone = documentSnapshot.getString("phoneNumber");
+                    if (profile != null) {
+                        // We found the user, save their data for app use
+                        String userName = profile.getName();
+                        String userEmail = profile.getEmail();
+                        String userPhone = profile.getPhoneNumber();
                     
-                    // Use the actual email from Firestore
-                    if (userEmail == null || userEmail.isEmpty()) {
-                        // If we don't have an email in the database, use sevarthId without modifying it
-                        userEmail = userId;
-                    }
+                        // Use the actual email from Firestore
+                        if (userEmail == null || userEmail.isEmpty()) {
+                            // If we don't have an email in the database, use sevarthId without modifying it
+                            userEmail = userId;
+                        }
                     
-                    Log.d("LoginActivity", "User document found with name: " + 
-                        (userName != null ? userName : "null") + 
-                        ", email: " + (userEmail != null ? userEmail : "null"));
+                        Log.d("LoginActivity", "User document found with name: " + 
+                            (userName != null ? userName : "null") + 
+                            ", email: " + (userEmail != null ? userEmail : "null"));
                     
-                    // Save auth details with user data included
-                    saveUserDataAndToken(placeholderToken, role, userId, userName, userEmail, userPhone);
+                        // Save auth details with user data included
+                        saveUserDataAndToken(placeholderToken, role, userId, userName, userEmail, userPhone);
                     
-                    Log.d("LoginActivity", "User data loaded successfully for: " + userId);
-                } else {
-                    // User document doesn't exist, use available data
-                    Log.d("LoginActivity", "No user document found for: " + userId);
-                    saveAuthToken(placeholderToken, role);
-                }
+                        Log.d("LoginActivity", "User data loaded successfully for: " + userId);
+                    } else {
+                        // User document doesn't exist, use available data
+                        Log.d("LoginActivity", "No user document found for: " + userId);
+                        saveAuthToken(placeholderToken, role);
+                    }
                 
-                Toast.makeText(LoginActivity.this, "Login successful!", Toast.LENGTH_SHORT).show();
-                navigateToMain();
-            })
-            .addOnFailureListener(e -> {
-                progressDialog.dismiss();
-                binding.loginButton.setEnabled(true);
+                    Toast.makeText(LoginActivity.this, "Login successful!", Toast.LENGTH_SHORT).show();
+                    navigateToMain();
+                }
+            
+                @Override
+                public void onError(Throwable e) {
+                    progressDialog.dismiss();
+                    binding.loginButton.setEnabled(true);
                 
-                Log.e("LoginActivity", "Failed to fetch user data: " + e.getMessage(), e);
+                    Log.e("LoginActivity", "Failed to fetch user data: " + e.getMessage(), e);
                 
-                // Check specifically for permission issues
-                String errorMessage = e.getMessage();
-                if (errorMessage != null && errorMessage.contains("PERMISSION_DENIED")) {
-                    Log.e("LoginActivity", "Firestore permission denied - check security rules");
-                    Toast.makeText(LoginActivity.this, 
-                        "User data access denied. Please contact an administrator.", 
-                        Toast.LENGTH_LONG).show();
+                    // Check specifically for permission issues
+                    String errorMessage = e.getMessage();
+                    if (errorMessage != null && errorMessage.contains("PERMISSION_DENIED")) {
+                        Log.e("LoginActivity", "Firestore permission denied - check security rules");
+                        Toast.makeText(LoginActivity.this, 
+                            "User data access denied. Please contact an administrator.", 
+                            Toast.LENGTH_LONG).show();
                     
-                    // Fall back to Firebase auth login mode without modifying the userId
-                    String password = binding.passwordEditText.getText().toString().trim();
+                        // Fall back to Firebase auth login mode without modifying the userId
+                        String password = binding.passwordEditText.getText().toString().trim();
                     
-                    // Attempt to login with just Firebase Auth as a fallback (use userId directly)
-                    mAuth.signInWithEmailAndPassword(userId, password)
-                        .addOnSuccessListener(authResult -> {
-                // Still allow login with minimal data
-                            String placeholderToken = "firebase_auth_fallback_" + System.currentTimeMillis();
-                            saveAuthToken(placeholderToken, role);
+                        // Attempt to login with just Firebase Auth as a fallback (use userId directly)
+                        mAuth.signInWithEmailAndPassword(userId, password)
+                            .addOnSuccessListener(authResult -> {
+                    // Still allow login with minimal data
+                                String placeholderToken = "firebase_auth_fallback_" + System.currentTimeMillis();
+                                saveAuthToken(placeholderToken, role);
                             
-                            Toast.makeText(LoginActivity.this, "Login successful via Firebase!", Toast.LENGTH_SHORT).show();
-                            navigateToMain();
-                        })
-                        .addOnFailureListener(authError -> {
-                            // If even Firebase Auth fails, we have to give up
-                            Log.e("LoginActivity", "Firebase Auth fallback failed: " + authError.getMessage(), authError);
-                            Toast.makeText(LoginActivity.this, 
-                                "Login failed. Please try again or contact support.", 
-                                Toast.LENGTH_LONG).show();
-                        });
-                } else {
-                    // For other errors, still try to proceed with login
-                String placeholderToken = authMethod + "_" + System.currentTimeMillis();
-                saveAuthToken(placeholderToken, role);
+                                Toast.makeText(LoginActivity.this, "Login successful via Firebase!", Toast.LENGTH_SHORT).show();
+                                navigateToMain();
+                            })
+                            .addOnFailureListener(authError -> {
+                                // If even Firebase Auth fails, we have to give up
+                                Log.e("LoginActivity", "Firebase Auth fallback failed: " + authError.getMessage(), authError);
+                                Toast.makeText(LoginActivity.this, 
+                                    "Login failed. Please try again or contact support.", 
+                                    Toast.LENGTH_LONG).show();
+                            });
+                    } else {
+                        // For other errors, still try to proceed with login
+                    String placeholderToken = authMethod + "_" + System.currentTimeMillis();
+                    saveAuthToken(placeholderToken, role);
                 
-                    Toast.makeText(LoginActivity.this, 
-                        "Login successful, but user data couldn't be retrieved.", 
-                        Toast.LENGTH_SHORT).show();
-                navigateToMain();
+                        Toast.makeText(LoginActivity.this, 
+                            "Login successful, but user data couldn't be retrieved.", 
+                            Toast.LENGTH_SHORT).show();
+                    navigateToMain();
+                    }
                 }
             });
     }
@@ -634,25 +641,29 @@ public class LoginActivity extends AppCompatActivity {
     // Helper method to clear auth state
     private void clearAuthState() {
         prefs.edit().clear().apply();
+        UserProfileCache.getInstance(this).clear();
         mAuth.signOut();
     }
 
     // Add this new method to verify Firebase access
     private void verifyFirebaseAccess() {
-        // Test read access to Firestore
-        db.collection("users")
-           .limit(1)
-           .get()
-           .addOnSuccessListener(querySnapshot -> {
-               Log.d("LoginActivity", "Firebase Firestore access test successful");
-           })
-           .addOnFailureListener(e -> {
-               Log.e("LoginActivity", "Firebase Firestore access test failed: " + e.getMessage(), e);
-               if (e.getMessage() != null && e.getMessage().contains("PERMISSION_DENIED")) {
-                   // This is just a diagnostic message. We'll still let the user try to log in.
-                   Log.e("LoginActivity", "Firebase security rules are preventing access. Check your rules settings.");
-               }
-           });
+        // Test read access to Firestore; a diagnostic only, so release builds skip
+        // the extra read on the cold-start path
+        if (BuildConfig.DEBUG) {
+            db.collection("users")
+               .limit(1)
+               .get()
+               .addOnSuccessListener(querySnapshot -> {
+                   Log.d("LoginActivity", "Firebase Firestore access test successful");
+               })
+               .addOnFailureListener(e -> {
+                   Log.e("LoginActivity", "Firebase Firestore access test failed: " + e.getMessage(), e);
+                   if (e.getMessage() != null && e.getMessage().contains("PERMISSION_DENIED")) {
+                       // This is just a diagnostic message. We'll still let the user try to log in.
+                       Log.e("LoginActivity", "Firebase security rules are preventing access. Check your rules settings.");
+                   }
+               });
+        }
         
         // Test Firebase Auth configuration
         mAuth.signOut(); // Clear any existing session
@@ -21,6 +21,9 @@ import com.example.mystartup.databinding.ActivityMainBinding;
 import com.example.mystartup.fragments.OfficesFragment;
 import com.example.mystartup.fragments.ReportsFragment;
 import com.example.mystartup.fragments.UsersFragment;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserProfileCache;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -107,26 +110,26 @@ public class MainActivity extends AppCompatActivity {
             
             // First, check if we can get admin details from "users" collection using sevarthId
             if (!sevarthId.isEmpty()) {
-                db.collection("users").document(sevarthId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            String firstName = documentSnapshot.getString("firstName");
-                            String lastName = documentSnapshot.getString("lastName");
-                            
-                            if (firstName != null && lastName != null) {
-                                String greeting = "Good " + getTimeOfDay() + ", " + firstName + " " + lastName;
+                // Usually answered from the profile cache filled at login
+                LifecycleResults.deliver(this, UserProfileCache.getInstance(this).getBySevarthId(sevarthId),
+                    new LifecycleResults.Callback<UserProfile>() {
+                        @Override
+                        public void onSuccess(UserProfile profile) {
+                            if (profile != null && profile.getFirstName() != null && profile.getLastName() != null) {
+                                String greeting = "Good " + getTimeOfDay() + ", " + profile.getFirstName() + " " + profile.getLastName();
                                 binding.greetingTextView.setText(greeting);
                                 return; // Exit if we found the user
                             }
+                            
+                            // If we couldn't get from users collection, try the admins collection
+                            tryGetAdminDetailsFromAdminsCollection(uid);
+                        }
+
+                        @Override
+                        public void onError(Throwable error) {
+                            // On failure, try the admins collection
+                            tryGetAdminDetailsFromAdminsCollection(uid);
                         }
-                        
-                        // If we couldn't get from users collection, try the admins collection
-                        tryGetAdminDetailsFromAdminsCollection(uid);
-                    })
-                    .addOnFailureListener(e -> {
-                        // On failure, try the admins collection
-                        tryGetAdminDetailsFromAdminsCollection(uid);
                     });
             } else {
                 // If no sevarthId, try admins collection directly
@@ -255,6 +258,7 @@ public class MainActivity extends AppCompatActivity {
             // Clear preferences and sign out
             SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
             prefs.edit().clear().apply();
+            UserProfileCache.getInstance(this).clear();
             
             FirebaseAuth.getInstance().signOut();
             
@@ -288,6 +292,7 @@ public class MainActivity extends AppCompatActivity {
         // Navigate back to the login screen instead of closing the app
         SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         prefs.edit().clear().apply();
+        UserProfileCache.getInstance(this).clear();
         
         FirebaseAuth.getInstance().signOut();
         
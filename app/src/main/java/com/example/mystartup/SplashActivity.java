@@ -3,6 +3,8 @@ package com.example.mystartup;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.ImageView;
@@ -10,9 +12,17 @@ import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.utils.AppStartup;
+
 public class SplashActivity extends AppCompatActivity {
 
-    private static final int SPLASH_DURATION = 2000; // 2 seconds
+    private static final int MIN_SPLASH_DURATION = 1000; // Length of the entry animations
+    private static final int MAX_SPLASH_DURATION = 2000; // Never wait longer for the warm-up
+    
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable navigateToLogin = this::navigateToLogin;
+    private boolean navigated;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,16 +43,44 @@ public class SplashActivity extends AppCompatActivity {
         titleTextView.startAnimation(slideUp);
         subtitleTextView.startAnimation(slideUp);
         
-        // Navigate to LoginActivity after delay
-        new Handler().postDelayed(() -> {
-            Intent intent = new Intent(SplashActivity.this, LoginActivity.class);
-            startActivity(intent);
-            
-            // Apply transition animation
-            overridePendingTransition(R.anim.fade_in, R.anim.fade_out);
-            
-            // Close this activity
-            finish();
-        }, SPLASH_DURATION);
+        // Set up Firebase and the HTTP client in the background while the animations play,
+        // then move on as soon as both are done
+        long shownAt = SystemClock.uptimeMillis();
+        handler.postDelayed(navigateToLogin, MAX_SPLASH_DURATION);
+        LifecycleResults.deliver(this, AppStartup.warmUp(this), new LifecycleResults.Callback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                long remaining = MIN_SPLASH_DURATION - (SystemClock.uptimeMillis() - shownAt);
+                handler.removeCallbacks(navigateToLogin);
+                handler.postDelayed(navigateToLogin, Math.max(0, remaining));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                // Not expected; the maximum duration still moves on
+            }
+        });
+    }
+    
+    private void navigateToLogin() {
+        if (navigated || isFinishing()) {
+            return;
+        }
+        navigated = true;
+        
+        Intent intent = new Intent(SplashActivity.this, LoginActivity.class);
+        startActivity(intent);
+        
+        // Apply transition animation
+        overridePendingTransition(R.anim.fade_in, R.anim.fade_out);
+        
+        // Close this activity
+        finish();
+    }
+    
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacks(navigateToLogin);
+        super.onDestroy();
     }
 } 
\ No newline at end of file
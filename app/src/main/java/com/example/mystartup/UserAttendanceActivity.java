@@ -7,6 +7,9 @@ import android.os.Bundle;
 import android.util.Log;
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.mystartup.fragments.UserAttendanceFragment;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserProfileCache;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -131,58 +134,27 @@ public class UserAttendanceActivity extends AppCompatActivity {
                 return;
             }
             
-            // Try to get user by UID first
-            db.collection("users")
-                .whereEqualTo("uid", user.getUid())
-                .limit(1)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    try {
-                        if (!queryDocumentSnapshots.isEmpty()) {
-                            // Get the first document
-                            com.google.firebase.firestore.DocumentSnapshot userDoc = queryDocumentSnapshots.getDocuments().get(0);
-                            processUserDocument(userDoc);
+            // Try to get user by UID first, then by the Sevarth ID in their email;
+            // usually answered from the profile cache filled at login
+            String email = user.getEmail();
+            String sevarthId = email != null && email.contains("@") ? email.substring(0, email.indexOf('@')) : null;
+            LifecycleResults.deliver(this, UserProfileCache.getInstance(this).getByUidOrSevarthId(user.getUid(), sevarthId),
+                new LifecycleResults.Callback<UserProfile>() {
+                    @Override
+                    public void onSuccess(UserProfile profile) {
+                        if (profile != null) {
+                            processUserProfile(profile);
                         } else {
-                            // Try to find by email/sevarthId
-                            String email = user.getEmail();
-                            if (email != null && email.contains("@")) {
-                                String sevarthId = email.substring(0, email.indexOf('@'));
-                                
-                                // Query by sevarthId
-                                db.collection("users")
-                                    .whereEqualTo("sevarthId", sevarthId)
-                                    .limit(1)
-                                    .get()
-                                    .addOnSuccessListener(snapshots -> {
-                                        try {
-                                            if (!snapshots.isEmpty()) {
-                                                processUserDocument(snapshots.getDocuments().get(0));
-                                            } else {
-                                                Log.e(TAG, "User document not found in Firestore");
-                                                createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
-                                            }
-                                        } catch (Exception e) {
-                                            Log.e(TAG, "Error processing user by sevarthId: " + e.getMessage(), e);
-                                            createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
-                                        }
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error querying user by sevarthId: " + e.getMessage());
-                                        createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
-                                    });
-                            } else {
-                                Log.e(TAG, "User has no email");
-                                createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
-                            }
+                            Log.e(TAG, "User document not found in Firestore");
+                            createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
                         }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing user by UID: " + e.getMessage(), e);
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        Log.e(TAG, "Error querying user: " + error.getMessage());
                         createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error querying user by UID: " + e.getMessage());
-                    createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
                 });
         } catch (Exception e) {
             Log.e(TAG, "Error in fetchUserLocationFromFirestore: " + e.getMessage(), e);
@@ -190,45 +162,35 @@ public class UserAttendanceActivity extends AppCompatActivity {
         }
     }
     
-    private void processUserDocument(com.google.firebase.firestore.DocumentSnapshot userDoc) {
+    private void processUserProfile(UserProfile profile) {
         try {
-            // Get location IDs from user document
-            Object locationIdsObj = userDoc.get("locationIds");
-            if (locationIdsObj instanceof java.util.List) {
-                java.util.List<String> locationIds = (java.util.List<String>) locationIdsObj;
-                if (!locationIds.isEmpty()) {
-                    String locationId = locationIds.get(0);
-                    
-                    // Get location name if available
-                    String locationName = "";
-                    Object locationNamesObj = userDoc.get("locationNames");
-                    if (locationNamesObj instanceof java.util.List) {
-                        java.util.List<String> locationNames = (java.util.List<String>) locationNamesObj;
-                        if (!locationNames.isEmpty()) {
-                            locationName = locationNames.get(0);
-                        }
-                    }
-                    
-                    // Save to SharedPreferences
-                    SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-                    SharedPreferences.Editor editor = prefs.edit();
-                    editor.putString("selected_location_id", locationId);
-                    editor.putString("selected_location_name", locationName);
-                    editor.apply();
-                    
-                    // Fetch the actual location coordinates
-                    fetchLocationDataFromFirestore(locationId, locationName, 100);
-                } else {
-                    Log.e(TAG, "User has no assigned locations");
-                    Toast.makeText(this, "No locations assigned to your profile", Toast.LENGTH_LONG).show();
-                    createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
+            java.util.List<String> locationIds = profile.getLocationIds();
+            if (!locationIds.isEmpty()) {
+                String locationId = locationIds.get(0);
+                
+                // Get location name if available
+                String locationName = "";
+                java.util.List<String> locationNames = profile.getLocationNames();
+                if (!locationNames.isEmpty()) {
+                    locationName = locationNames.get(0);
                 }
+                
+                // Save to SharedPreferences
+                SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+                SharedPreferences.Editor editor = prefs.edit();
+                editor.putString("selected_location_id", locationId);
+                editor.putString("selected_location_name", locationName);
+                editor.apply();
+                
+                // Fetch the actual location coordinates
+                fetchLocationDataFromFirestore(locationId, locationName, 100);
             } else {
-                Log.e(TAG, "User has no locationIds field or it's not a list");
+                Log.e(TAG, "User has no assigned locations");
+                Toast.makeText(this, "No locations assigned to your profile", Toast.LENGTH_LONG).show();
                 createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error in processUserDocument: " + e.getMessage(), e);
+            Log.e(TAG, "Error in processUserProfile: " + e.getMessage(), e);
             createAttendanceFragmentWithLocation("", "", 0f, 0f, 100);
         }
     }
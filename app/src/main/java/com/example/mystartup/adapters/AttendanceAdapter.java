@@ -10,20 +10,31 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
 import com.example.mystartup.models.AttendanceRecord;
+import com.google.firebase.Timestamp;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.TimeZone;
 
-public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.AttendanceViewHolder> {
+/**
+ * Attendance history list. The full set of loaded records is kept here and the
+ * type-filtered view of it is submitted to {@link ListAdapter}, which diffs it
+ * off the main thread so filter changes and reloads only rebind changed rows.
+ */
+public class AttendanceAdapter extends ListAdapter<AttendanceRecord, AttendanceAdapter.AttendanceViewHolder> {
     private static final String TAG = "AttendanceAdapter";
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
     // Use a format for parsing the time from the database
@@ -39,15 +50,51 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
         TIME_DISPLAY_FORMAT.setTimeZone(istTimeZone);
     }
     
+    private static final DiffUtil.ItemCallback<AttendanceRecord> DIFF_CALLBACK = new DiffUtil.ItemCallback<AttendanceRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AttendanceRecord oldRecord, @NonNull AttendanceRecord newRecord) {
+            return Objects.equals(keyOf(oldRecord), keyOf(newRecord));
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull AttendanceRecord oldRecord, @NonNull AttendanceRecord newRecord) {
+            // Only the fields shown in the row
+            return Objects.equals(oldRecord.getDate(), newRecord.getDate())
+                    && Objects.equals(oldRecord.getTime(), newRecord.getTime())
+                    && Objects.equals(oldRecord.getType(), newRecord.getType())
+                    && Objects.equals(oldRecord.getOfficeName(), newRecord.getOfficeName())
+                    && Objects.equals(oldRecord.getLocationId(), newRecord.getLocationId())
+                    && Objects.equals(oldRecord.getTimestamp(), newRecord.getTimestamp());
+        }
+    };
+    
     private final Context context;
     private final List<AttendanceRecord> allRecords;
     private List<AttendanceRecord> filteredRecords;
+    private String currentType = "all";
     private int lastPosition = -1;
     
     public AttendanceAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
         this.allRecords = new ArrayList<>();
         this.filteredRecords = new ArrayList<>();
+        setHasStableIds(true);
+    }
+    
+    /**
+     * Records are keyed by Firestore document ID, falling back to what identifies a punch
+     */
+    private static String keyOf(AttendanceRecord record) {
+        if (record.getId() != null && !record.getId().isEmpty()) {
+            return record.getId();
+        }
+        return record.getSevarthId() + "|" + record.getDate() + "|" + record.getTime() + "|" + record.getType();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(keyOf(getItem(position)));
     }
     
     @NonNull
@@ -59,7 +106,7 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
     
     @Override
     public void onBindViewHolder(@NonNull AttendanceViewHolder holder, int position) {
-        AttendanceRecord record = filteredRecords.get(position);
+        AttendanceRecord record = getItem(position);
         holder.bind(record);
         
         // Apply animation to each item
@@ -74,19 +121,17 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
         }
     }
     
-    @Override
-    public int getItemCount() {
-        return filteredRecords.size();
-    }
-    
     /**
      * Update Records in the adapter with better error handling
      */
     public void setRecords(List<AttendanceRecord> newRecords) {
+        // Reset the animation position when data changes
+        lastPosition = -1;
+        
         if (newRecords == null) {
             allRecords.clear();
-            filteredRecords.clear();
-            notifyDataSetChanged();
+            filteredRecords = new ArrayList<>();
+            submitList(filteredRecords);
             return;
         }
         
@@ -101,18 +146,137 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
         allRecords.clear();
         allRecords.addAll(validRecords);
         
-        // By default, show all records
-        filteredRecords = new ArrayList<>(allRecords);
-        notifyDataSetChanged();
+        // Keep the selected type filter across reloads
+        filteredRecords = new ArrayList<>();
+        for (AttendanceRecord record : allRecords) {
+            if (matchesType(record, currentType)) {
+                filteredRecords.add(record);
+            }
+        }
+        submitList(filteredRecords);
+    }
+    
+    /**
+     * Append the next page of records, keeping the current type filter
+     */
+    public void appendRecords(List<AttendanceRecord> newRecords) {
+        if (newRecords == null || newRecords.isEmpty()) {
+            return;
+        }
+        
+        // The differ needs a new list instance to see the change
+        filteredRecords = new ArrayList<>(filteredRecords);
+        int inserted = 0;
+        for (AttendanceRecord record : newRecords) {
+            if (record == null) {
+                continue;
+            }
+            allRecords.add(record);
+            if (matchesType(record, currentType)) {
+                filteredRecords.add(record);
+                inserted++;
+            }
+        }
         
-        // Reset the animation position when data changes
-        lastPosition = -1;
+        if (inserted > 0) {
+            submitList(filteredRecords);
+        }
+    }
+    
+    /**
+     * Apply live changes to the loaded records, keeping newest-first order and the
+     * current type filter. Records already loaded are replaced in place.
+     *
+     * @param upserts Added or modified records
+     * @param removedIds Document IDs of removed records
+     */
+    public void applyChanges(List<AttendanceRecord> upserts, Collection<String> removedIds) {
+        if ((upserts == null || upserts.isEmpty()) && (removedIds == null || removedIds.isEmpty())) {
+            return;
+        }
+        
+        if (removedIds != null && !removedIds.isEmpty()) {
+            Iterator<AttendanceRecord> iterator = allRecords.iterator();
+            while (iterator.hasNext()) {
+                if (removedIds.contains(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+        
+        if (upserts != null) {
+            for (AttendanceRecord record : upserts) {
+                if (record == null) {
+                    continue;
+                }
+                int existing = indexOfId(record.getId());
+                if (existing >= 0) {
+                    allRecords.set(existing, record);
+                } else {
+                    allRecords.add(insertionIndex(record), record);
+                }
+            }
+        }
+        
+        filteredRecords = new ArrayList<>();
+        for (AttendanceRecord record : allRecords) {
+            if (matchesType(record, currentType)) {
+                filteredRecords.add(record);
+            }
+        }
+        submitList(filteredRecords);
+    }
+    
+    private int indexOfId(String id) {
+        if (id == null) {
+            return -1;
+        }
+        for (int i = 0; i < allRecords.size(); i++) {
+            if (id.equals(allRecords.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Position that keeps the records ordered newest first; records still waiting
+     * for their server timestamp go to the top
+     */
+    private int insertionIndex(AttendanceRecord record) {
+        Timestamp timestamp = record.getTimestamp();
+        if (timestamp == null) {
+            return 0;
+        }
+        for (int i = 0; i < allRecords.size(); i++) {
+            Timestamp other = allRecords.get(i).getTimestamp();
+            if (other != null && timestamp.compareTo(other) >= 0) {
+                return i;
+            }
+        }
+        return allRecords.size();
+    }
+    
+    /**
+     * @return Number of records loaded so far, regardless of the type filter
+     */
+    public int getLoadedCount() {
+        return allRecords.size();
+    }
+    
+    private static boolean matchesType(AttendanceRecord record, String type) {
+        return type == null || type.isEmpty() || "all".equalsIgnoreCase(type)
+                || (record.getType() != null && type.equalsIgnoreCase(record.getType()));
     }
     
     /**
      * Safely filter records by type
      */
     public void filterByType(String type) {
+        // Reset the animation position when filter changes
+        lastPosition = -1;
+        
+        currentType = type;
         filteredRecords = new ArrayList<>();
         
         if (type == null || type.isEmpty() || "all".equalsIgnoreCase(type)) {
@@ -127,10 +291,7 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
             }
         }
         
-        notifyDataSetChanged();
-        
-        // Reset the animation position when filter changes
-        lastPosition = -1;
+        submitList(filteredRecords);
     }
     
     class AttendanceViewHolder extends RecyclerView.ViewHolder {
@@ -7,6 +7,8 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
@@ -14,14 +16,37 @@ import com.example.mystartup.models.AttendanceReportItem;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class AttendanceReportAdapter extends RecyclerView.Adapter<AttendanceReportAdapter.ViewHolder> {
+public class AttendanceReportAdapter extends ListAdapter<AttendanceReportAdapter.NumberedItem, AttendanceReportAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<NumberedItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<NumberedItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull NumberedItem oldItem, @NonNull NumberedItem newItem) {
+            // Items are identified by date and office
+            return oldItem.item.equals(newItem.item);
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull NumberedItem oldItem, @NonNull NumberedItem newItem) {
+            // The serial number shifts when rows are inserted or removed above
+            return oldItem.serialNumber == newItem.serialNumber
+                    && Objects.equals(oldItem.item.getCheckInTime(), newItem.item.getCheckInTime())
+                    && Objects.equals(oldItem.item.getCheckOutTime(), newItem.item.getCheckOutTime());
+        }
+    };
+    
     private final Context context;
-    private final List<AttendanceReportItem> reportItems;
     
     public AttendanceReportAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.reportItems = new ArrayList<>();
+        setHasStableIds(true);
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        AttendanceReportItem item = getItem(position).item;
+        return StableIds.of(item.getDate() + "|" + item.getOfficeName());
     }
     
     @NonNull
@@ -33,10 +58,11 @@ public class AttendanceReportAdapter extends RecyclerView.Adapter<AttendanceRepo
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        AttendanceReportItem item = reportItems.get(position);
+        NumberedItem numbered = getItem(position);
+        AttendanceReportItem item = numbered.item;
         
         // Set serial number (1-based index)
-        holder.serialNumberText.setText((position + 1) + ".");
+        holder.serialNumberText.setText(numbered.serialNumber + ".");
         
         // Set date and office name
         holder.dateText.setText(item.getDate());
@@ -47,17 +73,24 @@ public class AttendanceReportAdapter extends RecyclerView.Adapter<AttendanceRepo
         holder.checkOutTimeText.setText(item.getCheckOutTime());
     }
     
-    @Override
-    public int getItemCount() {
-        return reportItems.size();
-    }
-    
     public void setItems(List<AttendanceReportItem> items) {
-        reportItems.clear();
+        List<NumberedItem> numbered = new ArrayList<>();
         if (items != null) {
-            reportItems.addAll(items);
+            for (AttendanceReportItem item : items) {
+                numbered.add(new NumberedItem(numbered.size() + 1, item));
+            }
+        }
+        submitList(numbered);
+    }
+    
+    static class NumberedItem {
+        final int serialNumber;
+        final AttendanceReportItem item;
+        
+        NumberedItem(int serialNumber, AttendanceReportItem item) {
+            this.serialNumber = serialNumber;
+            this.item = item;
         }
-        notifyDataSetChanged();
     }
     
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -7,26 +7,88 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
 import com.example.mystartup.models.OfficeLocation;
+import com.example.mystartup.utils.OfficeOccupancyCounter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-public class OfficeLocationAdapter extends RecyclerView.Adapter<OfficeLocationAdapter.OfficeLocationViewHolder> {
+/**
+ * Office location list backed by {@link ListAdapter}: submitted lists are diffed
+ * off the main thread, so a refresh only rebinds the offices that changed.
+ */
+public class OfficeLocationAdapter extends ListAdapter<OfficeLocation, OfficeLocationAdapter.OfficeLocationViewHolder> {
     
-    private List<OfficeLocation> locationList;
-    private OnOfficeLocationClickListener listener;
+    private static final DiffUtil.ItemCallback<OfficeLocation> DIFF_CALLBACK = new DiffUtil.ItemCallback<OfficeLocation>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull OfficeLocation oldLocation, @NonNull OfficeLocation newLocation) {
+            return Objects.equals(oldLocation.getId(), newLocation.getId());
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull OfficeLocation oldLocation, @NonNull OfficeLocation newLocation) {
+            // Only the fields shown in the row
+            return Objects.equals(oldLocation.getName(), newLocation.getName())
+                    && Objects.equals(oldLocation.getTaluka(), newLocation.getTaluka())
+                    && Objects.equals(oldLocation.getFormattedCoordinates(), newLocation.getFormattedCoordinates())
+                    && Objects.equals(oldLocation.getRadius(), newLocation.getRadius());
+        }
+    };
+    
+    // Rebinds only the occupancy line of a row
+    private static final Object PAYLOAD_OCCUPANCY = new Object();
+    
+    private final OnOfficeLocationClickListener listener;
+    private Map<String, OfficeOccupancyCounter.Totals> occupancy = new HashMap<>();
     
     public interface OnOfficeLocationClickListener {
         void onEditClick(OfficeLocation location);
         void onDeleteClick(OfficeLocation location);
     }
     
-    public OfficeLocationAdapter(List<OfficeLocation> locationList, OnOfficeLocationClickListener listener) {
-        this.locationList = locationList;
+    public OfficeLocationAdapter(OnOfficeLocationClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(getItem(position).getId());
+    }
+    
+    /**
+     * Show today's occupancy per office, rebinding only the offices whose counts changed
+     *
+     * @param totals Totals keyed by location ID
+     */
+    public void setOccupancy(Map<String, OfficeOccupancyCounter.Totals> totals) {
+        Map<String, OfficeOccupancyCounter.Totals> previous = occupancy;
+        occupancy = totals;
+        
+        List<OfficeLocation> locations = getCurrentList();
+        for (int i = 0; i < locations.size(); i++) {
+            String id = locations.get(i).getId();
+            if (!sameCounts(previous.get(id), totals.get(id))) {
+                notifyItemChanged(i, PAYLOAD_OCCUPANCY);
+            }
+        }
+    }
+    
+    private static boolean sameCounts(OfficeOccupancyCounter.Totals a, OfficeOccupancyCounter.Totals b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getPresent() == b.getPresent()
+                && a.getCheckIns() == b.getCheckIns()
+                && a.getCheckOuts() == b.getCheckOuts();
     }
     
     @NonNull
@@ -38,11 +100,12 @@ public class OfficeLocationAdapter extends RecyclerView.Adapter<OfficeLocationAd
     
     @Override
     public void onBindViewHolder(@NonNull OfficeLocationViewHolder holder, int position) {
-        OfficeLocation location = locationList.get(position);
+        OfficeLocation location = getItem(position);
         holder.nameTextView.setText(location.getName());
         holder.talukaTextView.setText(location.getTaluka());
         holder.coordinatesTextView.setText(location.getFormattedCoordinates());
         holder.radiusTextView.setText("Radius: " + location.getRadius() + "m");
+        bindOccupancy(holder, location);
         
         holder.editButton.setOnClickListener(v -> {
             if (listener != null) {
@@ -58,8 +121,23 @@ public class OfficeLocationAdapter extends RecyclerView.Adapter<OfficeLocationAd
     }
     
     @Override
-    public int getItemCount() {
-        return locationList.size();
+    public void onBindViewHolder(@NonNull OfficeLocationViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_OCCUPANCY)) {
+            bindOccupancy(holder, getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+    
+    private void bindOccupancy(OfficeLocationViewHolder holder, OfficeLocation location) {
+        OfficeOccupancyCounter.Totals totals = occupancy.get(location.getId());
+        if (totals == null) {
+            holder.occupancyTextView.setVisibility(View.GONE);
+            return;
+        }
+        holder.occupancyTextView.setText("Present now: " + totals.getPresent()
+                + " (" + totals.getCheckIns() + " in, " + totals.getCheckOuts() + " out today)");
+        holder.occupancyTextView.setVisibility(View.VISIBLE);
     }
     
     static class OfficeLocationViewHolder extends RecyclerView.ViewHolder {
@@ -67,6 +145,7 @@ public class OfficeLocationAdapter extends RecyclerView.Adapter<OfficeLocationAd
         TextView talukaTextView;
         TextView coordinatesTextView;
         TextView radiusTextView;
+        TextView occupancyTextView;
         ImageButton editButton;
         ImageButton deleteButton;
         
@@ -76,6 +155,7 @@ public class OfficeLocationAdapter extends RecyclerView.Adapter<OfficeLocationAd
             talukaTextView = itemView.findViewById(R.id.talukaTextView);
             coordinatesTextView = itemView.findViewById(R.id.coordinatesTextView);
             radiusTextView = itemView.findViewById(R.id.radiusTextView);
+            occupancyTextView = itemView.findViewById(R.id.occupancyTextView);
             editButton = itemView.findViewById(R.id.editButton);
             deleteButton = itemView.findViewById(R.id.deleteButton);
         }
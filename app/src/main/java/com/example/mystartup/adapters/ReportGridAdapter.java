@@ -0,0 +1,282 @@
+package com.example.mystartup.adapters;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.text.TextUtils;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.mystartup.R;
+import com.example.mystartup.models.AttendanceReportRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recycled grid for attendance reports. Rows are fixed-width cells, so the column
+ * header built by {@link #populateHeader(LinearLayout)} stays aligned with them,
+ * and an optional date header starts each day's section. New rows are diffed
+ * against the current ones off the main thread, so a refreshed report only
+ * rebinds the rows that changed.
+ */
+public class ReportGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private static final int VIEW_TYPE_SECTION = 0;
+    private static final int VIEW_TYPE_ROW = 1;
+    private static final int CELL_PADDING_PX = 12;
+    private static final int CELL_MARGIN_PX = 1;
+
+    /**
+     * Report columns with their fixed widths
+     */
+    public enum Column {
+        SERIAL("Sr. No.", 60),
+        DATE("Date", 110),
+        SEVARTH_ID("Sevarth ID", 120),
+        NAME("Name", 180),
+        OFFICE("Office Name", 180),
+        LOCATION("Location", 150),
+        CHECK_IN("Check-in", 100),
+        CHECK_OUT("Check-out", 100);
+
+        private final String title;
+        private final int widthDp;
+
+        Column(String title, int widthDp) {
+            this.title = title;
+            this.widthDp = widthDp;
+        }
+    }
+
+    private final Context context;
+    private final Column[] columns;
+    private final boolean sectionByDate;
+    private final AsyncListDiffer<Object> differ = new AsyncListDiffer<>(this, new DiffUtil.ItemCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof NumberedRow && newItem instanceof NumberedRow) {
+                AttendanceReportRow oldRow = ((NumberedRow) oldItem).row;
+                AttendanceReportRow newRow = ((NumberedRow) newItem).row;
+                return Objects.equals(oldRow.getDate(), newRow.getDate())
+                        && Objects.equals(oldRow.getSevarthId(), newRow.getSevarthId())
+                        && Objects.equals(oldRow.getUserId(), newRow.getUserId())
+                        && Objects.equals(oldRow.getOfficeName(), newRow.getOfficeName());
+            }
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof NumberedRow && newItem instanceof NumberedRow) {
+                NumberedRow oldRow = (NumberedRow) oldItem;
+                NumberedRow newRow = (NumberedRow) newItem;
+                return oldRow.serialNumber == newRow.serialNumber && oldRow.row.equals(newRow.row);
+            }
+            return oldItem.equals(newItem);
+        }
+    });
+    private final int colorEven;
+    private final int colorOdd;
+    private final int colorHeader;
+
+    /**
+     * @param columns The columns to show, in order
+     * @param sectionByDate Whether to start each date with a section header
+     */
+    public ReportGridAdapter(Context context, boolean sectionByDate, Column... columns) {
+        this.context = context;
+        this.columns = columns;
+        this.sectionByDate = sectionByDate;
+        this.colorEven = ContextCompat.getColor(context, R.color.tableRowEven);
+        this.colorOdd = ContextCompat.getColor(context, R.color.tableRowOdd);
+        this.colorHeader = ContextCompat.getColor(context, R.color.colorPrimary);
+    }
+
+    /**
+     * Replace the report rows; rows are expected in display order
+     */
+    public void setRows(List<AttendanceReportRow> rows) {
+        List<Object> items = new ArrayList<>();
+        String currentDate = null;
+        int serialNumber = 0;
+        for (AttendanceReportRow row : rows) {
+            if (sectionByDate && !TextUtils.equals(row.getDate(), currentDate)) {
+                currentDate = row.getDate();
+                items.add(currentDate != null ? currentDate : "");
+            }
+            items.add(new NumberedRow(++serialNumber, row));
+        }
+        differ.submitList(items);
+    }
+
+    /**
+     * Fill a horizontal layout with the column titles, sized like the row cells
+     */
+    public void populateHeader(LinearLayout headerRow) {
+        headerRow.removeAllViews();
+        headerRow.setBackgroundColor(colorHeader);
+        for (Column column : columns) {
+            TextView cell = createCell(column);
+            cell.setText(column.title);
+            cell.setTextColor(Color.WHITE);
+            cell.setTypeface(null, Typeface.BOLD);
+            cell.setBackgroundColor(colorHeader);
+            headerRow.addView(cell);
+        }
+    }
+
+    public boolean isSectionHeader(int position) {
+        List<Object> items = differ.getCurrentList();
+        return position >= 0 && position < items.size() && items.get(position) instanceof String;
+    }
+
+    /**
+     * @return The section title that applies to a position, or null without sections
+     */
+    public String getSectionTitle(int position) {
+        List<Object> items = differ.getCurrentList();
+        for (int i = Math.min(position, items.size() - 1); i >= 0; i--) {
+            if (items.get(i) instanceof String) {
+                return (String) items.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create a section header view, also used by {@link StickyHeaderDecoration}
+     */
+    public TextView createSectionHeaderView() {
+        TextView header = new TextView(context);
+        header.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        header.setPadding(CELL_PADDING_PX * 2, CELL_PADDING_PX, CELL_PADDING_PX * 2, CELL_PADDING_PX);
+        header.setBackgroundColor(ContextCompat.getColor(context, R.color.tableRowOdd));
+        header.setTextColor(colorHeader);
+        header.setTypeface(null, Typeface.BOLD);
+        return header;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return isSectionHeader(position) ? VIEW_TYPE_SECTION : VIEW_TYPE_ROW;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_SECTION) {
+            return new SectionViewHolder(createSectionHeaderView());
+        }
+
+        // Build the row's cells once; binding only swaps their text and colour
+        LinearLayout rowLayout = new LinearLayout(context);
+        rowLayout.setOrientation(LinearLayout.HORIZONTAL);
+        rowLayout.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        rowLayout.setBackgroundColor(ContextCompat.getColor(context, android.R.color.darker_gray));
+        TextView[] cells = new TextView[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            cells[i] = createCell(columns[i]);
+            rowLayout.addView(cells[i]);
+        }
+        return new RowViewHolder(rowLayout, cells);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Object item = differ.getCurrentList().get(position);
+        if (holder instanceof SectionViewHolder) {
+            ((SectionViewHolder) holder).title.setText((String) item);
+            return;
+        }
+
+        NumberedRow numberedRow = (NumberedRow) item;
+        RowViewHolder rowHolder = (RowViewHolder) holder;
+        int bgColor = numberedRow.serialNumber % 2 == 1 ? colorEven : colorOdd;
+        for (int i = 0; i < columns.length; i++) {
+            String text = cellText(columns[i], numberedRow);
+            rowHolder.cells[i].setText(text != null ? text : "");
+            rowHolder.cells[i].setBackgroundColor(bgColor);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    private TextView createCell(Column column) {
+        TextView cell = new TextView(context);
+        cell.setPadding(CELL_PADDING_PX, CELL_PADDING_PX, CELL_PADDING_PX, CELL_PADDING_PX);
+        cell.setGravity(Gravity.CENTER);
+        cell.setMaxLines(2);
+        cell.setEllipsize(TextUtils.TruncateAt.END);
+
+        int widthPx = Math.round(column.widthDp * context.getResources().getDisplayMetrics().density);
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(widthPx, ViewGroup.LayoutParams.MATCH_PARENT);
+        params.setMargins(CELL_MARGIN_PX, CELL_MARGIN_PX, CELL_MARGIN_PX, CELL_MARGIN_PX);
+        cell.setLayoutParams(params);
+        return cell;
+    }
+
+    private static String cellText(Column column, NumberedRow numberedRow) {
+        AttendanceReportRow row = numberedRow.row;
+        switch (column) {
+            case SERIAL:
+                return String.valueOf(numberedRow.serialNumber);
+            case DATE:
+                return row.getDate();
+            case SEVARTH_ID:
+                return row.getSevarthId();
+            case NAME:
+                return row.getUserName();
+            case OFFICE:
+            case LOCATION:
+                return row.getOfficeName();
+            case CHECK_IN:
+                return row.getCheckInTime();
+            case CHECK_OUT:
+                return row.getCheckOutTime();
+            default:
+                return "";
+        }
+    }
+
+    private static class NumberedRow {
+        final int serialNumber;
+        final AttendanceReportRow row;
+
+        NumberedRow(int serialNumber, AttendanceReportRow row) {
+            this.serialNumber = serialNumber;
+            this.row = row;
+        }
+    }
+
+    static class SectionViewHolder extends RecyclerView.ViewHolder {
+        final TextView title;
+
+        SectionViewHolder(@NonNull TextView itemView) {
+            super(itemView);
+            title = itemView;
+        }
+    }
+
+    static class RowViewHolder extends RecyclerView.ViewHolder {
+        final TextView[] cells;
+
+        RowViewHolder(@NonNull LinearLayout itemView, TextView[] cells) {
+            super(itemView);
+            this.cells = cells;
+        }
+    }
+}
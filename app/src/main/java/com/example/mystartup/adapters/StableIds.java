@@ -0,0 +1,30 @@
+package com.example.mystartup.adapters;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Stable RecyclerView item IDs derived from document keys
+ */
+final class StableIds {
+
+    private StableIds() {
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a key, so different documents practically never share an ID
+     *
+     * @param key Document ID or other unique key, may be null
+     * @return Item ID, or {@link RecyclerView#NO_ID} when there is no key
+     */
+    static long of(String key) {
+        if (key == null || key.isEmpty()) {
+            return RecyclerView.NO_ID;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.mystartup.adapters;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Pins the current section header of a {@link ReportGridAdapter} to the top of the
+ * list while its rows scroll underneath, pushing it up as the next section arrives.
+ */
+public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
+    private final ReportGridAdapter adapter;
+    private TextView headerView;
+
+    public StickyHeaderDecoration(ReportGridAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        View topChild = parent.getChildAt(0);
+        if (topChild == null) {
+            return;
+        }
+        int topPosition = parent.getChildAdapterPosition(topChild);
+        if (topPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        String title = adapter.getSectionTitle(topPosition);
+        if (title == null) {
+            return;
+        }
+
+        View header = getHeaderView(parent, title);
+
+        // Slide the pinned header up under the next section header
+        int offset = 0;
+        for (int i = 1; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            if (adapter.isSectionHeader(parent.getChildAdapterPosition(child))) {
+                if (child.getTop() < header.getHeight()) {
+                    offset = child.getTop() - header.getHeight();
+                }
+                break;
+            }
+        }
+
+        canvas.save();
+        canvas.translate(parent.getPaddingLeft(), offset);
+        header.draw(canvas);
+        canvas.restore();
+    }
+
+    private View getHeaderView(RecyclerView parent, String title) {
+        if (headerView == null) {
+            headerView = adapter.createSectionHeaderView();
+        }
+        headerView.setText(title);
+
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        headerView.measure(widthSpec, heightSpec);
+        headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
+        return headerView;
+    }
+}
@@ -8,26 +8,61 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
 import com.example.mystartup.models.User;
 
 import java.util.List;
+import java.util.Objects;
 
-public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
+/**
+ * User list backed by {@link ListAdapter}: submitted lists are diffed off the main
+ * thread, so a refresh only rebinds the users that actually changed.
+ */
+public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
     
-    private List<User> userList;
-    private OnUserClickListener listener;
+    private static final DiffUtil.ItemCallback<User> DIFF_CALLBACK = new DiffUtil.ItemCallback<User>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull User oldUser, @NonNull User newUser) {
+            return Objects.equals(keyOf(oldUser), keyOf(newUser));
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull User oldUser, @NonNull User newUser) {
+            // Only the fields shown in the row
+            return Objects.equals(oldUser.getFullName(), newUser.getFullName())
+                    && Objects.equals(oldUser.getSevarthId(), newUser.getSevarthId())
+                    && Objects.equals(oldUser.getEmail(), newUser.getEmail())
+                    && Objects.equals(oldUser.getLocationNames(), newUser.getLocationNames());
+        }
+    };
+    
+    private final OnUserClickListener listener;
     
     public interface OnUserClickListener {
         void onEditClick(User user);
         void onDeleteClick(User user);
     }
     
-    public UserAdapter(List<User> userList, OnUserClickListener listener) {
-        this.userList = userList;
+    public UserAdapter(OnUserClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+    
+    /**
+     * Users are keyed by Sevarth ID, which the lists already de-duplicate on
+     */
+    private static String keyOf(User user) {
+        return user.getSevarthId() != null && !user.getSevarthId().isEmpty() ? user.getSevarthId() : user.getId();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(keyOf(getItem(position)));
     }
     
     @NonNull
@@ -39,7 +74,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
     
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = userList.get(position);
+        User user = getItem(position);
         
         holder.userNameTextView.setText(user.getFullName());
         holder.sevarthIdTextView.setText("Sevarth ID: " + user.getSevarthId());
@@ -64,11 +99,6 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         });
     }
     
-    @Override
-    public int getItemCount() {
-        return userList.size();
-    }
-    
     static class UserViewHolder extends RecyclerView.ViewHolder {
         TextView userNameTextView;
         TextView sevarthIdTextView;
@@ -18,6 +18,10 @@ public interface ApiService {
     @POST("register/user")
     Call<AdminRegistrationResponse> registerUser(@Header("Authorization") String token, @Body AdminRegistrationRequest request);
 
+    /**
+     * All regular users. The server sends an ETag, so a repeat call is revalidated
+     * from the HTTP cache and unchanged lists come back as a 304 without a body.
+     */
     @GET("admin/users")
     Call<UsersResponse> getUsers(@Header("Authorization") String token);
     
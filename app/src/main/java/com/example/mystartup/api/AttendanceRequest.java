@@ -27,6 +27,11 @@ public class AttendanceRequest {
     @SerializedName("location_name")
     private String locationName;
     
+    // When the attendance was taken on the device. With the Sevarth ID it names the record,
+    // so a retry or a journal replay of a request the server already committed is a no-op
+    @SerializedName("recorded_at")
+    private long recordedAt = System.currentTimeMillis();
+    
     // Simple constructor for backward compatibility
     public AttendanceRequest(String sevarthId, String type, float verificationConfidence, String locationId) {
         this.sevarthId = sevarthId;
@@ -94,6 +99,17 @@ public class AttendanceRequest {
         this.userId = userId;
     }
     
+    public long getRecordedAt() {
+        return recordedAt;
+    }
+    
+    /**
+     * @return The record's document ID on the server, the same for every attempt
+     */
+    public String getAttendanceId() {
+        return sevarthId + "_" + recordedAt;
+    }
+    
     public String getLocationName() {
         return locationName;
     }
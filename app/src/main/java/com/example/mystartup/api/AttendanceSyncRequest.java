@@ -0,0 +1,66 @@
+package com.example.mystartup.api;
+
+import com.example.mystartup.utils.AttendanceJournal;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request model for replaying journaled attendance through the backend
+ */
+public class AttendanceSyncRequest {
+    @SerializedName("events")
+    private List<Event> events;
+    
+    public AttendanceSyncRequest(List<AttendanceJournal.Entry> entries) {
+        this.events = new ArrayList<>();
+        for (AttendanceJournal.Entry entry : entries) {
+            events.add(new Event(entry));
+        }
+    }
+    
+    public List<Event> getEvents() {
+        return events;
+    }
+    
+    /**
+     * One journaled attendance event
+     */
+    public static class Event {
+        @SerializedName("doc_id")
+        private String docId;
+        
+        @SerializedName("sevarth_id")
+        private String sevarthId;
+        
+        @SerializedName("user_name")
+        private String userName;
+        
+        @SerializedName("type")
+        private String type;
+        
+        @SerializedName("verification_confidence")
+        private float verificationConfidence;
+        
+        @SerializedName("location_id")
+        private String locationId;
+        
+        @SerializedName("recorded_at")
+        private long recordedAt;
+        
+        Event(AttendanceJournal.Entry entry) {
+            this.docId = entry.getDocId();
+            this.sevarthId = entry.getSevarthId();
+            this.userName = entry.getUserName();
+            this.type = entry.getType();
+            this.verificationConfidence = entry.getConfidence();
+            this.locationId = entry.getLocationId();
+            this.recordedAt = entry.getRecordedAt();
+        }
+        
+        public String getDocId() {
+            return docId;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.mystartup.api;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response model for the journal sync endpoint.
+ * Events are either synced (written now or by an earlier attempt) or rejected for
+ * good; either way they can leave the journal.
+ */
+public class AttendanceSyncResponse {
+    @SerializedName("success")
+    private boolean success;
+    
+    @SerializedName("message")
+    private String message;
+    
+    @SerializedName("synced")
+    private List<String> synced;
+    
+    @SerializedName("rejected")
+    private List<Rejection> rejected;
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public List<String> getSynced() {
+        return synced != null ? synced : new ArrayList<>();
+    }
+    
+    public List<Rejection> getRejected() {
+        return rejected != null ? rejected : new ArrayList<>();
+    }
+    
+    /**
+     * An event the backend will never accept
+     */
+    public static class Rejection {
+        @SerializedName("doc_id")
+        private String docId;
+        
+        @SerializedName("reason")
+        private String reason;
+        
+        public String getDocId() {
+            return docId;
+        }
+        
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.mystartup.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Timeouts for one API method, overriding the {@link NetworkProfile} defaults.
+ * Applied by {@link EndpointTimeoutInterceptor}; zero keeps the default.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EndpointTimeout {
+    int connectSeconds() default 0;
+
+    int readSeconds() default 0;
+
+    int writeSeconds() default 0;
+}
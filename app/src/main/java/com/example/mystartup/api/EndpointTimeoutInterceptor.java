@@ -0,0 +1,38 @@
+package com.example.mystartup.api;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Applies {@link EndpointTimeout} annotations. Retrofit tags each request with the
+ * service method that made it, so the timeouts follow the method, not the URL.
+ */
+class EndpointTimeoutInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Invocation invocation = chain.request().tag(Invocation.class);
+        EndpointTimeout timeout = invocation != null
+                ? invocation.method().getAnnotation(EndpointTimeout.class)
+                : null;
+        if (timeout == null) {
+            return chain.proceed(chain.request());
+        }
+
+        Chain timedChain = chain;
+        if (timeout.connectSeconds() > 0) {
+            timedChain = timedChain.withConnectTimeout(timeout.connectSeconds(), TimeUnit.SECONDS);
+        }
+        if (timeout.readSeconds() > 0) {
+            timedChain = timedChain.withReadTimeout(timeout.readSeconds(), TimeUnit.SECONDS);
+        }
+        if (timeout.writeSeconds() > 0) {
+            timedChain = timedChain.withWriteTimeout(timeout.writeSeconds(), TimeUnit.SECONDS);
+        }
+        return timedChain.proceed(chain.request());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.mystartup.api;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Face bounding box sent with a face-crop upload, in the crop's pixel coordinates.
+ * Field order follows the backend's (top, right, bottom, left) face location format.
+ */
+public class FaceBox {
+    @SerializedName("top")
+    private int top;
+    
+    @SerializedName("right")
+    private int right;
+    
+    @SerializedName("bottom")
+    private int bottom;
+    
+    @SerializedName("left")
+    private int left;
+    
+    public FaceBox(int top, int right, int bottom, int left) {
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.left = left;
+    }
+    
+    public int getTop() {
+        return top;
+    }
+    
+    public int getRight() {
+        return right;
+    }
+    
+    public int getBottom() {
+        return bottom;
+    }
+    
+    public int getLeft() {
+        return left;
+    }
+}
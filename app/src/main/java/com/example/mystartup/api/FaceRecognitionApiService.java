@@ -1,14 +1,24 @@
 package com.example.mystartup.api;
 
+import java.util.Map;
+
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Multipart;
 import retrofit2.http.POST;
+import retrofit2.http.Part;
+import retrofit2.http.PartMap;
 import retrofit2.http.Query;
 
 /**
- * API interface for face recognition and attendance-related endpoints
+ * API interface for face recognition and attendance-related endpoints.
+ * Face matching runs the model on the server, so those calls get longer
+ * timeouts than the {@link NetworkProfile} defaults; the health check gets shorter ones.
  */
 public interface FaceRecognitionApiService {
     
@@ -17,6 +27,7 @@ public interface FaceRecognitionApiService {
      * @param request Face registration request with sevarth_id and face_image as base64
      * @return Registration response
      */
+    @EndpointTimeout(readSeconds = 60, writeSeconds = 60)
     @POST("api/register-face")
     Call<FaceRegistrationResponse> registerFace(@Body FaceRegistrationRequest request);
     
@@ -25,9 +36,38 @@ public interface FaceRecognitionApiService {
      * @param request Face verification request with sevarth_id and face_image as base64
      * @return Verification response
      */
+    @EndpointTimeout(readSeconds = 60, writeSeconds = 60)
     @POST("api/verify-face")
     Call<FaceVerificationResponse> verifyFace(@Body FaceVerificationRequest request);
     
+    /**
+     * Register a user's face with the JPEG streamed as a binary multipart part
+     * @param sevarthId User's Sevarth ID
+     * @param faceImage JPEG image part named face_image
+     * @return Registration response
+     */
+    @EndpointTimeout(readSeconds = 60, writeSeconds = 60)
+    @Multipart
+    @POST("api/register-face-upload")
+    Call<FaceRegistrationResponse> registerFaceUpload(
+            @Part("sevarth_id") RequestBody sevarthId,
+            @Part MultipartBody.Part faceImage);
+    
+    /**
+     * Verify a user's face with the JPEG streamed as a binary multipart part
+     * @param sevarthId User's Sevarth ID
+     * @param faceBox Optional JSON face box when the image is only the face crop
+     * @param faceImage JPEG image part named face_image
+     * @return Verification response
+     */
+    @EndpointTimeout(readSeconds = 60, writeSeconds = 60)
+    @Multipart
+    @POST("api/verify-face-upload")
+    Call<FaceVerificationResponse> verifyFaceUpload(
+            @Part("sevarth_id") RequestBody sevarthId,
+            @Part("face_box") RequestBody faceBox,
+            @Part MultipartBody.Part faceImage);
+    
     /**
      * Mark attendance
      * @param request Attendance request with sevarth_id, type, and verification_confidence
@@ -36,6 +76,30 @@ public interface FaceRecognitionApiService {
     @POST("api/mark-attendance")
     Call<AttendanceResponse> markAttendance(@Body AttendanceRequest request);
     
+    /**
+     * Verify a user's face and mark attendance in a single round trip
+     * @param fields Text parts: sevarth_id, type, location_id, location_name, uid, user_name and optional face_box
+     * @param faceImage JPEG image part named face_image
+     * @return Verification result together with the attendance record
+     */
+    @EndpointTimeout(readSeconds = 60, writeSeconds = 60)
+    @Multipart
+    @POST("api/verify-and-mark")
+    Call<VerifyAndMarkResponse> verifyAndMarkAttendance(
+            @PartMap Map<String, RequestBody> fields,
+            @Part MultipartBody.Part faceImage);
+    
+    /**
+     * Replay attendance journaled while offline; the backend writes the records and the daily rollup
+     * @param authorization "Bearer " followed by the user's Firebase ID token
+     * @param request Journaled events, at most 50
+     * @return Which events were synced and which were rejected for good
+     */
+    @POST("api/attendance/sync")
+    Call<AttendanceSyncResponse> syncAttendanceJournal(
+            @Header("Authorization") String authorization,
+            @Body AttendanceSyncRequest request);
+    
     /**
      * Get attendance history for a user
      * @param sevarthId User's Sevarth ID
@@ -53,6 +117,7 @@ public interface FaceRecognitionApiService {
      * Health check endpoint
      * @return Health status
      */
+    @EndpointTimeout(connectSeconds = 5, readSeconds = 5, writeSeconds = 5)
     @GET("health")
     Call<ResponseBody> healthCheck();
 } 
\ No newline at end of file
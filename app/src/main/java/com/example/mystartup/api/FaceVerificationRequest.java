@@ -12,11 +12,26 @@ public class FaceVerificationRequest {
     @SerializedName("face_image")
     private String faceImage;
     
+    @SerializedName("face_cropped")
+    private boolean faceCropped;
+    
+    @SerializedName("face_box")
+    private FaceBox faceBox;
+    
     public FaceVerificationRequest(String sevarthId, String faceImage) {
         this.sevarthId = sevarthId;
         this.faceImage = faceImage;
     }
     
+    /**
+     * Create a request carrying only a face crop; the server can skip its own face detection
+     */
+    public FaceVerificationRequest(String sevarthId, String faceImage, FaceBox faceBox) {
+        this(sevarthId, faceImage);
+        this.faceCropped = true;
+        this.faceBox = faceBox;
+    }
+    
     public String getSevarthId() {
         return sevarthId;
     }
@@ -32,4 +47,12 @@ public class FaceVerificationRequest {
     public void setFaceImage(String faceImage) {
         this.faceImage = faceImage;
     }
+    
+    public boolean isFaceCropped() {
+        return faceCropped;
+    }
+    
+    public FaceBox getFaceBox() {
+        return faceBox;
+    }
 } 
\ No newline at end of file
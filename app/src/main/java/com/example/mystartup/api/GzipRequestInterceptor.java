@@ -0,0 +1,55 @@
+package com.example.mystartup.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Gzips JSON request bodies above a size threshold and marks them with
+ * Content-Encoding: gzip. Base64 face images in JSON shrink by about a quarter;
+ * binary multipart uploads are already compressed JPEGs and are left alone.
+ */
+class GzipRequestInterceptor implements Interceptor {
+    private final long minBytes;
+
+    /**
+     * @param minBytes Smallest body worth compressing
+     */
+    GzipRequestInterceptor(long minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null || !isJson(body.contentType())
+                || body.contentLength() < minBytes) {
+            return chain.proceed(request);
+        }
+
+        // Compress up front so the request keeps a known Content-Length
+        Buffer compressed = new Buffer();
+        try (BufferedSink gzipSink = Okio.buffer(new GzipSink(compressed))) {
+            body.writeTo(gzipSink);
+        }
+        RequestBody gzipped = RequestBody.create(compressed.readByteString(), body.contentType());
+
+        return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), gzipped)
+                .build());
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null && "json".equals(contentType.subtype());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mystartup.api;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Multipart request body that writes a JPEG-encoded bitmap straight from its
+ * encode buffer to the socket, without Base64 or intermediate String/byte[] copies.
+ */
+public class JpegRequestBody extends RequestBody {
+    private static final MediaType MEDIA_TYPE_JPEG = MediaType.parse("image/jpeg");
+
+    private final JpegBuffer buffer;
+
+    private JpegRequestBody(JpegBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Encode a bitmap as JPEG into a request body
+     *
+     * @param bitmap The image to encode
+     * @param quality JPEG quality (0-100)
+     * @return The request body
+     */
+    public static JpegRequestBody fromBitmap(Bitmap bitmap, int quality) {
+        // Typical face captures encode to well under 64 KB; start close to that to avoid regrowth
+        JpegBuffer buffer = new JpegBuffer(64 * 1024);
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, buffer);
+        return new JpegRequestBody(buffer);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE_JPEG;
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.size();
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        sink.write(buffer.array(), 0, buffer.size());
+    }
+
+    /**
+     * Exposes the backing array so the encoded bytes are never copied
+     */
+    private static class JpegBuffer extends ByteArrayOutputStream {
+        JpegBuffer(int initialSize) {
+            super(initialSize);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.mystartup.api;
+
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.ConnectionSpec;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Network settings for the backend client: timeouts, connection reuse and logging.
+ * Debug builds log request and response bodies; release builds log only the
+ * request line, so face images and tokens never reach logcat. Responses are
+ * kept in a small disk cache so lists the server marks with an ETag are
+ * revalidated with If-None-Match instead of downloaded again.
+ * Individual API methods can override the timeouts with {@link EndpointTimeout}.
+ */
+public final class NetworkProfile {
+    private static final String TAG = "NetworkProfile";
+    private static final long GZIP_MIN_BYTES = 1024;
+
+    private final long connectTimeoutSeconds;
+    private final long readTimeoutSeconds;
+    private final long writeTimeoutSeconds;
+    private final int maxIdleConnections;
+    private final long keepAliveSeconds;
+    private final int maxRequestsPerHost;
+    private final HttpLoggingInterceptor.Level logLevel;
+    private final int maxLogLineLength;
+    private final long gzipMinBytes;
+    private final long cacheSizeBytes;
+
+    private NetworkProfile(Builder builder) {
+        connectTimeoutSeconds = builder.connectTimeoutSeconds;
+        readTimeoutSeconds = builder.readTimeoutSeconds;
+        writeTimeoutSeconds = builder.writeTimeoutSeconds;
+        maxIdleConnections = builder.maxIdleConnections;
+        keepAliveSeconds = builder.keepAliveSeconds;
+        maxRequestsPerHost = builder.maxRequestsPerHost;
+        logLevel = builder.logLevel;
+        maxLogLineLength = builder.maxLogLineLength;
+        gzipMinBytes = builder.gzipMinBytes;
+        cacheSizeBytes = builder.cacheSizeBytes;
+    }
+
+    /**
+     * Profile for the current build type
+     *
+     * @param debug Usually BuildConfig.DEBUG
+     * @param gzipRequests Usually BuildConfig.GZIP_REQUESTS. Only turn it on once every
+     *                     backend instance decompresses gzip request bodies; older ones
+     *                     reject them.
+     */
+    public static NetworkProfile forBuild(boolean debug, boolean gzipRequests) {
+        Builder builder = debug ? debugBuilder() : releaseBuilder();
+        return builder.gzipMinBytes(gzipRequests ? GZIP_MIN_BYTES : -1).build();
+    }
+
+    /**
+     * Full bodies in logcat, truncated so a base64 image doesn't flood it
+     */
+    public static NetworkProfile debug() {
+        return debugBuilder().build();
+    }
+
+    /**
+     * Request and response lines only
+     */
+    public static NetworkProfile release() {
+        return releaseBuilder().build();
+    }
+
+    private static Builder debugBuilder() {
+        return new Builder()
+                .logLevel(HttpLoggingInterceptor.Level.BODY)
+                .maxLogLineLength(2048);
+    }
+
+    private static Builder releaseBuilder() {
+        return new Builder()
+                .logLevel(HttpLoggingInterceptor.Level.BASIC)
+                .maxLogLineLength(256);
+    }
+
+    /**
+     * Client builder configured with this profile, for the given base URL.
+     * Cleartext is only allowed when the base URL itself is plain HTTP.
+     *
+     * @param cacheDir Directory for the HTTP cache, or null to not cache responses
+     */
+    public OkHttpClient.Builder newClientBuilder(HttpUrl baseUrl, File cacheDir) {
+        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(new TruncatingLogger(maxLogLineLength));
+        loggingInterceptor.setLevel(logLevel);
+        loggingInterceptor.redactHeader("Authorization");
+        loggingInterceptor.redactHeader("Cookie");
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        List<ConnectionSpec> connectionSpecs = new ArrayList<>();
+        connectionSpecs.add(ConnectionSpec.MODERN_TLS);
+        if (!baseUrl.isHttps()) {
+            connectionSpecs.add(ConnectionSpec.CLEARTEXT);
+        }
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                // HTTP/2 is negotiated over TLS via ALPN; plain HTTP stays on HTTP/1.1
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionSpecs(connectionSpecs)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(new EndpointTimeoutInterceptor());
+        if (cacheDir != null && cacheSizeBytes > 0) {
+            builder.cache(new Cache(cacheDir, cacheSizeBytes));
+        }
+        if (gzipMinBytes >= 0) {
+            builder.addInterceptor(new GzipRequestInterceptor(gzipMinBytes));
+        }
+        // Last, so it logs what actually goes on the wire
+        builder.addInterceptor(loggingInterceptor);
+        return builder;
+    }
+
+    public long getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public long getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    public long getWriteTimeoutSeconds() {
+        return writeTimeoutSeconds;
+    }
+
+    public HttpLoggingInterceptor.Level getLogLevel() {
+        return logLevel;
+    }
+
+    /**
+     * Builder for custom profiles; defaults suit the single backend host
+     */
+    public static final class Builder {
+        private long connectTimeoutSeconds = 15;
+        private long readTimeoutSeconds = 30;
+        private long writeTimeoutSeconds = 30;
+        // The app talks to one host; a few warm connections cover the report screens
+        private int maxIdleConnections = 4;
+        private long keepAliveSeconds = 120;
+        private int maxRequestsPerHost = 6;
+        private HttpLoggingInterceptor.Level logLevel = HttpLoggingInterceptor.Level.BASIC;
+        private int maxLogLineLength = 2048;
+        // Off unless asked for, since the backend may not decompress request bodies yet
+        private long gzipMinBytes = -1;
+        // Location and user lists are a few hundred KB at most
+        private long cacheSizeBytes = 5L * 1024 * 1024;
+
+        public Builder connectTimeoutSeconds(long seconds) {
+            connectTimeoutSeconds = seconds;
+            return this;
+        }
+
+        public Builder readTimeoutSeconds(long seconds) {
+            readTimeoutSeconds = seconds;
+            return this;
+        }
+
+        public Builder writeTimeoutSeconds(long seconds) {
+            writeTimeoutSeconds = seconds;
+            return this;
+        }
+
+        public Builder connectionPool(int maxIdleConnections, long keepAliveSeconds) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveSeconds = keepAliveSeconds;
+            return this;
+        }
+
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        public Builder logLevel(HttpLoggingInterceptor.Level logLevel) {
+            this.logLevel = logLevel;
+            return this;
+        }
+
+        /**
+         * @param maxLogLineLength Longest logged line; longer lines are cut
+         */
+        public Builder maxLogLineLength(int maxLogLineLength) {
+            this.maxLogLineLength = maxLogLineLength;
+            return this;
+        }
+
+        /**
+         * @param gzipMinBytes Smallest JSON body to gzip, or -1 to never gzip
+         */
+        public Builder gzipMinBytes(long gzipMinBytes) {
+            this.gzipMinBytes = gzipMinBytes;
+            return this;
+        }
+
+        /**
+         * @param cacheSizeBytes Disk cache limit, or 0 to not cache responses
+         */
+        public Builder cacheSizeBytes(long cacheSizeBytes) {
+            this.cacheSizeBytes = cacheSizeBytes;
+            return this;
+        }
+
+        public NetworkProfile build() {
+            return new NetworkProfile(this);
+        }
+    }
+
+    /**
+     * Logs through logcat, cutting lines that would be mostly base64 image data
+     */
+    private static final class TruncatingLogger implements HttpLoggingInterceptor.Logger {
+        private final int maxLength;
+
+        TruncatingLogger(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void log(String message) {
+            if (message.length() > maxLength) {
+                Log.d(TAG, message.substring(0, maxLength) + "… (" + message.length() + " chars)");
+            } else {
+                Log.d(TAG, message);
+            }
+        }
+    }
+}
@@ -15,6 +15,9 @@ import retrofit2.http.Path;
 
 public interface OfficeLocationApiService {
     
+    /**
+     * All office locations, revalidated with If-None-Match like {@link ApiService#getUsers}
+     */
     @GET("admin/locations")
     Call<LocationsResponse> getLocations(@Header("Authorization") String token);
     
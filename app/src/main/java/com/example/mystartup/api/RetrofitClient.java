@@ -1,17 +1,24 @@
 package com.example.mystartup.api;
 
-import java.util.concurrent.TimeUnit;
+import android.content.Context;
+
+import com.example.mystartup.BuildConfig;
+
+import java.io.File;
+
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
- * Singleton class to manage Retrofit instance
+ * Singleton class to manage Retrofit instance.
+ * The first caller that passes a context also gives the client its HTTP cache.
  */
 public class RetrofitClient {
-    // Updated to AWS backend URL
-    private static final String BASE_URL = "http://face-recognition-lb-297173275.eu-north-1.elb.amazonaws.com/";
+    // Set per build type in app/build.gradle.kts
+    private static final String BASE_URL = BuildConfig.API_BASE_URL;
+    private static final String HTTP_CACHE_DIR = "http";
     
     private static RetrofitClient instance = null;
     private final Retrofit retrofit;
@@ -19,18 +26,10 @@ public class RetrofitClient {
     private final OfficeLocationApiService officeLocationApiService;
     private final FaceRecognitionApiService faceRecognitionApiService;
 
-    private RetrofitClient() {
-        // Create logging interceptor
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-        // Configure OkHttpClient with timeouts and logging
-        OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .addInterceptor(loggingInterceptor)
-            .retryOnConnectionFailure(true)
+    private RetrofitClient(File cacheDir) {
+        // Timeouts, connection reuse, logging and caching depend on the build type
+        OkHttpClient client = NetworkProfile.forBuild(BuildConfig.DEBUG, BuildConfig.GZIP_REQUESTS)
+            .newClientBuilder(HttpUrl.get(BASE_URL), cacheDir)
             .build();
 
         // Create Retrofit instance
@@ -46,9 +45,24 @@ public class RetrofitClient {
         faceRecognitionApiService = retrofit.create(FaceRecognitionApiService.class);
     }
 
+    /**
+     * Shared client; built without an HTTP cache if no context was passed yet
+     */
     public static synchronized RetrofitClient getInstance() {
         if (instance == null) {
-            instance = new RetrofitClient();
+            instance = new RetrofitClient(null);
+        }
+        return instance;
+    }
+
+    /**
+     * Shared client with its HTTP cache in the app's cache directory
+     *
+     * @param context Any context
+     */
+    public static synchronized RetrofitClient getInstance(Context context) {
+        if (instance == null) {
+            instance = new RetrofitClient(new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR));
         }
         return instance;
     }
@@ -0,0 +1,41 @@
+package com.example.mystartup.api;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Response model for the combined verify-and-mark endpoint.
+ * Carries the face verification result alongside the attendance fields,
+ * which are only populated when the face was verified.
+ */
+public class VerifyAndMarkResponse extends AttendanceResponse {
+    @SerializedName("verified")
+    private boolean verified;
+    
+    @SerializedName("confidence")
+    private float confidence;
+    
+    public boolean isVerified() {
+        return verified;
+    }
+    
+    public void setVerified(boolean verified) {
+        this.verified = verified;
+    }
+    
+    public float getConfidence() {
+        return confidence;
+    }
+    
+    public void setConfidence(float confidence) {
+        this.confidence = confidence;
+    }
+    
+    @Override
+    public String toString() {
+        return "VerifyAndMarkResponse{" +
+                "verified=" + verified +
+                ", confidence=" + confidence +
+                ", " + super.toString() +
+                '}';
+    }
+}
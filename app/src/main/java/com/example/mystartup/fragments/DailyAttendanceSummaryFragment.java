@@ -1,33 +1,40 @@
 package com.example.mystartup.fragments;
 
 import android.app.DatePickerDialog;
-import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TableLayout;
-import android.widget.TableRow;
-import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
 
-import com.example.mystartup.R;
+import com.example.mystartup.adapters.ReportGridAdapter;
+import com.example.mystartup.adapters.StickyHeaderDecoration;
 import com.example.mystartup.databinding.FragmentDailyAttendanceSummaryBinding;
 import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
+import com.example.mystartup.utils.AttendanceReportCache;
+import com.example.mystartup.utils.AttendanceReportEngine;
+import com.example.mystartup.utils.AttendanceReportExporter;
+import com.example.mystartup.utils.DailyAttendanceRollup;
+import com.example.mystartup.utils.ReportExportLauncher;
+import com.example.mystartup.utils.ReportRowWriter;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -41,8 +48,14 @@ public class DailyAttendanceSummaryFragment extends Fragment {
     private SimpleDateFormat displayDateFormatter;
     private SimpleDateFormat apiDateFormatter;
     private FirebaseFirestore db;
-    private int colorEven;
-    private int colorOdd;
+    private ReportGridAdapter reportGridAdapter;
+    private ReportExportLauncher exportLauncher;
+    // Date of the report on screen, for export
+    private String reportDate;
+    // Opt-in live mode: the day's records, kept in sync from document changes
+    private ListenerRegistration liveListener;
+    private final Map<String, AttendanceRecord> liveRecords = new HashMap<>();
+    private boolean liveReportShown;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -51,6 +64,7 @@ public class DailyAttendanceSummaryFragment extends Fragment {
         displayDateFormatter = new SimpleDateFormat("dd/MM/yyyy", Locale.US);
         apiDateFormatter = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
         db = FirebaseFirestore.getInstance();
+        exportLauncher = new ReportExportLauncher(this);
     }
 
     @Nullable
@@ -65,13 +79,18 @@ public class DailyAttendanceSummaryFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         
         try {
-            // Initialize row colors for alternating table rows
-            colorEven = ContextCompat.getColor(requireContext(), R.color.tableRowEven);
-            colorOdd = ContextCompat.getColor(requireContext(), R.color.tableRowOdd);
-            
         setupDatePicker();
         setupGenerateReportButton();
-            setupReportTable();
+            setupReportGrid();
+            exportLauncher.bindStatusViews(binding.exportProgressBar, binding.exportStatusText);
+            binding.exportButton.setOnClickListener(v -> showExportOptions());
+            binding.liveUpdatesSwitch.setOnCheckedChangeListener((button, isChecked) -> {
+                if (!isChecked) {
+                    stopLiveUpdates();
+                } else if (reportDate != null) {
+                    startLiveUpdates(reportDate);
+                }
+            });
             
             // Set today's date as default
             String today = displayDateFormatter.format(calendar.getTime());
@@ -87,51 +106,19 @@ public class DailyAttendanceSummaryFragment extends Fragment {
         }
     }
 
-    private void setupReportTable() {
-        try {
-            // Ensure the table layout exists in the binding
-            if (binding.attendanceTable == null) {
-                Log.e(TAG, "Table layout not found in the binding");
-                return;
-            }
-            
-            // Create table header
-            TableRow headerRow = new TableRow(requireContext());
-            headerRow.setBackgroundColor(ContextCompat.getColor(requireContext(), R.color.colorPrimary));
-            headerRow.setPadding(2, 2, 2, 2);
-            
-            // Add header columns
-            headerRow.addView(createHeaderCell("Sr. No."));
-            headerRow.addView(createHeaderCell("Sevarth ID"));
-            headerRow.addView(createHeaderCell("Name"));
-            headerRow.addView(createHeaderCell("Location"));
-            headerRow.addView(createHeaderCell("Check-in"));
-            headerRow.addView(createHeaderCell("Check-out"));
-            
-            binding.attendanceTable.addView(headerRow);
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting up report table", e);
-        }
-    }
-    
-    private TextView createHeaderCell(String text) {
-        TextView cell = new TextView(requireContext());
-        cell.setText(text);
-        cell.setPadding(12, 12, 12, 12);
-        cell.setTextColor(Color.WHITE);
-        cell.setBackgroundColor(ContextCompat.getColor(requireContext(), R.color.colorPrimary));
-        cell.setGravity(android.view.Gravity.CENTER);
-        cell.setTypeface(null, android.graphics.Typeface.BOLD);
-        
-        // Set layout parameters with margins for borders
-        TableRow.LayoutParams params = new TableRow.LayoutParams(
-            TableRow.LayoutParams.WRAP_CONTENT,
-            TableRow.LayoutParams.WRAP_CONTENT
-        );
-        params.setMargins(1, 1, 1, 1);
-        cell.setLayoutParams(params);
-        
-        return cell;
+    private void setupReportGrid() {
+        // Rows are recycled as they scroll; the header row above the list stays put
+        reportGridAdapter = new ReportGridAdapter(requireContext(), false,
+                ReportGridAdapter.Column.SERIAL,
+                ReportGridAdapter.Column.SEVARTH_ID,
+                ReportGridAdapter.Column.NAME,
+                ReportGridAdapter.Column.LOCATION,
+                ReportGridAdapter.Column.CHECK_IN,
+                ReportGridAdapter.Column.CHECK_OUT);
+        reportGridAdapter.populateHeader(binding.reportHeaderRow);
+        binding.reportGrid.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.reportGrid.setAdapter(reportGridAdapter);
+        binding.reportGrid.addItemDecoration(new StickyHeaderDecoration(reportGridAdapter));
     }
 
     private void setupDatePicker() {
@@ -181,6 +168,7 @@ public class DailyAttendanceSummaryFragment extends Fragment {
 
     private void generateReport(String date) {
         Log.d(TAG, "Generating report for date: " + date);
+        reportDate = date;
         
         if (binding.progressBar != null) {
             binding.progressBar.setVisibility(View.VISIBLE);
@@ -190,148 +178,54 @@ public class DailyAttendanceSummaryFragment extends Fragment {
             binding.resultsContainer.setVisibility(View.GONE);
         }
         
-        // Clear existing table rows except header
-        clearTableRows();
+        // Clear rows from the previous report
+        stopLiveUpdates();
+        reportGridAdapter.setRows(new ArrayList<>());
+        
+        if (binding.liveUpdatesSwitch.isChecked()) {
+            startLiveUpdates(date);
+            return;
+        }
         
+        // The pre-aggregated rollup is one small document per user instead of every record,
+        // but only for days it holds completely
+        DailyAttendanceRollup.coverage(db)
+            .get()
+            .addOnSuccessListener(coverage -> {
+                if (DailyAttendanceRollup.covers(coverage, date)) {
+                    generateReportFromRollup(date);
+                } else {
+                    // Days before the rollup was complete are only whole in the raw records
+                    generateReportFromRecords(date);
+                }
+            })
+            .addOnFailureListener(e -> {
+                Log.w(TAG, "Error reading rollup coverage, falling back to records", e);
+                generateReportFromRecords(date);
+            });
+    }
+    
+    private void generateReportFromRollup(String date) {
+        DailyAttendanceRollup.usersForDate(db, date)
+            .get()
+            .addOnSuccessListener(entries -> {
+                Log.d(TAG, "Using daily rollup for " + date + ": " + entries.size() + " users");
+                processDailyRollup(date, entries);
+            })
+            .addOnFailureListener(e -> {
+                Log.w(TAG, "Error reading daily rollup, falling back to records", e);
+                generateReportFromRecords(date);
+            });
+    }
+    
+    private void generateReportFromRecords(String date) {
         // Query Firestore for all attendance records for the selected date
         db.collection("face-recognition-attendance")
             .whereEqualTo("date", date)
             .get()
             .addOnSuccessListener(queryDocumentSnapshots -> {
                 Log.d(TAG, "Query successful. Got " + queryDocumentSnapshots.size() + " attendance records");
-                
-                try {
-                    // Group records by user (sevarthId or userId) to associate check-ins with check-outs
-                    Map<String, Map<String, AttendanceRecord>> userRecords = new HashMap<>();
-                    
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        try {
-                            String userId = document.getString("userId");
-                            String sevarthId = document.getString("sevarthId");
-                            String type = document.getString("type");
-                            
-                            if (type == null) {
-                                continue; // Skip records without a type
-                            }
-                            
-                            // Use sevarthId as primary key, fall back to userId if not available
-                            String userKey = (sevarthId != null && !sevarthId.isEmpty()) ? sevarthId : userId;
-                            
-                            if (userKey == null || userKey.isEmpty()) {
-                                Log.w(TAG, "Record without valid user identifier: " + document.getId());
-                                continue;
-                            }
-                            
-                            // Get or create the user's records map
-                            Map<String, AttendanceRecord> recordsMap = userRecords.get(userKey);
-                            if (recordsMap == null) {
-                                recordsMap = new HashMap<>();
-                                userRecords.put(userKey, recordsMap);
-                            }
-                            
-                            // Create attendance record
-                            AttendanceRecord record = new AttendanceRecord();
-                            record.setId(document.getId());
-                            record.setDate(document.getString("date"));
-                            record.setUserId(userId);
-                            record.setUserName(document.getString("userName"));
-                            record.setSevarthId(sevarthId);
-                            
-                            // Get office name with fallbacks for different field names
-                            String officeName = document.getString("officeName");
-                            if (officeName == null || officeName.isEmpty()) {
-                                officeName = document.getString("locationName");
-                            }
-                            if (officeName == null || officeName.isEmpty()) {
-                                officeName = document.getString("office_name");
-                            }
-                            if (officeName == null || officeName.isEmpty()) {
-                                officeName = "Unknown Location";
-                            }
-                            record.setOfficeName(officeName);
-                            
-                            record.setTime(document.getString("time"));
-                            record.setType(type);
-                            
-                            // Store by type (check_in or check_out)
-                            recordsMap.put(type, record);
-                            
-                            Log.d(TAG, "Processed record: " + userKey + ", type=" + type + ", location=" + officeName);
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error processing record: " + document.getId(), e);
-                        }
-                    }
-                    
-                    // Convert to a list of data objects for the table
-                    List<AttendanceTableRow> tableData = new ArrayList<>();
-                    
-                    for (Map.Entry<String, Map<String, AttendanceRecord>> entry : userRecords.entrySet()) {
-                        Map<String, AttendanceRecord> records = entry.getValue();
-                        
-                        // Get check-in and check-out records
-                        AttendanceRecord checkIn = records.get("check_in");
-                        AttendanceRecord checkOut = records.get("check_out");
-                        
-                        // Use either record for user details, preferring check-in
-                        AttendanceRecord primaryRecord = checkIn != null ? checkIn : checkOut;
-                        
-                        if (primaryRecord != null) {
-                            AttendanceTableRow tableRow = new AttendanceTableRow();
-                            tableRow.sevarthId = primaryRecord.getSevarthId() != null ? primaryRecord.getSevarthId() : "";
-                            tableRow.userName = primaryRecord.getUserName() != null ? primaryRecord.getUserName() : "";
-                            tableRow.location = primaryRecord.getOfficeName() != null ? primaryRecord.getOfficeName() : "";
-                            tableRow.checkInTime = checkIn != null ? checkIn.getTime() : "-";
-                            tableRow.checkOutTime = checkOut != null ? checkOut.getTime() : "-";
-                            
-                            tableData.add(tableRow);
-                        }
-                    }
-                    
-                    // Sort alphabetically by name
-                    Collections.sort(tableData, (a, b) -> a.userName.compareToIgnoreCase(b.userName));
-                    
-                    // Add data to the table
-                    if (tableData.isEmpty()) {
-                        if (binding.noRecordsText != null) {
-                            binding.noRecordsText.setVisibility(View.VISIBLE);
-                        }
-                        if (binding.attendanceTable != null) {
-                            binding.attendanceTable.setVisibility(View.GONE);
-                        }
-                        
-                        Toast.makeText(requireContext(), "No attendance records found for this date", Toast.LENGTH_SHORT).show();
-                    } else {
-                        if (binding.noRecordsText != null) {
-                            binding.noRecordsText.setVisibility(View.GONE);
-                        }
-                        if (binding.attendanceTable != null) {
-                            binding.attendanceTable.setVisibility(View.VISIBLE);
-                        }
-                        
-                        // Add rows to the table
-                        for (int i = 0; i < tableData.size(); i++) {
-                            AttendanceTableRow data = tableData.get(i);
-                            addTableRow(i + 1, data, i % 2 == 0);
-                        }
-                        
-                        // Show success toast
-                        Toast.makeText(requireContext(), 
-                            "Showing " + tableData.size() + " attendance records for selected date", 
-                            Toast.LENGTH_SHORT).show();
-                    }
-                    
-                    // Show results container
-                    if (binding.resultsContainer != null) {
-                        binding.resultsContainer.setVisibility(View.VISIBLE);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing attendance data", e);
-                    Toast.makeText(requireContext(), "Error processing attendance data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                } finally {
-                    if (binding.progressBar != null) {
-                        binding.progressBar.setVisibility(View.GONE);
-                    }
-                }
+                processQueryResults(queryDocumentSnapshots);
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error fetching attendance records", e);
@@ -395,133 +289,136 @@ public class DailyAttendanceSummaryFragment extends Fragment {
     }
     
     private void processQueryResults(com.google.firebase.firestore.QuerySnapshot queryDocumentSnapshots) {
-        try {
-            // Group records by user (sevarthId or userId) to associate check-ins with check-outs
-            Map<String, Map<String, AttendanceRecord>> userRecords = new HashMap<>();
-            
-            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                try {
-                    String userId = document.getString("userId");
-                    String sevarthId = document.getString("sevarthId");
-                    String type = document.getString("type");
-                    
-                    if (type == null) {
-                        continue; // Skip records without a type
-                    }
-                    
-                    // Use sevarthId as primary key, fall back to userId if not available
-                    String userKey = (sevarthId != null && !sevarthId.isEmpty()) ? sevarthId : userId;
-                    
-                    if (userKey == null || userKey.isEmpty()) {
-                        Log.w(TAG, "Record without valid user identifier: " + document.getId());
-                        continue;
-                    }
-                    
-                    // Get or create the user's records map
-                    Map<String, AttendanceRecord> recordsMap = userRecords.get(userKey);
-                    if (recordsMap == null) {
-                        recordsMap = new HashMap<>();
-                        userRecords.put(userKey, recordsMap);
-                    }
-                    
-                    // Create attendance record
-                    AttendanceRecord record = new AttendanceRecord();
-                    record.setId(document.getId());
-                    record.setDate(document.getString("date"));
-                    record.setUserId(userId);
-                    record.setUserName(document.getString("userName"));
-                    record.setSevarthId(sevarthId);
-                    
-                    // Get office name with fallbacks for different field names
-                    String officeName = document.getString("officeName");
-                    if (officeName == null || officeName.isEmpty()) {
-                        officeName = document.getString("locationName");
-                    }
-                    if (officeName == null || officeName.isEmpty()) {
-                        officeName = document.getString("office_name");
+        List<AttendanceRecord> records = new ArrayList<>();
+        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+            records.add(toReportRecord(document));
+        }
+        computeReport(records, true);
+    }
+    
+    private static AttendanceRecord toReportRecord(DocumentSnapshot document) {
+        AttendanceRecord record = AttendanceReportCache.fromDocument(document);
+        if (record.getDate() == null) {
+            record.setDate(document.getString("attendanceDate"));
+        }
+        if (record.getOfficeName() == null || record.getOfficeName().isEmpty()) {
+            record.setOfficeName("Unknown Location");
+        }
+        return record;
+    }
+    
+    /**
+     * @param announce Whether to toast the result; live refreshes stay quiet
+     */
+    private void computeReport(List<AttendanceRecord> records, boolean announce) {
+        // Pair each user's check-in and check-out off the main thread
+        AttendanceReportEngine.getInstance().compute(records, AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                new AttendanceReportEngine.RowsCallback() {
+                    @Override
+                    public void onRows(List<AttendanceReportRow> rows) {
+                        if (binding == null) return;
+                        showTableData(rows, announce);
+                        if (binding.progressBar != null) {
+                            binding.progressBar.setVisibility(View.GONE);
+                        }
                     }
-                    if (officeName == null || officeName.isEmpty()) {
-                        officeName = "Unknown Location";
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        if (binding == null) return;
+                        Log.e(TAG, "Error processing attendance data: " + errorMessage);
+                        Toast.makeText(requireContext(), "Error processing attendance data: " + errorMessage, Toast.LENGTH_SHORT).show();
+                        if (binding.progressBar != null) {
+                            binding.progressBar.setVisibility(View.GONE);
+                        }
                     }
-                    record.setOfficeName(officeName);
-                    
-                    record.setTime(document.getString("time"));
-                    record.setType(type);
-                    
-                    // Store by type (check_in or check_out)
-                    recordsMap.put(type, record);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing record: " + document.getId(), e);
-                }
-            }
-            
-            // Convert to a list of data objects for the table
-            List<AttendanceTableRow> tableData = new ArrayList<>();
-            
-            for (Map.Entry<String, Map<String, AttendanceRecord>> entry : userRecords.entrySet()) {
-                Map<String, AttendanceRecord> records = entry.getValue();
-                
-                // Get check-in and check-out records
-                AttendanceRecord checkIn = records.get("check_in");
-                AttendanceRecord checkOut = records.get("check_out");
-                
-                // Use either record for user details, preferring check-in
-                AttendanceRecord primaryRecord = checkIn != null ? checkIn : checkOut;
-                
-                if (primaryRecord != null) {
-                    AttendanceTableRow tableRow = new AttendanceTableRow();
-                    tableRow.sevarthId = primaryRecord.getSevarthId() != null ? primaryRecord.getSevarthId() : "";
-                    tableRow.userName = primaryRecord.getUserName() != null ? primaryRecord.getUserName() : "";
-                    tableRow.location = primaryRecord.getOfficeName() != null ? primaryRecord.getOfficeName() : "";
-                    tableRow.checkInTime = checkIn != null ? checkIn.getTime() : "-";
-                    tableRow.checkOutTime = checkOut != null ? checkOut.getTime() : "-";
-                    
-                    tableData.add(tableRow);
-                }
-            }
-            
-            // Sort alphabetically by name
-            Collections.sort(tableData, (a, b) -> a.userName.compareToIgnoreCase(b.userName));
-            
-            // Add data to the table
-            if (tableData.isEmpty()) {
-                if (binding.noRecordsText != null) {
-                    binding.noRecordsText.setVisibility(View.VISIBLE);
-                }
-                if (binding.attendanceTable != null) {
-                    binding.attendanceTable.setVisibility(View.GONE);
-                }
-                
-                Toast.makeText(requireContext(), "No attendance records found for this date", Toast.LENGTH_SHORT).show();
-            } else {
-                if (binding.noRecordsText != null) {
-                    binding.noRecordsText.setVisibility(View.GONE);
-                }
-                if (binding.attendanceTable != null) {
-                    binding.attendanceTable.setVisibility(View.VISIBLE);
+                });
+    }
+    
+    /**
+     * Keep the report for a date in sync with a snapshot listener. The first
+     * snapshot loads the day; after that only changed documents are downloaded,
+     * applied to the in-memory records and re-paired off the main thread.
+     */
+    private void startLiveUpdates(String date) {
+        stopLiveUpdates();
+        liveRecords.clear();
+        liveReportShown = false;
+        
+        Log.d(TAG, "Starting live updates for " + date);
+        liveListener = db.collection("face-recognition-attendance")
+            .whereEqualTo("date", date)
+            .addSnapshotListener((snapshots, e) -> {
+                if (binding == null) return;
+                if (e != null) {
+                    Log.e(TAG, "Live updates failed", e);
+                    Toast.makeText(requireContext(), "Live updates stopped: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    binding.progressBar.setVisibility(View.GONE);
+                    return;
                 }
+                if (snapshots == null) return;
                 
-                // Clear existing rows except header
-                clearTableRows();
-                
-                // Add rows to the table
-                for (int i = 0; i < tableData.size(); i++) {
-                    AttendanceTableRow data = tableData.get(i);
-                    addTableRow(i + 1, data, i % 2 == 0);
+                List<DocumentChange> changes = snapshots.getDocumentChanges();
+                if (changes.isEmpty() && liveReportShown) return;
+                for (DocumentChange change : changes) {
+                    String id = change.getDocument().getId();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        liveRecords.remove(id);
+                    } else {
+                        liveRecords.put(id, toReportRecord(change.getDocument()));
+                    }
                 }
+                Log.d(TAG, "Live update: " + changes.size() + " changes, " + liveRecords.size() + " records");
                 
-                // Show success toast
-                Toast.makeText(requireContext(), 
-                    "Showing " + tableData.size() + " attendance records for selected date", 
-                    Toast.LENGTH_SHORT).show();
+                // Only the first snapshot is announced
+                computeReport(new ArrayList<>(liveRecords.values()), !liveReportShown);
+                liveReportShown = true;
+            });
+    }
+    
+    private void stopLiveUpdates() {
+        if (liveListener != null) {
+            liveListener.remove();
+            liveListener = null;
+        }
+    }
+    
+    @Override
+    public void onStart() {
+        super.onStart();
+        if (binding != null && binding.liveUpdatesSwitch.isChecked() && reportDate != null) {
+            startLiveUpdates(reportDate);
+        }
+    }
+    
+    @Override
+    public void onStop() {
+        super.onStop();
+        stopLiveUpdates();
+    }
+    
+    /**
+     * Build the report from the attendance_daily/{date}/users rollup entries
+     */
+    private void processDailyRollup(String date, QuerySnapshot entries) {
+        try {
+            List<AttendanceReportRow> tableData = new ArrayList<>();
+            for (QueryDocumentSnapshot entry : entries) {
+                AttendanceReportRow tableRow = new AttendanceReportRow(
+                        date,
+                        stringOrDefault(entry.get(DailyAttendanceRollup.KEY_SEVARTH_ID), entry.getId()),
+                        stringOrDefault(entry.get(DailyAttendanceRollup.KEY_USER_ID), ""),
+                        stringOrDefault(entry.get(DailyAttendanceRollup.KEY_USER_NAME), ""),
+                        stringOrDefault(entry.get(DailyAttendanceRollup.KEY_OFFICE_NAME), "Unknown Location"));
+                tableRow.setCheckInTime(stringOrDefault(entry.get(DailyAttendanceRollup.KEY_FIRST_CHECK_IN), "-"));
+                tableRow.setCheckOutTime(stringOrDefault(entry.get(DailyAttendanceRollup.KEY_LAST_CHECK_OUT), "-"));
+                tableData.add(tableRow);
             }
+            AttendanceReportEngine.sortRows(tableData, AttendanceReportEngine.Grouping.BY_USER_AND_DATE);
             
-            // Show results container
-            if (binding.resultsContainer != null) {
-                binding.resultsContainer.setVisibility(View.VISIBLE);
-            }
+            showTableData(tableData, true);
         } catch (Exception e) {
-            Log.e(TAG, "Error processing alternative query results", e);
+            Log.e(TAG, "Error processing daily rollup", e);
             Toast.makeText(requireContext(), "Error processing attendance data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         } finally {
             if (binding.progressBar != null) {
@@ -530,94 +427,68 @@ public class DailyAttendanceSummaryFragment extends Fragment {
         }
     }
     
-    // Helper class to store table row data
-    private static class AttendanceTableRow {
-        String sevarthId;
-        String userName;
-        String location;
-        String checkInTime;
-        String checkOutTime;
-    }
-    
-    // Clear all rows from the table except the header row
-    private void clearTableRows() {
-        if (binding.attendanceTable != null && binding.attendanceTable.getChildCount() > 1) {
-            binding.attendanceTable.removeViews(1, binding.attendanceTable.getChildCount() - 1);
-        }
+    private static String stringOrDefault(Object value, String defaultValue) {
+        return value instanceof String && !((String) value).isEmpty() ? (String) value : defaultValue;
     }
     
-    // Add a row to the table
-    private void addTableRow(int serialNumber, AttendanceTableRow data, boolean isEvenRow) {
-        if (binding.attendanceTable == null) return;
-        
-        try {
-            // Create a new row
-            TableRow row = new TableRow(requireContext());
-            row.setPadding(0, 0, 0, 0);
-            
-            // Set row layout parameters
-            TableLayout.LayoutParams rowParams = new TableLayout.LayoutParams(
-                TableLayout.LayoutParams.MATCH_PARENT,
-                TableLayout.LayoutParams.WRAP_CONTENT
-            );
-            row.setLayoutParams(rowParams);
-            
-            // Background color for alternating rows
-            int bgColor = isEvenRow ? colorEven : colorOdd;
-            
-            // Create cells
-            TextView serialCell = createTableCell(String.valueOf(serialNumber), bgColor);
-            TextView sevarthIdCell = createTableCell(data.sevarthId, bgColor);
-            TextView nameCell = createTableCell(data.userName, bgColor);
-            TextView locationCell = createTableCell(data.location, bgColor);
-            TextView checkInCell = createTableCell(data.checkInTime, bgColor);
-            TextView checkOutCell = createTableCell(data.checkOutTime, bgColor);
+    /**
+     * Show the sorted rows, or the "no records" state if there are none
+     *
+     * @param announce Whether to toast the number of rows shown
+     */
+    private void showTableData(List<AttendanceReportRow> tableData, boolean announce) {
+        // Add data to the table
+        if (tableData.isEmpty()) {
+            if (binding.noRecordsText != null) {
+                binding.noRecordsText.setVisibility(View.VISIBLE);
+            }
+            if (binding.reportTableContainer != null) {
+                binding.reportTableContainer.setVisibility(View.GONE);
+            }
             
-            // Set column widths
-            serialCell.setMinWidth(60);
-            sevarthIdCell.setMinWidth(120);
-            nameCell.setMinWidth(180);
-            locationCell.setMinWidth(150);
-            checkInCell.setMinWidth(100);
-            checkOutCell.setMinWidth(100);
+            if (announce) {
+                Toast.makeText(requireContext(), "No attendance records found for this date", Toast.LENGTH_SHORT).show();
+            }
+        } else {
+            if (binding.noRecordsText != null) {
+                binding.noRecordsText.setVisibility(View.GONE);
+            }
+            if (binding.reportTableContainer != null) {
+                binding.reportTableContainer.setVisibility(View.VISIBLE);
+            }
             
-            // Add cells to row
-            row.addView(serialCell);
-            row.addView(sevarthIdCell);
-            row.addView(nameCell);
-            row.addView(locationCell);
-            row.addView(checkInCell);
-            row.addView(checkOutCell);
+            reportGridAdapter.setRows(tableData);
             
-            // Add row to table
-            binding.attendanceTable.addView(row);
-        } catch (Exception e) {
-            Log.e(TAG, "Error adding table row", e);
+            // Show success toast
+            if (announce) {
+                Toast.makeText(requireContext(), 
+                    "Showing " + tableData.size() + " attendance records for selected date", 
+                    Toast.LENGTH_SHORT).show();
+            }
         }
-    }
-    
-    // Create a table cell
-    private TextView createTableCell(String text, int backgroundColor) {
-        TextView cell = new TextView(requireContext());
-        cell.setText(text != null ? text : "");
-        cell.setPadding(12, 12, 12, 12);
-        cell.setBackgroundColor(backgroundColor);
-        cell.setGravity(android.view.Gravity.CENTER);
         
-        // Set layout parameters with margins for borders
-        TableRow.LayoutParams params = new TableRow.LayoutParams(
-            TableRow.LayoutParams.WRAP_CONTENT,
-            TableRow.LayoutParams.WRAP_CONTENT
-        );
-        params.setMargins(1, 1, 1, 1);
-        cell.setLayoutParams(params);
+        // Show results container
+        if (binding.resultsContainer != null) {
+            binding.resultsContainer.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void showExportOptions() {
+        if (reportDate == null) return;
         
-        return cell;
+        // The daily summary covers every office
+        exportLauncher.showOptions(new ReportExportLauncher.Option[]{
+                new ReportExportLauncher.Option("CSV",
+                        AttendanceReportExporter.Scope.ALL, null, ReportRowWriter.Format.CSV),
+                new ReportExportLauncher.Option("Excel",
+                        AttendanceReportExporter.Scope.ALL, null, ReportRowWriter.Format.XLSX)
+        }, reportDate, reportDate);
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        stopLiveUpdates();
         binding = null;
     }
 } 
\ No newline at end of file
@@ -1,27 +1,31 @@
 package com.example.mystartup.fragments;
 
 import android.app.DatePickerDialog;
-import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
-import android.widget.TableLayout;
-import android.widget.TableRow;
-import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.mystartup.R;
+import com.example.mystartup.adapters.ReportGridAdapter;
+import com.example.mystartup.adapters.StickyHeaderDecoration;
 import com.example.mystartup.databinding.FragmentLocationAttendanceReportBinding;
 import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
 import com.example.mystartup.models.OfficeLocation;
+import com.example.mystartup.utils.AttendanceReportCache;
+import com.example.mystartup.utils.AttendanceReportEngine;
+import com.example.mystartup.utils.AttendanceReportExporter;
+import com.example.mystartup.utils.ReportExportLauncher;
+import com.example.mystartup.utils.ReportRowWriter;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 
@@ -44,8 +48,13 @@ public class LocationAttendanceReportFragment extends Fragment {
     private List<OfficeLocation> locationList;
     private Map<String, String> locationDisplayToId;
     private FirebaseFirestore db;
-    private int colorEven;
-    private int colorOdd;
+    private AttendanceReportCache reportCache;
+    private ReportGridAdapter reportGridAdapter;
+    private ReportExportLauncher exportLauncher;
+    // Location and range of the report on screen, for export
+    private String reportLocationId;
+    private String reportStartDate;
+    private String reportEndDate;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -56,6 +65,8 @@ public class LocationAttendanceReportFragment extends Fragment {
         locationList = new ArrayList<>();
         locationDisplayToId = new HashMap<>();
         db = FirebaseFirestore.getInstance();
+        reportCache = AttendanceReportCache.getInstance(requireContext());
+        exportLauncher = new ReportExportLauncher(this);
     }
 
     @Nullable
@@ -70,14 +81,12 @@ public class LocationAttendanceReportFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         
         try {
-            // Initialize row colors for alternating table rows
-            colorEven = ContextCompat.getColor(requireContext(), R.color.tableRowEven);
-            colorOdd = ContextCompat.getColor(requireContext(), R.color.tableRowOdd);
-            
             fetchLocations();
         setupDatePickers();
         setupGenerateReportButton();
-            setupReportTable();
+            setupReportGrid();
+            exportLauncher.bindStatusViews(binding.exportProgressBar, binding.exportStatusText);
+            binding.exportButton.setOnClickListener(v -> showExportOptions());
             
             // Hide results initially
             if (binding.resultsContainer != null) {
@@ -89,51 +98,19 @@ public class LocationAttendanceReportFragment extends Fragment {
         }
     }
 
-    private void setupReportTable() {
-        try {
-            // Ensure the table layout exists in the binding
-            if (binding.attendanceTable == null) {
-                Log.e(TAG, "Table layout not found in the binding");
-                return;
-            }
-            
-            // Create table header
-            TableRow headerRow = new TableRow(requireContext());
-            headerRow.setBackgroundColor(ContextCompat.getColor(requireContext(), R.color.colorPrimary));
-            headerRow.setPadding(2, 2, 2, 2);
-            
-            // Add header columns
-            headerRow.addView(createHeaderCell("Sr. No."));
-            headerRow.addView(createHeaderCell("Date"));
-            headerRow.addView(createHeaderCell("Sevarth ID"));
-            headerRow.addView(createHeaderCell("Name"));
-            headerRow.addView(createHeaderCell("Check-in"));
-            headerRow.addView(createHeaderCell("Check-out"));
-            
-            binding.attendanceTable.addView(headerRow);
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting up report table", e);
-        }
-    }
-    
-    private TextView createHeaderCell(String text) {
-        TextView cell = new TextView(requireContext());
-        cell.setText(text);
-        cell.setPadding(12, 12, 12, 12);
-        cell.setTextColor(Color.WHITE);
-        cell.setBackgroundColor(ContextCompat.getColor(requireContext(), R.color.colorPrimary));
-        cell.setGravity(android.view.Gravity.CENTER);
-        cell.setTypeface(null, android.graphics.Typeface.BOLD);
-        
-        // Set layout parameters with margins for borders
-        TableRow.LayoutParams params = new TableRow.LayoutParams(
-            TableRow.LayoutParams.WRAP_CONTENT,
-            TableRow.LayoutParams.WRAP_CONTENT
-        );
-        params.setMargins(1, 1, 1, 1);
-        cell.setLayoutParams(params);
-        
-        return cell;
+    private void setupReportGrid() {
+        // Rows are recycled as they scroll; the header row above the list stays put
+        reportGridAdapter = new ReportGridAdapter(requireContext(), true,
+                ReportGridAdapter.Column.SERIAL,
+                ReportGridAdapter.Column.DATE,
+                ReportGridAdapter.Column.SEVARTH_ID,
+                ReportGridAdapter.Column.NAME,
+                ReportGridAdapter.Column.CHECK_IN,
+                ReportGridAdapter.Column.CHECK_OUT);
+        reportGridAdapter.populateHeader(binding.reportHeaderRow);
+        binding.reportGrid.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.reportGrid.setAdapter(reportGridAdapter);
+        binding.reportGrid.addItemDecoration(new StickyHeaderDecoration(reportGridAdapter));
     }
 
     private void fetchLocations() {
@@ -381,42 +358,47 @@ public class LocationAttendanceReportFragment extends Fragment {
                 binding.resultsContainer.setVisibility(View.GONE);
             }
             
-            // Clear existing table rows except header
-            clearTableRows();
+            // Clear rows from the previous report
+            reportGridAdapter.setRows(new ArrayList<>());
             
             Log.d(TAG, "Generating report for location: '" + locationName + "', date range: " + startDate + " to " + endDate);
             
-            // Query Firestore for attendance records by location and date range
-            db.collection("face-recognition-attendance")
-                .whereEqualTo("officeName", locationName)
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d(TAG, "Query successful. Got " + queryDocumentSnapshots.size() + " attendance records");
-                    
-                    if (queryDocumentSnapshots.size() > 0) {
-                        // Process the records we found
-                        processAttendanceRecords(queryDocumentSnapshots, locationName);
-                    } else {
-                        // No records found with officeName field, try alternative approaches
-                        Log.d(TAG, "No records found with officeName field, trying alternatives");
-                        tryAlternativeQuery(locationName, startDate, endDate);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error fetching attendance records: " + e.getMessage(), e);
-                    
-                    // Don't show error toast here because we're going to try alternative approaches
-                    Log.d(TAG, "Primary query failed, trying alternatives");
-                    
-                    if (binding.progressBar != null) {
-                        binding.progressBar.setVisibility(View.GONE);
-                    }
-                    
-                    // Try alternative query
-                    tryAlternativeQuery(locationName, startDate, endDate);
-                });
+            String locationId = locationDisplayToId.get(locationName);
+            if (locationId == null) {
+                Log.w(TAG, "No location ID for '" + locationName + "'");
+                Toast.makeText(requireContext(), "Please select a location from the list", Toast.LENGTH_SHORT).show();
+                if (binding.progressBar != null) {
+                    binding.progressBar.setVisibility(View.GONE);
+                }
+                return;
+            }
+            
+            reportLocationId = locationId;
+            reportStartDate = startDate;
+            reportEndDate = endDate;
+            
+            // Every attendance record carries the canonical locationId, served by the
+            // (locationId, date) composite index; re-runs only download new records
+            reportCache.loadRecords(AttendanceReportCache.Scope.LOCATION, locationId, startDate, endDate,
+                    new AttendanceReportCache.RecordsCallback() {
+                        @Override
+                        public void onRecords(List<AttendanceRecord> records) {
+                            if (binding == null) return;
+                            Log.d(TAG, "Loaded " + records.size() + " attendance records");
+                            processAttendanceRecords(records, locationName);
+                        }
+
+                        @Override
+                        public void onError(String errorMessage) {
+                            if (binding == null) return;
+                            Log.e(TAG, "Error fetching attendance records: " + errorMessage);
+                            Toast.makeText(requireContext(), "Could not retrieve attendance data: " + errorMessage, Toast.LENGTH_SHORT).show();
+                            
+                            if (binding.progressBar != null) {
+                                binding.progressBar.setVisibility(View.GONE);
+                            }
+                        }
+                    });
         } catch (Exception e) {
             Log.e(TAG, "Error generating report", e);
             if (binding.progressBar != null) {
@@ -426,320 +408,33 @@ public class LocationAttendanceReportFragment extends Fragment {
         }
     }
     
-    private void tryAlternativeQuery(String locationName, String startDate, String endDate) {
-        try {
-            Log.d(TAG, "Trying alternative query approach for location: '" + locationName + "'");
-            
-            // First, try using a different field name for the office name (locationName instead of officeName)
-            db.collection("face-recognition-attendance")
-                .whereEqualTo("locationName", locationName)
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d(TAG, "Alternative query with locationName successful. Got " + queryDocumentSnapshots.size() + " records");
-                    
-                    if (queryDocumentSnapshots.size() > 0) {
-                        processAttendanceRecords(queryDocumentSnapshots, locationName);
-                    } else {
-                        // Try another field name (office_name)
-                        trySecondAlternativeQuery(locationName, startDate, endDate);
+    private void processAttendanceRecords(List<AttendanceRecord> records, String locationName) {
+        // One row per user per day, computed off the main thread
+        AttendanceReportEngine.getInstance().compute(records, AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                new AttendanceReportEngine.RowsCallback() {
+                    @Override
+                    public void onRows(List<AttendanceReportRow> rows) {
+                        if (binding == null) return;
+                        showReportRows(rows, locationName);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error with locationName alternative query: " + e.getMessage(), e);
-                    // Try another field name
-                    trySecondAlternativeQuery(locationName, startDate, endDate);
-                });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in alternative query", e);
-            tryClientSideFiltering(locationName, startDate, endDate);
-        }
-    }
-    
-    private void trySecondAlternativeQuery(String locationName, String startDate, String endDate) {
-        try {
-            Log.d(TAG, "Trying second alternative query approach with office_name for location: '" + locationName + "'");
-            
-            // Try using office_name field
-            db.collection("face-recognition-attendance")
-                .whereEqualTo("office_name", locationName)
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d(TAG, "Alternative query with office_name successful. Got " + queryDocumentSnapshots.size() + " records");
-                    
-                    if (queryDocumentSnapshots.size() > 0) {
-                        processAttendanceRecords(queryDocumentSnapshots, locationName);
-                    } else {
-                        // Fall back to client-side filtering
-                        tryClientSideFiltering(locationName, startDate, endDate);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error with office_name alternative query: " + e.getMessage(), e);
-                    // Fall back to client-side filtering
-                    tryClientSideFiltering(locationName, startDate, endDate);
-                });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in second alternative query", e);
-            tryClientSideFiltering(locationName, startDate, endDate);
-        }
-    }
-    
-    private void tryClientSideFiltering(String locationName, String startDate, String endDate) {
-        try {
-            Log.d(TAG, "Trying client-side filtering for location: '" + locationName + "'");
-            
-            // Query just by date range and filter by location in the app
-            db.collection("face-recognition-attendance")
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d(TAG, "Client-side filtering query got " + queryDocumentSnapshots.size() + " records");
-                    
-                    try {
-                        // Process attendance records
-                        Map<String, Map<String, AttendanceRecord>> userDailyRecords = new HashMap<>();
-                        
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            try {
-                                String date = document.getString("date");
-                                String userId = document.getString("userId");
-                                String type = document.getString("type");
-                                
-                                if (date == null || userId == null || type == null) {
-                                    continue;
-                                }
-                                
-                                // Check if this record is for the requested location
-                                String recordLocation = document.getString("officeName");
-                                if (recordLocation == null) {
-                                    recordLocation = document.getString("locationName");
-                                }
-                                if (recordLocation == null) {
-                                    recordLocation = document.getString("office_name");
-                                }
-                                
-                                Log.d(TAG, "Record location: '" + recordLocation + "', comparing with: '" + locationName + "'");
-                                
-                                // Skip if not matching the requested location
-                                if (recordLocation == null || !recordLocation.equals(locationName)) {
-                                    continue;
-                                }
-                                
-                                // Create a key for each user's daily records
-                                String key = date + "_" + userId;
-                                
-                                // Get or create the user's daily record map
-                                Map<String, AttendanceRecord> dailyRecord = userDailyRecords.get(key);
-                                if (dailyRecord == null) {
-                                    dailyRecord = new HashMap<>();
-                                    userDailyRecords.put(key, dailyRecord);
-                                }
-                                
-                                // Create and store the record
-                                AttendanceRecord record = new AttendanceRecord();
-                                record.setId(document.getId());
-                                record.setDate(date);
-                                record.setUserId(userId);
-                                record.setUserName(document.getString("userName"));
-                                record.setSevarthId(document.getString("sevarthId"));
-                                record.setOfficeName(recordLocation);
-                                record.setTime(document.getString("time"));
-                                record.setType(type);
-                                
-                                // Store by type (check_in or check_out)
-                                dailyRecord.put(type, record);
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error processing record", e);
-                            }
-                        }
-                        
-                        // Now create table rows for each user's daily records
-                        List<TableRowData> rowDataList = new ArrayList<>();
-                        
-                        for (Map.Entry<String, Map<String, AttendanceRecord>> entry : userDailyRecords.entrySet()) {
-                            Map<String, AttendanceRecord> dailyRecord = entry.getValue();
-                            
-                            // Get check-in and check-out records
-                            AttendanceRecord checkIn = dailyRecord.get("check_in");
-                            AttendanceRecord checkOut = dailyRecord.get("check_out");
-                            
-                            // Use check-in for user details, fall back to check-out if needed
-                            AttendanceRecord primaryRecord = checkIn != null ? checkIn : checkOut;
-                            
-                            if (primaryRecord != null) {
-                                TableRowData rowData = new TableRowData();
-                                rowData.date = primaryRecord.getDate();
-                                rowData.sevarthId = primaryRecord.getSevarthId();
-                                rowData.userName = primaryRecord.getUserName();
-                                rowData.checkInTime = checkIn != null ? checkIn.getTime() : "-";
-                                rowData.checkOutTime = checkOut != null ? checkOut.getTime() : "-";
-                                
-                                rowDataList.add(rowData);
-                            }
-                        }
-                        
-                        Log.d(TAG, "Processed " + rowDataList.size() + " attendance records for the table");
-                        
-                        // Sort by date and then by name
-                        rowDataList.sort((a, b) -> {
-                            int dateComparison = a.date.compareTo(b.date);
-                            if (dateComparison != 0) {
-                                return dateComparison;
-                            }
-                            return a.userName.compareTo(b.userName);
-                        });
-                        
-                        // Add rows to the table
-                        for (int i = 0; i < rowDataList.size(); i++) {
-                            addTableRow(i + 1, rowDataList.get(i), i % 2 == 0);
-                        }
-                        
-                        // Show results or "no records" message
-                        if (rowDataList.isEmpty()) {
-                            Log.w(TAG, "No attendance records found for location: " + locationName + " after client-side filtering");
-                            
-                            if (binding.noRecordsText != null) {
-                                binding.noRecordsText.setVisibility(View.VISIBLE);
-                            }
-                            if (binding.attendanceTable != null) {
-                                binding.attendanceTable.setVisibility(View.GONE);
-                            }
-                            
-                            // Show message that no records were found
-                            Toast.makeText(requireContext(), 
-                                "No attendance records found for " + locationName, 
-                                Toast.LENGTH_SHORT).show();
-                        } else {
-                            if (binding.noRecordsText != null) {
-                                binding.noRecordsText.setVisibility(View.GONE);
-                            }
-                            if (binding.attendanceTable != null) {
-                                binding.attendanceTable.setVisibility(View.VISIBLE);
-                            }
-                            
-                            // Show a toast that we found records using client-side processing
-        Toast.makeText(requireContext(), 
-                                "Showing " + rowDataList.size() + " attendance records for " + locationName, 
-            Toast.LENGTH_SHORT).show();
-                        }
-                        
-                        // Show results container
-                        if (binding.resultsContainer != null) {
-                            binding.resultsContainer.setVisibility(View.VISIBLE);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing attendance records", e);
-                        Toast.makeText(requireContext(), "Error processing attendance data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    } finally {
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        if (binding == null) return;
+                        Log.e(TAG, "Error processing attendance records: " + errorMessage);
+                        Toast.makeText(requireContext(), "Error processing attendance data: " + errorMessage, Toast.LENGTH_SHORT).show();
                         if (binding.progressBar != null) {
                             binding.progressBar.setVisibility(View.GONE);
                         }
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error with client-side filtering query: " + e.getMessage(), e);
-                    Toast.makeText(requireContext(), "Could not retrieve attendance data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    if (binding.progressBar != null) {
-                        binding.progressBar.setVisibility(View.GONE);
-                    }
                 });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in client-side filtering query", e);
-            if (binding.progressBar != null) {
-                binding.progressBar.setVisibility(View.GONE);
-            }
-            Toast.makeText(requireContext(), "Error preparing attendance query: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
     }
     
-    private void processAttendanceRecords(com.google.firebase.firestore.QuerySnapshot queryDocumentSnapshots, String locationName) {
+    private void showReportRows(List<AttendanceReportRow> rowDataList, String locationName) {
         try {
-            // Process attendance records
-            Map<String, Map<String, AttendanceRecord>> userDailyRecords = new HashMap<>();
-            
-            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                try {
-                    String date = document.getString("date");
-                    String userId = document.getString("userId");
-                    String type = document.getString("type");
-                    
-                    if (date == null || userId == null || type == null) {
-                        continue;
-                    }
-                    
-                    // Create a key for each user's daily records
-                    String key = date + "_" + userId;
-                    
-                    // Get or create the user's daily record map
-                    Map<String, AttendanceRecord> dailyRecord = userDailyRecords.get(key);
-                    if (dailyRecord == null) {
-                        dailyRecord = new HashMap<>();
-                        userDailyRecords.put(key, dailyRecord);
-                    }
-                    
-                    // Create and store the record
-                    AttendanceRecord record = new AttendanceRecord();
-                    record.setId(document.getId());
-                    record.setDate(date);
-                    record.setUserId(userId);
-                    record.setUserName(document.getString("userName"));
-                    record.setSevarthId(document.getString("sevarthId"));
-                    record.setOfficeName(locationName);
-                    record.setTime(document.getString("time"));
-                    record.setType(type);
-                    
-                    // Store by type (check_in or check_out)
-                    dailyRecord.put(type, record);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing record", e);
-                }
-            }
-            
-            // Now create table rows for each user's daily records
-            List<TableRowData> rowDataList = new ArrayList<>();
-            
-            for (Map.Entry<String, Map<String, AttendanceRecord>> entry : userDailyRecords.entrySet()) {
-                Map<String, AttendanceRecord> dailyRecord = entry.getValue();
-                
-                // Get check-in and check-out records
-                AttendanceRecord checkIn = dailyRecord.get("check_in");
-                AttendanceRecord checkOut = dailyRecord.get("check_out");
-                
-                // Use check-in for user details, fall back to check-out if needed
-                AttendanceRecord primaryRecord = checkIn != null ? checkIn : checkOut;
-                
-                if (primaryRecord != null) {
-                    TableRowData rowData = new TableRowData();
-                    rowData.date = primaryRecord.getDate();
-                    rowData.sevarthId = primaryRecord.getSevarthId();
-                    rowData.userName = primaryRecord.getUserName();
-                    rowData.checkInTime = checkIn != null ? checkIn.getTime() : "-";
-                    rowData.checkOutTime = checkOut != null ? checkOut.getTime() : "-";
-                    
-                    rowDataList.add(rowData);
-                }
-            }
-            
             Log.d(TAG, "Processed " + rowDataList.size() + " attendance records for the table");
             
-            // Sort by date and then by name
-            rowDataList.sort((a, b) -> {
-                int dateComparison = a.date.compareTo(b.date);
-                if (dateComparison != 0) {
-                    return dateComparison;
-                }
-                return a.userName.compareTo(b.userName);
-            });
-            
-            // Add rows to the table
-            for (int i = 0; i < rowDataList.size(); i++) {
-                addTableRow(i + 1, rowDataList.get(i), i % 2 == 0);
-            }
+            reportGridAdapter.setRows(rowDataList);
             
             // Show results or "no records" message
             if (rowDataList.isEmpty()) {
@@ -748,8 +443,8 @@ public class LocationAttendanceReportFragment extends Fragment {
                 if (binding.noRecordsText != null) {
                     binding.noRecordsText.setVisibility(View.VISIBLE);
                 }
-                if (binding.attendanceTable != null) {
-                    binding.attendanceTable.setVisibility(View.GONE);
+                if (binding.reportTableContainer != null) {
+                    binding.reportTableContainer.setVisibility(View.GONE);
                 }
                 
                 // Show message that no records were found
@@ -760,8 +455,8 @@ public class LocationAttendanceReportFragment extends Fragment {
                 if (binding.noRecordsText != null) {
                     binding.noRecordsText.setVisibility(View.GONE);
                 }
-                if (binding.attendanceTable != null) {
-                    binding.attendanceTable.setVisibility(View.VISIBLE);
+                if (binding.reportTableContainer != null) {
+                    binding.reportTableContainer.setVisibility(View.VISIBLE);
                 }
                 
                 // Show a success toast with the record count
@@ -786,90 +481,20 @@ public class LocationAttendanceReportFragment extends Fragment {
             }
         }
     }
-    
-    // Helper class to store table row data
-    private static class TableRowData {
-        String date;
-        String sevarthId;
-        String userName;
-        String checkInTime;
-        String checkOutTime;
-    }
-    
-    // Clear all rows from the table except the header row
-    private void clearTableRows() {
-        if (binding.attendanceTable != null && binding.attendanceTable.getChildCount() > 1) {
-            binding.attendanceTable.removeViews(1, binding.attendanceTable.getChildCount() - 1);
-        }
-    }
-    
-    // Add a row to the table
-    private void addTableRow(int serialNumber, TableRowData data, boolean isEvenRow) {
-        if (binding.attendanceTable == null) return;
-        
-        try {
-            // Create a new row
-            TableRow row = new TableRow(requireContext());
-            row.setPadding(0, 0, 0, 0);
-            
-            // Set row layout parameters
-            TableLayout.LayoutParams rowParams = new TableLayout.LayoutParams(
-                TableLayout.LayoutParams.MATCH_PARENT,
-                TableLayout.LayoutParams.WRAP_CONTENT
-            );
-            row.setLayoutParams(rowParams);
-            
-            // Background color for alternating rows
-            int bgColor = isEvenRow ? colorEven : colorOdd;
-            
-            // Create cells
-            TextView serialCell = createTableCell(String.valueOf(serialNumber), bgColor);
-            TextView dateCell = createTableCell(data.date, bgColor);
-            TextView sevarthIdCell = createTableCell(data.sevarthId, bgColor);
-            TextView nameCell = createTableCell(data.userName, bgColor);
-            TextView checkInCell = createTableCell(data.checkInTime, bgColor);
-            TextView checkOutCell = createTableCell(data.checkOutTime, bgColor);
-            
-            // Set column widths
-            serialCell.setMinWidth(60);
-            dateCell.setMinWidth(120);
-            sevarthIdCell.setMinWidth(120);
-            nameCell.setMinWidth(180);
-            checkInCell.setMinWidth(100);
-            checkOutCell.setMinWidth(100);
-            
-            // Add cells to row
-            row.addView(serialCell);
-            row.addView(dateCell);
-            row.addView(sevarthIdCell);
-            row.addView(nameCell);
-            row.addView(checkInCell);
-            row.addView(checkOutCell);
-            
-            // Add row to table
-            binding.attendanceTable.addView(row);
-        } catch (Exception e) {
-            Log.e(TAG, "Error adding table row", e);
-        }
-    }
-    
-    // Create a table cell
-    private TextView createTableCell(String text, int backgroundColor) {
-        TextView cell = new TextView(requireContext());
-        cell.setText(text != null ? text : "");
-        cell.setPadding(12, 12, 12, 12);
-        cell.setBackgroundColor(backgroundColor);
-        cell.setGravity(android.view.Gravity.CENTER);
-        
-        // Set layout parameters with margins for borders
-        TableRow.LayoutParams params = new TableRow.LayoutParams(
-            TableRow.LayoutParams.WRAP_CONTENT,
-            TableRow.LayoutParams.WRAP_CONTENT
-        );
-        params.setMargins(1, 1, 1, 1);
-        cell.setLayoutParams(params);
+
+    private void showExportOptions() {
+        if (reportLocationId == null) return;
         
-        return cell;
+        exportLauncher.showOptions(new ReportExportLauncher.Option[]{
+                new ReportExportLauncher.Option("CSV - this location",
+                        AttendanceReportExporter.Scope.LOCATION, reportLocationId, ReportRowWriter.Format.CSV),
+                new ReportExportLauncher.Option("Excel - this location",
+                        AttendanceReportExporter.Scope.LOCATION, reportLocationId, ReportRowWriter.Format.XLSX),
+                new ReportExportLauncher.Option("CSV - all offices",
+                        AttendanceReportExporter.Scope.ALL, null, ReportRowWriter.Format.CSV),
+                new ReportExportLauncher.Option("Excel - all offices",
+                        AttendanceReportExporter.Scope.ALL, null, ReportRowWriter.Format.XLSX)
+        }, reportStartDate, reportEndDate);
     }
 
     @Override
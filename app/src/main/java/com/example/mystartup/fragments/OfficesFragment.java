@@ -3,6 +3,7 @@ package com.example.mystartup.fragments;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -18,16 +19,27 @@ import com.example.mystartup.AddOfficeLocationActivity;
 import com.example.mystartup.R;
 import com.example.mystartup.adapters.OfficeLocationAdapter;
 import com.example.mystartup.models.OfficeLocation;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.OfficeLocationRepository;
+import com.example.mystartup.utils.OfficeOccupancyCounter;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
 
 public class OfficesFragment extends Fragment implements OfficeLocationAdapter.OnOfficeLocationClickListener {
 
+    private static final String TAG = "OfficesFragment";
     private static final int ADD_LOCATION_REQUEST = 1001;
     private static final int EDIT_LOCATION_REQUEST = 1002;
     
@@ -36,7 +48,9 @@ public class OfficesFragment extends Fragment implements OfficeLocationAdapter.O
     private List<OfficeLocation> locationList;
     private View emptyView;
     private FirebaseFirestore db;
+    private OfficeLocationRepository locationRepository;
     private FloatingActionButton addButton;
+    private ListenerRegistration occupancyListener;
 
     @Nullable
     @Override
@@ -47,8 +61,9 @@ public class OfficesFragment extends Fragment implements OfficeLocationAdapter.O
         emptyView = view.findViewById(R.id.emptyView);
         
         db = FirebaseFirestore.getInstance();
+        locationRepository = new OfficeLocationRepository(requireContext());
         locationList = new ArrayList<>();
-        adapter = new OfficeLocationAdapter(locationList, this);
+        adapter = new OfficeLocationAdapter(this);
         
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
@@ -60,9 +75,67 @@ public class OfficesFragment extends Fragment implements OfficeLocationAdapter.O
             startActivityForResult(intent, ADD_LOCATION_REQUEST);
         });
         
+        return view;
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
         loadOfficeLocations();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        startOccupancyUpdates();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (occupancyListener != null) {
+            occupancyListener.remove();
+            occupancyListener = null;
+        }
+    }
+
+    /**
+     * Live occupancy for every office today. The counter shards are small and only
+     * the shards that changed are downloaded again, however many records there are.
+     */
+    private void startOccupancyUpdates() {
+        if (occupancyListener != null) {
+            return;
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata"));
+        String today = dateFormat.format(new Date());
         
-        return view;
+        occupancyListener = OfficeOccupancyCounter.shardsForDate(db, today)
+            .addSnapshotListener((snapshots, e) -> {
+                if (e != null) {
+                    Log.e(TAG, "Error listening to office occupancy", e);
+                    return;
+                }
+                if (snapshots == null) {
+                    return;
+                }
+                
+                Map<String, OfficeOccupancyCounter.Totals> totals = new HashMap<>();
+                for (QueryDocumentSnapshot shard : snapshots) {
+                    String locationId = shard.getString(OfficeOccupancyCounter.FIELD_LOCATION_ID);
+                    if (locationId == null) {
+                        continue;
+                    }
+                    OfficeOccupancyCounter.Totals officeTotals = totals.get(locationId);
+                    if (officeTotals == null) {
+                        officeTotals = new OfficeOccupancyCounter.Totals();
+                        totals.put(locationId, officeTotals);
+                    }
+                    officeTotals.addShard(shard);
+                }
+                adapter.setOccupancy(totals);
+            });
     }
 
     @Override
@@ -81,24 +154,22 @@ public class OfficesFragment extends Fragment implements OfficeLocationAdapter.O
     }
 
     private void loadOfficeLocations() {
-        db.collection("office_locations")
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                locationList.clear();
-                
-                for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                    OfficeLocation location = document.toObject(OfficeLocation.class);
-                    locationList.add(location);
+        LifecycleResults.deliver(getViewLifecycleOwner(), locationRepository.loadLocations(),
+            new LifecycleResults.Callback<List<OfficeLocation>>() {
+                @Override
+                public void onSuccess(List<OfficeLocation> locations) {
+                    locationList.clear();
+                    locationList.addAll(locations);
+                    adapter.submitList(new ArrayList<>(locationList));
+                    updateViewVisibility();
                 }
-                
-                adapter.notifyDataSetChanged();
-                updateViewVisibility();
-            })
-            .addOnFailureListener(e -> {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to load office locations", Toast.LENGTH_SHORT).show();
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Error loading office locations", error);
+                    Toast.makeText(requireContext(), "Failed to load office locations", Toast.LENGTH_SHORT).show();
+                    updateViewVisibility();
                 }
-                updateViewVisibility();
             });
     }
     
@@ -141,14 +212,19 @@ public class OfficesFragment extends Fragment implements OfficeLocationAdapter.O
     }
     
     private void deleteOfficeLocation(String locationId) {
-        db.collection("office_locations").document(locationId)
-            .delete()
-            .addOnSuccessListener(aVoid -> {
-                Toast.makeText(getContext(), "Location deleted successfully", Toast.LENGTH_SHORT).show();
-                loadOfficeLocations();
-            })
-            .addOnFailureListener(e -> {
-                Toast.makeText(getContext(), "Failed to delete location", Toast.LENGTH_SHORT).show();
+        LifecycleResults.deliver(getViewLifecycleOwner(), locationRepository.deleteLocation(locationId),
+            new LifecycleResults.Callback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    Toast.makeText(requireContext(), "Location deleted successfully", Toast.LENGTH_SHORT).show();
+                    loadOfficeLocations();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Error deleting office location", error);
+                    Toast.makeText(requireContext(), "Failed to delete location", Toast.LENGTH_SHORT).show();
+                }
             });
     }
 } 
\ No newline at end of file
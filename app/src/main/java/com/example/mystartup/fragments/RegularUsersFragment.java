@@ -3,6 +3,7 @@ package com.example.mystartup.fragments;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,32 +17,21 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
 import com.example.mystartup.adapters.UserAdapter;
-import com.example.mystartup.api.ApiService;
-import com.example.mystartup.api.RetrofitClient;
-import com.example.mystartup.api.UsersResponse;
 import com.example.mystartup.models.User;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserRepository;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class RegularUsersFragment extends Fragment implements UserAdapter.OnUserClickListener {
 
+    private static final String TAG = "RegularUsersFragment";
     private RecyclerView recyclerView;
     private UserAdapter adapter;
     private List<User> userList;
     private View emptyView;
-    private FirebaseFirestore db;
-    private ApiService apiService;
+    private UserRepository userRepository;
     private static final String PREF_NAME = "AuthPrefs";
     private static final String KEY_AUTH_TOKEN = "auth_token";
 
@@ -53,103 +43,43 @@ public class RegularUsersFragment extends Fragment implements UserAdapter.OnUser
         recyclerView = view.findViewById(R.id.usersRecyclerView);
         emptyView = view.findViewById(R.id.emptyView);
         
-        db = FirebaseFirestore.getInstance();
+        userRepository = new UserRepository(requireContext());
         userList = new ArrayList<>();
-        adapter = new UserAdapter(userList, this);
+        adapter = new UserAdapter(this);
         
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
         
-        setupRetrofit();
-        
-        // Try API first, then fall back to Firestore if API fails
-        loadUsersFromApi();
-        
         return view;
     }
-    
-    private void setupRetrofit() {
-        apiService = RetrofitClient.getInstance().getApiService();
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        loadUsers();
     }
     
-    private void loadUsersFromApi() {
-        if (getContext() == null) return;
-        
-        SharedPreferences prefs = getContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    private void loadUsers() {
+        SharedPreferences prefs = requireContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         String token = prefs.getString(KEY_AUTH_TOKEN, "");
         
-        if (token.isEmpty()) {
-            // Fallback to Firestore if no token
-            loadUsersFromFirestore();
-            return;
-        }
-        
-        apiService.getUsers("Bearer " + token).enqueue(new Callback<UsersResponse>() {
-            @Override
-            public void onResponse(Call<UsersResponse> call, Response<UsersResponse> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+        // Tries the API first, then falls back to Firestore if the API fails
+        LifecycleResults.deliver(getViewLifecycleOwner(), userRepository.loadRegularUsers(token),
+            new LifecycleResults.Callback<List<User>>() {
+                @Override
+                public void onSuccess(List<User> users) {
                     userList.clear();
-                    userList.addAll(response.body().getUsers());
-                    adapter.notifyDataSetChanged();
-                    
+                    userList.addAll(users);
+                    adapter.submitList(new ArrayList<>(userList));
                     updateViewVisibility();
-                } else {
-                    // Fallback to Firestore
-                    loadUsersFromFirestore();
                 }
-            }
 
-            @Override
-            public void onFailure(Call<UsersResponse> call, Throwable t) {
-                // Fallback to Firestore
-                loadUsersFromFirestore();
-            }
-        });
-    }
-    
-    private void loadUsersFromFirestore() {
-        db.collection("users")
-            .whereEqualTo("role", "user")
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                userList.clear();
-                
-                // Set to track unique sevarthIds to avoid duplicates
-                Set<String> processedSevarthIds = new HashSet<>();
-                
-                for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                    try {
-                        User user = document.toObject(User.class);
-                        
-                        // Skip this user if we've already processed a user with this sevarthId
-                        if (user.getSevarthId() != null && !user.getSevarthId().isEmpty()) {
-                            if (processedSevarthIds.contains(user.getSevarthId())) {
-                                // This is a duplicate user, skip it
-                                continue;
-                            }
-                            
-                            // Add this sevarthId to our processed set
-                            processedSevarthIds.add(user.getSevarthId());
-                        }
-                        
-                        // Add the user to our list
-                        userList.add(user);
-                    } catch (Exception e) {
-                        // Log error but continue processing other users
-                        if (getContext() != null) {
-                            Toast.makeText(getContext(), "Error processing a user", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-                }
-                
-                adapter.notifyDataSetChanged();
-                updateViewVisibility();
-            })
-            .addOnFailureListener(e -> {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to load users", Toast.LENGTH_SHORT).show();
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Error loading users", error);
+                    Toast.makeText(requireContext(), "Failed to load users", Toast.LENGTH_SHORT).show();
+                    updateViewVisibility();
                 }
-                updateViewVisibility();
             });
     }
     
@@ -3,6 +3,7 @@ package com.example.mystartup.fragments;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Rect;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -18,9 +19,11 @@ import androidx.fragment.app.FragmentTransaction;
 
 import com.example.mystartup.R;
 import com.example.mystartup.api.AttendanceRequest;
-import com.example.mystartup.api.AttendanceResponse;
-import com.example.mystartup.api.FaceVerificationResponse;
+import com.example.mystartup.api.VerifyAndMarkResponse;
 import com.example.mystartup.databinding.FragmentUserAttendanceBinding;
+import com.example.mystartup.models.UserProfile;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.UserProfileCache;
 import com.example.mystartup.utils.FaceRecognitionRepository;
 import com.example.mystartup.utils.FaceRecognitionSystem;
 import com.example.mystartup.LoginActivity;
@@ -32,13 +35,11 @@ import com.google.android.material.snackbar.Snackbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
 import java.util.List;
-import java.util.Map;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
@@ -59,10 +60,12 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
     private static final int LOCATION_PERMISSION_REQUEST_CODE = PermissionUtils.LOCATION_PERMISSION_REQUEST_CODE;
     private static final int LOCATION_UPDATE_INTERVAL = 10000; // 10 seconds
     private static final int LOCATION_UPDATE_DISTANCE = 5; // 5 meters
+    private static final long AUTO_CAPTURE_TIMEOUT_MS = 6000; // Capture anyway if no good face appears
 
     private FragmentUserAttendanceBinding binding;
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
+    private UserProfileCache profileCache;
     private String userName;
     private String userId;
     private String sevarthId;
@@ -88,7 +91,8 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
         try {
             mAuth = FirebaseAuth.getInstance();
             db = FirebaseFirestore.getInstance();
-            faceRepository = new FaceRecognitionRepository();
+            profileCache = UserProfileCache.getInstance(requireContext());
+            faceRepository = new FaceRecognitionRepository(requireContext());
             firestoreAttendanceRepository = new FirestoreAttendanceRepository();
             
             // Get location details from arguments
@@ -336,44 +340,49 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
             faceRecognitionSystem = new FaceRecognitionSystem(requireContext());
             faceRecognitionSystem.setVerificationListener(this);
             
+            // Load Storage and the detector models in the background once the screen has drawn,
+            // so the first check-in doesn't wait for them
+            binding.getRoot().post(() -> {
+                // Skip if the view was destroyed and the system shut down meanwhile
+                if (binding != null && faceRecognitionSystem != null) {
+                    faceRecognitionSystem.prewarm();
+                }
+            });
+            
             // Set the face recognition status text
             binding.faceRecognitionStatus.setText("Face recognition system initializing...");
             
             FirebaseUser currentUser = mAuth.getCurrentUser();
             if (currentUser != null) {
-                // Get the user details from Firestore
-                db.collection("users")
-                    .whereEqualTo("uid", currentUser.getUid())  // Use uid instead of sevarthId
-                    .limit(1)
-                    .get()
-                    .addOnSuccessListener(documents -> {
-                        if (!documents.isEmpty()) {
-                            // Get user document
-                            com.google.firebase.firestore.DocumentSnapshot document = documents.getDocuments().get(0);
-                            
-                            // Get sevarthId and name
-                            String sevarthId = document.getString("sevarthId");
-                            String firstName = document.getString("firstName");
-                            String lastName = document.getString("lastName");
-                            String displayName = (firstName != null && lastName != null) ? 
-                                    firstName + " " + lastName : "User";
-                            
-                            // Set user details for face recognition
-                            faceRecognitionSystem.setUserDetails(sevarthId, displayName);
-                            
-                            // Update status text to ready
-                            binding.faceRecognitionStatus.setText("Face recognition system ready");
-                            binding.faceRecognitionStatus.setBackgroundResource(R.color.green_success);
-                        } else {
+                // Get the user details, by uid; the same lookup as loadUserDetails, so they share one read
+                LifecycleResults.deliver(getViewLifecycleOwner(), profileCache.getByUid(currentUser.getUid()),
+                    new LifecycleResults.Callback<UserProfile>() {
+                        @Override
+                        public void onSuccess(UserProfile profile) {
+                            if (profile != null) {
+                                // Get sevarthId and name
+                                String displayName = (profile.getFirstName() != null && profile.getLastName() != null) ? 
+                                        profile.getFirstName() + " " + profile.getLastName() : "User";
+                                
+                                // Set user details for face recognition
+                                faceRecognitionSystem.setUserDetails(profile.getSevarthId(), displayName);
+                                
+                                // Update status text to ready
+                                binding.faceRecognitionStatus.setText("Face recognition system ready");
+                                binding.faceRecognitionStatus.setBackgroundResource(R.color.green_success);
+                            } else {
+                                // Don't show an error in the UI, just log it
+                                Log.e(TAG, "User details not found in Firestore for face verification");
+                                binding.faceRecognitionStatus.setVisibility(View.GONE);
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable error) {
                             // Don't show an error in the UI, just log it
-                            Log.e(TAG, "User details not found in Firestore for face verification");
+                            Log.e(TAG, "Failed to load user details for face verification: " + error.getMessage());
                             binding.faceRecognitionStatus.setVisibility(View.GONE);
                         }
-                    })
-                    .addOnFailureListener(e -> {
-                        // Don't show an error in the UI, just log it
-                        Log.e(TAG, "Failed to load user details for face verification: " + e.getMessage());
-                        binding.faceRecognitionStatus.setVisibility(View.GONE);
                     });
             } else {
                 // Don't show an error in the UI, just log it
@@ -423,110 +432,91 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
             }
         }
         
-        // Try to load user by Firebase UID first (most reliable)
-        db.collection("users")
-            .whereEqualTo("uid", user.getUid())
-            .limit(1)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                if (!queryDocumentSnapshots.isEmpty()) {
-                    processUserDocuments(queryDocumentSnapshots);
-                } else {
-                    // If not found by UID, try by sevarthId
-                    Log.d(TAG, "User not found by UID, trying sevarthId: " + sevarthId);
-            db.collection("users")
-                        .whereEqualTo("sevarthId", sevarthId)
-                        .limit(1)
-                .get()
-                        .addOnSuccessListener(snapshots -> {
-                            if (!snapshots.isEmpty()) {
-                                processUserDocuments(snapshots);
-                                
-                                // Update this document with the correct UID if needed
-                                for (QueryDocumentSnapshot doc : snapshots) {
-                                    if (!doc.contains("uid") || doc.getString("uid") == null) {
-                                        doc.getReference().update("uid", user.getUid())
-                                            .addOnSuccessListener(aVoid -> 
-                                                Log.d(TAG, "Updated user document with UID"));
-                                    }
-                                }
-                            } else {
-                                // No user document found by any method
-                                Log.e(TAG, "User not found in Firestore");
-                                Toast.makeText(requireContext(), "User profile not found. Please contact admin.", Toast.LENGTH_LONG).show();
-                                handleLogout();
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error fetching user by sevarthId: " + e.getMessage(), e);
-                            Toast.makeText(requireContext(), "Failed to load user data. Please try again later.", Toast.LENGTH_SHORT).show();
-                        });
+        // Try to load user by Firebase UID first (most reliable), then by sevarthId;
+        // usually answered from the profile cache filled at login
+        LifecycleResults.deliver(this, profileCache.getByUidOrSevarthId(user.getUid(), sevarthId),
+            new LifecycleResults.Callback<UserProfile>() {
+                @Override
+                public void onSuccess(UserProfile profile) {
+                    if (profile == null) {
+                        // No user document found by any method
+                        Log.e(TAG, "User not found in Firestore");
+                        Toast.makeText(requireContext(), "User profile not found. Please contact admin.", Toast.LENGTH_LONG).show();
+                        handleLogout();
+                        return;
+                    }
+                    processUserProfile(profile);
+                    
+                    // Update the document with the correct UID if it was found by sevarthId
+                    if (profile.getUid() == null && profile.getDocumentId() != null) {
+                        db.collection("users").document(profile.getDocumentId())
+                            .update("uid", user.getUid())
+                            .addOnSuccessListener(aVoid -> 
+                                Log.d(TAG, "Updated user document with UID"));
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Error fetching user data: " + error.getMessage(), error);
+                    Toast.makeText(requireContext(), "Failed to load user data. Please try again later.", Toast.LENGTH_SHORT).show();
                 }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error fetching user data: " + e.getMessage(), e);
-                Toast.makeText(requireContext(), "Failed to load user data. Please try again later.", Toast.LENGTH_SHORT).show();
             });
     }
     
-    // Helper method to process user documents
-    private void processUserDocuments(com.google.firebase.firestore.QuerySnapshot snapshots) {
-        // Get user document
-        for (QueryDocumentSnapshot document : snapshots) {
-            Map<String, Object> userData = document.getData();
-                
-            // Extract all user details explicitly
-            String firstName = (String) userData.get("firstName");
-            String lastName = (String) userData.get("lastName");
-            userId = (String) userData.get("uid");
-            
-            // If sevarthId wasn't properly set in SharedPreferences, get it from Firestore
-            if (sevarthId == null || sevarthId.isEmpty()) {
-                sevarthId = (String) userData.get("sevarthId");
-                if (sevarthId != null) {
-                    // Save to preferences
-                    SharedPreferences prefs = requireActivity().getSharedPreferences(
-                        "user_prefs", Context.MODE_PRIVATE);
-                    prefs.edit().putString("sevarth_id", sevarthId).apply();
-                }
-            }
-            
-            // Create a proper user name
-            userName = "";
-            if (firstName != null && !firstName.isEmpty()) {
-                userName += firstName;
-            }
-            if (lastName != null && !lastName.isEmpty()) {
-                if (!userName.isEmpty()) userName += " ";
-                userName += lastName;
-            }
-            
-            // Debug: log user details
-            Log.d(TAG, "User data loaded: sevarthId=" + sevarthId + 
-                  ", name='" + userName + "', uid=" + userId);
-            
-            // Use Firebase UID if the one from Firestore is missing
-            if (userId == null || userId.isEmpty()) {
-                FirebaseUser user = mAuth.getCurrentUser();
-                if (user != null) {
-                    userId = user.getUid();
-                    Log.w(TAG, "Using Firebase Auth UID as fallback: " + userId);
-                } else {
-                    Log.e(TAG, "User UID missing in Firestore and Firebase Auth");
-                    Toast.makeText(requireContext(), "User profile incomplete. Contact administrator.", Toast.LENGTH_LONG).show();
-                }
+    // Helper method to process the user's profile
+    private void processUserProfile(UserProfile profile) {
+        // Extract all user details explicitly
+        String firstName = profile.getFirstName();
+        String lastName = profile.getLastName();
+        userId = profile.getUid();
+        
+        // If sevarthId wasn't properly set in SharedPreferences, get it from Firestore
+        if (sevarthId == null || sevarthId.isEmpty()) {
+            sevarthId = profile.getSevarthId();
+            if (sevarthId != null) {
+                // Save to preferences
+                SharedPreferences prefs = requireActivity().getSharedPreferences(
+                    "user_prefs", Context.MODE_PRIVATE);
+                prefs.edit().putString("sevarth_id", sevarthId).apply();
             }
-            
-            if (userName == null || userName.isEmpty()) {
-                userName = "User"; // Fallback to generic name if missing
-                Log.w(TAG, "User name missing, using default");
+        }
+        
+        // Create a proper user name
+        userName = "";
+        if (firstName != null && !firstName.isEmpty()) {
+            userName += firstName;
+        }
+        if (lastName != null && !lastName.isEmpty()) {
+            if (!userName.isEmpty()) userName += " ";
+            userName += lastName;
+        }
+        
+        // Debug: log user details
+        Log.d(TAG, "User data loaded: sevarthId=" + sevarthId + 
+              ", name='" + userName + "', uid=" + userId);
+        
+        // Use Firebase UID if the one from Firestore is missing
+        if (userId == null || userId.isEmpty()) {
+            FirebaseUser user = mAuth.getCurrentUser();
+            if (user != null) {
+                userId = user.getUid();
+                Log.w(TAG, "Using Firebase Auth UID as fallback: " + userId);
+            } else {
+                Log.e(TAG, "User UID missing in Firestore and Firebase Auth");
+                Toast.makeText(requireContext(), "User profile incomplete. Contact administrator.", Toast.LENGTH_LONG).show();
             }
-            
-            // DO NOT override the locationId and locationName that were passed to the fragment
-            // We should respect the user's selection from LocationSelectionActivity
-            Log.d(TAG, "Keeping selected location: " + locationName + " (ID: " + locationId + ")");
         }
         
+        if (userName == null || userName.isEmpty()) {
+            userName = "User"; // Fallback to generic name if missing
+            Log.w(TAG, "User name missing, using default");
+        }
+        
+        // DO NOT override the locationId and locationName that were passed to the fragment
+        // We should respect the user's selection from LocationSelectionActivity
+        Log.d(TAG, "Keeping selected location: " + locationName + " (ID: " + locationId + ")");
+        
         updateWelcomeText();
     }
 
@@ -740,118 +730,117 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
             faceRecognitionSystem.setVerificationListener(this);
         }
         
+        // Don't capture in the background once the user has closed the dialog
+        dialog.setOnCancelListener(d -> {
+            if (faceRecognitionSystem != null) {
+                faceRecognitionSystem.cancelAutoCapture();
+            }
+        });
+        
         // Debug: Log user details
         Log.d(TAG, "Starting verification with: sevarthId=" + sevarthId + 
               ", name='" + userName + "', userId=" + userId + 
               ", locationId=" + locationId +
               ", locationName=" + locationName);
               
-        // Save final variables for use in lambda
-        final String finalLocationId = locationId;
-        final String finalLocationName = locationName;
-        final String finalUserName = userName;
-        final String finalUserId = userId;
-              
-        // Slight delay to allow dialog to fully render
-        new android.os.Handler().postDelayed(() -> {
+        // Wait for the dialog to lay out, then start the camera. Capture fires as soon as
+        // the preview analyzer sees a good face instead of after a fixed delay.
+        previewView.post(() -> {
             if (isAdded() && faceRecognitionSystem != null) {
                 statusText.setText("Initializing camera...");
             
                 // Initialize camera and start verification process
                 faceRecognitionSystem.initializeCamera(this, previewView);
+                statusText.setText("Look straight at the camera...");
                 
-                // Increased delay to 1500ms to give camera more time to initialize
-                new android.os.Handler().postDelayed(() -> {
-                    if (isAdded() && faceRecognitionSystem != null) {
-                        statusText.setText("Capturing face image...");
-                        
-                        // Attempt to capture the image
-                        captureImageWithRetry(bitmap -> {
-                            if (bitmap == null) {
-                                statusText.setText("Failed to capture image. Please try again.");
-                                new android.os.Handler().postDelayed(() -> {
-                                    dialog.dismiss();
-                                }, 2000);
-                                return;
-                            }
-                            
-                            statusText.setText("Verifying...");
-                            
-                            // Log debug information
-                            Log.d(TAG, "About to verify face. User data: sevarthId=" + sevarthId + 
-                                  ", userName=" + finalUserName + ", userId=" + finalUserId + 
-                                  ", locationId=" + finalLocationId + 
-                                  ", locationName=" + finalLocationName);
-                            
-                            // Verify face if sevarthId exists
-                            faceRepository.verifyFace(sevarthId, bitmap, new FaceRecognitionRepository.RepositoryCallback<FaceVerificationResponse>() {
-                                @Override
-                                public void onSuccess(FaceVerificationResponse result) {
-                                    if (result.isVerified()) {
-                                        statusText.setText("Verified! Recording attendance...");
-                                        
-                                        // Mark attendance immediately after verification, providing all user details
-                                        AttendanceRequest request = new AttendanceRequest(
-                                            sevarthId,
-                                            attendanceType,
-                                            result.getConfidence(),
-                                            finalLocationId,
-                                            finalUserName,
-                                            finalUserId);
-                                            
-                                        // Also add locationName to the request
-                                        request.setLocationName(finalLocationName);
-                                        
-                                        faceRepository.markAttendanceWithRequest(
-                                            request,
-                                            new FaceRecognitionRepository.RepositoryCallback<AttendanceResponse>() {
-                                                @Override
-                                                public void onSuccess(AttendanceResponse response) {
-                                                    dialog.dismiss();
-                                                    onAttendanceMarked(true, response.getMessage());
-                                                }
-                                                
-                                                @Override
-                                                public void onError(String errorMessage) {
-                                                    dialog.dismiss();
-                                                    requireActivity().runOnUiThread(() -> {
-                                                        // Check if the error is about incomplete data
-                                                        if (errorMessage.contains("User data incomplete")) {
-                                                            // Trigger user reload to ensure we have the latest data
-                                                            loadUserDetails();
-                                                            
-                                                            // Show a more specific error
-                                                            handleError("Your profile data is incomplete. Please update your profile.");
-                                                        } else {
-                                                        handleError("Failed to mark attendance: " + errorMessage);
-                                                        }
-                                                    });
-                                                }
-                                            });
-                                    } else {
-                                        dialog.dismiss();
-                                        requireActivity().runOnUiThread(() -> {
-                                            handleError("Face verification failed: " + result.getMessage());
-                                        });
-                                    }
-                                }
-                                
-                                @Override
-                                public void onError(String errorMessage) {
-                                    dialog.dismiss();
-                                    requireActivity().runOnUiThread(() -> {
-                                        handleError("Face verification error: " + errorMessage);
-                                    });
-                                }
-                            });
-                        }, dialog, statusText, 0);
+                faceRecognitionSystem.captureWhenFaceReady(AUTO_CAPTURE_TIMEOUT_MS, bitmap -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    if (bitmap != null) {
+                        verifyCapturedFace(bitmap, attendanceType, dialog, statusText);
+                    } else {
+                        // Auto-capture produced nothing usable; fall back to explicit captures
+                        captureImageWithRetry(retryBitmap -> 
+                                verifyCapturedFace(retryBitmap, attendanceType, dialog, statusText),
+                                dialog, statusText, 1);
                     }
-                }, 1500); // Increased from 500ms to 1500ms to allow camera to fully initialize
+                });
             } else {
                 Toast.makeText(requireContext(), "Face recognition system not initialized", Toast.LENGTH_SHORT).show();
                 dialog.dismiss();
             }
-        }, 500);
+        });
+    }
+    
+    /**
+     * Verify a captured face with the server and mark attendance if it matches
+     */
+    private void verifyCapturedFace(Bitmap bitmap, String attendanceType,
+                                    androidx.appcompat.app.AlertDialog dialog, TextView statusText) {
+        // Save final variables for use in lambda
+        final String finalLocationId = locationId;
+        final String finalLocationName = locationName;
+        final String finalUserName = userName;
+        final String finalUserId = userId;
+        
+        statusText.setText("Verifying...");
+        
+        // Log debug information
+        Log.d(TAG, "About to verify face. User data: sevarthId=" + sevarthId + 
+              ", userName=" + finalUserName + ", userId=" + finalUserId + 
+              ", locationId=" + finalLocationId + 
+              ", locationName=" + finalLocationName);
+        
+        // Upload just the face crop when the detector gave us its bounds
+        Rect faceBounds = faceRecognitionSystem != null ? faceRecognitionSystem.getLastFaceBounds() : null;
+        
+        // Verify and mark in one request, providing all user details; the server fills in the confidence
+        AttendanceRequest request = new AttendanceRequest(
+            sevarthId,
+            attendanceType,
+            0f,
+            finalLocationId,
+            finalUserName,
+            finalUserId);
+        request.setLocationName(finalLocationName);
+        
+        faceRepository.verifyAndMarkAttendance(request, bitmap, faceBounds,
+                new FaceRecognitionRepository.RepositoryCallback<VerifyAndMarkResponse>() {
+            @Override
+            public void onSuccess(VerifyAndMarkResponse response) {
+                dialog.dismiss();
+                if (!response.isVerified()) {
+                    requireActivity().runOnUiThread(() -> {
+                        handleError("Face verification failed: " + response.getMessage());
+                    });
+                } else if (response.isError()) {
+                    String errorMessage = response.getMessage() != null ? response.getMessage() : "Unknown error";
+                    requireActivity().runOnUiThread(() -> {
+                        // Check if the error is about incomplete data
+                        if (errorMessage.contains("User data incomplete")) {
+                            // Trigger user reload to ensure we have the latest data
+                            loadUserDetails();
+                            
+                            // Show a more specific error
+                            handleError("Your profile data is incomplete. Please update your profile.");
+                        } else {
+                            handleError("Failed to mark attendance: " + errorMessage);
+                        }
+                    });
+                } else {
+                    onAttendanceMarked(true, response.getMessage());
+                }
+            }
+            
+            @Override
+            public void onError(String errorMessage) {
+                dialog.dismiss();
+                requireActivity().runOnUiThread(() -> {
+                    handleError("Face verification error: " + errorMessage);
+                });
+            }
+        });
     }
     
     // New method to handle image capture with retry
@@ -910,6 +899,7 @@ public class UserAttendanceFragment extends Fragment implements FaceRecognitionS
     }
 
     private void handleLogout() {
+        profileCache.clear();
         mAuth.signOut();
         
         // Navigate back to LoginActivity instead of just finishing
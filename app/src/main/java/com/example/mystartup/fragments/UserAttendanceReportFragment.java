@@ -1,7 +1,6 @@
 package com.example.mystartup.fragments;
 
 import android.app.DatePickerDialog;
-import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -9,25 +8,26 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
-import android.widget.TableLayout;
-import android.widget.TableRow;
-import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mystartup.R;
 import com.example.mystartup.adapters.AttendanceAdapter;
-import com.example.mystartup.adapters.AttendanceReportAdapter;
+import com.example.mystartup.adapters.ReportGridAdapter;
 import com.example.mystartup.databinding.FragmentUserAttendanceReportBinding;
 import com.example.mystartup.models.AttendanceRecord;
-import com.example.mystartup.models.AttendanceReportItem;
+import com.example.mystartup.models.AttendanceReportRow;
 import com.example.mystartup.models.User;
+import com.example.mystartup.utils.AttendanceReportCache;
+import com.example.mystartup.utils.AttendanceReportEngine;
+import com.example.mystartup.utils.AttendanceReportExporter;
+import com.example.mystartup.utils.ReportExportLauncher;
+import com.example.mystartup.utils.ReportRowWriter;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
@@ -51,11 +51,14 @@ public class UserAttendanceReportFragment extends Fragment {
     private List<User> userList;
     private Map<String, String> userDisplayToId;
     private FirebaseFirestore db;
+    private AttendanceReportCache reportCache;
     private AttendanceAdapter attendanceAdapter;
-    private AttendanceReportAdapter attendanceReportAdapter;
-    // Table row alternating colors
-    private int colorEven;
-    private int colorOdd;
+    private ReportGridAdapter reportGridAdapter;
+    private ReportExportLauncher exportLauncher;
+    // User and range of the report on screen, for export
+    private String reportSevarthId;
+    private String reportStartDate;
+    private String reportEndDate;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -66,6 +69,8 @@ public class UserAttendanceReportFragment extends Fragment {
         userList = new ArrayList<>();
         userDisplayToId = new HashMap<>();
         db = FirebaseFirestore.getInstance();
+        reportCache = AttendanceReportCache.getInstance(requireContext());
+        exportLauncher = new ReportExportLauncher(this);
     }
 
     @Nullable
@@ -87,19 +92,22 @@ public class UserAttendanceReportFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         
         try {
-            // Initialize row colors for alternating table rows
-            colorEven = ContextCompat.getColor(requireContext(), R.color.tableRowEven);
-            colorOdd = ContextCompat.getColor(requireContext(), R.color.tableRowOdd);
+            // Rows are recycled as they scroll; the header row above the list stays put
+            reportGridAdapter = new ReportGridAdapter(requireContext(), false,
+                    ReportGridAdapter.Column.SERIAL,
+                    ReportGridAdapter.Column.DATE,
+                    ReportGridAdapter.Column.OFFICE,
+                    ReportGridAdapter.Column.CHECK_IN,
+                    ReportGridAdapter.Column.CHECK_OUT);
+            reportGridAdapter.populateHeader(binding.reportHeaderRow);
+            binding.reportGrid.setLayoutManager(new LinearLayoutManager(requireContext()));
+            binding.reportGrid.setAdapter(reportGridAdapter);
+            exportLauncher.bindStatusViews(binding.exportProgressBar, binding.exportStatusText);
+            binding.exportButton.setOnClickListener(v -> showExportOptions());
             
             // Set up RecyclerView for results (keeping as a fallback)
             attendanceAdapter = new AttendanceAdapter(requireContext());
             
-            // Initialize the report adapter (keeping as a fallback)
-            attendanceReportAdapter = new AttendanceReportAdapter(requireContext());
-            
-            binding.attendanceRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-            binding.attendanceRecyclerView.setAdapter(attendanceReportAdapter);
-            
             // Hide the results initially
             binding.resultsContainer.setVisibility(View.GONE);
             
@@ -269,333 +277,83 @@ public class UserAttendanceReportFragment extends Fragment {
         binding.progressBar.setVisibility(View.VISIBLE);
         binding.resultsContainer.setVisibility(View.GONE);
         
-        try {
-            // Query Firestore for attendance records
-            db.collection("face-recognition-attendance")
-                .whereEqualTo("sevarthId", sevarthId)
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (binding == null) return;
-                    
-                    try {
-                        List<AttendanceRecord> records = new ArrayList<>();
-                        
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            try {
-                                Log.d(TAG, "Document data: " + document.getData());
-                                
-                                // Create attendance record from document
-                                AttendanceRecord record = new AttendanceRecord();
-                                record.setId(document.getId());
-                                record.setDate(document.getString("date"));
-                                record.setStatus(document.getString("status"));
-                                record.setTime(document.getString("time"));
-                                record.setTimestamp(document.getTimestamp("timestamp"));
-                                record.setType(document.getString("type"));
-                                record.setUserId(document.getString("userId"));
-                                record.setUserName(document.getString("userName"));
-                                record.setSevarthId(document.getString("sevarthId"));
-                                
-                                // Get office name
-                                String officeName = document.getString("officeName");
-                                if (officeName == null || officeName.isEmpty()) {
-                                    officeName = "Unknown Office";
-                                }
-                                record.setOfficeName(officeName);
-                                
-                                // Verification confidence
-                                if (document.contains("verificationConfidence")) {
-                                    Double confidence = document.getDouble("verificationConfidence");
-                                    if (confidence != null) {
-                                        record.setVerificationConfidence(confidence);
-                                    }
-                                }
-                                
-                                records.add(record);
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error processing attendance record", e);
-                            }
-                        }
-                        
-                        // Group records by date and office to create the report items
-                        Map<String, AttendanceReportItem> reportItemMap = new HashMap<>();
+        reportSevarthId = sevarthId;
+        reportStartDate = startDate;
+        reportEndDate = endDate;
+        
+        // Served from the on-device cache; only records written since the last sync are downloaded
+        reportCache.loadRecords(AttendanceReportCache.Scope.USER, sevarthId, startDate, endDate,
+                new AttendanceReportCache.RecordsCallback() {
+                    @Override
+                    public void onRecords(List<AttendanceRecord> records) {
+                        if (binding == null) return;
+                        showReport(records);
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        if (binding == null) return;
                         
-                        for (AttendanceRecord record : records) {
-                            String key = record.getDate() + "_" + record.getOfficeName();
-                            AttendanceReportItem reportItem = reportItemMap.get(key);
-                            
-                            if (reportItem == null) {
-                                reportItem = new AttendanceReportItem(record.getDate(), record.getOfficeName());
-                                reportItemMap.put(key, reportItem);
-                            }
-                            
-                            // Set check-in or check-out time based on record type
-                            if ("check_in".equals(record.getType())) {
-                                reportItem.setCheckInTime(record.getTime());
-                            } else if ("check_out".equals(record.getType())) {
-                                reportItem.setCheckOutTime(record.getTime());
-                            }
+                        String message;
+                        if (errorMessage != null && errorMessage.contains("FAILED_PRECONDITION")) {
+                            message = "This query requires a Firestore index. Please check Firebase console and create the required index.";
+                        } else {
+                            message = "Failed to generate report: " + errorMessage;
                         }
-                        
-                        // Convert map values to a list and sort by date
-                        List<AttendanceReportItem> reportItems = new ArrayList<>(reportItemMap.values());
-                        reportItems.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+                        Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+                        binding.progressBar.setVisibility(View.GONE);
+                    }
+                });
+    }
+    
+    private void showReport(List<AttendanceRecord> records) {
+        for (AttendanceRecord record : records) {
+            if (record.getOfficeName() == null || record.getOfficeName().isEmpty()) {
+                record.setOfficeName("Unknown Office");
+            }
+        }
+        
+        // One row per day and office, computed off the main thread
+        AttendanceReportEngine.getInstance().compute(records, AttendanceReportEngine.Grouping.BY_DATE_AND_OFFICE,
+                new AttendanceReportEngine.RowsCallback() {
+                    @Override
+                    public void onRows(List<AttendanceReportRow> reportRows) {
+                        if (binding == null) return;
                         
                         // Update UI
-                        if (reportItems.isEmpty()) {
+                        if (reportRows.isEmpty()) {
                             binding.noRecordsText.setVisibility(View.VISIBLE);
-                            binding.attendanceTable.setVisibility(View.GONE);
+                            binding.reportTableContainer.setVisibility(View.GONE);
                         } else {
                             binding.noRecordsText.setVisibility(View.GONE);
-                            binding.attendanceTable.setVisibility(View.VISIBLE);
-                            
-                            // Clear the table except for the header row
-                            clearTableRows();
-                            
-                            // Populate table with the data
-                            populateTable(reportItems);
+                            binding.reportTableContainer.setVisibility(View.VISIBLE);
+                            reportGridAdapter.setRows(reportRows);
                         }
                         
                         // Show results
                         binding.resultsContainer.setVisibility(View.VISIBLE);
                         binding.progressBar.setVisibility(View.GONE);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing attendance records in main query", e);
-                        binding.progressBar.setVisibility(View.GONE);
-                        Toast.makeText(requireContext(), "Error generating report: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     }
-                })
-                .addOnFailureListener(e -> {
-                    if (binding == null) return;
-                    
-                    Log.e(TAG, "Error fetching attendance records", e);
-                    
-                    String errorMessage;
-                    if (e.getMessage() != null && e.getMessage().contains("FAILED_PRECONDITION")) {
-                        errorMessage = "This query requires a Firestore index. Please check Firebase console and create the required index.";
-                        
-                        // For development: Try a simpler query as a fallback that doesn't need an index
-                        try {
-                            // Fallback to using only the sevarthId filter
-                            tryAlternativeQuery(sevarthId, startDate, endDate);
-                            return;
-                        } catch (Exception ex) {
-                            Log.e(TAG, "Error with alternative query", ex);
-                        }
-                    } else {
-                        errorMessage = "Failed to generate report: " + e.getMessage();
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        if (binding == null) return;
+                        Log.e(TAG, "Error processing attendance records: " + errorMessage);
+                        binding.progressBar.setVisibility(View.GONE);
+                        Toast.makeText(requireContext(), "Error generating report: " + errorMessage, Toast.LENGTH_SHORT).show();
                     }
-                    
-                    Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_LONG).show();
-                    binding.progressBar.setVisibility(View.GONE);
                 });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in generateReport", e);
-            binding.progressBar.setVisibility(View.GONE);
-        }
     }
     
-    // Clear all rows from the table except the header row
-    private void clearTableRows() {
-        TableLayout table = binding.attendanceTable;
-        if (table.getChildCount() > 1) {
-            table.removeViews(1, table.getChildCount() - 1);
-        }
-    }
-    
-    // Populate the table with attendance report data
-    private void populateTable(List<AttendanceReportItem> items) {
-        TableLayout table = binding.attendanceTable;
-        
-        for (int i = 0; i < items.size(); i++) {
-            AttendanceReportItem item = items.get(i);
-            
-            // Create a new row
-            TableRow row = new TableRow(requireContext());
-            row.setPadding(0, 0, 0, 0);
-            
-            // Set row layout parameters
-            TableLayout.LayoutParams rowParams = new TableLayout.LayoutParams(
-                TableLayout.LayoutParams.MATCH_PARENT,
-                TableLayout.LayoutParams.WRAP_CONTENT
-            );
-            row.setLayoutParams(rowParams);
-            
-            // Create and add cells for this row
-            TextView serialNumberCell = createTableCell((i + 1) + "");
-            TextView dateCell = createTableCell(item.getDate());
-            TextView officeCell = createTableCell(item.getOfficeName());
-            TextView checkInCell = createTableCell(item.getCheckInTime());
-            TextView checkOutCell = createTableCell(item.getCheckOutTime());
-            
-            // Set background color for each cell based on row position (alternating)
-            int bgColor = i % 2 == 0 ? colorEven : colorOdd;
-            serialNumberCell.setBackgroundColor(bgColor);
-            dateCell.setBackgroundColor(bgColor);
-            officeCell.setBackgroundColor(bgColor);
-            checkInCell.setBackgroundColor(bgColor);
-            checkOutCell.setBackgroundColor(bgColor);
-            
-            // Set fixed widths for columns
-            serialNumberCell.setMinWidth(80);
-            dateCell.setMinWidth(120);
-            officeCell.setMinWidth(180);
-            checkInCell.setMinWidth(100);
-            checkOutCell.setMinWidth(100);
-            
-            // Add cells to the row
-            row.addView(serialNumberCell);
-            row.addView(dateCell);
-            row.addView(officeCell);
-            row.addView(checkInCell);
-            row.addView(checkOutCell);
-            
-            // Add the row to the table
-            table.addView(row);
-        }
-    }
-    
-    // Helper method to create a table cell TextView
-    private TextView createTableCell(String text) {
-        TextView cell = new TextView(requireContext());
-        cell.setText(text != null ? text : "");
-        cell.setPadding(12, 12, 12, 12);
-        cell.setGravity(android.view.Gravity.CENTER);
+    private void showExportOptions() {
+        if (reportSevarthId == null) return;
         
-        // Set layout parameters with margins for borders
-        TableRow.LayoutParams params = new TableRow.LayoutParams(
-            TableRow.LayoutParams.WRAP_CONTENT,
-            TableRow.LayoutParams.WRAP_CONTENT
-        );
-        params.setMargins(1, 1, 1, 1);
-        cell.setLayoutParams(params);
-        
-        return cell;
-    }
-    
-    // Alternative query method that doesn't require a composite index
-    private void tryAlternativeQuery(String sevarthId, String startDate, String endDate) {
-        if (binding == null) return;
-        
-        // Just filter by sevarthId and then filter the results in code
-        db.collection("face-recognition-attendance")
-            .whereEqualTo("sevarthId", sevarthId)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                if (binding == null) return;
-                
-                try {
-                    List<AttendanceRecord> filteredRecords = new ArrayList<>();
-                    
-                    // First, filter records within the date range
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        try {
-                            // Get the date string from the document
-                            String recordDate = document.getString("date");
-                            
-                            // Skip records outside our date range
-                            if (recordDate == null || 
-                                recordDate.compareTo(startDate) < 0 || 
-                                recordDate.compareTo(endDate) > 0) {
-                                continue;
-                            }
-                            
-                            // Create attendance record from document
-                            AttendanceRecord record = new AttendanceRecord();
-                            record.setId(document.getId());
-                            record.setDate(recordDate);
-                            record.setStatus(document.getString("status"));
-                            record.setTime(document.getString("time"));
-                            record.setTimestamp(document.getTimestamp("timestamp"));
-                            record.setType(document.getString("type"));
-                            record.setUserId(document.getString("userId"));
-                            record.setUserName(document.getString("userName"));
-                            record.setSevarthId(document.getString("sevarthId"));
-                            
-                            // Get office name
-                            String officeName = document.getString("officeName");
-                            if (officeName == null || officeName.isEmpty()) {
-                                officeName = "Unknown Office";
-                            }
-                            record.setOfficeName(officeName);
-                            
-                            // Verification confidence
-                            if (document.contains("verificationConfidence")) {
-                                Double confidence = document.getDouble("verificationConfidence");
-                                if (confidence != null) {
-                                    record.setVerificationConfidence(confidence);
-                                }
-                            }
-                            
-                            filteredRecords.add(record);
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error processing attendance record in alternative query", e);
-                        }
-                    }
-                    
-                    // Group records by date and office to create the report items
-                    // Use a map where the key is a composite of date and office name
-                    Map<String, AttendanceReportItem> reportItemMap = new HashMap<>();
-                    
-                    for (AttendanceRecord record : filteredRecords) {
-                        String key = record.getDate() + "_" + record.getOfficeName();
-                        AttendanceReportItem reportItem = reportItemMap.get(key);
-                        
-                        if (reportItem == null) {
-                            reportItem = new AttendanceReportItem(record.getDate(), record.getOfficeName());
-                            reportItemMap.put(key, reportItem);
-                        }
-                        
-                        // Set check-in or check-out time based on record type
-                        if ("check_in".equals(record.getType())) {
-                            reportItem.setCheckInTime(record.getTime());
-                        } else if ("check_out".equals(record.getType())) {
-                            reportItem.setCheckOutTime(record.getTime());
-                        }
-                    }
-                    
-                    // Convert map values to a list and sort by date
-                    List<AttendanceReportItem> reportItems = new ArrayList<>(reportItemMap.values());
-                    reportItems.sort((a, b) -> a.getDate().compareTo(b.getDate()));
-                    
-                    // Update UI
-                    if (reportItems.isEmpty()) {
-                        binding.noRecordsText.setVisibility(View.VISIBLE);
-                        binding.attendanceTable.setVisibility(View.GONE);
-                    } else {
-                        binding.noRecordsText.setVisibility(View.GONE);
-                        binding.attendanceTable.setVisibility(View.VISIBLE);
-                        
-                        // Clear the table except for the header row
-                        clearTableRows();
-                        
-                        // Populate table with the data
-                        populateTable(reportItems);
-                    }
-                    
-                    // Show results
-                    binding.resultsContainer.setVisibility(View.VISIBLE);
-                    binding.progressBar.setVisibility(View.GONE);
-                    
-                    // Show a toast that we're using client-side filtering
-                    Toast.makeText(requireContext(), 
-                        "Showing attendance report with client-side processing.", 
-                        Toast.LENGTH_LONG).show();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing attendance records", e);
-                    binding.progressBar.setVisibility(View.GONE);
-                    Toast.makeText(requireContext(), "Error generating report: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                }
-            })
-            .addOnFailureListener(e -> {
-                if (binding == null) return;
-                
-                Log.e(TAG, "Error with alternative query", e);
-                Toast.makeText(requireContext(), "Failed to generate report: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                binding.progressBar.setVisibility(View.GONE);
-            });
+        exportLauncher.showOptions(new ReportExportLauncher.Option[]{
+                new ReportExportLauncher.Option("CSV",
+                        AttendanceReportExporter.Scope.USER, reportSevarthId, ReportRowWriter.Format.CSV),
+                new ReportExportLauncher.Option("Excel",
+                        AttendanceReportExporter.Scope.USER, reportSevarthId, ReportRowWriter.Format.XLSX)
+        }, reportStartDate, reportEndDate);
     }
 
     @Override
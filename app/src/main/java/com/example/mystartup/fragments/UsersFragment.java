@@ -18,24 +18,14 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.mystartup.AddUserActivity;
 import com.example.mystartup.R;
 import com.example.mystartup.adapters.UserAdapter;
-import com.example.mystartup.api.ApiService;
-import com.example.mystartup.api.RetrofitClient;
 import com.example.mystartup.models.User;
+import com.example.mystartup.repository.LifecycleResults;
+import com.example.mystartup.repository.Results;
+import com.example.mystartup.repository.UserRepository;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class UsersFragment extends Fragment implements UserAdapter.OnUserClickListener {
 
@@ -47,11 +37,9 @@ public class UsersFragment extends Fragment implements UserAdapter.OnUserClickLi
     private UserAdapter adapter;
     private List<User> userList;
     private View emptyView;
-    private FirebaseFirestore db;
-    private FirebaseAuth mAuth;
-    private FirebaseStorage storage;
-    private ApiService apiService;
+    private UserRepository userRepository;
     private FloatingActionButton addButton;
+    private AlertDialog deletingDialog;
 
     @Nullable
     @Override
@@ -61,13 +49,10 @@ public class UsersFragment extends Fragment implements UserAdapter.OnUserClickLi
         recyclerView = view.findViewById(R.id.usersRecyclerView);
         emptyView = view.findViewById(R.id.emptyView);
         
-        db = FirebaseFirestore.getInstance();
-        mAuth = FirebaseAuth.getInstance();
-        storage = FirebaseStorage.getInstance();
-        apiService = RetrofitClient.getInstance().getApiService();
+        userRepository = new UserRepository(requireContext());
         
         userList = new ArrayList<>();
-        adapter = new UserAdapter(userList, this);
+        adapter = new UserAdapter(this);
         
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
@@ -79,17 +64,27 @@ public class UsersFragment extends Fragment implements UserAdapter.OnUserClickLi
             startActivityForResult(intent, ADD_USER_REQUEST);
         });
         
-        loadUsers();
-        
         return view;
     }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        loadUsers();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
         addButton.setVisibility(View.VISIBLE);
     }
 
+    @Override
+    public void onDestroyView() {
+        dismissDeletingDialog();
+        super.onDestroyView();
+    }
+
     @Override
     public void onPause() {
         super.onPause();
@@ -100,54 +95,22 @@ public class UsersFragment extends Fragment implements UserAdapter.OnUserClickLi
     }
 
     private void loadUsers() {
-        db.collection("users")
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                userList.clear();
-                
-                // Set to track unique sevarthIds to avoid duplicates
-                Set<String> processedSevarthIds = new HashSet<>();
-                
-                for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                    try {
-                        User user = document.toObject(User.class);
-                        
-                        // Handle legacy data format
-                        if (user.getLocationIds() == null) {
-                            user.setLocationIds(new ArrayList<>());
-                        }
-                        if (user.getLocationNames() == null) {
-                            user.setLocationNames(new ArrayList<>());
-                        }
-                        
-                        // Skip this user if we've already processed a user with this sevarthId
-                        if (user.getSevarthId() != null && !user.getSevarthId().isEmpty()) {
-                            if (processedSevarthIds.contains(user.getSevarthId())) {
-                                // This is a duplicate user, skip it
-                                Log.d(TAG, "Skipping duplicate user with sevarthId: " + user.getSevarthId());
-                                continue;
-                            }
-                            
-                            // Add this sevarthId to our processed set
-                            processedSevarthIds.add(user.getSevarthId());
-                        }
-                        
-                        // Add the user to our list
-                        userList.add(user);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error converting document to User: " + document.getId(), e);
-                    }
+        LifecycleResults.deliver(getViewLifecycleOwner(), userRepository.loadUsers(),
+            new LifecycleResults.Callback<List<User>>() {
+                @Override
+                public void onSuccess(List<User> users) {
+                    userList.clear();
+                    userList.addAll(users);
+                    adapter.submitList(new ArrayList<>(userList));
+                    updateViewVisibility();
                 }
-                
-                adapter.notifyDataSetChanged();
-                updateViewVisibility();
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading users", e);
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to load users", Toast.LENGTH_SHORT).show();
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Error loading users", error);
+                    Toast.makeText(requireContext(), "Failed to load users", Toast.LENGTH_SHORT).show();
+                    updateViewVisibility();
                 }
-                updateViewVisibility();
             });
     }
     
@@ -193,75 +156,39 @@ public class UsersFragment extends Fragment implements UserAdapter.OnUserClickLi
         if (getContext() == null) return;
 
         // Show loading dialog
-        AlertDialog loadingDialog = new AlertDialog.Builder(getContext())
+        deletingDialog = new AlertDialog.Builder(getContext())
             .setMessage("Deleting user...")
             .setCancelable(false)
             .create();
-        loadingDialog.show();
-
-        // Get the current user's token
-        mAuth.getCurrentUser().getIdToken(true)
-            .addOnCompleteListener(task -> {
-                if (task.isSuccessful()) {
-                    String token = task.getResult().getToken();
-                    
-                    // First delete from Firestore
-                    db.collection("users")
-                        .whereEqualTo("sevarthId", user.getSevarthId())
-                        .get()
-                        .addOnSuccessListener(queryDocumentSnapshots -> {
-                            // Delete all matching documents (in case of duplicates)
-                            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                                document.getReference().delete();
-                            }
-                            
-                            // Then call backend API to clean up Firebase Auth and Storage
-                            apiService.deleteUser("Bearer " + token, user.getSevarthId())
-                                .enqueue(new Callback<Void>() {
-                                    @Override
-                                    public void onResponse(Call<Void> call, Response<Void> response) {
-                                        loadingDialog.dismiss();
-                                        if (response.isSuccessful()) {
-                                            Toast.makeText(getContext(), "User deleted successfully", Toast.LENGTH_SHORT).show();
-                                            loadUsers(); // Refresh the list
-                                        } else {
-                                            String errorMessage = "Failed to delete user";
-                                            try {
-                                                if (response.errorBody() != null) {
-                                                    errorMessage = response.errorBody().string();
-                                                }
-                                            } catch (Exception e) {
-                                                Log.e(TAG, "Error reading error response", e);
-                                            }
-                                            Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
-                                            loadUsers(); // Refresh anyway to show current state
-                                        }
-                                    }
+        deletingDialog.show();
+
+        // The delete finishes even if this screen goes away; only the result is dropped
+        LifecycleResults.observe(getViewLifecycleOwner(), userRepository.deleteUser(user.getSevarthId()),
+            new LifecycleResults.Callback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    dismissDeletingDialog();
+                    Toast.makeText(requireContext(), "User deleted successfully", Toast.LENGTH_SHORT).show();
+                    loadUsers(); // Refresh the list
+                }
 
-                                    @Override
-                                    public void onFailure(Call<Void> call, Throwable t) {
-                                        loadingDialog.dismiss();
-                                        Log.e(TAG, "Error deleting user", t);
-                                        Toast.makeText(getContext(), 
-                                            "Network error: " + t.getMessage(), 
-                                            Toast.LENGTH_SHORT).show();
-                                        loadUsers(); // Refresh anyway to show current state
-                                    }
-                                });
-                        })
-                        .addOnFailureListener(e -> {
-                            loadingDialog.dismiss();
-                            Log.e(TAG, "Error querying user documents", e);
-                            Toast.makeText(getContext(), 
-                                "Failed to delete user: " + e.getMessage(), 
-                                Toast.LENGTH_SHORT).show();
-                        });
-                } else {
-                    loadingDialog.dismiss();
-                    Toast.makeText(getContext(), 
-                        "Authentication error: " + task.getException().getMessage(), 
-                        Toast.LENGTH_SHORT).show();
+                @Override
+                public void onError(Throwable error) {
+                    dismissDeletingDialog();
+                    Log.e(TAG, "Error deleting user", error);
+                    String errorMessage = error instanceof Results.HttpException
+                        ? error.getMessage()
+                        : "Failed to delete user: " + error.getMessage();
+                    Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
+                    loadUsers(); // Refresh anyway to show current state
                 }
             });
     }
-} 
\ No newline at end of file
+    
+    private void dismissDeletingDialog() {
+        if (deletingDialog != null) {
+            deletingDialog.dismiss();
+            deletingDialog = null;
+        }
+    }
+}
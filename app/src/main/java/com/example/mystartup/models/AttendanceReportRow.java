@@ -0,0 +1,82 @@
+package com.example.mystartup.models;
+
+import java.util.Objects;
+
+/**
+ * One row of an attendance report: a user's first check-in and last check-out
+ * for a day, or for a day at one office
+ */
+public class AttendanceReportRow {
+    private final String date;
+    private final String sevarthId;
+    private final String userId;
+    private final String userName;
+    private final String officeName;
+    private String checkInTime;
+    private String checkOutTime;
+
+    public AttendanceReportRow(String date, String sevarthId, String userId, String userName, String officeName) {
+        this.date = date;
+        this.sevarthId = sevarthId;
+        this.userId = userId;
+        this.userName = userName;
+        this.officeName = officeName;
+        this.checkInTime = "-";
+        this.checkOutTime = "-";
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getSevarthId() {
+        return sevarthId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getOfficeName() {
+        return officeName;
+    }
+
+    public String getCheckInTime() {
+        return checkInTime;
+    }
+
+    public void setCheckInTime(String checkInTime) {
+        this.checkInTime = checkInTime;
+    }
+
+    public String getCheckOutTime() {
+        return checkOutTime;
+    }
+
+    public void setCheckOutTime(String checkOutTime) {
+        this.checkOutTime = checkOutTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AttendanceReportRow that = (AttendanceReportRow) o;
+        return Objects.equals(date, that.date) &&
+               Objects.equals(sevarthId, that.sevarthId) &&
+               Objects.equals(userId, that.userId) &&
+               Objects.equals(userName, that.userName) &&
+               Objects.equals(officeName, that.officeName) &&
+               Objects.equals(checkInTime, that.checkInTime) &&
+               Objects.equals(checkOutTime, that.checkOutTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, sevarthId, userId, userName, officeName, checkInTime, checkOutTime);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.mystartup.models;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a users document that screens show or key lookups on.
+ * Read field by field, so documents with legacy field types still load, and
+ * kept free of credentials so it can be cached on the device.
+ */
+public class UserProfile {
+    private String documentId;
+    private String uid;
+    private String sevarthId;
+    private String firstName;
+    private String lastName;
+    private String name;
+    private String email;
+    private String phoneNumber;
+    private String role;
+    private List<String> locationIds;
+    private List<String> locationNames;
+
+    // Required empty constructor for Gson
+    public UserProfile() {
+        locationIds = new ArrayList<>();
+        locationNames = new ArrayList<>();
+    }
+
+    public static UserProfile fromDocument(DocumentSnapshot document) {
+        UserProfile profile = new UserProfile();
+        profile.documentId = document.getId();
+        profile.uid = stringField(document, "uid");
+        profile.sevarthId = stringField(document, "sevarthId");
+        profile.firstName = stringField(document, "firstName");
+        profile.lastName = stringField(document, "lastName");
+        profile.name = stringField(document, "name");
+        profile.email = stringField(document, "email");
+        profile.phoneNumber = stringField(document, "phoneNumber");
+        profile.role = stringField(document, "role");
+        profile.locationIds = stringList(document.get("locationIds"));
+        profile.locationNames = stringList(document.get("locationNames"));
+        return profile;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getSevarthId() {
+        return sevarthId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public List<String> getLocationIds() {
+        return locationIds != null ? locationIds : new ArrayList<>();
+    }
+
+    public List<String> getLocationNames() {
+        return locationNames != null ? locationNames : new ArrayList<>();
+    }
+
+    /**
+     * First and last name, or an empty string when neither is set
+     */
+    public String getFullName() {
+        StringBuilder fullName = new StringBuilder();
+        if (firstName != null && !firstName.isEmpty()) {
+            fullName.append(firstName);
+        }
+        if (lastName != null && !lastName.isEmpty()) {
+            if (fullName.length() > 0) {
+                fullName.append(' ');
+            }
+            fullName.append(lastName);
+        }
+        return fullName.toString();
+    }
+
+    private static String stringField(DocumentSnapshot document, String field) {
+        Object value = document.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static List<String> stringList(Object value) {
+        List<String> strings = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof String) {
+                    strings.add((String) item);
+                }
+            }
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.mystartup.repository;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers repository results to a screen for as long as the screen exists.
+ * Fragments should pass {@link androidx.fragment.app.Fragment#getViewLifecycleOwner()},
+ * so a result never reaches views that were already torn down.
+ */
+public final class LifecycleResults {
+
+    private LifecycleResults() {
+    }
+
+    /**
+     * Callback for a delivered result, always called on the main thread
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onError(Throwable error);
+    }
+
+    /**
+     * Deliver the result to the callback unless the owner is destroyed first,
+     * in which case the future is cancelled and the callback is never called.
+     * Must be called on the main thread.
+     *
+     * @return The same future, for callers that want to cancel it earlier
+     */
+    public static <T> CompletableFuture<T> deliver(LifecycleOwner owner, CompletableFuture<T> future,
+                                                   Callback<? super T> callback) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            future.cancel(false);
+            return future;
+        }
+
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                future.cancel(false);
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        future.whenCompleteAsync((result, error) -> {
+            lifecycle.removeObserver(observer);
+            if (future.isCancelled() || lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                return;
+            }
+            if (error == null) {
+                callback.onSuccess(result);
+            } else {
+                callback.onError(Results.unwrap(error));
+            }
+        }, RepositoryExecutors.main());
+        return future;
+    }
+
+    /**
+     * Like {@link #deliver}, except the work itself keeps running when the owner is
+     * destroyed; only the callback is dropped. For writes that must not stop halfway.
+     * Must be called on the main thread.
+     *
+     * @return The same future
+     */
+    public static <T> CompletableFuture<T> observe(LifecycleOwner owner, CompletableFuture<T> future,
+                                                   Callback<? super T> callback) {
+        // Cancelling the copy leaves the original running
+        deliver(owner, future.thenApply(result -> result), callback);
+        return future;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mystartup.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one executor policy for the repository layer. Firestore and Retrofit results
+ * are parsed on {@link #io()}; screens only ever receive them on {@link #main()}.
+ */
+public final class RepositoryExecutors {
+    // Work here is parsing and mapping; the network waits happen in Firestore and OkHttp
+    private static final int IO_THREADS = 2;
+
+    private static final ExecutorService IO = createIoExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN = command -> {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            command.run();
+        } else {
+            MAIN_HANDLER.post(command);
+        }
+    };
+
+    private RepositoryExecutors() {
+    }
+
+    /**
+     * Background executor for parsing snapshots and responses
+     */
+    public static Executor io() {
+        return IO;
+    }
+
+    /**
+     * Main-thread executor; runs inline when already on the main thread
+     */
+    public static Executor main() {
+        return MAIN;
+    }
+
+    private static ExecutorService createIoExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "repository-io-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle apps shouldn't keep the threads around
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
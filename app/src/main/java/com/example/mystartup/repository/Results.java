@@ -0,0 +1,205 @@
+package com.example.mystartup.repository;
+
+import com.google.android.gms.tasks.Task;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Cancellable async results for the repository layer.
+ * Firestore tasks and Retrofit calls are adapted to {@link CompletableFuture}s, and
+ * the steps of a multi-step load are joined with {@link #chain}, {@link #map} and
+ * {@link #recover}. Unlike the CompletableFuture stage methods, these pass
+ * cancellation back up: cancelling the result cancels whichever step is still
+ * running and the later steps never start. Screens receive results through
+ * {@link LifecycleResults}, which cancels them when the screen goes away.
+ */
+public final class Results {
+
+    private Results() {
+    }
+
+    /**
+     * An HTTP response that wasn't successful
+     */
+    public static class HttpException extends IOException {
+        private final int code;
+
+        public HttpException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+
+    /**
+     * A Firestore or Play services task as a future. The task itself can't be
+     * stopped; cancelling the future only drops its result.
+     */
+    public static <T> CompletableFuture<T> fromTask(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(RepositoryExecutors.io(), completed -> {
+            if (completed.isCanceled()) {
+                future.cancel(false);
+            } else if (completed.isSuccessful()) {
+                future.complete(completed.getResult());
+            } else {
+                future.completeExceptionally(completed.getException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * A Retrofit call as a future of its body. Cancelling the future cancels the call.
+     * Unsuccessful responses fail with {@link HttpException}, whose message is the
+     * error body when the server sent one.
+     */
+    public static <T> CompletableFuture<T> fromCall(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.isSuccessful()) {
+                    future.complete(response.body());
+                    return;
+                }
+                String message = "HTTP " + response.code();
+                try {
+                    if (response.errorBody() != null) {
+                        String errorBody = response.errorBody().string();
+                        if (!errorBody.isEmpty()) {
+                            message = errorBody;
+                        }
+                    }
+                } catch (IOException e) {
+                    // Keep the status code as the message
+                }
+                future.completeExceptionally(new HttpException(response.code(), message));
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Start the next step with the value of the first
+     */
+    public static <A, B> CompletableFuture<B> chain(CompletableFuture<A> first,
+                                                    Function<? super A, CompletableFuture<B>> next) {
+        return continueWith(first, next, null);
+    }
+
+    /**
+     * Transform the value; the function runs on the thread that completed the source
+     */
+    public static <A, B> CompletableFuture<B> map(CompletableFuture<A> source, Function<? super A, ? extends B> mapper) {
+        return continueWith(source, value -> CompletableFuture.completedFuture(mapper.apply(value)), null);
+    }
+
+    /**
+     * Fall back to another step when the source fails. Cancellation is not a failure
+     * and is never recovered from.
+     */
+    public static <T> CompletableFuture<T> recover(CompletableFuture<T> source,
+                                                   Function<Throwable, CompletableFuture<T>> fallback) {
+        return continueWith(source, CompletableFuture::completedFuture, fallback);
+    }
+
+    /**
+     * The underlying error of a failed future
+     */
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static <A, B> CompletableFuture<B> continueWith(CompletableFuture<A> source,
+                                                            Function<? super A, CompletableFuture<B>> onValue,
+                                                            Function<Throwable, CompletableFuture<B>> onError) {
+        CompletableFuture<B> result = new CompletableFuture<>();
+        // The step that is running now; cancelling the result cancels it
+        AtomicReference<CompletableFuture<?>> current = new AtomicReference<>(source);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                current.get().cancel(false);
+            }
+        });
+
+        source.whenComplete((value, error) -> {
+            if (result.isDone()) {
+                return;
+            }
+            Throwable cause = error != null ? unwrap(error) : null;
+            if (cause instanceof CancellationException) {
+                result.cancel(false);
+                return;
+            }
+
+            CompletableFuture<B> next;
+            try {
+                if (cause == null) {
+                    next = onValue.apply(value);
+                } else if (onError != null) {
+                    next = onError.apply(cause);
+                } else {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            current.set(next);
+            if (result.isCancelled()) {
+                // Cancelled while the step was being started
+                next.cancel(false);
+                return;
+            }
+            next.whenComplete((nextValue, nextError) -> {
+                if (nextError == null) {
+                    result.complete(nextValue);
+                } else {
+                    Throwable nextCause = unwrap(nextError);
+                    if (nextCause instanceof CancellationException) {
+                        result.cancel(false);
+                    } else {
+                        result.completeExceptionally(nextCause);
+                    }
+                }
+            });
+        });
+        return result;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.mystartup.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.mystartup.models.UserProfile;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Session-scoped cache of user profiles, in memory and in preferences, with a
+ * uid to Sevarth ID index. The signed-in user's profile is loaded once at login
+ * and then kept current by a snapshot listener on their document, so screens
+ * read it without going back to the users collection.
+ * Cleared at logout with {@link #clear()}.
+ */
+public class UserProfileCache {
+    private static final String TAG = "UserProfileCache";
+    private static final String COLLECTION_PATH = "users";
+    private static final String PREFS_NAME = "user_profile_cache";
+    private static final String KEY_PROFILE_PREFIX = "profile_";
+    private static final String KEY_UID_PREFIX = "uid_";
+
+    private static UserProfileCache instance;
+
+    private final SharedPreferences prefs;
+    private final FirebaseFirestore db;
+    private final Gson gson = new Gson();
+    private final Map<String, UserProfile> profilesBySevarthId = new ConcurrentHashMap<>();
+    private final Map<String, String> sevarthIdByUid = new ConcurrentHashMap<>();
+    // Lookups in flight, so screens opening together share one read
+    private final Map<String, CompletableFuture<UserProfile>> pending = new HashMap<>();
+    private ListenerRegistration profileListener;
+    private String watchedDocumentId;
+    // Bumped by clear(); lookups and listener callbacks from an earlier session are dropped
+    private int generation;
+
+    private UserProfileCache(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        db = FirebaseFirestore.getInstance();
+        restore();
+    }
+
+    public static synchronized UserProfileCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserProfileCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Cached profile for a Sevarth ID, without any lookup
+     */
+    public UserProfile peekBySevarthId(String sevarthId) {
+        return sevarthId != null ? profilesBySevarthId.get(sevarthId) : null;
+    }
+
+    /**
+     * Cached profile for a Firebase Auth UID, without any lookup
+     */
+    public UserProfile peekByUid(String uid) {
+        String sevarthId = uid != null ? sevarthIdByUid.get(uid) : null;
+        return peekBySevarthId(sevarthId);
+    }
+
+    /**
+     * Load the signed-in user's profile from the server and keep it current
+     *
+     * @param documentId ID of their users document
+     * @return Future of the profile, or of null when the document doesn't exist
+     */
+    public CompletableFuture<UserProfile> loadAtLogin(String documentId) {
+        int session = currentGeneration();
+        return Results.map(Results.fromTask(db.collection(COLLECTION_PATH).document(documentId).get()),
+                document -> {
+                    if (!document.exists()) {
+                        return null;
+                    }
+                    UserProfile profile = UserProfile.fromDocument(document);
+                    remember(profile, session);
+                    watch(profile, session);
+                    return profile;
+                });
+    }
+
+    /**
+     * The signed-in user's profile, by their Firebase Auth UID
+     *
+     * @return Future of the profile, or of null when no document has this UID
+     */
+    public CompletableFuture<UserProfile> getByUid(String uid) {
+        int session = currentGeneration();
+        UserProfile cached = peekByUid(uid);
+        if (cached != null) {
+            watch(cached, session);
+            return CompletableFuture.completedFuture(cached);
+        }
+        return shared("uid:" + uid, () -> Results.map(
+                Results.fromTask(db.collection(COLLECTION_PATH).whereEqualTo("uid", uid).limit(1).get()),
+                snapshots -> {
+                    UserProfile profile = firstProfile(snapshots);
+                    if (profile != null) {
+                        remember(profile, session);
+                        watch(profile, session);
+                    }
+                    return profile;
+                }));
+    }
+
+    /**
+     * A profile by Sevarth ID
+     *
+     * @return Future of the profile, or of null when no document has this Sevarth ID
+     */
+    public CompletableFuture<UserProfile> getBySevarthId(String sevarthId) {
+        int session = currentGeneration();
+        UserProfile cached = peekBySevarthId(sevarthId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return shared("sevarthId:" + sevarthId, () -> Results.map(
+                Results.fromTask(db.collection(COLLECTION_PATH).whereEqualTo("sevarthId", sevarthId).limit(1).get()),
+                snapshots -> {
+                    UserProfile profile = firstProfile(snapshots);
+                    if (profile != null) {
+                        remember(profile, session);
+                    }
+                    return profile;
+                }));
+    }
+
+    /**
+     * By UID first, then by Sevarth ID for documents that don't have the UID yet
+     *
+     * @param sevarthId Fallback Sevarth ID, may be null
+     */
+    public CompletableFuture<UserProfile> getByUidOrSevarthId(String uid, String sevarthId) {
+        return Results.chain(getByUid(uid), profile -> {
+            if (profile != null || sevarthId == null || sevarthId.isEmpty()) {
+                return CompletableFuture.completedFuture(profile);
+            }
+            return getBySevarthId(sevarthId);
+        });
+    }
+
+    /**
+     * Forget every profile and stop listening; call at logout
+     */
+    public void clear() {
+        synchronized (this) {
+            generation++;
+            stopWatching();
+            profilesBySevarthId.clear();
+            sevarthIdByUid.clear();
+            prefs.edit().clear().apply();
+        }
+        // Not nested in the lock above; a lookup may complete while pending is held
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    private synchronized int currentGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache a profile read during the given session, unless that session has ended
+     */
+    private synchronized void remember(UserProfile profile, int session) {
+        if (session != generation) {
+            return;
+        }
+        String sevarthId = profile.getSevarthId();
+        if (sevarthId == null || sevarthId.isEmpty()) {
+            return;
+        }
+        profilesBySevarthId.put(sevarthId, profile);
+        SharedPreferences.Editor editor = prefs.edit()
+                .putString(KEY_PROFILE_PREFIX + sevarthId, gson.toJson(profile));
+        if (profile.getUid() != null && !profile.getUid().isEmpty()) {
+            sevarthIdByUid.put(profile.getUid(), sevarthId);
+            editor.putString(KEY_UID_PREFIX + profile.getUid(), sevarthId);
+        }
+        editor.apply();
+    }
+
+    private synchronized void forget(String documentId, int session) {
+        if (session != generation) {
+            return;
+        }
+        for (UserProfile profile : profilesBySevarthId.values()) {
+            if (documentId.equals(profile.getDocumentId())) {
+                profilesBySevarthId.remove(profile.getSevarthId());
+                SharedPreferences.Editor editor = prefs.edit().remove(KEY_PROFILE_PREFIX + profile.getSevarthId());
+                if (profile.getUid() != null) {
+                    sevarthIdByUid.remove(profile.getUid());
+                    editor.remove(KEY_UID_PREFIX + profile.getUid());
+                }
+                editor.apply();
+            }
+        }
+    }
+
+    /**
+     * Keep one profile current with a listener on its document. Only the
+     * signed-in user's profile is watched, so this is one listener per session.
+     */
+    private synchronized void watch(UserProfile profile, int session) {
+        String documentId = profile.getDocumentId();
+        if (session != generation || documentId == null || documentId.equals(watchedDocumentId)) {
+            return;
+        }
+        stopWatching();
+        watchedDocumentId = documentId;
+        profileListener = db.collection(COLLECTION_PATH).document(documentId)
+                .addSnapshotListener(RepositoryExecutors.io(), (document, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "Profile listener failed for " + documentId, e);
+                        return;
+                    }
+                    if (document == null || document.getMetadata().hasPendingWrites()) {
+                        return;
+                    }
+                    if (document.exists()) {
+                        remember(UserProfile.fromDocument(document), session);
+                    } else {
+                        forget(documentId, session);
+                    }
+                });
+    }
+
+    private void stopWatching() {
+        if (profileListener != null) {
+            profileListener.remove();
+            profileListener = null;
+        }
+        watchedDocumentId = null;
+    }
+
+    /**
+     * A view of the shared lookup for this key. Cancelling the view leaves the
+     * lookup running for the other callers and for the cache.
+     */
+    private CompletableFuture<UserProfile> shared(String key, Supplier<CompletableFuture<UserProfile>> lookup) {
+        CompletableFuture<UserProfile> lookupFuture;
+        synchronized (pending) {
+            lookupFuture = pending.get(key);
+            if (lookupFuture == null) {
+                CompletableFuture<UserProfile> started = lookup.get();
+                pending.put(key, started);
+                started.whenComplete((profile, error) -> {
+                    synchronized (pending) {
+                        pending.remove(key, started);
+                    }
+                });
+                lookupFuture = started;
+            }
+        }
+
+        CompletableFuture<UserProfile> view = new CompletableFuture<>();
+        lookupFuture.whenComplete((profile, error) -> {
+            if (error != null) {
+                view.completeExceptionally(Results.unwrap(error));
+            } else {
+                view.complete(profile);
+            }
+        });
+        return view;
+    }
+
+    private void restore() {
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (!(entry.getValue() instanceof String)) {
+                continue;
+            }
+            String key = entry.getKey();
+            String value = (String) entry.getValue();
+            if (key.startsWith(KEY_PROFILE_PREFIX)) {
+                try {
+                    UserProfile profile = gson.fromJson(value, UserProfile.class);
+                    if (profile != null) {
+                        profilesBySevarthId.put(key.substring(KEY_PROFILE_PREFIX.length()), profile);
+                    }
+                } catch (JsonParseException e) {
+                    Log.w(TAG, "Dropping unreadable cached profile " + key, e);
+                }
+            } else if (key.startsWith(KEY_UID_PREFIX)) {
+                sevarthIdByUid.put(key.substring(KEY_UID_PREFIX.length()), value);
+            }
+        }
+    }
+
+    private static UserProfile firstProfile(QuerySnapshot snapshots) {
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        DocumentSnapshot document = snapshots.getDocuments().get(0);
+        return UserProfile.fromDocument(document);
+    }
+}
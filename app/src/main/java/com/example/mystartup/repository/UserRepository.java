@@ -0,0 +1,144 @@
+package com.example.mystartup.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.mystartup.api.ApiService;
+import com.example.mystartup.api.RetrofitClient;
+import com.example.mystartup.models.User;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GetTokenResult;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * User accounts, from the users collection and the backend admin endpoints.
+ * Every method returns a cancellable future; see {@link Results}.
+ */
+public class UserRepository {
+    private static final String TAG = "UserRepository";
+    private static final String COLLECTION_PATH = "users";
+
+    private final ApiService apiService;
+    private final FirebaseFirestore db;
+    private final FirebaseAuth auth;
+
+    public UserRepository(Context context) {
+        apiService = RetrofitClient.getInstance(context).getApiService();
+        db = FirebaseFirestore.getInstance();
+        auth = FirebaseAuth.getInstance();
+    }
+
+    /**
+     * Every user, one per Sevarth ID
+     */
+    public CompletableFuture<List<User>> loadUsers() {
+        return Results.map(Results.fromTask(db.collection(COLLECTION_PATH).get()),
+                UserRepository::toUniqueUsers);
+    }
+
+    /**
+     * Users with the "user" role. Tries the backend list first, whose response is
+     * HTTP-cached, and falls back to Firestore without a token or when it fails.
+     *
+     * @param authToken Backend auth token, may be empty
+     */
+    public CompletableFuture<List<User>> loadRegularUsers(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            return loadRegularUsersFromFirestore();
+        }
+
+        CompletableFuture<List<User>> fromApi = Results.chain(
+                Results.fromCall(apiService.getUsers("Bearer " + authToken)),
+                response -> {
+                    if (response == null || !response.isSuccess() || response.getUsers() == null) {
+                        return Results.failed(new IllegalStateException("Users request was not successful"));
+                    }
+                    return CompletableFuture.completedFuture(response.getUsers());
+                });
+        return Results.recover(fromApi, error -> {
+            Log.w(TAG, "Loading users from the backend failed, using Firestore", error);
+            return loadRegularUsersFromFirestore();
+        });
+    }
+
+    /**
+     * Have the backend remove a user's sign-in account, stored face image and user
+     * document, then delete any other documents with their Sevarth ID.
+     * The backend goes first so a delete that stops halfway never leaves an account
+     * without its documents; running it again finishes the job, since the backend
+     * answering 404 means its part is already done.
+     */
+    public CompletableFuture<Void> deleteUser(String sevarthId) {
+        CompletableFuture<Void> backendDeleted = Results.recover(Results.chain(idToken(), idToken ->
+                Results.fromCall(apiService.deleteUser("Bearer " + idToken, sevarthId))), error -> {
+            if (error instanceof Results.HttpException && ((Results.HttpException) error).getCode() == 404) {
+                Log.d(TAG, "Backend already deleted " + sevarthId);
+                return CompletableFuture.completedFuture(null);
+            }
+            return Results.failed(error);
+        });
+        return Results.chain(backendDeleted, ignored -> Results.chain(
+                Results.fromTask(db.collection(COLLECTION_PATH).whereEqualTo("sevarthId", sevarthId).get()),
+                snapshots -> {
+                    // Every remaining matching document, in case of duplicates
+                    List<Task<Void>> deletes = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : snapshots) {
+                        deletes.add(document.getReference().delete());
+                    }
+                    return Results.fromTask(Tasks.whenAll(deletes));
+                }));
+    }
+
+    private CompletableFuture<List<User>> loadRegularUsersFromFirestore() {
+        return Results.map(
+                Results.fromTask(db.collection(COLLECTION_PATH).whereEqualTo("role", "user").get()),
+                UserRepository::toUniqueUsers);
+    }
+
+    private CompletableFuture<String> idToken() {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null) {
+            return Results.failed(new IllegalStateException("Not signed in"));
+        }
+        return Results.map(Results.fromTask(user.getIdToken(false)), GetTokenResult::getToken);
+    }
+
+    private static List<User> toUniqueUsers(QuerySnapshot snapshots) {
+        List<User> users = new ArrayList<>();
+        Set<String> processedSevarthIds = new HashSet<>();
+        for (QueryDocumentSnapshot document : snapshots) {
+            try {
+                User user = document.toObject(User.class);
+
+                // Handle legacy data format
+                if (user.getLocationIds() == null) {
+                    user.setLocationIds(new ArrayList<>());
+                }
+                if (user.getLocationNames() == null) {
+                    user.setLocationNames(new ArrayList<>());
+                }
+
+                String sevarthId = user.getSevarthId();
+                if (sevarthId != null && !sevarthId.isEmpty() && !processedSevarthIds.add(sevarthId)) {
+                    Log.d(TAG, "Skipping duplicate user with sevarthId: " + sevarthId);
+                    continue;
+                }
+                users.add(user);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error converting document to User: " + document.getId(), e);
+            }
+        }
+        return users;
+    }
+}
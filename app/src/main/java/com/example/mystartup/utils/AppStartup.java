@@ -0,0 +1,54 @@
+package com.example.mystartup.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.mystartup.api.RetrofitClient;
+import com.example.mystartup.repository.RepositoryExecutors;
+import com.example.mystartup.repository.UserProfileCache;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cold-start work moved off the main thread. While the splash screen is showing,
+ * Firebase Auth, Firestore, the HTTP client and the profile cache are created in
+ * the background, so the login screen finds them ready instead of building them
+ * in its onCreate. Firebase Storage and ML Kit are left to the attendance screen,
+ * see {@link FaceRecognitionSystem#prewarm()}.
+ */
+public final class AppStartup {
+    private static final String TAG = "AppStartup";
+
+    private static CompletableFuture<Void> warmUp;
+
+    private AppStartup() {
+    }
+
+    /**
+     * Start the warm-up once per process
+     *
+     * @param context Any context
+     * @return Future completing when the warm-up is done; it never fails
+     */
+    public static synchronized CompletableFuture<Void> warmUp(Context context) {
+        if (warmUp == null) {
+            Context appContext = context.getApplicationContext();
+            warmUp = CompletableFuture.runAsync(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    FirebaseAuth.getInstance().getCurrentUser();
+                    FirebaseFirestore.getInstance();
+                    RetrofitClient.getInstance(appContext);
+                    UserProfileCache.getInstance(appContext);
+                    Log.d(TAG, "Startup warm-up took " + (System.currentTimeMillis() - start) + "ms");
+                } catch (Exception e) {
+                    // Everything here is created again on first use, so just log it
+                    Log.w(TAG, "Startup warm-up failed: " + e.getMessage(), e);
+                }
+            }, RepositoryExecutors.io());
+        }
+        return warmUp;
+    }
+}
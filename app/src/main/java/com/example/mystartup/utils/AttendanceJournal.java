@@ -0,0 +1,231 @@
+package com.example.mystartup.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.mystartup.api.AttendanceRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Durable on-device journal of attendance events that could not reach the server.
+ * Each event keeps the time and the sevarthId_recordedAt document ID its request
+ * was sent with, which the server also used for the live attempt, so
+ * {@link AttendanceSyncWorker} can replay it any number of times without duplicates.
+ */
+public class AttendanceJournal {
+    private static final String TAG = "AttendanceJournal";
+    private static final String DATABASE_NAME = "attendance_journal.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE_EVENTS = "events";
+
+    private static final String COLUMN_DOC_ID = "doc_id";
+    private static final String COLUMN_SEVARTH_ID = "sevarth_id";
+    private static final String COLUMN_USER_ID = "user_id";
+    private static final String COLUMN_USER_NAME = "user_name";
+    private static final String COLUMN_TYPE = "type";
+    private static final String COLUMN_CONFIDENCE = "confidence";
+    private static final String COLUMN_LOCATION_ID = "location_id";
+    private static final String COLUMN_LOCATION_NAME = "location_name";
+    private static final String COLUMN_RECORDED_AT = "recorded_at";
+
+    private static AttendanceJournal instance;
+
+    private final JournalDbHelper dbHelper;
+
+    private AttendanceJournal(Context context) {
+        this.dbHelper = new JournalDbHelper(context.getApplicationContext());
+    }
+
+    public static synchronized AttendanceJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new AttendanceJournal(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Record an attendance event for later sync
+     *
+     * @param request The attendance request that could not be delivered
+     * @return The journaled entry, including its idempotent document ID
+     */
+    public Entry append(AttendanceRequest request) {
+        // Reuse the request's key, so a request the server did commit isn't recorded twice
+        long recordedAt = request.getRecordedAt();
+        Entry entry = new Entry(
+                request.getAttendanceId(),
+                request.getSevarthId(),
+                request.getUserId(),
+                request.getUserName(),
+                request.getType(),
+                request.getVerificationConfidence(),
+                request.getLocationId(),
+                request.getLocationName(),
+                recordedAt);
+
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_DOC_ID, entry.docId);
+        values.put(COLUMN_SEVARTH_ID, entry.sevarthId);
+        values.put(COLUMN_USER_ID, entry.userId);
+        values.put(COLUMN_USER_NAME, entry.userName);
+        values.put(COLUMN_TYPE, entry.type);
+        values.put(COLUMN_CONFIDENCE, entry.confidence);
+        values.put(COLUMN_LOCATION_ID, entry.locationId);
+        values.put(COLUMN_LOCATION_NAME, entry.locationName);
+        values.put(COLUMN_RECORDED_AT, entry.recordedAt);
+
+        // Same doc ID means the same event, so a repeated append is a no-op
+        dbHelper.getWritableDatabase().insertWithOnConflict(
+                TABLE_EVENTS, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+        Log.d(TAG, "Journaled attendance event " + entry.docId);
+        return entry;
+    }
+
+    /**
+     * Read the oldest pending events without removing them
+     *
+     * @param limit Maximum number of events to return
+     * @return Pending events in the order they were recorded
+     */
+    public List<Entry> peek(int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_EVENTS, null, null, null,
+                null, null, COLUMN_RECORDED_AT + " ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DOC_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SEVARTH_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USER_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USER_NAME)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TYPE)),
+                        cursor.getFloat(cursor.getColumnIndexOrThrow(COLUMN_CONFIDENCE)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LOCATION_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LOCATION_NAME)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_RECORDED_AT))));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Remove events once the backend has synced or rejected them
+     *
+     * @param entries The synced events
+     */
+    public void remove(List<Entry> entries) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                db.delete(TABLE_EVENTS, COLUMN_DOC_ID + " = ?", new String[]{entry.docId});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return Number of events still waiting to be synced
+     */
+    public long pendingCount() {
+        return DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), TABLE_EVENTS);
+    }
+
+    /**
+     * One journaled attendance event
+     */
+    public static class Entry {
+        private final String docId;
+        private final String sevarthId;
+        private final String userId;
+        private final String userName;
+        private final String type;
+        private final float confidence;
+        private final String locationId;
+        private final String locationName;
+        private final long recordedAt;
+
+        Entry(String docId, String sevarthId, String userId, String userName, String type,
+              float confidence, String locationId, String locationName, long recordedAt) {
+            this.docId = docId;
+            this.sevarthId = sevarthId;
+            this.userId = userId;
+            this.userName = userName;
+            this.type = type;
+            this.confidence = confidence;
+            this.locationId = locationId;
+            this.locationName = locationName;
+            this.recordedAt = recordedAt;
+        }
+
+        public String getDocId() {
+            return docId;
+        }
+
+        public String getSevarthId() {
+            return sevarthId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public float getConfidence() {
+            return confidence;
+        }
+
+        public String getLocationId() {
+            return locationId;
+        }
+
+        public String getLocationName() {
+            return locationName;
+        }
+
+        public long getRecordedAt() {
+            return recordedAt;
+        }
+    }
+
+    private static class JournalDbHelper extends SQLiteOpenHelper {
+        JournalDbHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_EVENTS + " ("
+                    + COLUMN_DOC_ID + " TEXT PRIMARY KEY, "
+                    + COLUMN_SEVARTH_ID + " TEXT NOT NULL, "
+                    + COLUMN_USER_ID + " TEXT, "
+                    + COLUMN_USER_NAME + " TEXT, "
+                    + COLUMN_TYPE + " TEXT NOT NULL, "
+                    + COLUMN_CONFIDENCE + " REAL, "
+                    + COLUMN_LOCATION_ID + " TEXT, "
+                    + COLUMN_LOCATION_NAME + " TEXT, "
+                    + COLUMN_RECORDED_AT + " INTEGER NOT NULL)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only one schema version so far; installs from before the signature was
+            // dropped keep an unused nullable signature column
+        }
+    }
+}
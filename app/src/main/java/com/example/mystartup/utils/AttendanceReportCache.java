@@ -0,0 +1,432 @@
+package com.example.mystartup.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.mystartup.models.AttendanceRecord;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * On-device store of attendance records for the report screens.
+ * Records are kept by document ID per report scope (a user or an office) together
+ * with the date range already downloaded and a high-water mark on syncedAt, the
+ * server time a record reached the database. Re-running a report inside that range
+ * only fetches the report's dates synced after the high-water mark, so records
+ * journaled offline are picked up even though their timestamp is the event time.
+ */
+public class AttendanceReportCache {
+    private static final String TAG = "AttendanceReportCache";
+    private static final String COLLECTION_PATH = "face-recognition-attendance";
+    private static final String DATABASE_NAME = "attendance_report_cache.db";
+    private static final int DATABASE_VERSION = 2;
+    private static final String TABLE_RECORDS = "records";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    // Overlap for records stamped with a device clock that runs behind the server
+    private static final long CLOCK_SKEW_MARGIN_MS = 10 * 60 * 1000;
+    private static final String FIELD_SYNCED_AT = "syncedAt";
+    // Firestore allows at most 30 values in an "in" filter
+    private static final int DELTA_DATES_PER_QUERY = 30;
+    private static final int DELTA_PAGE_SIZE = 500;
+    private static final long DELTA_TIMEOUT_SECONDS = 30;
+
+    /**
+     * What a report is filtered on
+     */
+    public enum Scope {
+        USER("sevarthId", "sevarth_id"),
+        LOCATION("locationId", "location_id");
+
+        private final String field;
+        private final String column;
+
+        Scope(String field, String column) {
+            this.field = field;
+            this.column = column;
+        }
+    }
+
+    /**
+     * Callback for cached report records, always invoked on the main thread
+     */
+    public interface RecordsCallback {
+        void onRecords(List<AttendanceRecord> records);
+        void onError(String errorMessage);
+    }
+
+    private static AttendanceReportCache instance;
+
+    private final CacheDbHelper dbHelper;
+    private final FirebaseFirestore db;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AttendanceReportCache(Context context) {
+        this.dbHelper = new CacheDbHelper(context.getApplicationContext());
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized AttendanceReportCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new AttendanceReportCache(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the records for a report, downloading only what isn't cached yet
+     *
+     * @param scope Whether the report is for a user or an office
+     * @param value The Sevarth ID or location ID
+     * @param startDate First date of the report (yyyy-MM-dd)
+     * @param endDate Last date of the report (yyyy-MM-dd)
+     * @param callback Receives the records in the date range
+     */
+    public void loadRecords(Scope scope, String value, String startDate, String endDate, RecordsCallback callback) {
+        executor.execute(() -> {
+            SyncState state = readSyncState(scope, value);
+            if (state != null && state.covers(startDate, endDate)) {
+                fetchDelta(scope, value, state, startDate, endDate, callback);
+            } else {
+                fetchRange(scope, value, state, startDate, endDate, callback);
+            }
+        });
+    }
+
+    /**
+     * Download a whole date range the cache doesn't cover yet
+     */
+    private void fetchRange(Scope scope, String value, SyncState state, String startDate, String endDate,
+                            RecordsCallback callback) {
+        long queryStartedAt = System.currentTimeMillis();
+        db.collection(COLLECTION_PATH)
+            .whereEqualTo(scope.field, value)
+            .whereGreaterThanOrEqualTo("date", startDate)
+            .whereLessThanOrEqualTo("date", endDate)
+            .get()
+            .addOnSuccessListener(snapshots -> executor.execute(() -> {
+                storeRecords(snapshots);
+
+                SyncState updated;
+                if (state == null) {
+                    // Anything written after this query ran is picked up by the next delta
+                    updated = new SyncState(startDate, endDate, queryStartedAt - CLOCK_SKEW_MARGIN_MS);
+                } else {
+                    updated = state.withRange(startDate, endDate);
+                }
+                writeSyncState(scope, value, updated);
+                Log.d(TAG, "Cached " + snapshots.size() + " records for " + scope + " " + value
+                        + " " + startDate + ".." + endDate);
+                deliverCached(scope, value, startDate, endDate, callback);
+            }))
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error fetching report records", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            });
+    }
+
+    /**
+     * Download only the report's records synced since the last sync, a page at a time.
+     * Runs on the executor.
+     */
+    private void fetchDelta(Scope scope, String value, SyncState state, String startDate, String endDate,
+                            RecordsCallback callback) {
+        Timestamp since = new Timestamp(new Date(state.highWaterMs - CLOCK_SKEW_MARGIN_MS));
+        List<String> dates = datesBetween(startDate, endDate);
+        long highWaterMs = state.highWaterMs;
+        int fetched = 0;
+        try {
+            for (int from = 0; from < dates.size(); from += DELTA_DATES_PER_QUERY) {
+                Query query = db.collection(COLLECTION_PATH)
+                    .whereEqualTo(scope.field, value)
+                    .whereIn("date", new ArrayList<>(dates.subList(from,
+                            Math.min(from + DELTA_DATES_PER_QUERY, dates.size()))))
+                    .whereGreaterThan(FIELD_SYNCED_AT, since)
+                    .orderBy(FIELD_SYNCED_AT)
+                    .limit(DELTA_PAGE_SIZE);
+                QuerySnapshot page = Tasks.await(query.get(), DELTA_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                highWaterMs = Math.max(highWaterMs, storeRecords(page));
+                fetched += page.size();
+                while (page.size() == DELTA_PAGE_SIZE) {
+                    DocumentSnapshot last = page.getDocuments().get(page.size() - 1);
+                    page = Tasks.await(query.startAfter(last).get(), DELTA_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    highWaterMs = Math.max(highWaterMs, storeRecords(page));
+                    fetched += page.size();
+                }
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            // Cached records are still complete up to the high-water mark
+            Log.w(TAG, "Delta sync failed, serving cached records: " + e.getMessage());
+            deliverCached(scope, value, startDate, endDate, callback);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deliverCached(scope, value, startDate, endDate, callback);
+            return;
+        }
+        
+        // Only the report's dates are current up to the new mark, so the covered range shrinks to them
+        writeSyncState(scope, value, new SyncState(startDate, endDate, highWaterMs));
+        Log.d(TAG, "Delta sync fetched " + fetched + " records for " + scope + " " + value);
+        deliverCached(scope, value, startDate, endDate, callback);
+    }
+
+    /**
+     * @return Every date from startDate to endDate inclusive, as yyyy-MM-dd
+     */
+    private static List<String> datesBetween(String startDate, String endDate) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        List<String> dates = new ArrayList<>();
+        try {
+            Calendar day = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            day.setTime(format.parse(startDate));
+            Date end = format.parse(endDate);
+            while (!day.getTime().after(end)) {
+                dates.add(format.format(day.getTime()));
+                day.add(Calendar.DAY_OF_MONTH, 1);
+            }
+        } catch (ParseException e) {
+            Log.e(TAG, "Invalid report dates " + startDate + ".." + endDate, e);
+        }
+        return dates;
+    }
+
+    /**
+     * Upsert query results
+     *
+     * @return The newest syncedAt in the results, in epoch milliseconds
+     */
+    private long storeRecords(QuerySnapshot snapshots) {
+        long newest = 0;
+        SQLiteDatabase database = dbHelper.getWritableDatabase();
+        database.beginTransaction();
+        try {
+            for (DocumentSnapshot document : snapshots.getDocuments()) {
+                AttendanceRecord record = fromDocument(document);
+                long timestampMs = record.getTimestamp() != null ? record.getTimestamp().toDate().getTime() : 0;
+                Timestamp syncedAt = document.getTimestamp(FIELD_SYNCED_AT);
+                if (syncedAt != null) {
+                    newest = Math.max(newest, syncedAt.toDate().getTime());
+                }
+
+                ContentValues values = new ContentValues();
+                values.put("doc_id", record.getId());
+                values.put("sevarth_id", record.getSevarthId());
+                values.put("user_id", record.getUserId());
+                values.put("user_name", record.getUserName());
+                values.put("type", record.getType());
+                values.put("status", record.getStatus());
+                values.put("date", record.getDate());
+                values.put("time", record.getTime());
+                values.put("timestamp_ms", timestampMs);
+                values.put("location_id", record.getLocationId());
+                values.put("office_name", record.getOfficeName());
+                values.put("confidence", record.getVerificationConfidence());
+                database.insertWithOnConflict(TABLE_RECORDS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        return newest;
+    }
+
+    private void deliverCached(Scope scope, String value, String startDate, String endDate,
+                               RecordsCallback callback) {
+        try {
+            List<AttendanceRecord> records = readRecords(scope, value, startDate, endDate);
+            mainHandler.post(() -> callback.onRecords(records));
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading cached records", e);
+            mainHandler.post(() -> callback.onError(e.getMessage()));
+        }
+    }
+
+    private List<AttendanceRecord> readRecords(Scope scope, String value, String startDate, String endDate) {
+        List<AttendanceRecord> records = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_RECORDS, null,
+                scope.column + " = ? AND date >= ? AND date <= ?",
+                new String[]{value, startDate, endDate}, null, null, "timestamp_ms ASC")) {
+            while (cursor.moveToNext()) {
+                AttendanceRecord record = new AttendanceRecord();
+                record.setId(cursor.getString(cursor.getColumnIndexOrThrow("doc_id")));
+                record.setSevarthId(cursor.getString(cursor.getColumnIndexOrThrow("sevarth_id")));
+                record.setUserId(cursor.getString(cursor.getColumnIndexOrThrow("user_id")));
+                record.setUserName(cursor.getString(cursor.getColumnIndexOrThrow("user_name")));
+                record.setType(cursor.getString(cursor.getColumnIndexOrThrow("type")));
+                record.setStatus(cursor.getString(cursor.getColumnIndexOrThrow("status")));
+                record.setDate(cursor.getString(cursor.getColumnIndexOrThrow("date")));
+                record.setTime(cursor.getString(cursor.getColumnIndexOrThrow("time")));
+                long timestampMs = cursor.getLong(cursor.getColumnIndexOrThrow("timestamp_ms"));
+                if (timestampMs > 0) {
+                    record.setTimestamp(new Timestamp(new Date(timestampMs)));
+                }
+                record.setLocationId(cursor.getString(cursor.getColumnIndexOrThrow("location_id")));
+                record.setOfficeName(cursor.getString(cursor.getColumnIndexOrThrow("office_name")));
+                record.setVerificationConfidence(cursor.getDouble(cursor.getColumnIndexOrThrow("confidence")));
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Map an attendance document to a record, tolerating the older office name fields
+     */
+    public static AttendanceRecord fromDocument(DocumentSnapshot document) {
+        AttendanceRecord record = new AttendanceRecord();
+        record.setId(document.getId());
+        record.setDate(document.getString("date"));
+        record.setStatus(document.getString("status"));
+        record.setTime(document.getString("time"));
+        record.setTimestamp(document.getTimestamp("timestamp"));
+        record.setType(document.getString("type"));
+        record.setUserId(document.getString("userId"));
+        record.setUserName(document.getString("userName"));
+        record.setSevarthId(document.getString("sevarthId"));
+        record.setLocationId(document.getString("locationId"));
+
+        // Get office name with fallbacks for different field names
+        String officeName = document.getString("officeName");
+        if (officeName == null || officeName.isEmpty()) {
+            officeName = document.getString("locationName");
+        }
+        if (officeName == null || officeName.isEmpty()) {
+            officeName = document.getString("office_name");
+        }
+        record.setOfficeName(officeName);
+
+        Double confidence = document.getDouble("verificationConfidence");
+        if (confidence != null) {
+            record.setVerificationConfidence(confidence);
+        }
+        return record;
+    }
+
+    private SyncState readSyncState(Scope scope, String value) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_SYNC_STATE, null,
+                "scope = ?", new String[]{scopeKey(scope, value)}, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new SyncState(
+                    cursor.getString(cursor.getColumnIndexOrThrow("covered_from")),
+                    cursor.getString(cursor.getColumnIndexOrThrow("covered_to")),
+                    cursor.getLong(cursor.getColumnIndexOrThrow("high_water_ms")));
+        }
+    }
+
+    private void writeSyncState(Scope scope, String value, SyncState state) {
+        ContentValues values = new ContentValues();
+        values.put("scope", scopeKey(scope, value));
+        values.put("covered_from", state.coveredFrom);
+        values.put("covered_to", state.coveredTo);
+        values.put("high_water_ms", state.highWaterMs);
+        dbHelper.getWritableDatabase().insertWithOnConflict(
+                TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static String scopeKey(Scope scope, String value) {
+        return scope.name() + ":" + value;
+    }
+
+    /**
+     * The contiguous date range fully downloaded for a scope and the newest
+     * syncedAt seen since
+     */
+    private static class SyncState {
+        final String coveredFrom;
+        final String coveredTo;
+        final long highWaterMs;
+
+        SyncState(String coveredFrom, String coveredTo, long highWaterMs) {
+            this.coveredFrom = coveredFrom;
+            this.coveredTo = coveredTo;
+            this.highWaterMs = highWaterMs;
+        }
+
+        boolean covers(String startDate, String endDate) {
+            return coveredFrom.compareTo(startDate) <= 0 && coveredTo.compareTo(endDate) >= 0;
+        }
+
+        /**
+         * Extend the covered range with a freshly downloaded one, or replace it if
+         * the two don't overlap; the high-water mark stays, since the delta for the
+         * old range hasn't been fetched yet
+         */
+        SyncState withRange(String startDate, String endDate) {
+            boolean overlaps = startDate.compareTo(coveredTo) <= 0 && endDate.compareTo(coveredFrom) >= 0;
+            if (!overlaps) {
+                return new SyncState(startDate, endDate, highWaterMs);
+            }
+            return new SyncState(
+                    startDate.compareTo(coveredFrom) < 0 ? startDate : coveredFrom,
+                    endDate.compareTo(coveredTo) > 0 ? endDate : coveredTo,
+                    highWaterMs);
+        }
+    }
+
+    private static class CacheDbHelper extends SQLiteOpenHelper {
+        CacheDbHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_RECORDS + " ("
+                    + "doc_id TEXT PRIMARY KEY, "
+                    + "sevarth_id TEXT, "
+                    + "user_id TEXT, "
+                    + "user_name TEXT, "
+                    + "type TEXT, "
+                    + "status TEXT, "
+                    + "date TEXT, "
+                    + "time TEXT, "
+                    + "timestamp_ms INTEGER, "
+                    + "location_id TEXT, "
+                    + "office_name TEXT, "
+                    + "confidence REAL)");
+            db.execSQL("CREATE INDEX idx_records_sevarth_date ON " + TABLE_RECORDS + " (sevarth_id, date)");
+            db.execSQL("CREATE INDEX idx_records_location_date ON " + TABLE_RECORDS + " (location_id, date)");
+            db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                    + "scope TEXT PRIMARY KEY, "
+                    + "covered_from TEXT NOT NULL, "
+                    + "covered_to TEXT NOT NULL, "
+                    + "high_water_ms INTEGER NOT NULL)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Version 1 kept its high-water mark on timestamp, which misses records
+            // journaled offline; it's only a cache, so start over
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_RECORDS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+            onCreate(db);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.mystartup.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns attendance records into sorted report rows off the main thread.
+ * Records can be streamed in batches as they arrive; each batch is folded into
+ * the report on a single worker thread and the finished rows are delivered on
+ * the callback executor (the main thread by default). Nothing here touches
+ * views, so the aggregation can be unit tested and benchmarked on the JVM.
+ */
+public class AttendanceReportEngine {
+    private static final String CHECK_IN = "check_in";
+    private static final String CHECK_OUT = "check_out";
+
+    /**
+     * How records are grouped into rows
+     */
+    public enum Grouping {
+        /** One row per user per day, sorted by date then name */
+        BY_USER_AND_DATE,
+        /** One row per day per office, sorted by date then office; for a single user's report */
+        BY_DATE_AND_OFFICE
+    }
+
+    /**
+     * Callback for finished report rows
+     */
+    public interface RowsCallback {
+        void onRows(List<AttendanceReportRow> rows);
+        void onError(String errorMessage);
+    }
+
+    private static AttendanceReportEngine instance;
+
+    private final Executor worker;
+    private final Executor callbackExecutor;
+
+    /**
+     * @param worker Runs the aggregation; must run tasks one at a time, in order
+     * @param callbackExecutor Delivers the finished rows
+     */
+    public AttendanceReportEngine(Executor worker, Executor callbackExecutor) {
+        this.worker = worker;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Shared engine that computes on a background thread and reports on the main thread
+     */
+    public static synchronized AttendanceReportEngine getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new AttendanceReportEngine(Executors.newSingleThreadExecutor(), mainHandler::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Start a report that records are streamed into
+     *
+     * @param grouping How to group the records
+     * @return The report to add record batches to
+     */
+    public Report begin(Grouping grouping) {
+        return new Report(grouping);
+    }
+
+    /**
+     * Compute a report from records that are already loaded
+     *
+     * @param records The attendance records
+     * @param grouping How to group the records
+     * @param callback Receives the sorted rows
+     */
+    public void compute(Collection<AttendanceRecord> records, Grouping grouping, RowsCallback callback) {
+        Report report = begin(grouping);
+        report.add(records);
+        report.finish(callback);
+    }
+
+    /**
+     * Sort rows the way the engine emits them, e.g. rows read from a daily rollup
+     */
+    public static void sortRows(List<AttendanceReportRow> rows, Grouping grouping) {
+        rows.sort(comparatorFor(grouping));
+    }
+
+    private static Comparator<AttendanceReportRow> comparatorFor(Grouping grouping) {
+        Comparator<AttendanceReportRow> byDate = Comparator.comparing(
+                AttendanceReportRow::getDate, Comparator.nullsLast(Comparator.naturalOrder()));
+        if (grouping == Grouping.BY_DATE_AND_OFFICE) {
+            return byDate.thenComparing(AttendanceReportRow::getOfficeName,
+                    Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+        }
+        return byDate
+                .thenComparing(AttendanceReportRow::getUserName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(AttendanceReportRow::getSevarthId, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    /**
+     * A report being computed on the engine's worker
+     */
+    public class Report {
+        private final Accumulator accumulator;
+        private volatile String failure;
+
+        private Report(Grouping grouping) {
+            this.accumulator = new Accumulator(grouping);
+        }
+
+        /**
+         * Queue a batch of records; the batch is copied, so the caller may reuse it
+         */
+        public void add(Collection<AttendanceRecord> records) {
+            List<AttendanceRecord> batch = new ArrayList<>(records);
+            worker.execute(() -> {
+                if (failure != null) {
+                    return;
+                }
+                try {
+                    accumulator.addAll(batch);
+                } catch (RuntimeException e) {
+                    failure = e.getMessage() != null ? e.getMessage() : e.toString();
+                }
+            });
+        }
+
+        /**
+         * Deliver the sorted rows once every queued batch has been folded in
+         */
+        public void finish(RowsCallback callback) {
+            worker.execute(() -> {
+                if (failure != null) {
+                    String message = failure;
+                    callbackExecutor.execute(() -> callback.onError(message));
+                    return;
+                }
+                try {
+                    List<AttendanceReportRow> rows = accumulator.getRows();
+                    callbackExecutor.execute(() -> callback.onRows(rows));
+                } catch (RuntimeException e) {
+                    String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                    callbackExecutor.execute(() -> callback.onError(message));
+                }
+            });
+        }
+    }
+
+    /**
+     * The synchronous aggregation behind a report. Pairs each group's earliest
+     * check-in with its latest check-out, matching {@link DailyAttendanceRollup}.
+     * Not thread-safe; the engine only touches it from its worker.
+     */
+    public static class Accumulator {
+        private final Grouping grouping;
+        private final Map<String, AttendanceReportRow> rows = new HashMap<>();
+
+        public Accumulator(Grouping grouping) {
+            this.grouping = grouping;
+        }
+
+        public void addAll(Collection<AttendanceRecord> records) {
+            for (AttendanceRecord record : records) {
+                add(record);
+            }
+        }
+
+        public void add(AttendanceRecord record) {
+            String type = record.getType();
+            if (!CHECK_IN.equals(type) && !CHECK_OUT.equals(type)) {
+                return;
+            }
+            String userKey = userKey(record);
+            if (userKey == null || record.getDate() == null) {
+                return;
+            }
+
+            String key = grouping == Grouping.BY_DATE_AND_OFFICE
+                    ? record.getDate() + "_" + record.getOfficeName()
+                    : record.getDate() + "_" + userKey;
+            AttendanceReportRow row = rows.get(key);
+            if (row == null) {
+                row = new AttendanceReportRow(record.getDate(), record.getSevarthId(), record.getUserId(),
+                        record.getUserName(), record.getOfficeName());
+                rows.put(key, row);
+            }
+
+            // HH:mm:ss strings compare correctly as text
+            String time = record.getTime();
+            if (time == null) {
+                return;
+            }
+            if (CHECK_IN.equals(type)) {
+                if ("-".equals(row.getCheckInTime()) || time.compareTo(row.getCheckInTime()) < 0) {
+                    row.setCheckInTime(time);
+                }
+            } else if ("-".equals(row.getCheckOutTime()) || time.compareTo(row.getCheckOutTime()) > 0) {
+                row.setCheckOutTime(time);
+            }
+        }
+
+        /**
+         * @return The rows so far, sorted for display
+         */
+        public List<AttendanceReportRow> getRows() {
+            List<AttendanceReportRow> sorted = new ArrayList<>(rows.values());
+            sortRows(sorted, grouping);
+            return sorted;
+        }
+
+        /**
+         * Sevarth ID identifies a user; older records may only have the user ID
+         */
+        private static String userKey(AttendanceRecord record) {
+            String sevarthId = record.getSevarthId();
+            if (sevarthId != null && !sevarthId.isEmpty()) {
+                return sevarthId;
+            }
+            String userId = record.getUserId();
+            return userId != null && !userId.isEmpty() ? userId : null;
+        }
+    }
+}
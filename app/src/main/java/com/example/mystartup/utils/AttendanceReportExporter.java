@@ -0,0 +1,164 @@
+package com.example.mystartup.utils;
+
+import android.util.Log;
+
+import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams attendance records from Firestore into a {@link ReportRowWriter}.
+ * Records are read in date order a page at a time, and each day's rows are
+ * written as soon as the next day starts, so memory holds one page and one day
+ * no matter how long the range is. Blocks the calling thread; run it from a worker.
+ */
+public class AttendanceReportExporter {
+    private static final String TAG = "AttendanceReportExporter";
+    private static final String COLLECTION_PATH = "face-recognition-attendance";
+    private static final int PAGE_SIZE = 500;
+    private static final long PAGE_TIMEOUT_SECONDS = 60;
+
+    static final String[] COLUMN_TITLES = {
+            "Date", "Sevarth ID", "Name", "Office", "Check-in", "Check-out"
+    };
+
+    /**
+     * Which records to export
+     */
+    public enum Scope {
+        ALL(null),
+        LOCATION("locationId"),
+        USER("sevarthId");
+
+        private final String field;
+
+        Scope(String field) {
+            this.field = field;
+        }
+    }
+
+    /**
+     * Export progress, called on the exporting thread
+     */
+    public interface ProgressListener {
+        /**
+         * @param recordsRead Attendance records read so far
+         * @param totalRecords Records in the range, or -1 if the count is unavailable
+         */
+        void onProgress(int recordsRead, int totalRecords);
+    }
+
+    private final FirebaseFirestore db;
+
+    public AttendanceReportExporter(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Export one report
+     *
+     * @param scope Whether to export everything, one office or one user
+     * @param value The location ID or Sevarth ID; ignored for {@link Scope#ALL}
+     * @param startDate First date (yyyy-MM-dd)
+     * @param endDate Last date (yyyy-MM-dd)
+     * @param writer Destination; the caller closes it
+     * @param listener Progress listener, may be null
+     * @return Number of rows written, excluding the header
+     */
+    public int export(Scope scope, String value, String startDate, String endDate,
+                      ReportRowWriter writer, ProgressListener listener)
+            throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        Query query = db.collection(COLLECTION_PATH);
+        if (scope.field != null) {
+            query = query.whereEqualTo(scope.field, value);
+        }
+        query = query.whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate)
+                .orderBy("date");
+
+        int totalRecords = countRecords(query);
+        AttendanceReportEngine.Grouping grouping = scope == Scope.USER
+                ? AttendanceReportEngine.Grouping.BY_DATE_AND_OFFICE
+                : AttendanceReportEngine.Grouping.BY_USER_AND_DATE;
+
+        writer.writeHeader(COLUMN_TITLES);
+
+        int recordsRead = 0;
+        int rowsWritten = 0;
+        String openDate = null;
+        AttendanceReportEngine.Accumulator day = null;
+        DocumentSnapshot lastDocument = null;
+
+        while (true) {
+            Query page = lastDocument == null
+                    ? query.limit(PAGE_SIZE)
+                    : query.startAfter(lastDocument).limit(PAGE_SIZE);
+            QuerySnapshot snapshots = Tasks.await(page.get(), PAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            List<DocumentSnapshot> documents = snapshots.getDocuments();
+
+            for (DocumentSnapshot document : documents) {
+                AttendanceRecord record = AttendanceReportCache.fromDocument(document);
+                if (day == null || !record.getDate().equals(openDate)) {
+                    // Records arrive in date order, so the previous day is complete
+                    if (day != null) {
+                        rowsWritten += writeRows(day.getRows(), writer);
+                    }
+                    day = new AttendanceReportEngine.Accumulator(grouping);
+                    openDate = record.getDate();
+                }
+                day.add(record);
+            }
+
+            recordsRead += documents.size();
+            if (listener != null) {
+                listener.onProgress(recordsRead, totalRecords);
+            }
+            if (documents.size() < PAGE_SIZE) {
+                break;
+            }
+            lastDocument = documents.get(documents.size() - 1);
+        }
+
+        if (day != null) {
+            rowsWritten += writeRows(day.getRows(), writer);
+        }
+        Log.d(TAG, "Exported " + rowsWritten + " rows from " + recordsRead + " records");
+        return rowsWritten;
+    }
+
+    private static int writeRows(List<AttendanceReportRow> rows, ReportRowWriter writer) throws IOException {
+        for (AttendanceReportRow row : rows) {
+            writer.writeRow(row.getDate(), row.getSevarthId(), row.getUserName(), row.getOfficeName(),
+                    row.getCheckInTime(), row.getCheckOutTime());
+        }
+        return rows.size();
+    }
+
+    /**
+     * Server-side count for the progress bar; the export works without it
+     */
+    private static int countRecords(Query query) {
+        try {
+            long count = Tasks.await(query.count().get(AggregateSource.SERVER),
+                    PAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS).getCount();
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            Log.w(TAG, "Could not count records for export: " + e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.mystartup.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.mystartup.api.AttendanceSyncRequest;
+import com.example.mystartup.api.AttendanceSyncResponse;
+import com.example.mystartup.api.FaceRecognitionApiService;
+import com.example.mystartup.api.RetrofitClient;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import retrofit2.Response;
+
+/**
+ * Drains the {@link AttendanceJournal} through the backend's sync endpoint in batches
+ * once the device is online. The backend writes the records and the daily rollup, which
+ * clients can't write. Every event keeps the document ID it was journaled with, so a batch
+ * that is retried after a partial failure doesn't duplicate records.
+ */
+public class AttendanceSyncWorker extends Worker {
+    private static final String TAG = "AttendanceSyncWorker";
+    private static final String UNIQUE_WORK_NAME = "attendance_journal_sync";
+    private static final int BATCH_SIZE = 50;
+    private static final long BATCH_TIMEOUT_SECONDS = 30;
+    private static final long BACKOFF_SECONDS = 30;
+
+    public AttendanceSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule a sync that runs as soon as the network is available
+     *
+     * @param context Any context
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(AttendanceSyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        // Append so events journaled while a sync is running get their own pass
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            // Keep the events until someone signs in again
+            Log.w(TAG, "Not signed in, attendance sync postponed");
+            return Result.retry();
+        }
+
+        AttendanceJournal journal = AttendanceJournal.getInstance(getApplicationContext());
+        FaceRecognitionApiService apiService =
+                RetrofitClient.getInstance(getApplicationContext()).getFaceRecognitionApiService();
+
+        try {
+            String idToken = Tasks.await(user.getIdToken(false), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS).getToken();
+            List<AttendanceJournal.Entry> batch = journal.peek(BATCH_SIZE);
+            while (!batch.isEmpty()) {
+                Response<AttendanceSyncResponse> response = apiService
+                        .syncAttendanceJournal("Bearer " + idToken, new AttendanceSyncRequest(batch))
+                        .execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.w(TAG, "Attendance sync failed with HTTP " + response.code() + ", will retry");
+                    return Result.retry();
+                }
+
+                List<AttendanceJournal.Entry> done = settledEntries(batch, response.body());
+                if (done.isEmpty()) {
+                    Log.w(TAG, "Backend settled none of the batch, will retry");
+                    return Result.retry();
+                }
+                journal.remove(done);
+                Log.d(TAG, "Synced " + done.size() + " journaled attendance events");
+                batch = journal.peek(BATCH_SIZE);
+            }
+            return Result.success();
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Attendance sync failed, will retry: " + e.getMessage());
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Entries the backend either synced or rejected for good; both can leave the journal
+     */
+    private static List<AttendanceJournal.Entry> settledEntries(List<AttendanceJournal.Entry> batch,
+                                                                AttendanceSyncResponse response) {
+        Set<String> settled = new HashSet<>(response.getSynced());
+        for (AttendanceSyncResponse.Rejection rejection : response.getRejected()) {
+            Log.w(TAG, "Backend rejected journaled attendance " + rejection.getDocId()
+                    + ": " + rejection.getReason());
+            settled.add(rejection.getDocId());
+        }
+
+        List<AttendanceJournal.Entry> done = new ArrayList<>();
+        for (AttendanceJournal.Entry entry : batch) {
+            if (settled.contains(entry.getDocId())) {
+                done.add(entry);
+            }
+        }
+        return done;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.mystartup.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV output. Starts with a UTF-8 byte order mark so Excel reads
+ * Devanagari names correctly, and neutralises cells that a spreadsheet would
+ * otherwise evaluate as formulas.
+ */
+public class CsvReportWriter implements ReportRowWriter {
+    private final Writer writer;
+
+    public CsvReportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+    }
+
+    @Override
+    public void writeHeader(String... titles) throws IOException {
+        writeRow(titles);
+    }
+
+    @Override
+    public void writeRow(String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCell(cells[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCell(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '@' || first == '\t' || first == '\r'
+                || (first == '-' && value.length() > 1)) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
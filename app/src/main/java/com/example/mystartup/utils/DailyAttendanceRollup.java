@@ -0,0 +1,126 @@
+package com.example.mystartup.utils;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Layout of the pre-aggregated daily attendance rollup.
+ * Each user with attendance on a day has an attendance_daily/{date}/users/{sevarthId}
+ * entry with their first check-in, last check-out, record count and office, so the
+ * daily report reads one small document per user instead of every record. The latest
+ * record's type and office tell who is in where, which drives the
+ * {@link OfficeOccupancyCounter}. Only the backend writes the rollup, in the same
+ * transaction as each attendance record; {@link #mergeEntry} is the same merge as its
+ * build_daily_rollup_entry.
+ * The rollup holds every record from the date in attendance_daily_meta/coverage's
+ * completeFrom on; earlier days have to be read from the records.
+ */
+public class DailyAttendanceRollup {
+    public static final String COLLECTION_PATH = "attendance_daily";
+    public static final String USERS_COLLECTION = "users";
+    public static final String META_COLLECTION_PATH = "attendance_daily_meta";
+    public static final String COVERAGE_DOCUMENT = "coverage";
+    public static final String FIELD_COMPLETE_FROM = "completeFrom";
+
+    public static final String KEY_SEVARTH_ID = "sevarthId";
+    public static final String KEY_USER_ID = "userId";
+    public static final String KEY_USER_NAME = "userName";
+    public static final String KEY_OFFICE_NAME = "officeName";
+    public static final String KEY_LOCATION_ID = "locationId";
+    public static final String KEY_FIRST_CHECK_IN = "firstCheckIn";
+    public static final String KEY_LAST_CHECK_OUT = "lastCheckOut";
+    public static final String KEY_COUNT = "count";
+    // The user's latest record of the day, for office occupancy
+    public static final String KEY_LAST_TYPE = "lastType";
+    public static final String KEY_LAST_TIME = "lastTime";
+    public static final String KEY_LAST_LOCATION_ID = "lastLocationId";
+
+    private DailyAttendanceRollup() {
+    }
+
+    /**
+     * Fold one attendance record into a user's rollup entry
+     *
+     * @param existing The user's current entry, or null
+     * @param attendanceData The attendance record being written
+     * @return A new entry; the existing map is not modified
+     */
+    public static Map<String, Object> mergeEntry(Map<String, Object> existing, Map<String, Object> attendanceData) {
+        Map<String, Object> entry = existing != null ? new HashMap<>(existing) : new HashMap<>();
+        entry.put(KEY_SEVARTH_ID, attendanceData.get("sevarthId"));
+        entry.put(KEY_USER_ID, attendanceData.get("userId"));
+        entry.put(KEY_USER_NAME, attendanceData.get("userName"));
+        entry.put(KEY_OFFICE_NAME, attendanceData.get("officeName"));
+        entry.put(KEY_LOCATION_ID, attendanceData.get("locationId"));
+
+        Object count = entry.get(KEY_COUNT);
+        entry.put(KEY_COUNT, (count instanceof Number ? ((Number) count).longValue() : 0L) + 1);
+
+        // HH:mm:ss strings compare correctly as text
+        String time = (String) attendanceData.get("time");
+        String type = (String) attendanceData.get("type");
+        if (time != null && "check_in".equals(type)) {
+            String firstCheckIn = (String) entry.get(KEY_FIRST_CHECK_IN);
+            if (firstCheckIn == null || time.compareTo(firstCheckIn) < 0) {
+                entry.put(KEY_FIRST_CHECK_IN, time);
+            }
+        } else if (time != null && "check_out".equals(type)) {
+            String lastCheckOut = (String) entry.get(KEY_LAST_CHECK_OUT);
+            if (lastCheckOut == null || time.compareTo(lastCheckOut) > 0) {
+                entry.put(KEY_LAST_CHECK_OUT, time);
+            }
+        }
+
+        // Records can arrive out of order from the journal; keep the latest one
+        String lastTime = (String) entry.get(KEY_LAST_TIME);
+        if (time != null && ("check_in".equals(type) || "check_out".equals(type))
+                && (lastTime == null || time.compareTo(lastTime) >= 0)) {
+            entry.put(KEY_LAST_TYPE, type);
+            entry.put(KEY_LAST_TIME, time);
+            entry.put(KEY_LAST_LOCATION_ID, attendanceData.get("locationId"));
+        }
+        return entry;
+    }
+
+    /**
+     * @param entry A user's rollup entry, may be null
+     * @return The location the user is checked in at, or null if they are not in
+     */
+    public static String presentAt(Map<String, Object> entry) {
+        if (entry == null || !"check_in".equals(entry.get(KEY_LAST_TYPE))) {
+            return null;
+        }
+        Object locationId = entry.get(KEY_LAST_LOCATION_ID);
+        return locationId instanceof String ? (String) locationId : null;
+    }
+
+    /**
+     * Every user's entry for a day
+     */
+    public static CollectionReference usersForDate(FirebaseFirestore db, String date) {
+        return db.collection(COLLECTION_PATH).document(date).collection(USERS_COLLECTION);
+    }
+
+    /**
+     * The document saying from which date on the rollup is complete
+     */
+    public static DocumentReference coverage(FirebaseFirestore db) {
+        return db.collection(META_COLLECTION_PATH).document(COVERAGE_DOCUMENT);
+    }
+
+    /**
+     * @param coverage The {@link #coverage} document, may be missing
+     * @param date A date as yyyy-MM-dd
+     * @return Whether the rollup holds every record of that day
+     */
+    public static boolean covers(DocumentSnapshot coverage, String date) {
+        String completeFrom = coverage.exists() ? coverage.getString(FIELD_COMPLETE_FROM) : null;
+        // yyyy-MM-dd strings compare correctly as text
+        return completeFrom != null && date.compareTo(completeFrom) >= 0;
+    }
+}
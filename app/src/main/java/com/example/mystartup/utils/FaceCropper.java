@@ -0,0 +1,86 @@
+package com.example.mystartup.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * Cuts a padded, square, fixed-size face crop out of a captured frame so only
+ * the face is uploaded for registration and verification.
+ */
+public class FaceCropper {
+    public static final int DEFAULT_CROP_SIZE = 224; // pixels per side
+    private static final float PADDING_RATIO = 0.25f; // Extra margin around the ML Kit box on each side
+
+    private FaceCropper() {
+    }
+
+    /**
+     * Result of a crop: the normalized bitmap and the face box inside it
+     */
+    public static class Result {
+        private final Bitmap bitmap;
+        private final Rect faceBox;
+
+        Result(Bitmap bitmap, Rect faceBox) {
+            this.bitmap = bitmap;
+            this.faceBox = faceBox;
+        }
+
+        public Bitmap getBitmap() {
+            return bitmap;
+        }
+
+        /**
+         * @return The detected face bounds in crop coordinates
+         */
+        public Rect getFaceBox() {
+            return faceBox;
+        }
+    }
+
+    /**
+     * Crop the face out of a frame
+     *
+     * @param frame The captured frame
+     * @param faceBounds ML Kit face bounding box in frame coordinates
+     * @param size Side length of the output crop in pixels
+     * @return The crop, or null if the bounds do not overlap the frame
+     */
+    public static Result crop(Bitmap frame, Rect faceBounds, int size) {
+        // Only the part of the face inside the frame can be cropped
+        faceBounds = new Rect(faceBounds);
+        if (!faceBounds.intersect(0, 0, frame.getWidth(), frame.getHeight())) {
+            return null;
+        }
+
+        int side = Math.round(Math.max(faceBounds.width(), faceBounds.height()) * (1 + 2 * PADDING_RATIO));
+        side = Math.min(side, Math.min(frame.getWidth(), frame.getHeight()));
+        if (side <= 0) {
+            return null;
+        }
+
+        // Center the square on the face and shift it back inside the frame if needed
+        int left = faceBounds.centerX() - side / 2;
+        int top = faceBounds.centerY() - side / 2;
+        left = Math.max(0, Math.min(left, frame.getWidth() - side));
+        top = Math.max(0, Math.min(top, frame.getHeight() - side));
+
+        Bitmap square = Bitmap.createBitmap(frame, left, top, side, side);
+        Bitmap scaled = Bitmap.createScaledBitmap(square, size, size, true);
+        if (scaled != square && square != frame) {
+            square.recycle();
+        }
+
+        float scale = (float) size / side;
+        Rect faceBox = new Rect(
+                clamp(Math.round((faceBounds.left - left) * scale), size),
+                clamp(Math.round((faceBounds.top - top) * scale), size),
+                clamp(Math.round((faceBounds.right - left) * scale), size),
+                clamp(Math.round((faceBounds.bottom - top) * scale), size));
+        return new Result(scaled, faceBox);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size, value));
+    }
+}
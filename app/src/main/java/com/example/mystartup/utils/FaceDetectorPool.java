@@ -0,0 +1,138 @@
+package com.example.mystartup.utils;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.FaceDetection;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Long-lived ML Kit face detector clients, one per option profile.
+ * Creating a client loads its model, so clients are reused across captures
+ * and released together in {@link #close()}.
+ */
+public class FaceDetectorPool {
+    private static final String TAG = "FaceDetectorPool";
+
+    /**
+     * Detector option profiles used by the face recognition pipeline
+     */
+    public enum Profile {
+        /** Quick presence check on captured frames */
+        FAST,
+        /** Ultra permissive detector for challenging light/camera conditions */
+        FALLBACK,
+        /** Landmarks and classification for feature extraction */
+        ACCURATE,
+        /** Fast mode with eye classification for gating live preview frames */
+        PREVIEW
+    }
+
+    private final Map<Profile, FaceDetector> detectors = new EnumMap<>(Profile.class);
+    // Set for good by close(), so late callers don't create clients nobody will close
+    private boolean closed;
+
+    /**
+     * Get the detector for a profile, creating it on first use
+     *
+     * @param profile The option profile
+     * @return A shared detector client that callers must not close, or null once
+     *         the pool is closed
+     */
+    public synchronized FaceDetector get(Profile profile) {
+        if (closed) {
+            Log.w(TAG, "Detector requested after close: " + profile);
+            return null;
+        }
+        return getOrCreate(profile);
+    }
+
+    private FaceDetector getOrCreate(Profile profile) {
+        FaceDetector detector = detectors.get(profile);
+        if (detector == null) {
+            detector = FaceDetection.getClient(buildOptions(profile));
+            detectors.put(profile, detector);
+        }
+        return detector;
+    }
+
+    /**
+     * Create every detector and run a tiny frame through it so the models are
+     * loaded before the first real capture. Safe to call from a background thread;
+     * stops early if the pool is closed meanwhile.
+     */
+    public void warmUp() {
+        Bitmap blank = Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+        InputImage image = InputImage.fromBitmap(blank, 0);
+        for (Profile profile : Profile.values()) {
+            FaceDetector detector;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                detector = getOrCreate(profile);
+            }
+            detector.process(image)
+                    .addOnCompleteListener(task -> Log.d(TAG, "Detector warmed up: " + profile));
+        }
+    }
+
+    /**
+     * Close all detector clients and release their native resources.
+     * The pool can't be used afterwards.
+     */
+    public synchronized void close() {
+        for (FaceDetector detector : detectors.values()) {
+            try {
+                detector.close();
+            } catch (Exception e) {
+                Log.w(TAG, "Error closing face detector: " + e.getMessage());
+            }
+        }
+        detectors.clear();
+        closed = true;
+    }
+
+    private static FaceDetectorOptions buildOptions(Profile profile) {
+        switch (profile) {
+            case FAST:
+                // Using a smaller minimum face size to detect faces that might be further from camera
+                return new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_NONE)
+                        .setMinFaceSize(0.1f) // Reduced from 0.35f for better detection across devices
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .build();
+            case FALLBACK:
+                return new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE) // Use accurate mode
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_NONE)
+                        .setMinFaceSize(0.05f) // Very small minimum face size
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .build();
+            case PREVIEW:
+                return new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                        .setMinFaceSize(0.15f)
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .build();
+            case ACCURATE:
+            default:
+                return new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                        .setMinFaceSize(0.1f) // Reduced from 0.35f for better detection across devices
+                        .build();
+        }
+    }
+}
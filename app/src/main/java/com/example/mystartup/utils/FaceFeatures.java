@@ -0,0 +1,83 @@
+package com.example.mystartup.utils;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.face.Face;
+
+/**
+ * Plain snapshot of the ML Kit face attributes used for on-device matching.
+ * Unlike {@link Face} it can be persisted, so the reference face only needs
+ * to be detected once per reference image.
+ */
+public class FaceFeatures {
+    private float smilingProbability;
+    private float leftEyeOpenProbability;
+    private float rightEyeOpenProbability;
+    private float headEulerAngleX;
+    private float headEulerAngleY;
+    private float headEulerAngleZ;
+    private float aspectRatio;
+
+    public FaceFeatures(float smilingProbability, float leftEyeOpenProbability,
+                        float rightEyeOpenProbability, float headEulerAngleX,
+                        float headEulerAngleY, float headEulerAngleZ, float aspectRatio) {
+        this.smilingProbability = smilingProbability;
+        this.leftEyeOpenProbability = leftEyeOpenProbability;
+        this.rightEyeOpenProbability = rightEyeOpenProbability;
+        this.headEulerAngleX = headEulerAngleX;
+        this.headEulerAngleY = headEulerAngleY;
+        this.headEulerAngleZ = headEulerAngleZ;
+        this.aspectRatio = aspectRatio;
+    }
+
+    /**
+     * Copy the matching attributes out of a detected face
+     *
+     * @param face A face detected with classification enabled
+     * @return The extracted features
+     */
+    public static FaceFeatures fromFace(Face face) {
+        Rect bounds = face.getBoundingBox();
+        float aspectRatio = bounds.height() > 0 ? (float) bounds.width() / bounds.height() : 0f;
+        return new FaceFeatures(
+                orZero(face.getSmilingProbability()),
+                orZero(face.getLeftEyeOpenProbability()),
+                orZero(face.getRightEyeOpenProbability()),
+                face.getHeadEulerAngleX(),
+                face.getHeadEulerAngleY(),
+                face.getHeadEulerAngleZ(),
+                aspectRatio);
+    }
+
+    private static float orZero(Float value) {
+        return value != null ? value : 0f;
+    }
+
+    public float getSmilingProbability() {
+        return smilingProbability;
+    }
+
+    public float getLeftEyeOpenProbability() {
+        return leftEyeOpenProbability;
+    }
+
+    public float getRightEyeOpenProbability() {
+        return rightEyeOpenProbability;
+    }
+
+    public float getHeadEulerAngleX() {
+        return headEulerAngleX;
+    }
+
+    public float getHeadEulerAngleY() {
+        return headEulerAngleY;
+    }
+
+    public float getHeadEulerAngleZ() {
+        return headEulerAngleZ;
+    }
+
+    public float getAspectRatio() {
+        return aspectRatio;
+    }
+}
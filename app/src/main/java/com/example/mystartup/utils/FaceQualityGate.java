@@ -0,0 +1,91 @@
+package com.example.mystartup.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Quality bar a live preview frame must pass before it is captured for verification.
+ * Scores face size, head pose, open eyes and sharpness so blurry or badly framed
+ * shots never reach the server.
+ */
+public class FaceQualityGate {
+    public static final float MIN_FACE_WIDTH_RATIO = 0.25f; // Face must fill a quarter of the frame width
+    public static final float MAX_HEAD_ANGLE = 15f; // Degrees of pitch, yaw or roll
+    public static final float MIN_EYE_OPEN_PROBABILITY = 0.5f;
+    public static final double MIN_SHARPNESS = 50.0; // Variance of the Laplacian on the luma plane
+
+    private FaceQualityGate() {
+    }
+
+    /**
+     * Check a detected face against the quality bar
+     *
+     * @param faceWidthRatio Face bounding box width divided by the upright frame width
+     * @param eulerX Head pitch in degrees
+     * @param eulerY Head yaw in degrees
+     * @param eulerZ Head roll in degrees
+     * @param leftEyeOpen Left eye open probability, or null if not classified
+     * @param rightEyeOpen Right eye open probability, or null if not classified
+     * @param sharpness Sharpness score from {@link #laplacianVariance}
+     * @return A user-facing reason the frame was rejected, or null if it passes
+     */
+    public static String findRejectionReason(float faceWidthRatio, float eulerX, float eulerY, float eulerZ,
+                                             Float leftEyeOpen, Float rightEyeOpen, double sharpness) {
+        if (faceWidthRatio < MIN_FACE_WIDTH_RATIO) {
+            return "Move closer to the camera";
+        }
+        if (Math.abs(eulerX) > MAX_HEAD_ANGLE || Math.abs(eulerY) > MAX_HEAD_ANGLE
+                || Math.abs(eulerZ) > MAX_HEAD_ANGLE) {
+            return "Look straight at the camera";
+        }
+        if ((leftEyeOpen != null && leftEyeOpen < MIN_EYE_OPEN_PROBABILITY)
+                || (rightEyeOpen != null && rightEyeOpen < MIN_EYE_OPEN_PROBABILITY)) {
+            return "Keep your eyes open";
+        }
+        if (sharpness < MIN_SHARPNESS) {
+            return "Hold still";
+        }
+        return null;
+    }
+
+    /**
+     * Estimate sharpness as the variance of a 4-neighbour Laplacian over the
+     * central half of a luma plane, where the face sits when framed correctly
+     *
+     * @param luma The Y plane (one byte per pixel)
+     * @param width Plane width in pixels
+     * @param height Plane height in pixels
+     * @param rowStride Bytes between the starts of consecutive rows
+     * @param step Sampling step in pixels; larger is faster but coarser
+     * @return The Laplacian variance, higher meaning sharper
+     */
+    public static double laplacianVariance(ByteBuffer luma, int width, int height, int rowStride, int step) {
+        int left = Math.max(1, width / 4);
+        int right = Math.min(width - 1, width * 3 / 4);
+        int top = Math.max(1, height / 4);
+        int bottom = Math.min(height - 1, height * 3 / 4);
+
+        long count = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int y = top; y < bottom; y += step) {
+            int row = y * rowStride;
+            for (int x = left; x < right; x += step) {
+                int center = luma.get(row + x) & 0xFF;
+                int laplacian = (luma.get(row + x - 1) & 0xFF)
+                        + (luma.get(row + x + 1) & 0xFF)
+                        + (luma.get(row - rowStride + x) & 0xFF)
+                        + (luma.get(row + rowStride + x) & 0xFF)
+                        - 4 * center;
+                sum += laplacian;
+                sumOfSquares += (double) laplacian * laplacian;
+                count++;
+            }
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / count;
+        return sumOfSquares / count - mean * mean;
+    }
+}
@@ -3,22 +3,33 @@ package com.example.mystartup.utils;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Rect;
 import android.util.Base64;
 import android.util.Log;
 
 import com.example.mystartup.api.AttendanceHistoryResponse;
 import com.example.mystartup.api.AttendanceRequest;
 import com.example.mystartup.api.AttendanceResponse;
+import com.example.mystartup.api.FaceBox;
 import com.example.mystartup.api.FaceRecognitionApiService;
 import com.example.mystartup.api.FaceRegistrationRequest;
 import com.example.mystartup.api.FaceRegistrationResponse;
 import com.example.mystartup.api.FaceVerificationRequest;
 import com.example.mystartup.api.FaceVerificationResponse;
+import com.example.mystartup.api.JpegRequestBody;
 import com.example.mystartup.api.RetrofitClient;
+import com.example.mystartup.api.VerifyAndMarkResponse;
+
+import com.google.gson.Gson;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -28,13 +39,44 @@ import retrofit2.Response;
  */
 public class FaceRecognitionRepository {
     private static final String TAG = "FaceRecognitionRepo";
+    private static final int JPEG_QUALITY = 90;
+    private static final MediaType MEDIA_TYPE_TEXT = MediaType.parse("text/plain");
+    private static final MediaType MEDIA_TYPE_JSON = MediaType.parse("application/json");
     private final FaceRecognitionApiService apiService;
+    private final Gson gson = new Gson();
+    private boolean multipartUpload = true;
+    // Cleared once the server turns out not to have the combined endpoint
+    private volatile boolean combinedEndpointAvailable = true;
+    // Set when attendance that fails on the network should be journaled for background sync
+    private final Context appContext;
     
     /**
      * Constructor
      */
     public FaceRecognitionRepository() {
         apiService = RetrofitClient.getInstance().getFaceRecognitionApiService();
+        appContext = null;
+    }
+    
+    /**
+     * Constructor that enables the offline attendance journal
+     * 
+     * @param context Any context; attendance that can't reach the server is journaled
+     *                on the device and synced by {@link AttendanceSyncWorker}
+     */
+    public FaceRecognitionRepository(Context context) {
+        apiService = RetrofitClient.getInstance(context).getFaceRecognitionApiService();
+        appContext = context.getApplicationContext();
+    }
+    
+    /**
+     * Choose how face images are uploaded
+     * 
+     * @param multipart True to stream the JPEG as a binary multipart part (default),
+     *                  false to send it Base64-encoded inside the JSON body
+     */
+    public void setMultipartUpload(boolean multipart) {
+        this.multipartUpload = multipart;
     }
     
     /**
@@ -45,6 +87,12 @@ public class FaceRecognitionRepository {
      * @param callback Callback for the result
      */
     public void registerFace(String sevarthId, Bitmap faceBitmap, RepositoryCallback<FaceRegistrationResponse> callback) {
+        if (multipartUpload) {
+            apiService.registerFaceUpload(textPart(sevarthId), imagePart(faceBitmap))
+                    .enqueue(forwardTo(callback));
+            return;
+        }
+        
         // Convert bitmap to base64
         String base64Image = bitmapToBase64(faceBitmap);
         if (base64Image == null) {
@@ -56,27 +104,7 @@ public class FaceRecognitionRepository {
         FaceRegistrationRequest request = new FaceRegistrationRequest(sevarthId, base64Image);
         
         // Call API
-        apiService.registerFace(request).enqueue(new Callback<FaceRegistrationResponse>() {
-            @Override
-            public void onResponse(Call<FaceRegistrationResponse> call, Response<FaceRegistrationResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    callback.onSuccess(response.body());
-                } else {
-                    try {
-                        callback.onError(response.errorBody() != null 
-                                ? response.errorBody().string() 
-                                : "Unknown error");
-                    } catch (IOException e) {
-                        callback.onError("Failed to parse error response");
-                    }
-                }
-            }
-            
-            @Override
-            public void onFailure(Call<FaceRegistrationResponse> call, Throwable t) {
-                callback.onError(t.getMessage());
-            }
-        });
+        apiService.registerFace(request).enqueue(forwardTo(callback));
     }
     
     /**
@@ -87,20 +115,76 @@ public class FaceRecognitionRepository {
      * @param callback Callback for the result
      */
     public void verifyFace(String sevarthId, Bitmap faceBitmap, RepositoryCallback<FaceVerificationResponse> callback) {
+        uploadForVerification(sevarthId, faceBitmap, null, callback);
+    }
+    
+    /**
+     * Verify a user's face, uploading only a padded face crop with its bounding box.
+     * The payload is an order of magnitude smaller; the server still detects the face
+     * itself and only uses the box to pick it.
+     * 
+     * @param sevarthId User's Sevarth ID
+     * @param frame The full captured frame
+     * @param faceBounds Face bounding box detected on the device, in frame coordinates
+     * @param callback Callback for the result
+     */
+    public void verifyFaceCrop(String sevarthId, Bitmap frame, Rect faceBounds,
+                               RepositoryCallback<FaceVerificationResponse> callback) {
+        FaceCropper.Result crop = FaceCropper.crop(frame, faceBounds, FaceCropper.DEFAULT_CROP_SIZE);
+        if (crop == null) {
+            Log.w(TAG, "Face bounds outside frame, uploading full image instead");
+            verifyFace(sevarthId, frame, callback);
+            return;
+        }
+        
+        uploadForVerification(sevarthId, crop.getBitmap(), toFaceBox(crop.getFaceBox()), callback);
+    }
+    
+    private void uploadForVerification(String sevarthId, Bitmap image, FaceBox faceBox,
+                                       RepositoryCallback<FaceVerificationResponse> callback) {
+        if (multipartUpload) {
+            apiService.verifyFaceUpload(textPart(sevarthId), faceBoxPart(faceBox), imagePart(image))
+                    .enqueue(forwardTo(callback));
+            return;
+        }
+        
         // Convert bitmap to base64
-        String base64Image = bitmapToBase64(faceBitmap);
+        String base64Image = bitmapToBase64(image);
         if (base64Image == null) {
             callback.onError("Failed to convert image to base64");
             return;
         }
         
         // Create request
-        FaceVerificationRequest request = new FaceVerificationRequest(sevarthId, base64Image);
+        FaceVerificationRequest request = faceBox != null
+                ? new FaceVerificationRequest(sevarthId, base64Image, faceBox)
+                : new FaceVerificationRequest(sevarthId, base64Image);
         
         // Call API
-        apiService.verifyFace(request).enqueue(new Callback<FaceVerificationResponse>() {
+        apiService.verifyFace(request).enqueue(forwardTo(callback));
+    }
+    
+    private RequestBody textPart(String value) {
+        return RequestBody.create(value, MEDIA_TYPE_TEXT);
+    }
+    
+    private RequestBody faceBoxPart(FaceBox faceBox) {
+        // Retrofit leaves out null parts, so full-frame uploads simply omit face_box
+        return faceBox != null ? RequestBody.create(gson.toJson(faceBox), MEDIA_TYPE_JSON) : null;
+    }
+    
+    private MultipartBody.Part imagePart(Bitmap image) {
+        return MultipartBody.Part.createFormData("face_image", "face.jpg",
+                JpegRequestBody.fromBitmap(image, JPEG_QUALITY));
+    }
+    
+    /**
+     * Forward a plain Retrofit response to a repository callback
+     */
+    private <T> Callback<T> forwardTo(RepositoryCallback<T> callback) {
+        return new Callback<T>() {
             @Override
-            public void onResponse(Call<FaceVerificationResponse> call, Response<FaceVerificationResponse> response) {
+            public void onResponse(Call<T> call, Response<T> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     callback.onSuccess(response.body());
                 } else {
@@ -115,10 +199,10 @@ public class FaceRecognitionRepository {
             }
             
             @Override
-            public void onFailure(Call<FaceVerificationResponse> call, Throwable t) {
+            public void onFailure(Call<T> call, Throwable t) {
                 callback.onError(t.getMessage());
             }
-        });
+        };
     }
     
     /**
@@ -317,7 +401,7 @@ public class FaceRecognitionRepository {
     private String bitmapToBase64(Bitmap bitmap) {
         try {
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, byteArrayOutputStream);
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, byteArrayOutputStream);
             byte[] byteArray = byteArrayOutputStream.toByteArray();
             return "data:image/jpeg;base64," + Base64.encodeToString(byteArray, Base64.DEFAULT);
         } catch (Exception e) {
@@ -326,6 +410,10 @@ public class FaceRecognitionRepository {
         }
     }
     
+    private FaceBox toFaceBox(Rect box) {
+        return new FaceBox(box.top, box.right, box.bottom, box.left);
+    }
+    
     /**
      * Mark attendance with a pre-configured request object
      * 
@@ -383,11 +471,188 @@ public class FaceRecognitionRepository {
             @Override
             public void onFailure(Call<AttendanceResponse> call, Throwable t) {
                 Log.e(TAG, "Network failure marking attendance", t);
+                if (appContext != null && t instanceof IOException) {
+                    journalAttendance(request, callback);
+                } else {
+                    callback.onError("Network error: " + t.getMessage());
+                }
+            }
+        });
+    }
+    
+    /**
+     * Keep attendance that couldn't reach the server in the on-device journal
+     * and schedule a background sync for when the network is back
+     */
+    private void journalAttendance(AttendanceRequest request, RepositoryCallback<AttendanceResponse> callback) {
+        try {
+            AttendanceJournal.Entry entry = AttendanceJournal.getInstance(appContext).append(request);
+            AttendanceSyncWorker.schedule(appContext);
+            
+            AttendanceResponse response = new AttendanceResponse();
+            response.setMessage("No network connection. Attendance saved on this device and will sync automatically.");
+            response.setAttendanceId(entry.getDocId());
+            response.setSuccess(true);
+            callback.onSuccess(response);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to journal attendance", e);
+            callback.onError("Network error: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Verify a face and mark attendance in a single request.
+     * The server only records attendance when the face matches, so a check-in
+     * costs one round trip instead of two. Falls back to the separate verify
+     * and mark calls when the server does not have the combined endpoint.
+     * 
+     * @param request Attendance details; the confidence is filled in by the server
+     * @param frame The captured frame
+     * @param faceBounds Face bounding box in frame coordinates, or null to upload the full frame
+     * @param callback Callback for the result; check {@link VerifyAndMarkResponse#isVerified()}
+     *                 before {@link VerifyAndMarkResponse#isError()}
+     */
+    public void verifyAndMarkAttendance(AttendanceRequest request, Bitmap frame, Rect faceBounds,
+                                        RepositoryCallback<VerifyAndMarkResponse> callback) {
+        if (request == null) {
+            callback.onError("Request object cannot be null");
+            return;
+        }
+        
+        if (!combinedEndpointAvailable) {
+            verifyThenMark(request, frame, faceBounds, callback);
+            return;
+        }
+        
+        Bitmap image = frame;
+        FaceBox faceBox = null;
+        if (faceBounds != null) {
+            FaceCropper.Result crop = FaceCropper.crop(frame, faceBounds, FaceCropper.DEFAULT_CROP_SIZE);
+            if (crop != null) {
+                image = crop.getBitmap();
+                faceBox = toFaceBox(crop.getFaceBox());
+            } else {
+                Log.w(TAG, "Face bounds outside frame, uploading full image instead");
+            }
+        }
+        
+        Map<String, RequestBody> fields = new HashMap<>();
+        putTextPart(fields, "sevarth_id", request.getSevarthId());
+        putTextPart(fields, "type", request.getType());
+        putTextPart(fields, "location_id", request.getLocationId());
+        putTextPart(fields, "location_name", request.getLocationName());
+        putTextPart(fields, "uid", request.getUserId());
+        putTextPart(fields, "user_name", request.getUserName());
+        putTextPart(fields, "recorded_at", String.valueOf(request.getRecordedAt()));
+        if (faceBox != null) {
+            fields.put("face_box", faceBoxPart(faceBox));
+        }
+        
+        apiService.verifyAndMarkAttendance(fields, imagePart(image)).enqueue(new Callback<VerifyAndMarkResponse>() {
+            @Override
+            public void onResponse(Call<VerifyAndMarkResponse> call, Response<VerifyAndMarkResponse> response) {
+                Log.d(TAG, "Verify-and-mark response code: " + response.code());
+                try {
+                    if (response.isSuccessful() && response.body() != null) {
+                        Log.d(TAG, "Verify-and-mark response: " + response.body().toString());
+                        callback.onSuccess(response.body());
+                        return;
+                    }
+                    
+                    String errorJson = response.errorBody() != null ? response.errorBody().string() : "Unknown error";
+                    if (isMissingEndpoint(response.code(), errorJson)) {
+                        // Older server: remember that and use the two-step flow from now on
+                        Log.w(TAG, "Combined verify-and-mark endpoint unavailable, falling back");
+                        combinedEndpointAvailable = false;
+                        verifyThenMark(request, frame, faceBounds, callback);
+                        return;
+                    }
+                    
+                    Log.e(TAG, "Error in verify-and-mark: " + errorJson);
+                    callback.onError(extractErrorMessage(errorJson));
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to parse error response", e);
+                    callback.onError("Network error: " + e.getMessage());
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<VerifyAndMarkResponse> call, Throwable t) {
+                Log.e(TAG, "Network failure in verify-and-mark", t);
                 callback.onError("Network error: " + t.getMessage());
             }
         });
     }
     
+    /**
+     * Two-step fallback for {@link #verifyAndMarkAttendance}: verify, then mark
+     */
+    private void verifyThenMark(AttendanceRequest request, Bitmap frame, Rect faceBounds,
+                                RepositoryCallback<VerifyAndMarkResponse> callback) {
+        RepositoryCallback<FaceVerificationResponse> verificationCallback =
+                new RepositoryCallback<FaceVerificationResponse>() {
+            @Override
+            public void onSuccess(FaceVerificationResponse verification) {
+                VerifyAndMarkResponse combined = new VerifyAndMarkResponse();
+                combined.setVerified(verification.isVerified());
+                combined.setConfidence(verification.getConfidence());
+                
+                if (!verification.isVerified()) {
+                    combined.setMessage(verification.getMessage());
+                    combined.setSuccess(false);
+                    callback.onSuccess(combined);
+                    return;
+                }
+                
+                request.setVerificationConfidence(verification.getConfidence());
+                markAttendanceWithRequest(request, new RepositoryCallback<AttendanceResponse>() {
+                    @Override
+                    public void onSuccess(AttendanceResponse attendance) {
+                        combined.setMessage(attendance.getMessage());
+                        combined.setAttendanceId(attendance.getAttendanceId());
+                        combined.setDate(attendance.getDate());
+                        combined.setTime(attendance.getTime());
+                        combined.setSuccess(attendance.isSuccess());
+                        callback.onSuccess(combined);
+                    }
+                    
+                    @Override
+                    public void onError(String errorMessage) {
+                        combined.setMessage(errorMessage);
+                        combined.setSuccess(false);
+                        callback.onSuccess(combined);
+                    }
+                });
+            }
+            
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        };
+        
+        if (faceBounds != null) {
+            verifyFaceCrop(request.getSevarthId(), frame, faceBounds, verificationCallback);
+        } else {
+            verifyFace(request.getSevarthId(), frame, verificationCallback);
+        }
+    }
+    
+    private void putTextPart(Map<String, RequestBody> fields, String name, String value) {
+        if (value != null) {
+            fields.put(name, textPart(value));
+        }
+    }
+    
+    /**
+     * A route the server doesn't know comes back as a 404/405 HTML page,
+     * while application errors on a known route are always JSON
+     */
+    private boolean isMissingEndpoint(int code, String errorBody) {
+        return (code == 404 || code == 405)
+                && (errorBody == null || !errorBody.trim().startsWith("{"));
+    }
+    
     /**
      * Helper method to save attendance to local Firestore as backup
      */
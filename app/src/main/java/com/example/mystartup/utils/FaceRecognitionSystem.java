@@ -3,6 +3,8 @@ package com.example.mystartup.utils;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.ImageFormat;
 import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.hardware.camera2.CameraAccessException;
@@ -17,6 +19,7 @@ import android.view.Surface;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
@@ -39,9 +42,7 @@ import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.face.Face;
-import com.google.mlkit.vision.face.FaceDetection;
 import com.google.mlkit.vision.face.FaceDetector;
-import com.google.mlkit.vision.face.FaceDetectorOptions;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -56,7 +57,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.UUID;
 import java.util.TimeZone;
 
@@ -68,18 +71,28 @@ public class FaceRecognitionSystem {
     private static final String TAG = "FaceRecognitionSystem";
     private static final float MINIMUM_CONFIDENCE_THRESHOLD = 0.45f; // 45%
     private static final float HIGH_CONFIDENCE_THRESHOLD = 0.55f; // 55%
+    private static final String STORAGE_BUCKET = "gs://startup-cf3fd.firebasestorage.app";
     
     private final Context context;
-    private final FirebaseStorage storage;
+    private FirebaseStorage storage;
     private final FirebaseFirestore db;
-    private final FaceDetector faceDetector;
+    private final FaceDetectorPool detectorPool;
     private final FirebaseAuth auth;
+    private final ReferenceFaceCache referenceFaceCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ExecutorService processingExecutor;
+    // Set by shutdown(); callbacks arriving later are dropped instead of starting a new thread
+    private boolean shutDown;
+    private final AtomicReference<ImageCaptureCallback> pendingAutoCapture = new AtomicReference<>();
+    private final Runnable autoCaptureTimeout = () -> triggerAutoCapture("no good frame before timeout");
     
     private String userId;
     private String userDisplayName;
     private ProcessCameraProvider cameraProvider;
     private ImageCapture imageCapture;
     private float lastVerificationConfidence = 0f;
+    private volatile Rect lastFaceBounds;
+    private boolean inMemoryCapture = true;
     
     private VerificationListener verificationListener;
     
@@ -100,19 +113,13 @@ public class FaceRecognitionSystem {
     public FaceRecognitionSystem(Context context) {
         this.context = context;
         
-        // Initialize Firebase components
+        // Initialize Firebase components; Storage is only set up on first use
         auth = FirebaseAuth.getInstance();
-        storage = FirebaseStorage.getInstance("gs://startup-cf3fd.firebasestorage.app");  // Updated correct bucket URL
         db = FirebaseFirestore.getInstance();
+        referenceFaceCache = new ReferenceFaceCache(context);
         
-        // Set up face detector with high accuracy
-        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
-                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE)
-                .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
-                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
-                .build();
-        
-        faceDetector = FaceDetection.getClient(options);
+        // Detectors are created on first use, or ahead of the first capture by prewarm()
+        detectorPool = new FaceDetectorPool();
         
         // Get the current user information
         FirebaseUser currentUser = auth.getCurrentUser();
@@ -122,12 +129,51 @@ public class FaceRecognitionSystem {
     }
     
     /**
-     * Set the listener for verification events
+     * Set up Firebase Storage and load the face detector models in the background,
+     * so the first check-in doesn't pay for them. Call once the screen has drawn.
+     */
+    public void prewarm() {
+        getProcessingExecutor().execute(() -> {
+            long start = System.currentTimeMillis();
+            getStorage();
+            detectorPool.warmUp();
+            Log.d(TAG, "Prewarmed Storage and face detectors in " + (System.currentTimeMillis() - start) + "ms");
+        });
+    }
+    
+    /**
+     * Get Firebase Storage, creating the instance on first use
+     */
+    private synchronized FirebaseStorage getStorage() {
+        if (storage == null) {
+            storage = FirebaseStorage.getInstance(STORAGE_BUCKET);
+        }
+        return storage;
+    }
+    
+    /**
+     * Set the listener for verification events.
+     * Events are always delivered on the main thread, even though capture
+     * processing and detection run on a background executor.
      * 
      * @param listener The verification listener
      */
     public void setVerificationListener(VerificationListener listener) {
-        this.verificationListener = listener;
+        this.verificationListener = listener != null ? new MainThreadVerificationListener(listener) : null;
+    }
+    
+    /**
+     * Get the background executor used for frame analysis, decoding and detection,
+     * created on first use. After {@link #shutdown()} it discards whatever it is given.
+     */
+    private synchronized Executor getProcessingExecutor() {
+        if (shutDown) {
+            return command -> Log.d(TAG, "Dropping work after shutdown");
+        }
+        if (processingExecutor == null) {
+            processingExecutor = Executors.newSingleThreadExecutor();
+        }
+        return processingExecutor;
     }
     
     /**
@@ -202,6 +248,9 @@ public class FaceRecognitionSystem {
                             .requireLensFacing(CameraSelector.LENS_FACING_FRONT)
                             .build();
                     
+                    // Analyze preview frames so capture can be gated on a good face
+                    ImageAnalysis imageAnalysis = setupFaceDetection(rotation);
+                    
                     // Unbind any bound use cases before rebinding
                     cameraProvider.unbindAll();
                     
@@ -210,7 +259,8 @@ public class FaceRecognitionSystem {
                             lifecycleOwner, 
                             cameraSelector, 
                             preview, 
-                            imageCapture);
+                            imageCapture,
+                            imageAnalysis);
                     
                     Log.d(TAG, "Camera initialization successful");
                     
@@ -279,40 +329,114 @@ public class FaceRecognitionSystem {
     }
     
     /**
-     * Set up face detection on camera feed
+     * Set up face detection on camera feed.
+     * While an auto-capture is pending, each frame is scored by {@link FaceQualityGate}
+     * and the first frame that passes triggers the capture.
+     * 
+     * @param rotation Target rotation of the analysis use case
+     * @return The image analysis use case to bind alongside preview and capture
      */
-    private void setupFaceDetection(androidx.camera.view.PreviewView previewView, 
-                                  LifecycleOwner lifecycleOwner,
-                                  CameraSelector cameraSelector) {
+    private ImageAnalysis setupFaceDetection(int rotation) {
         ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setTargetResolution(new android.util.Size(480, 640))
+                .setTargetRotation(rotation)
                 .build();
                 
-        imageAnalysis.setAnalyzer(ContextCompat.getMainExecutor(context), imageProxy -> {
+        imageAnalysis.setAnalyzer(getProcessingExecutor(), imageProxy -> {
+            // Skip the detector entirely when nobody is waiting for a capture
+            if (pendingAutoCapture.get() == null || imageProxy.getImage() == null) {
+                imageProxy.close();
+                return;
+            }
+            
+            int rotationDegrees = imageProxy.getImageInfo().getRotationDegrees();
+            ImageProxy.PlaneProxy lumaPlane = imageProxy.getPlanes()[0];
+            double sharpness = FaceQualityGate.laplacianVariance(lumaPlane.getBuffer(), 
+                    imageProxy.getWidth(), imageProxy.getHeight(), lumaPlane.getRowStride(), 4);
+            int uprightWidth = (rotationDegrees == 90 || rotationDegrees == 270) 
+                    ? imageProxy.getHeight() : imageProxy.getWidth();
+            
             // Process image for face detection
-            InputImage image = InputImage.fromMediaImage(
-                    imageProxy.getImage(), 
-                    imageProxy.getImageInfo().getRotationDegrees());
+            InputImage image = InputImage.fromMediaImage(imageProxy.getImage(), rotationDegrees);
             
-            // Process the image
-            faceDetector.process(image)
-                    .addOnSuccessListener(faces -> {
-                        // Face detection logic here
-                        // This just detects faces in the preview - not used for verification
+            // Process the image, unless the system was shut down meanwhile
+            FaceDetector detector = detectorPool.get(FaceDetectorPool.Profile.PREVIEW);
+            if (detector == null) {
+                imageProxy.close();
+                return;
+            }
+            detector.process(image)
+                    .addOnSuccessListener(getProcessingExecutor(), faces -> {
+                        if (!faces.isEmpty()) {
+                            Face face = largestFace(faces);
+                            String rejection = FaceQualityGate.findRejectionReason(
+                                    (float) face.getBoundingBox().width() / uprightWidth,
+                                    face.getHeadEulerAngleX(),
+                                    face.getHeadEulerAngleY(),
+                                    face.getHeadEulerAngleZ(),
+                                    face.getLeftEyeOpenProbability(),
+                                    face.getRightEyeOpenProbability(),
+                                    sharpness);
+                            
+                            if (rejection == null) {
+                                triggerAutoCapture("quality gate passed (sharpness " + (int) sharpness + ")");
+                            } else {
+                                Log.v(TAG, "Preview frame rejected: " + rejection);
+                            }
+                        }
                         imageProxy.close();
                     })
-                    .addOnFailureListener(e -> {
+                    .addOnFailureListener(getProcessingExecutor(), e -> {
                         Log.e(TAG, "Face detection failed: " + e.getMessage());
                         imageProxy.close();
                     });
         });
         
-        // Bind the image analysis use case
-        if (cameraProvider != null) {
-            cameraProvider.bindToLifecycle(
-                    lifecycleOwner,
-                    cameraSelector,
-                    imageAnalysis);
+        return imageAnalysis;
+    }
+    
+    private static Face largestFace(List<Face> faces) {
+        Face largest = faces.get(0);
+        for (Face face : faces) {
+            if (face.getBoundingBox().width() > largest.getBoundingBox().width()) {
+                largest = face;
+            }
+        }
+        return largest;
+    }
+    
+    /**
+     * Capture automatically on the first preview frame with a good face in it.
+     * If no frame passes the quality bar within the timeout, a regular capture is taken anyway.
+     * 
+     * @param timeoutMs Maximum time to wait for a good frame
+     * @param callback Callback for the captured image, invoked on the main thread
+     */
+    public void captureWhenFaceReady(long timeoutMs, ImageCaptureCallback callback) {
+        ImageCaptureCallback uiCallback = bitmap -> mainHandler.post(() -> callback.onImageCaptured(bitmap));
+        mainHandler.removeCallbacks(autoCaptureTimeout);
+        pendingAutoCapture.set(uiCallback);
+        mainHandler.postDelayed(autoCaptureTimeout, timeoutMs);
+    }
+    
+    /**
+     * Cancel a pending auto-capture, e.g. when the verification dialog is dismissed
+     */
+    public void cancelAutoCapture() {
+        pendingAutoCapture.set(null);
+        mainHandler.removeCallbacks(autoCaptureTimeout);
+    }
+    
+    /**
+     * Fire the pending auto-capture, if any. Only the first caller wins.
+     */
+    private void triggerAutoCapture(String reason) {
+        ImageCaptureCallback callback = pendingAutoCapture.getAndSet(null);
+        if (callback != null) {
+            mainHandler.removeCallbacks(autoCaptureTimeout);
+            Log.d(TAG, "Auto-capturing: " + reason);
+            captureImageInternal(callback);
         }
     }
     
@@ -333,9 +457,9 @@ public class FaceRecognitionSystem {
             verificationListener.onVerificationStarted();
         }
         
-        // Step 1: Fetch reference image
-        fetchReferenceImage(referenceImage -> {
-            if (referenceImage == null) {
+        // Step 1: Load reference face features (cached on device when possible)
+        loadReferenceFeatures(referenceFeatures -> {
+            if (referenceFeatures == null) {
                 if (verificationListener != null) {
                     verificationListener.onVerificationError("Failed to load reference image. Please ensure your face image is registered.");
                 }
@@ -360,7 +484,7 @@ public class FaceRecognitionSystem {
                 }
                 
                 // Step 3: Compare faces
-                compareFaces(referenceImage, capturedImage, (isVerified, confidence) -> {
+                compareFaces(referenceFeatures, capturedImage, (isVerified, confidence) -> {
                     this.lastVerificationConfidence = confidence;
                     
                     if (verificationListener != null) {
@@ -377,33 +501,92 @@ public class FaceRecognitionSystem {
     }
     
     /**
-     * Fetch the user's reference image from Firebase Storage
-     * 
-     * @param callback Callback with the reference image bitmap
+     * Get the Storage reference of the user's reference image
      */
-    private void fetchReferenceImage(OnImageLoadedCallback callback) {
+    private StorageReference getReferenceImageRef() {
         // Get reference to the stored face image using the correct naming pattern
-        StorageReference storageRef = storage.getReference()
+        return getStorage().getReference()
                 .child("reference_images")
                 .child("face_" + userId + ".jpg");
-        
+    }
+    
+    /**
+     * Load the reference face features, using the on-device cache when available.
+     * The cached entry is only used if its Storage generation still matches the
+     * reference image, so a re-registered face is never verified against old features.
+     * The metadata check is far cheaper than downloading the image and running ML Kit on it.
+     * 
+     * @param callback Callback with the reference face features
+     */
+    private void loadReferenceFeatures(OnReferenceFeaturesCallback callback) {
+        final String cacheKey = userId;
+        StorageReference storageRef = getReferenceImageRef();
+        storageRef.getMetadata()
+                .addOnSuccessListener(metadata -> {
+                    String generation = metadata.getGeneration();
+                    FaceFeatures cachedFeatures = generation != null
+                            && generation.equals(referenceFaceCache.getGeneration(cacheKey))
+                            ? referenceFaceCache.get(cacheKey) : null;
+                    if (cachedFeatures != null) {
+                        Log.d(TAG, "Using cached reference features for " + cacheKey);
+                        callback.onFeaturesLoaded(cachedFeatures);
+                        return;
+                    }
+                    fetchReferenceImage(storageRef, generation, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Could not read reference image metadata: " + e.getMessage());
+                    // The cache can't be checked; still try the download, the result just won't be cached
+                    fetchReferenceImage(storageRef, null, callback);
+                });
+    }
+    
+    /**
+     * Fetch the user's reference image from Firebase Storage and extract its features
+     * 
+     * @param storageRef Reference to the stored face image
+     * @param generation Storage generation of the image, or null if unknown
+     * @param callback Callback with the reference face features
+     */
+    private void fetchReferenceImage(StorageReference storageRef, String generation,
+                                     OnReferenceFeaturesCallback callback) {
+        final String cacheKey = userId;
         final long MAX_SIZE = 5 * 1024 * 1024; // 5MB max
         
         Log.d(TAG, "Fetching reference image from: " + storageRef.getPath());
         
         storageRef.getBytes(MAX_SIZE)
-                .addOnSuccessListener(bytes -> {
+                .addOnSuccessListener(getProcessingExecutor(), bytes -> {
                     // Convert bytes to bitmap
                     Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
                     Log.d(TAG, "Successfully fetched reference image");
-                    callback.onImageLoaded(bitmap);
+                    if (bitmap == null) {
+                        callback.onFeaturesLoaded(null);
+                        return;
+                    }
+                    
+                    extractFaceFeatures(bitmap, referenceFace -> {
+                        if (referenceFace == null) {
+                            if (verificationListener != null) {
+                                verificationListener.onVerificationError("Could not detect face in reference image.");
+                            }
+                            callback.onFeaturesLoaded(null);
+                            return;
+                        }
+                        
+                        FaceFeatures features = FaceFeatures.fromFace(referenceFace);
+                        if (generation != null) {
+                            referenceFaceCache.put(cacheKey, generation, features);
+                        }
+                        callback.onFeaturesLoaded(features);
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error fetching reference image: " + e.getMessage());
                     if (verificationListener != null) {
                         verificationListener.onVerificationError("Error fetching reference image: " + e.getMessage());
                     }
-                    callback.onImageLoaded(null);
+                    callback.onFeaturesLoaded(null);
                 });
     }
     
@@ -414,12 +597,36 @@ public class FaceRecognitionSystem {
         void onImageCaptured(Bitmap bitmap);
     }
 
+    /**
+     * Get the bounding box of the face found in the most recently captured image
+     * 
+     * @return The face bounds in that bitmap's coordinates, or null if unknown
+     */
+    public Rect getLastFaceBounds() {
+        return lastFaceBounds;
+    }
+    
+    /**
+     * Choose between the in-memory capture path and the legacy JPEG-file path
+     * 
+     * @param inMemory True to decode straight from the camera buffer (default)
+     */
+    public void setInMemoryCapture(boolean inMemory) {
+        this.inMemoryCapture = inMemory;
+    }
+    
     /**
      * Capture an image from the camera for API-based verification
      * 
-     * @param callback Callback for the captured image
+     * @param callback Callback for the captured image, invoked on the main thread
      */
     public void captureImage(ImageCaptureCallback callback) {
+        ImageCaptureCallback uiCallback = bitmap -> mainHandler.post(() -> callback.onImageCaptured(bitmap));
+        captureImageInternal(uiCallback);
+    }
+    
+    private void captureImageInternal(ImageCaptureCallback callback) {
+        lastFaceBounds = null;
         if (imageCapture == null) {
             if (verificationListener != null) {
                 verificationListener.onVerificationError("Camera not initialized. Please restart the app.");
@@ -428,6 +635,138 @@ public class FaceRecognitionSystem {
             return;
         }
         
+        if (inMemoryCapture) {
+            captureImageInMemory(callback);
+        } else {
+            captureImageToFile(callback);
+        }
+    }
+    
+    /**
+     * Capture straight into memory: the JPEG buffer from the camera is cropped and
+     * downsampled in a single decode, without writing it to the cache directory
+     * 
+     * @param callback Callback for the captured image
+     */
+    private void captureImageInMemory(ImageCaptureCallback callback) {
+        try {
+            Log.d(TAG, "Attempting in-memory image capture");
+            
+            // Take the picture - decode and detect on the background executor
+            final Executor executor = getProcessingExecutor();
+            
+            // Set flash mode to off explicitly to avoid issues on some devices
+            imageCapture.setFlashMode(ImageCapture.FLASH_MODE_OFF);
+            
+            imageCapture.takePicture(executor, new ImageCapture.OnImageCapturedCallback() {
+                @Override
+                public void onCaptureSuccess(@NonNull ImageProxy image) {
+                    Bitmap capturedBitmap;
+                    try {
+                        capturedBitmap = decodeImageProxy(image, 640, 480);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error processing captured image: " + e.getMessage(), e);
+                        capturedBitmap = null;
+                    } finally {
+                        image.close();
+                    }
+                    
+                    if (capturedBitmap == null) {
+                        Log.e(TAG, "Failed to decode camera buffer into bitmap");
+                        if (verificationListener != null) {
+                            verificationListener.onVerificationError("Failed to process captured image");
+                        }
+                        callback.onImageCaptured(null);
+                        return;
+                    }
+                    
+                    Log.d(TAG, "Bitmap created successfully: " + capturedBitmap.getWidth() + "x" + 
+                          capturedBitmap.getHeight());
+                    deliverIfFaceDetected(capturedBitmap, callback);
+                }
+                
+                @Override
+                public void onError(@NonNull ImageCaptureException exception) {
+                    Log.e(TAG, "Image capture failed: " + exception.getMessage(), exception);
+                    if (verificationListener != null) {
+                        verificationListener.onVerificationError("Image capture failed: " + exception.getMessage());
+                    }
+                    callback.onImageCaptured(null);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Unexpected error during image capture setup: " + e.getMessage(), e);
+            if (verificationListener != null) {
+                verificationListener.onVerificationError("Failed to set up image capture: " + e.getMessage());
+            }
+            callback.onImageCaptured(null);
+        }
+    }
+    
+    /**
+     * Decode a JPEG {@link ImageProxy} from ImageCapture into an upright bitmap,
+     * cropped to the proxy's crop rect and downsampled towards the requested size
+     * 
+     * @return The decoded bitmap, or null if the buffer could not be decoded
+     */
+    private Bitmap decodeImageProxy(ImageProxy image, int reqWidth, int reqHeight) throws IOException {
+        if (image.getFormat() != ImageFormat.JPEG) {
+            Log.e(TAG, "Unexpected capture format: " + image.getFormat());
+            return null;
+        }
+        
+        ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+        byte[] jpegBytes = new byte[buffer.remaining()];
+        buffer.get(jpegBytes);
+        
+        Rect cropRect = image.getCropRect();
+        boolean fullFrame = cropRect.left == 0 && cropRect.top == 0
+                && cropRect.width() == image.getWidth() && cropRect.height() == image.getHeight();
+        
+        // Size the decode from the crop rect instead of a separate bounds pass
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.outWidth = cropRect.width();
+        options.outHeight = cropRect.height();
+        options.inSampleSize = calculateInSampleSize(options, reqWidth, reqHeight);
+        
+        Bitmap bitmap;
+        if (fullFrame) {
+            bitmap = BitmapFactory.decodeByteArray(jpegBytes, 0, jpegBytes.length, options);
+        } else {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(jpegBytes, 0, jpegBytes.length, false);
+            try {
+                bitmap = decoder.decodeRegion(cropRect, options);
+            } finally {
+                decoder.recycle();
+            }
+        }
+        
+        if (bitmap == null) {
+            return null;
+        }
+        
+        // The JPEG buffer is not rotated; apply the sensor rotation so ML Kit sees an upright face
+        int rotationDegrees = image.getImageInfo().getRotationDegrees();
+        if (rotationDegrees != 0) {
+            Matrix matrix = new Matrix();
+            matrix.postRotate(rotationDegrees);
+            Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (rotated != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = rotated;
+        }
+        
+        return bitmap;
+    }
+    
+    /**
+     * Capture via a temporary JPEG file in the cache directory (legacy path)
+     * 
+     * @param callback Callback for the captured image
+     */
+    private void captureImageToFile(ImageCaptureCallback callback) {
         try {
             // Create unique filename for temporary file
             String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
@@ -445,13 +784,13 @@ public class FaceRecognitionSystem {
             // Log image capture attempt
             Log.d(TAG, "Attempting to capture image to: " + photoFile.getAbsolutePath());
             
-            // Take the picture - use the main thread executor for consistent behavior
-            final Executor mainExecutor = ContextCompat.getMainExecutor(context);
+            // Take the picture - decode and detect on the background executor
+            final Executor executor = getProcessingExecutor();
             
             // Set flash mode to off explicitly to avoid issues on some devices
             imageCapture.setFlashMode(ImageCapture.FLASH_MODE_OFF);
             
-            imageCapture.takePicture(outputOptions, mainExecutor,
+            imageCapture.takePicture(outputOptions, executor,
                     new ImageCapture.OnImageSavedCallback() {
                         @Override
                         public void onImageSaved(@NonNull ImageCapture.OutputFileResults outputFileResults) {
@@ -484,9 +823,7 @@ public class FaceRecognitionSystem {
                                     }
                                     callback.onImageCaptured(null);
                                     // Clean up
-                                    if (photoFile.exists()) {
-                                        photoFile.delete();
-                                    }
+                                    photoFile.delete();
                                     return;
                                 }
                                 
@@ -495,6 +832,9 @@ public class FaceRecognitionSystem {
                                 options.inSampleSize = calculateInSampleSize(options, 640, 480); // Downsample large images
                                 Bitmap capturedBitmap = BitmapFactory.decodeFile(photoFile.getAbsolutePath(), options);
                                 
+                                // The file is no longer needed once decoded
+                                photoFile.delete();
+                                
                                 // Ensure the bitmap is not null
                                 if (capturedBitmap == null) {
                                     Log.e(TAG, "Failed to decode image file into bitmap");
@@ -502,10 +842,6 @@ public class FaceRecognitionSystem {
                                         verificationListener.onVerificationError("Failed to process captured image");
                                     }
                                     callback.onImageCaptured(null);
-                                    // Clean up
-                                    if (photoFile.exists()) {
-                                        photoFile.delete();
-                                    }
                                     return;
                                 }
                                 
@@ -513,49 +849,7 @@ public class FaceRecognitionSystem {
                                 Log.d(TAG, "Bitmap created successfully: " + capturedBitmap.getWidth() + "x" + 
                                       capturedBitmap.getHeight());
                                 
-                                // Check if a face is detectable in the image
-                                detectFaceInBitmap(capturedBitmap, faceDetected -> {
-                                    try {
-                                        if (!faceDetected) {
-                                            Log.w(TAG, "No face detected in captured image");
-                                            
-                                            // Try with a more permissive detector as fallback for challenging light/camera conditions
-                                            detectFaceWithFallback(capturedBitmap, fallbackDetected -> {
-                                                if (fallbackDetected) {
-                                                    Log.d(TAG, "Face detected with fallback detector");
-                                                    callback.onImageCaptured(capturedBitmap);
-                                                } else {
-                                                    if (verificationListener != null) {
-                                                        verificationListener.onVerificationError("No face detected in the captured image. Please try again with better lighting.");
-                                                    }
-                                                    callback.onImageCaptured(null);
-                                                }
-                                                
-                                                // Clean up the temporary file
-                                                if (photoFile.exists()) {
-                                                    photoFile.delete();
-                                                }
-                                            });
-                                        } else {
-                                            Log.d(TAG, "Face successfully detected in captured image");
-                                            // Return the bitmap
-                                            callback.onImageCaptured(capturedBitmap);
-                                            
-                                            // Clean up the temporary file
-                                            if (photoFile.exists()) {
-                                                photoFile.delete();
-                                            }
-                                        }
-                                    } catch (Exception e) {
-                                        Log.e(TAG, "Error in face detection: " + e.getMessage(), e);
-                                        callback.onImageCaptured(null);
-                                        
-                                        // Clean up on error
-                                        if (photoFile.exists()) {
-                                            photoFile.delete();
-                                        }
-                                    }
-                                });
+                                deliverIfFaceDetected(capturedBitmap, callback);
                             } catch (Exception e) {
                                 Log.e(TAG, "Error processing captured image: " + e.getMessage(), e);
                                 if (verificationListener != null) {
@@ -593,13 +887,56 @@ public class FaceRecognitionSystem {
         }
     }
     
+    /**
+     * Hand the captured bitmap to the callback only if a face can be detected in it
+     */
+    private void deliverIfFaceDetected(Bitmap capturedBitmap, ImageCaptureCallback callback) {
+        // Check if a face is detectable in the image
+        detectFaceInBitmap(capturedBitmap, faceDetected -> {
+            try {
+                if (!faceDetected) {
+                    Log.w(TAG, "No face detected in captured image");
+                    
+                    // Try with a more permissive detector as fallback for challenging light/camera conditions
+                    detectFaceWithFallback(capturedBitmap, fallbackDetected -> {
+                        if (fallbackDetected) {
+                            Log.d(TAG, "Face detected with fallback detector");
+                            callback.onImageCaptured(capturedBitmap);
+                        } else {
+                            if (verificationListener != null) {
+                                verificationListener.onVerificationError("No face detected in the captured image. Please try again with better lighting.");
+                            }
+                            callback.onImageCaptured(null);
+                        }
+                    });
+                } else {
+                    Log.d(TAG, "Face successfully detected in captured image");
+                    // Return the bitmap
+                    callback.onImageCaptured(capturedBitmap);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error in face detection: " + e.getMessage(), e);
+                callback.onImageCaptured(null);
+            }
+        });
+    }
+    
     /**
      * Calculate appropriate sample size for loading bitmaps efficiently
      */
     private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        // Raw height and width of image
-        final int height = options.outHeight;
-        final int width = options.outWidth;
+        return calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+    }
+    
+    /**
+     * Calculate the largest power-of-two sample size that keeps both dimensions
+     * at or above the requested size
+     * 
+     * @param width Raw image width
+     * @param height Raw image height
+     */
+    @VisibleForTesting
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
         int inSampleSize = 1;
     
         if (height > reqHeight || width > reqWidth) {
@@ -623,22 +960,22 @@ public class FaceRecognitionSystem {
         InputImage image = InputImage.fromBitmap(bitmap, 0);
         
         // Ultra permissive detector for fallback
-        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
-                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE) // Use accurate mode
-                .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
-                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_NONE)
-                .setMinFaceSize(0.05f) // Very small minimum face size
-                .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
-                .build();
-        
-        FaceDetection.getClient(options).process(image)
-                .addOnSuccessListener(faces -> {
+        FaceDetector detector = detectorPool.get(FaceDetectorPool.Profile.FALLBACK);
+        if (detector == null) {
+            callback.onResult(false);
+            return;
+        }
+        detector.process(image)
+                .addOnSuccessListener(getProcessingExecutor(), faces -> {
                     boolean faceDetected = !faces.isEmpty();
                     Log.d(TAG, "Fallback face detection result: " + (faceDetected ? "Face detected" : "No face detected") + 
                           " (found " + faces.size() + " faces)");
+                    if (faceDetected) {
+                        lastFaceBounds = faces.get(0).getBoundingBox();
+                    }
                     callback.onResult(faceDetected);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(getProcessingExecutor(), e -> {
                     Log.e(TAG, "Fallback face detection failed: " + e.getMessage());
                     callback.onResult(false);
                 });
@@ -654,20 +991,14 @@ public class FaceRecognitionSystem {
         // Create input image with optimized settings
         InputImage image = InputImage.fromBitmap(bitmap, 0);
         
-        // Configure face detector for better cross-device compatibility
-        // Using a smaller minimum face size to detect faces that might be further from camera
-        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
-                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
-                .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
-                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_NONE)
-                .setMinFaceSize(0.1f) // Reduced from 0.35f for better detection across devices
-                .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
-                .build();
-        
-        FaceDetector detector = FaceDetection.getClient(options);
-        
+        // Fast detector with a small minimum face size for better cross-device compatibility
+        FaceDetector detector = detectorPool.get(FaceDetectorPool.Profile.FAST);
+        if (detector == null) {
+            callback.onResult(false);
+            return;
+        }
         detector.process(image)
-                .addOnSuccessListener(faces -> {
+                .addOnSuccessListener(getProcessingExecutor(), faces -> {
                     boolean faceDetected = !faces.isEmpty();
                     Log.d(TAG, "Face detection result: " + (faceDetected ? "Face detected" : "No face detected") + 
                           " (found " + faces.size() + " faces)");
@@ -678,65 +1009,55 @@ public class FaceRecognitionSystem {
                         Log.d(TAG, "Detected face bounds: " + bounds.left + "," + bounds.top + 
                               " to " + bounds.right + "," + bounds.bottom + 
                               " (size: " + bounds.width() + "x" + bounds.height() + ")");
+                        lastFaceBounds = bounds;
                     }
                     callback.onResult(faceDetected);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(getProcessingExecutor(), e -> {
                     Log.e(TAG, "Face detection failed: " + e.getMessage());
                     callback.onResult(false);
                 });
     }
     
     /**
-     * Compare two face images to determine if they match
+     * Compare the reference face against a captured image to determine if they match
      * This uses ML Kit for Android instead of the face_recognition library from Python
      * The comparison logic is adapted to work with ML Kit's face detection capabilities
      * 
-     * @param referenceImage The stored reference image
+     * @param referenceFeatures The stored reference face features
      * @param capturedImage The newly captured image
      * @param callback Callback with the verification result
      */
-    private void compareFaces(Bitmap referenceImage, Bitmap capturedImage, OnVerificationResultCallback callback) {
-        // Extract face features from reference image
-        extractFaceFeatures(referenceImage, referenceFace -> {
-            if (referenceFace == null) {
+    private void compareFaces(FaceFeatures referenceFeatures, Bitmap capturedImage, OnVerificationResultCallback callback) {
+        // Extract face features from captured image
+        extractFaceFeatures(capturedImage, capturedFace -> {
+            if (capturedFace == null) {
                 if (verificationListener != null) {
-                    verificationListener.onVerificationError("Could not detect face in reference image.");
+                    verificationListener.onVerificationError("Could not detect face in captured image.");
                 }
                 callback.onResult(false, 0);
                 return;
             }
             
-            // Extract face features from captured image
-            extractFaceFeatures(capturedImage, capturedFace -> {
-                if (capturedFace == null) {
-                    if (verificationListener != null) {
-                        verificationListener.onVerificationError("Could not detect face in captured image.");
-                    }
-                    callback.onResult(false, 0);
-                    return;
-                }
-                
-                // Compare faces using facial landmarks and features
-                // This is a simplified implementation since ML Kit doesn't provide face recognition out of the box
-                
-                // Calculate estimated match confidence
-                float confidence = calculateFaceMatchConfidence(referenceFace, capturedFace);
-                
-                // Determine if the faces match based on confidence thresholds
-                boolean isMatch = confidence >= MINIMUM_CONFIDENCE_THRESHOLD;
-                
-                // Apply confidence thresholds similar to the Python model
-                if (confidence >= HIGH_CONFIDENCE_THRESHOLD) {
-                    Log.d(TAG, "High confidence match: " + confidence);
-                } else if (confidence >= MINIMUM_CONFIDENCE_THRESHOLD) {
-                    Log.d(TAG, "Low confidence match: " + confidence);
-                } else {
-                    Log.d(TAG, "Match failed. Confidence too low: " + confidence);
-                }
-                
-                callback.onResult(isMatch, confidence);
-            });
+            // Compare faces using facial landmarks and features
+            // This is a simplified implementation since ML Kit doesn't provide face recognition out of the box
+            
+            // Calculate estimated match confidence
+            float confidence = calculateFaceMatchConfidence(referenceFeatures, FaceFeatures.fromFace(capturedFace));
+            
+            // Determine if the faces match based on confidence thresholds
+            boolean isMatch = confidence >= MINIMUM_CONFIDENCE_THRESHOLD;
+            
+            // Apply confidence thresholds similar to the Python model
+            if (confidence >= HIGH_CONFIDENCE_THRESHOLD) {
+                Log.d(TAG, "High confidence match: " + confidence);
+            } else if (confidence >= MINIMUM_CONFIDENCE_THRESHOLD) {
+                Log.d(TAG, "Low confidence match: " + confidence);
+            } else {
+                Log.d(TAG, "Match failed. Confidence too low: " + confidence);
+            }
+            
+            callback.onResult(isMatch, confidence);
         });
     }
     
@@ -750,18 +1071,14 @@ public class FaceRecognitionSystem {
         // Create input image with optimized settings
         InputImage image = InputImage.fromBitmap(bitmap, 0);
         
-        // Configure face detector for accuracy in feature extraction but with better cross-device compatibility
-        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
-                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE)
-                .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
-                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
-                .setMinFaceSize(0.1f) // Reduced from 0.35f for better detection across devices
-                .build();
-        
-        FaceDetector detector = FaceDetection.getClient(options);
-        
+        // Accurate detector with landmarks and classification for feature extraction
+        FaceDetector detector = detectorPool.get(FaceDetectorPool.Profile.ACCURATE);
+        if (detector == null) {
+            callback.onFaceExtracted(null);
+            return;
+        }
         detector.process(image)
-                .addOnSuccessListener(faces -> {
+                .addOnSuccessListener(getProcessingExecutor(), faces -> {
                     if (faces.isEmpty()) {
                         callback.onFaceExtracted(null);
                         return;
@@ -771,7 +1088,7 @@ public class FaceRecognitionSystem {
                     Face face = faces.get(0);
                     callback.onFaceExtracted(face);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(getProcessingExecutor(), e -> {
                     Log.e(TAG, "Face feature extraction failed: " + e.getMessage());
                     callback.onFaceExtracted(null);
                 });
@@ -781,11 +1098,12 @@ public class FaceRecognitionSystem {
      * Calculate the confidence of a face match
      * This is an estimation since ML Kit doesn't provide face recognition directly
      * 
-     * @param referenceFace The reference face
-     * @param capturedFace The captured face
+     * @param referenceFace The reference face features
+     * @param capturedFace The captured face features
      * @return A confidence value between 0 and 1
      */
-    private float calculateFaceMatchConfidence(Face referenceFace, Face capturedFace) {
+    @VisibleForTesting
+    static float calculateFaceMatchConfidence(FaceFeatures referenceFace, FaceFeatures capturedFace) {
         // Initialize confidence score
         float confidence = 0.5f; // Base confidence
         
@@ -807,12 +1125,7 @@ public class FaceRecognitionSystem {
         confidence += (1.0f - (eulerXDiff + eulerYDiff + eulerZDiff) / 3.0f) * 0.1f;
         
         // 4. Face proportions similarity
-        Rect referenceBounds = referenceFace.getBoundingBox();
-        Rect capturedBounds = capturedFace.getBoundingBox();
-        
-        float referenceRatio = (float) referenceBounds.width() / referenceBounds.height();
-        float capturedRatio = (float) capturedBounds.width() / capturedBounds.height();
-        float ratioDiff = Math.abs(referenceRatio - capturedRatio);
+        float ratioDiff = Math.abs(referenceFace.getAspectRatio() - capturedFace.getAspectRatio());
         confidence += (1.0f - Math.min(ratioDiff, 1.0f)) * 0.1f;
         
         // Ensure confidence is between 0 and 1
@@ -887,19 +1200,76 @@ public class FaceRecognitionSystem {
     }
     
     /**
-     * Release camera resources
+     * Release camera and face detector resources
      */
     public void shutdown() {
+        cancelAutoCapture();
         if (cameraProvider != null) {
             cameraProvider.unbindAll();
         }
+        detectorPool.close();
+        synchronized (this) {
+            shutDown = true;
+            if (processingExecutor != null) {
+                processingExecutor.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Forwards verification events to the wrapped listener on the main thread
+     */
+    private class MainThreadVerificationListener implements VerificationListener {
+        private final VerificationListener delegate;
+        
+        MainThreadVerificationListener(VerificationListener delegate) {
+            this.delegate = delegate;
+        }
+        
+        private void post(Runnable event) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                event.run();
+            } else {
+                mainHandler.post(event);
+            }
+        }
+        
+        @Override
+        public void onVerificationStarted() {
+            post(delegate::onVerificationStarted);
+        }
+        
+        @Override
+        public void onReferenceImageLoaded() {
+            post(delegate::onReferenceImageLoaded);
+        }
+        
+        @Override
+        public void onFaceCaptured() {
+            post(delegate::onFaceCaptured);
+        }
+        
+        @Override
+        public void onVerificationComplete(boolean isVerified, float confidence) {
+            post(() -> delegate.onVerificationComplete(isVerified, confidence));
+        }
+        
+        @Override
+        public void onVerificationError(String errorMessage) {
+            post(() -> delegate.onVerificationError(errorMessage));
+        }
+        
+        @Override
+        public void onAttendanceMarked(boolean success, String message) {
+            post(() -> delegate.onAttendanceMarked(success, message));
+        }
     }
     
     /**
      * Callback interfaces
      */
-    private interface OnImageLoadedCallback {
-        void onImageLoaded(Bitmap bitmap);
+    private interface OnReferenceFeaturesCallback {
+        void onFeaturesLoaded(FaceFeatures features);
     }
     
     private interface OnFaceDetectedCallback {
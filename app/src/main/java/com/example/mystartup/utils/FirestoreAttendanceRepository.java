@@ -5,6 +5,7 @@ import android.os.Looper;
 import android.util.Log;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.SetOptions;
@@ -35,6 +36,9 @@ public class FirestoreAttendanceRepository {
     
     /**
      * Save attendance record to Firestore using sevarthId
+     * This is the redundant copy of a record the backend already wrote, so it does not
+     * touch the {@link DailyAttendanceRollup} or the {@link OfficeOccupancyCounter},
+     * which the backend maintains; counting the copy would count the visit twice
      * @param sevarthId The Sevarth ID to use as document ID
      * @param userId The user's Firebase UID 
      * @param userName The user's display name
@@ -60,39 +64,8 @@ public class FirestoreAttendanceRepository {
             String docId = sevarthId + "_" + timestamp;
             Log.d(TAG, "saveAttendance: Creating document with ID: " + docId);
             
-            // Get current date and time
-            Date now = new Date(timestamp);
-            Timestamp firestoreTimestamp = new Timestamp(now);
-            
-            // Create date formatters with Indian Standard Time timezone
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
-            
-            // Set Indian Standard Time timezone (IST = UTC+5:30)
-            TimeZone istTimeZone = TimeZone.getTimeZone("Asia/Kolkata");
-            dateFormat.setTimeZone(istTimeZone);
-            timeFormat.setTimeZone(istTimeZone);
-            
-            // Format current date and time in IST
-            String formattedDate = dateFormat.format(now);
-            String formattedTime = timeFormat.format(now);
-            
-            Log.d(TAG, "saveAttendance: Using device time in IST: " + now.toString() + 
-                      ", Formatted as " + formattedDate + " " + formattedTime);
-            
-            // Create attendance data exactly matching backend structure
-            Map<String, Object> attendanceData = new HashMap<>();
-            attendanceData.put("sevarthId", sevarthId);
-            attendanceData.put("userId", userId);
-            attendanceData.put("userName", userName);
-            attendanceData.put("type", type);
-            attendanceData.put("timestamp", firestoreTimestamp);
-            attendanceData.put("date", formattedDate);
-            attendanceData.put("time", formattedTime);
-            attendanceData.put("status", "Present");
-            attendanceData.put("verificationConfidence", verificationConfidence);
-            attendanceData.put("locationId", locationId);
-            attendanceData.put("officeName", officeName);
+            Map<String, Object> attendanceData = buildAttendanceData(sevarthId, userId, userName, type,
+                    verificationConfidence, locationId, officeName, timestamp);
             
             Log.d(TAG, "saveAttendance: Attempting to save attendance data: " + attendanceData);
             
@@ -118,6 +91,51 @@ public class FirestoreAttendanceRepository {
         }
     }
     
+    /**
+     * Build an attendance document exactly matching the backend structure
+     * 
+     * @param timestamp When the attendance was recorded, in epoch milliseconds
+     */
+    private Map<String, Object> buildAttendanceData(String sevarthId, String userId, String userName, String type,
+                                                    double verificationConfidence, String locationId,
+                                                    String officeName, long timestamp) {
+        // Get current date and time
+        Date now = new Date(timestamp);
+        Timestamp firestoreTimestamp = new Timestamp(now);
+        
+        // Create date formatters with Indian Standard Time timezone
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
+        
+        // Set Indian Standard Time timezone (IST = UTC+5:30)
+        TimeZone istTimeZone = TimeZone.getTimeZone("Asia/Kolkata");
+        dateFormat.setTimeZone(istTimeZone);
+        timeFormat.setTimeZone(istTimeZone);
+        
+        // Format current date and time in IST
+        String formattedDate = dateFormat.format(now);
+        String formattedTime = timeFormat.format(now);
+        
+        Log.d(TAG, "buildAttendanceData: Using device time in IST: " + now.toString() + 
+                  ", Formatted as " + formattedDate + " " + formattedTime);
+        
+        Map<String, Object> attendanceData = new HashMap<>();
+        attendanceData.put("sevarthId", sevarthId);
+        attendanceData.put("userId", userId);
+        attendanceData.put("userName", userName);
+        attendanceData.put("type", type);
+        attendanceData.put("timestamp", firestoreTimestamp);
+        // When the record reached the database; report caches sync on this
+        attendanceData.put("syncedAt", FieldValue.serverTimestamp());
+        attendanceData.put("date", formattedDate);
+        attendanceData.put("time", formattedTime);
+        attendanceData.put("status", "Present");
+        attendanceData.put("verificationConfidence", verificationConfidence);
+        attendanceData.put("locationId", locationId);
+        attendanceData.put("officeName", officeName);
+        return attendanceData;
+    }
+    
     /**
      * Save attendance record to Firestore (legacy method for compatibility)
      */
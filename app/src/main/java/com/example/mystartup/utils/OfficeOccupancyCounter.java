@@ -0,0 +1,104 @@
+package com.example.mystartup.utils;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Layout of the sharded per-office, per-day attendance counters.
+ * Each office_occupancy/{locationId}_{date} counter is split over
+ * {@link #NUM_SHARDS} shard documents; the backend increments one random shard
+ * per record, so a rush of check-ins at opening time does not queue on a single document.
+ * Reading a counter sums its shards, and all offices for a day are one
+ * collection-group query on {@link #SHARDS_COLLECTION}.
+ * {@link #presentChanges} is the rule the backend's write_occupancy applies to
+ * move the present count.
+ */
+public class OfficeOccupancyCounter {
+    public static final String COLLECTION_PATH = "office_occupancy";
+    public static final String SHARDS_COLLECTION = "shards";
+    public static final int NUM_SHARDS = 10;
+
+    public static final String FIELD_LOCATION_ID = "locationId";
+    public static final String FIELD_DATE = "date";
+    public static final String FIELD_CHECK_INS = "checkIns";
+    public static final String FIELD_CHECK_OUTS = "checkOuts";
+    public static final String FIELD_PRESENT = "present";
+
+    private OfficeOccupancyCounter() {
+    }
+
+    /**
+     * Running totals for one office and day
+     */
+    public static class Totals {
+        private long checkIns;
+        private long checkOuts;
+        private long present;
+
+        public long getCheckIns() {
+            return checkIns;
+        }
+
+        public long getCheckOuts() {
+            return checkOuts;
+        }
+
+        /**
+         * @return People whose latest record today is a check-in
+         */
+        public long getPresent() {
+            return Math.max(0, present);
+        }
+
+        /**
+         * Add one shard document to the totals
+         */
+        public void addShard(DocumentSnapshot shard) {
+            checkIns += longValue(shard.get(FIELD_CHECK_INS));
+            checkOuts += longValue(shard.get(FIELD_CHECK_OUTS));
+            present += longValue(shard.get(FIELD_PRESENT));
+        }
+
+        private static long longValue(Object value) {
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+    }
+
+    public static String counterId(String locationId, String date) {
+        return locationId + "_" + date;
+    }
+
+    /**
+     * How merging a record moved a user between offices, from their
+     * {@link DailyAttendanceRollup} entry before and after the merge
+     *
+     * @return Change in the present count keyed by location ID; empty if nothing moved
+     */
+    public static Map<String, Long> presentChanges(Map<String, Object> entryBefore, Map<String, Object> entryAfter) {
+        String presentBefore = DailyAttendanceRollup.presentAt(entryBefore);
+        String presentAfter = DailyAttendanceRollup.presentAt(entryAfter);
+        Map<String, Long> changes = new HashMap<>();
+        if (Objects.equals(presentBefore, presentAfter)) {
+            return changes;
+        }
+        if (presentBefore != null) {
+            changes.put(presentBefore, -1L);
+        }
+        if (presentAfter != null) {
+            changes.put(presentAfter, 1L);
+        }
+        return changes;
+    }
+
+    /**
+     * Every shard of every office counter for a day
+     */
+    public static Query shardsForDate(FirebaseFirestore db, String date) {
+        return db.collectionGroup(SHARDS_COLLECTION).whereEqualTo(FIELD_DATE, date);
+    }
+}
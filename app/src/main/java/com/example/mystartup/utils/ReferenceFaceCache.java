@@ -0,0 +1,85 @@
+package com.example.mystartup.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * Persistent per-user cache of the reference face features.
+ * Each entry remembers the Firebase Storage generation of the reference image
+ * it was extracted from, so a re-registered face invalidates the entry.
+ */
+public class ReferenceFaceCache {
+    private static final String TAG = "ReferenceFaceCache";
+    private static final String PREF_NAME = "face_reference_cache";
+    private static final String KEY_FEATURES_PREFIX = "features_";
+    private static final String KEY_GENERATION_PREFIX = "generation_";
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+
+    public ReferenceFaceCache(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Get the cached reference features for a user
+     *
+     * @param userId The user's Sevarth ID
+     * @return The cached features, or null if nothing usable is stored
+     */
+    public FaceFeatures get(String userId) {
+        String json = prefs.getString(KEY_FEATURES_PREFIX + userId, null);
+        if (json == null) {
+            return null;
+        }
+
+        try {
+            return gson.fromJson(json, FaceFeatures.class);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding unreadable cache entry for " + userId + ": " + e.getMessage());
+            invalidate(userId);
+            return null;
+        }
+    }
+
+    /**
+     * Get the Storage generation the cached features were extracted from
+     *
+     * @param userId The user's Sevarth ID
+     * @return The generation, or null if nothing is cached
+     */
+    public String getGeneration(String userId) {
+        return prefs.getString(KEY_GENERATION_PREFIX + userId, null);
+    }
+
+    /**
+     * Store the reference features for a user
+     *
+     * @param userId The user's Sevarth ID
+     * @param generation Storage generation of the reference image
+     * @param features The extracted features
+     */
+    public void put(String userId, String generation, FaceFeatures features) {
+        prefs.edit()
+                .putString(KEY_FEATURES_PREFIX + userId, gson.toJson(features))
+                .putString(KEY_GENERATION_PREFIX + userId, generation)
+                .apply();
+        Log.d(TAG, "Cached reference features for " + userId + " (generation " + generation + ")");
+    }
+
+    /**
+     * Drop the cached features for a user
+     *
+     * @param userId The user's Sevarth ID
+     */
+    public void invalidate(String userId) {
+        prefs.edit()
+                .remove(KEY_FEATURES_PREFIX + userId)
+                .remove(KEY_GENERATION_PREFIX + userId)
+                .apply();
+    }
+}
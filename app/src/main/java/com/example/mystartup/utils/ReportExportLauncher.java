@@ -0,0 +1,197 @@
+package com.example.mystartup.utils;
+
+import android.app.AlertDialog;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.fragment.app.Fragment;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import java.util.UUID;
+
+/**
+ * Report-screen side of exporting: asks the user where to save the file, queues a
+ * {@link ReportExportWorker} and shows its progress. Create it in the fragment's
+ * onCreate so the document pickers are registered and the pending export is
+ * restored in time. The pending export is saved with the fragment's state, so a
+ * file picked after the fragment was recreated is still exported.
+ */
+public class ReportExportLauncher {
+    private static final String STATE_KEY = "report_export_launcher";
+    private static final String STATE_LABEL = "label";
+    private static final String STATE_SCOPE = "scope";
+    private static final String STATE_VALUE = "value";
+    private static final String STATE_FORMAT = "format";
+    private static final String STATE_START_DATE = "start_date";
+    private static final String STATE_END_DATE = "end_date";
+
+    /**
+     * One thing the user can choose to export
+     */
+    public static class Option {
+        final String label;
+        final AttendanceReportExporter.Scope scope;
+        final String value;
+        final ReportRowWriter.Format format;
+
+        public Option(String label, AttendanceReportExporter.Scope scope, String value, ReportRowWriter.Format format) {
+            this.label = label;
+            this.scope = scope;
+            this.value = value;
+            this.format = format;
+        }
+    }
+
+    private final Fragment fragment;
+    private final ActivityResultLauncher<String> csvLauncher;
+    private final ActivityResultLauncher<String> xlsxLauncher;
+    private ProgressBar progressBar;
+    private TextView statusText;
+
+    private Option pendingOption;
+    private String pendingStartDate;
+    private String pendingEndDate;
+
+    public ReportExportLauncher(Fragment fragment) {
+        this.fragment = fragment;
+        this.csvLauncher = fragment.registerForActivityResult(
+                new ActivityResultContracts.CreateDocument(ReportRowWriter.Format.CSV.getMimeType()),
+                this::onDocumentCreated);
+        this.xlsxLauncher = fragment.registerForActivityResult(
+                new ActivityResultContracts.CreateDocument(ReportRowWriter.Format.XLSX.getMimeType()),
+                this::onDocumentCreated);
+
+        fragment.getSavedStateRegistry().registerSavedStateProvider(STATE_KEY, this::saveState);
+        restoreState(fragment.getSavedStateRegistry().consumeRestoredStateForKey(STATE_KEY));
+    }
+
+    private Bundle saveState() {
+        Bundle state = new Bundle();
+        if (pendingOption != null) {
+            state.putString(STATE_LABEL, pendingOption.label);
+            state.putString(STATE_SCOPE, pendingOption.scope.name());
+            state.putString(STATE_VALUE, pendingOption.value);
+            state.putString(STATE_FORMAT, pendingOption.format.name());
+            state.putString(STATE_START_DATE, pendingStartDate);
+            state.putString(STATE_END_DATE, pendingEndDate);
+        }
+        return state;
+    }
+
+    private void restoreState(Bundle state) {
+        if (state == null || !state.containsKey(STATE_SCOPE)) {
+            return;
+        }
+        pendingOption = new Option(state.getString(STATE_LABEL),
+                AttendanceReportExporter.Scope.valueOf(state.getString(STATE_SCOPE)),
+                state.getString(STATE_VALUE),
+                ReportRowWriter.Format.valueOf(state.getString(STATE_FORMAT)));
+        pendingStartDate = state.getString(STATE_START_DATE);
+        pendingEndDate = state.getString(STATE_END_DATE);
+    }
+
+    /**
+     * Views that show export progress; call again whenever the fragment's view is recreated
+     */
+    public void bindStatusViews(ProgressBar progressBar, TextView statusText) {
+        this.progressBar = progressBar;
+        this.statusText = statusText;
+    }
+
+    /**
+     * Let the user pick an export option, then where to save it
+     *
+     * @param options Export choices
+     * @param startDate First date (yyyy-MM-dd)
+     * @param endDate Last date (yyyy-MM-dd)
+     */
+    public void showOptions(Option[] options, String startDate, String endDate) {
+        String[] labels = new String[options.length];
+        for (int i = 0; i < options.length; i++) {
+            labels[i] = options[i].label;
+        }
+
+        new AlertDialog.Builder(fragment.requireContext())
+                .setTitle("Export report")
+                .setItems(labels, (dialog, which) -> {
+                    pendingOption = options[which];
+                    pendingStartDate = startDate;
+                    pendingEndDate = endDate;
+
+                    String fileName = "attendance_" + startDate
+                            + (startDate.equals(endDate) ? "" : "_to_" + endDate)
+                            + pendingOption.format.getExtension();
+                    if (pendingOption.format == ReportRowWriter.Format.XLSX) {
+                        xlsxLauncher.launch(fileName);
+                    } else {
+                        csvLauncher.launch(fileName);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void onDocumentCreated(Uri uri) {
+        if (uri == null || pendingOption == null) {
+            pendingOption = null;
+            return; // Picker dismissed
+        }
+        UUID workId = ReportExportWorker.enqueue(fragment.requireContext(), pendingOption.scope,
+                pendingOption.value, pendingStartDate, pendingEndDate, pendingOption.format, uri);
+        pendingOption = null;
+
+        showStatus(true, "Preparing export...");
+        WorkManager.getInstance(fragment.requireContext())
+                .getWorkInfoByIdLiveData(workId)
+                .observe(fragment.getViewLifecycleOwner(), this::onWorkInfo);
+    }
+
+    private void onWorkInfo(WorkInfo info) {
+        if (info == null) {
+            return;
+        }
+        if (info.getState() == WorkInfo.State.RUNNING) {
+            Data progress = info.getProgress();
+            int recordsRead = progress.getInt(ReportExportWorker.KEY_RECORDS_READ, 0);
+            int totalRecords = progress.getInt(ReportExportWorker.KEY_TOTAL_RECORDS, -1);
+            if (progressBar != null && totalRecords > 0) {
+                progressBar.setIndeterminate(false);
+                progressBar.setMax(totalRecords);
+                progressBar.setProgress(recordsRead);
+            }
+            showStatus(true, totalRecords > 0
+                    ? "Exporting " + recordsRead + " of " + totalRecords + " records..."
+                    : "Exporting " + recordsRead + " records...");
+        } else if (info.getState() == WorkInfo.State.SUCCEEDED) {
+            int rows = info.getOutputData().getInt(ReportExportWorker.KEY_ROWS_WRITTEN, 0);
+            showStatus(false, null);
+            Toast.makeText(fragment.requireContext(), "Exported " + rows + " rows", Toast.LENGTH_SHORT).show();
+        } else if (info.getState() == WorkInfo.State.FAILED || info.getState() == WorkInfo.State.CANCELLED) {
+            String error = info.getOutputData().getString(ReportExportWorker.KEY_ERROR);
+            showStatus(false, null);
+            Toast.makeText(fragment.requireContext(), "Export failed: " + (error != null ? error : "cancelled"),
+                    Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private void showStatus(boolean visible, String message) {
+        if (progressBar != null) {
+            if (visible && progressBar.getVisibility() != View.VISIBLE) {
+                progressBar.setIndeterminate(true);
+            }
+            progressBar.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+        if (statusText != null) {
+            statusText.setText(message);
+            statusText.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mystartup.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Runs an {@link AttendanceReportExporter} in the background and writes the
+ * result to a document the user picked, publishing progress as work data.
+ */
+public class ReportExportWorker extends Worker {
+    private static final String TAG = "ReportExportWorker";
+
+    private static final String KEY_SCOPE = "scope";
+    private static final String KEY_VALUE = "value";
+    private static final String KEY_START_DATE = "start_date";
+    private static final String KEY_END_DATE = "end_date";
+    private static final String KEY_FORMAT = "format";
+    private static final String KEY_OUTPUT_URI = "output_uri";
+
+    public static final String KEY_RECORDS_READ = "records_read";
+    public static final String KEY_TOTAL_RECORDS = "total_records";
+    public static final String KEY_ROWS_WRITTEN = "rows_written";
+    public static final String KEY_ERROR = "error";
+
+    public ReportExportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Queue an export
+     *
+     * @return The work ID to observe for progress and the result
+     */
+    public static UUID enqueue(Context context, AttendanceReportExporter.Scope scope, String value,
+                               String startDate, String endDate, ReportRowWriter.Format format,
+                               Uri outputUri) {
+        Data input = new Data.Builder()
+                .putString(KEY_SCOPE, scope.name())
+                .putString(KEY_VALUE, value)
+                .putString(KEY_START_DATE, startDate)
+                .putString(KEY_END_DATE, endDate)
+                .putString(KEY_FORMAT, format.name())
+                .putString(KEY_OUTPUT_URI, outputUri.toString())
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReportExportWorker.class)
+                .setInputData(input)
+                .build();
+        WorkManager.getInstance(context.getApplicationContext()).enqueue(request);
+        return request.getId();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data input = getInputData();
+        AttendanceReportExporter.Scope scope = AttendanceReportExporter.Scope.valueOf(input.getString(KEY_SCOPE));
+        ReportRowWriter.Format format = ReportRowWriter.Format.valueOf(input.getString(KEY_FORMAT));
+        Uri outputUri = Uri.parse(input.getString(KEY_OUTPUT_URI));
+
+        AttendanceReportExporter exporter = new AttendanceReportExporter(FirebaseFirestore.getInstance());
+        try (OutputStream out = getApplicationContext().getContentResolver().openOutputStream(outputUri, "wt")) {
+            if (out == null) {
+                return failure("Could not open the export file");
+            }
+            int rows;
+            try (ReportRowWriter writer = format.open(out)) {
+                rows = exporter.export(scope, input.getString(KEY_VALUE),
+                        input.getString(KEY_START_DATE), input.getString(KEY_END_DATE), writer,
+                        (recordsRead, totalRecords) -> setProgressAsync(new Data.Builder()
+                                .putInt(KEY_RECORDS_READ, recordsRead)
+                                .putInt(KEY_TOTAL_RECORDS, totalRecords)
+                                .build()));
+            }
+            return Result.success(new Data.Builder().putInt(KEY_ROWS_WRITTEN, rows).build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure("Export cancelled");
+        } catch (Exception e) {
+            Log.e(TAG, "Export failed", e);
+            return failure(e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private static Result failure(String message) {
+        return Result.failure(new Data.Builder().putString(KEY_ERROR, message).build());
+    }
+}
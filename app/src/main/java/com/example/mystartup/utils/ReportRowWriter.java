@@ -0,0 +1,47 @@
+package com.example.mystartup.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes report rows straight to an output stream, one row at a time, so an
+ * export never holds more than the row being written
+ */
+public interface ReportRowWriter extends Closeable {
+
+    /**
+     * Export file formats
+     */
+    enum Format {
+        CSV("text/csv", ".csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx");
+
+        private final String mimeType;
+        private final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Open a writer for this format; closing the writer closes the stream
+         */
+        public ReportRowWriter open(OutputStream out) throws IOException {
+            return this == XLSX ? new XlsxReportWriter(out) : new CsvReportWriter(out);
+        }
+    }
+
+    void writeHeader(String... titles) throws IOException;
+
+    void writeRow(String... cells) throws IOException;
+}
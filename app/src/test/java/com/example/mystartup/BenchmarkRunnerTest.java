@@ -0,0 +1,28 @@
+package com.example.mystartup;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the JMH benchmarks under app/src/test.
+ * Skipped in normal test runs; pass -Pbenchmark=true to Gradle to run it,
+ * optionally with -PbenchmarkInclude=&lt;regex&gt; to pick benchmarks.
+ */
+public class BenchmarkRunnerTest {
+    @Test
+    public void runBenchmarks() throws RunnerException {
+        Assume.assumeTrue("Benchmarks disabled", Boolean.getBoolean("benchmark"));
+
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmarkInclude", ".*Benchmark.*"))
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+        new Runner(options).run();
+    }
+}
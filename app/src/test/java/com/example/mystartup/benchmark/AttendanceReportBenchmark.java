@@ -0,0 +1,106 @@
+package com.example.mystartup.benchmark;
+
+import com.example.mystartup.api.AttendanceHistoryResponse;
+import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
+import com.example.mystartup.utils.AttendanceReportEngine;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for attendance report aggregation and history JSON handling.
+ * Run with {@code ./gradlew :app:testDebugUnitTest --tests '*BenchmarkRunner*' -Pbenchmark=true}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AttendanceReportBenchmark {
+    /** Attendance records in one report: a day at one office up to a year across offices */
+    @Param({"200", "5000", "100000"})
+    public int recordCount;
+
+    private final Gson gson = new Gson();
+    private List<AttendanceRecord> records;
+    private AttendanceHistoryResponse history;
+    private String historyJson;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int users = Math.max(1, recordCount / 40);
+        records = new ArrayList<>(recordCount);
+        List<AttendanceHistoryResponse.AttendanceRecord> historyRecords = new ArrayList<>(recordCount);
+
+        for (int i = 0; i < recordCount; i++) {
+            int user = random.nextInt(users);
+            String date = String.format(Locale.US, "2024-03-%02d", 1 + (i / (users * 2)) % 28);
+            String type = i % 2 == 0 ? "check_in" : "check_out";
+            String time = String.format(Locale.US, "%02d:%02d:%02d",
+                    type.equals("check_in") ? 9 : 17, random.nextInt(60), random.nextInt(60));
+
+            AttendanceRecord record = new AttendanceRecord();
+            record.setId("SEV" + user + "_" + i);
+            record.setDate(date);
+            record.setUserId("uid" + user);
+            record.setUserName("User " + user);
+            record.setSevarthId("SEV" + user);
+            record.setOfficeName("Office " + (user % 5));
+            record.setTime(time);
+            record.setType(type);
+            records.add(record);
+
+            AttendanceHistoryResponse.AttendanceRecord historyRecord = new AttendanceHistoryResponse.AttendanceRecord();
+            historyRecord.setId(record.getId());
+            historyRecord.setUserId(record.getUserId());
+            historyRecord.setUserName(record.getUserName());
+            historyRecord.setDate(date);
+            historyRecord.setTime(time);
+            historyRecord.setType(type);
+            historyRecord.setStatus("Present");
+            historyRecord.setVerificationConfidence(0.5f + random.nextFloat() / 2);
+            historyRecord.setOfficeName(record.getOfficeName());
+            historyRecords.add(historyRecord);
+        }
+
+        history = new AttendanceHistoryResponse();
+        history.setAttendanceRecords(historyRecords);
+        history.setCount(historyRecords.size());
+        historyJson = gson.toJson(history);
+    }
+
+    /**
+     * Pairs check-ins with check-outs per user and day and sorts the rows, as the
+     * report fragments do through AttendanceReportEngine
+     */
+    @Benchmark
+    public List<AttendanceReportRow> aggregateReport() {
+        AttendanceReportEngine.Accumulator accumulator =
+                new AttendanceReportEngine.Accumulator(AttendanceReportEngine.Grouping.BY_USER_AND_DATE);
+        accumulator.addAll(records);
+        return accumulator.getRows();
+    }
+
+    @Benchmark
+    public String serializeHistory() {
+        return gson.toJson(history);
+    }
+
+    @Benchmark
+    public AttendanceHistoryResponse deserializeHistory() {
+        return gson.fromJson(historyJson, AttendanceHistoryResponse.class);
+    }
+}
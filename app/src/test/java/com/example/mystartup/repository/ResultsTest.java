@@ -0,0 +1,91 @@
+package com.example.mystartup.repository;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for how repository results are chained and cancelled.
+ */
+public class ResultsTest {
+
+    @Test
+    public void chainPassesValueToNextStep() throws Exception {
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<String> result = Results.map(
+                Results.chain(first, value -> CompletableFuture.completedFuture(value * 2)),
+                String::valueOf);
+
+        first.complete(21);
+        assertEquals("42", result.get());
+    }
+
+    @Test
+    public void failureSkipsLaterStepsWithUnwrappedError() throws Exception {
+        AtomicBoolean nextStarted = new AtomicBoolean();
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<Integer> result = Results.chain(first, value -> {
+            nextStarted.set(true);
+            return CompletableFuture.completedFuture(value);
+        });
+
+        IOException failure = new IOException("offline");
+        first.completeExceptionally(failure);
+        try {
+            result.get();
+            fail("Expected the chain to fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, Results.unwrap(e));
+        }
+        assertFalse(nextStarted.get());
+    }
+
+    @Test
+    public void recoverFallsBackOnFailure() throws Exception {
+        CompletableFuture<String> result = Results.recover(
+                Results.failed(new IOException("offline")),
+                error -> CompletableFuture.completedFuture("fallback after " + error.getMessage()));
+
+        assertEquals("fallback after offline", result.get());
+    }
+
+    @Test
+    public void cancellingChainCancelsRunningStepAndSkipsTheRest() {
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        AtomicBoolean thirdStarted = new AtomicBoolean();
+        CompletableFuture<Integer> result = Results.chain(
+                Results.chain(first, value -> second),
+                value -> {
+                    thirdStarted.set(true);
+                    return CompletableFuture.completedFuture(value);
+                });
+
+        first.complete(1);
+        result.cancel(false);
+
+        assertTrue(second.isCancelled());
+        second.complete(2);
+        assertFalse(thirdStarted.get());
+    }
+
+    @Test
+    public void cancellationIsNotRecovered() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicBoolean fallbackStarted = new AtomicBoolean();
+        CompletableFuture<String> result = Results.recover(first, error -> {
+            fallbackStarted.set(true);
+            return CompletableFuture.completedFuture("fallback");
+        });
+
+        first.cancel(false);
+
+        assertTrue(result.isCancelled());
+        assertFalse(fallbackStarted.get());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.mystartup.utils;
+
+import com.example.mystartup.models.AttendanceRecord;
+import com.example.mystartup.models.AttendanceReportRow;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link AttendanceReportEngine}, run with same-thread executors.
+ */
+public class AttendanceReportEngineTest {
+    private final AttendanceReportEngine engine = new AttendanceReportEngine(Runnable::run, Runnable::run);
+
+    @Test
+    public void pairsEarliestCheckInWithLatestCheckOut() {
+        List<AttendanceReportRow> rows = aggregate(AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                record("SEV1", "Asha", "2024-03-01", "check_out", "17:05:00", "Office A"),
+                record("SEV1", "Asha", "2024-03-01", "check_in", "09:30:00", "Office A"),
+                record("SEV1", "Asha", "2024-03-01", "check_in", "09:02:00", "Office A"),
+                record("SEV1", "Asha", "2024-03-01", "check_out", "18:10:00", "Office A"));
+
+        assertEquals(1, rows.size());
+        assertEquals("09:02:00", rows.get(0).getCheckInTime());
+        assertEquals("18:10:00", rows.get(0).getCheckOutTime());
+    }
+
+    @Test
+    public void missingCheckOutShowsDash() {
+        List<AttendanceReportRow> rows = aggregate(AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                record("SEV1", "Asha", "2024-03-01", "check_in", "09:00:00", "Office A"));
+
+        assertEquals("09:00:00", rows.get(0).getCheckInTime());
+        assertEquals("-", rows.get(0).getCheckOutTime());
+    }
+
+    @Test
+    public void sortsByDateThenName() {
+        List<AttendanceReportRow> rows = aggregate(AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                record("SEV2", "bala", "2024-03-02", "check_in", "09:00:00", "Office A"),
+                record("SEV3", "Chitra", "2024-03-01", "check_in", "09:00:00", "Office A"),
+                record("SEV1", "Asha", "2024-03-02", "check_in", "09:00:00", "Office A"));
+
+        assertEquals(Arrays.asList("SEV3", "SEV1", "SEV2"), sevarthIds(rows));
+    }
+
+    @Test
+    public void groupsByDateAndOffice() {
+        List<AttendanceReportRow> rows = aggregate(AttendanceReportEngine.Grouping.BY_DATE_AND_OFFICE,
+                record("SEV1", "Asha", "2024-03-01", "check_in", "09:00:00", "Office B"),
+                record("SEV1", "Asha", "2024-03-01", "check_out", "12:00:00", "Office B"),
+                record("SEV1", "Asha", "2024-03-01", "check_in", "13:00:00", "Office A"));
+
+        assertEquals(2, rows.size());
+        assertEquals("Office A", rows.get(0).getOfficeName());
+        assertEquals("Office B", rows.get(1).getOfficeName());
+        assertEquals("12:00:00", rows.get(1).getCheckOutTime());
+    }
+
+    @Test
+    public void fallsBackToUserIdAndSkipsUnusableRecords() {
+        AttendanceRecord legacy = record(null, "Asha", "2024-03-01", "check_in", "09:00:00", "Office A");
+        legacy.setUserId("uid1");
+        AttendanceRecord noUser = record(null, "Nobody", "2024-03-01", "check_in", "09:00:00", "Office A");
+        AttendanceRecord unknownType = record("SEV2", "Bala", "2024-03-01", "break", "11:00:00", "Office A");
+
+        List<AttendanceReportRow> rows = aggregate(AttendanceReportEngine.Grouping.BY_USER_AND_DATE,
+                legacy, noUser, unknownType);
+
+        assertEquals(1, rows.size());
+        assertEquals("uid1", rows.get(0).getUserId());
+    }
+
+    @Test
+    public void streamedBatchesMatchASingleBatch() {
+        List<AttendanceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int user = i % 37;
+            records.add(record("SEV" + user, "User " + user, "2024-03-" + (10 + i % 7),
+                    i % 2 == 0 ? "check_in" : "check_out",
+                    String.format(Locale.US, "%02d:%02d:00", 8 + i % 10, i % 60), "Office " + (user % 3)));
+        }
+
+        List<AttendanceReportRow> single = new ArrayList<>();
+        engine.compute(records, AttendanceReportEngine.Grouping.BY_USER_AND_DATE, collectInto(single));
+
+        List<AttendanceRecord> shuffled = new ArrayList<>(records);
+        Collections.shuffle(shuffled, new Random(7));
+        List<AttendanceReportRow> streamed = new ArrayList<>();
+        AttendanceReportEngine.Report report = engine.begin(AttendanceReportEngine.Grouping.BY_USER_AND_DATE);
+        for (int start = 0; start < shuffled.size(); start += 64) {
+            report.add(shuffled.subList(start, Math.min(start + 64, shuffled.size())));
+        }
+        report.finish(collectInto(streamed));
+
+        assertEquals(single, streamed);
+    }
+
+    private List<AttendanceReportRow> aggregate(AttendanceReportEngine.Grouping grouping, AttendanceRecord... records) {
+        List<AttendanceReportRow> rows = new ArrayList<>();
+        engine.compute(Arrays.asList(records), grouping, collectInto(rows));
+        return rows;
+    }
+
+    private static AttendanceReportEngine.RowsCallback collectInto(List<AttendanceReportRow> out) {
+        return new AttendanceReportEngine.RowsCallback() {
+            @Override
+            public void onRows(List<AttendanceReportRow> rows) {
+                out.addAll(rows);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                fail(errorMessage);
+            }
+        };
+    }
+
+    private static List<String> sevarthIds(List<AttendanceReportRow> rows) {
+        List<String> ids = new ArrayList<>();
+        for (AttendanceReportRow row : rows) {
+            ids.add(row.getSevarthId());
+        }
+        return ids;
+    }
+
+    private static AttendanceRecord record(String sevarthId, String userName, String date, String type,
+                                           String time, String officeName) {
+        AttendanceRecord record = new AttendanceRecord();
+        record.setSevarthId(sevarthId);
+        record.setUserName(userName);
+        record.setDate(date);
+        record.setType(type);
+        record.setTime(time);
+        record.setOfficeName(officeName);
+        return record;
+    }
+}
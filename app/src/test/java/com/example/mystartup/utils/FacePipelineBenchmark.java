@@ -0,0 +1,62 @@
+package com.example.mystartup.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the pure-Java parts of the capture and matching pipeline.
+ * JPEG and Base64 encoding go through android.graphics and android.util, which
+ * only exist on a device, so they are not measured here.
+ * Run with {@code ./gradlew :app:testDebugUnitTest --tests '*BenchmarkRunner*' -Pbenchmark=true}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FacePipelineBenchmark {
+    // Common capture sizes: 12MP sensor, 1080p, the ImageCapture target and a face crop
+    private static final int[][] CAPTURE_SIZES = {
+            {4032, 3024}, {1920, 1080}, {1280, 960}, {640, 480}, {224, 224}
+    };
+
+    private FaceFeatures reference;
+    private FaceFeatures[] captured;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        reference = randomFeatures(random);
+        captured = new FaceFeatures[64];
+        for (int i = 0; i < captured.length; i++) {
+            captured[i] = randomFeatures(random);
+        }
+    }
+
+    @Benchmark
+    public void calculateInSampleSize(Blackhole blackhole) {
+        for (int[] size : CAPTURE_SIZES) {
+            blackhole.consume(FaceRecognitionSystem.calculateInSampleSize(size[0], size[1], 640, 480));
+        }
+    }
+
+    @Benchmark
+    public void calculateFaceMatchConfidence(Blackhole blackhole) {
+        for (FaceFeatures features : captured) {
+            blackhole.consume(FaceRecognitionSystem.calculateFaceMatchConfidence(reference, features));
+        }
+    }
+
+    private static FaceFeatures randomFeatures(Random random) {
+        return new FaceFeatures(random.nextFloat(), random.nextFloat(), random.nextFloat(),
+                random.nextFloat() * 30 - 15, random.nextFloat() * 30 - 15, random.nextFloat() * 30 - 15,
+                0.7f + random.nextFloat() * 0.2f);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mystartup.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for how rollup entries drive the office occupancy counters.
+ */
+public class OfficeOccupancyCounterTest {
+
+    @Test
+    public void checkInAndOutMoveUserInAndOut() {
+        Map<String, Object> checkedIn = DailyAttendanceRollup.mergeEntry(null, record("check_in", "09:00:00", "OFF1"));
+        assertEquals(Long.valueOf(1), OfficeOccupancyCounter.presentChanges(null, checkedIn).get("OFF1"));
+
+        Map<String, Object> checkedOut = DailyAttendanceRollup.mergeEntry(checkedIn, record("check_out", "17:30:00", "OFF1"));
+        assertEquals(Long.valueOf(-1), OfficeOccupancyCounter.presentChanges(checkedIn, checkedOut).get("OFF1"));
+    }
+
+    @Test
+    public void repeatedCheckInIsNotCountedTwice() {
+        Map<String, Object> first = DailyAttendanceRollup.mergeEntry(null, record("check_in", "09:00:00", "OFF1"));
+        Map<String, Object> second = DailyAttendanceRollup.mergeEntry(first, record("check_in", "09:05:00", "OFF1"));
+        assertTrue(OfficeOccupancyCounter.presentChanges(first, second).isEmpty());
+    }
+
+    @Test
+    public void checkInElsewhereMovesUserBetweenOffices() {
+        Map<String, Object> atFirst = DailyAttendanceRollup.mergeEntry(null, record("check_in", "09:00:00", "OFF1"));
+        Map<String, Object> atSecond = DailyAttendanceRollup.mergeEntry(atFirst, record("check_in", "13:00:00", "OFF2"));
+
+        Map<String, Long> changes = OfficeOccupancyCounter.presentChanges(atFirst, atSecond);
+        assertEquals(Long.valueOf(-1), changes.get("OFF1"));
+        assertEquals(Long.valueOf(1), changes.get("OFF2"));
+    }
+
+    @Test
+    public void lateJournaledRecordDoesNotOverrideLatestState() {
+        Map<String, Object> checkedOut = DailyAttendanceRollup.mergeEntry(
+                DailyAttendanceRollup.mergeEntry(null, record("check_in", "09:00:00", "OFF1")),
+                record("check_out", "17:30:00", "OFF1"));
+        // An earlier check-in synced from the journal after the check-out
+        Map<String, Object> replayed = DailyAttendanceRollup.mergeEntry(checkedOut, record("check_in", "08:55:00", "OFF1"));
+
+        assertNull(DailyAttendanceRollup.presentAt(replayed));
+        assertTrue(OfficeOccupancyCounter.presentChanges(checkedOut, replayed).isEmpty());
+        assertEquals("08:55:00", replayed.get(DailyAttendanceRollup.KEY_FIRST_CHECK_IN));
+    }
+
+    private static Map<String, Object> record(String type, String time, String locationId) {
+        Map<String, Object> attendanceData = new HashMap<>();
+        attendanceData.put("sevarthId", "SEV1");
+        attendanceData.put("userId", "uid1");
+        attendanceData.put("userName", "Asha");
+        attendanceData.put("type", type);
+        attendanceData.put("date", "2024-03-01");
+        attendanceData.put("time", time);
+        attendanceData.put("locationId", locationId);
+        attendanceData.put("officeName", locationId);
+        return attendanceData;
+    }
+}
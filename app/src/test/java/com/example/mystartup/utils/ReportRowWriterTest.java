@@ -0,0 +1,86 @@
+package com.example.mystartup.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for the CSV and XLSX report writers.
+ */
+public class ReportRowWriterTest {
+
+    @Test
+    public void csvQuotesAndNeutralisesFormulas() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportRowWriter writer = ReportRowWriter.Format.CSV.open(out)) {
+            writer.writeHeader("Date", "Name");
+            writer.writeRow("2024-03-01", "Patil, \"Asha\"");
+            writer.writeRow("=SUM(A1)", "-");
+            writer.writeRow(null, "");
+        }
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("\uFEFFDate,Name\r\n"
+                + "2024-03-01,\"Patil, \"\"Asha\"\"\"\r\n"
+                + "'=SUM(A1),-\r\n"
+                + ",\r\n", csv);
+    }
+
+    @Test
+    public void csvNeutralisesLeadingTabAndCarriageReturn() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportRowWriter writer = ReportRowWriter.Format.CSV.open(out)) {
+            writer.writeRow("\t=1+1", "\r=cmd");
+        }
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("\uFEFF'\t=1+1,\"'\r=cmd\"\r\n", csv);
+    }
+
+    @Test
+    public void xlsxStreamsEscapedInlineStrings() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportRowWriter writer = ReportRowWriter.Format.XLSX.open(out)) {
+            writer.writeHeader("Date", "Office");
+            writer.writeRow("2024-03-01", "A & B <Pune>\u0001");
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertTrue(entries.containsKey("[Content_Types].xml"));
+        assertTrue(entries.containsKey("xl/workbook.xml"));
+        assertTrue(entries.containsKey("xl/styles.xml"));
+
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertNotNull(sheet);
+        assertTrue(sheet.contains("<row r=\"1\"><c t=\"inlineStr\" s=\"1\">"));
+        assertTrue(sheet.contains("<row r=\"2\">"));
+        assertTrue(sheet.contains("A &amp; B &lt;Pune&gt;</t>"));
+        assertTrue(sheet.endsWith("</sheetData></worksheet>"));
+    }
+
+    private static Map<String, String> unzip(byte[] bytes) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = zip.read(buffer)) > 0) {
+                    content.write(buffer, 0, read);
+                }
+                entries.put(entry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
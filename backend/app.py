@@ -12,7 +12,11 @@ from firebase_admin import credentials, auth, firestore, storage
 import uuid
 import tempfile
 import base64
+import gzip
+import io
 import logging
+import random
+import click
 import face_recognition
 
 # Configure logging
@@ -23,7 +27,44 @@ logger = logging.getLogger(__name__)
 MINIMUM_CONFIDENCE_THRESHOLD = 0.45  # 45% minimum confidence required for a match
 HIGH_CONFIDENCE_THRESHOLD = 0.55     # 55% confidence for high confidence match
 
+# Largest request body accepted after gunzip, so a small gzip bomb can't exhaust memory
+MAX_DECOMPRESSED_BODY = 32 * 1024 * 1024
+
+class GzipRequestMiddleware:
+    """Inflate request bodies sent with Content-Encoding: gzip.
+
+    The Android client gzips large JSON bodies (base64 face images); Flask only
+    sees the decompressed body with a matching Content-Length.
+    """
+
+    def __init__(self, wsgi_app):
+        self.wsgi_app = wsgi_app
+
+    def __call__(self, environ, start_response):
+        if environ.get('HTTP_CONTENT_ENCODING', '').strip().lower() != 'gzip':
+            return self.wsgi_app(environ, start_response)
+
+        try:
+            length = int(environ.get('CONTENT_LENGTH') or 0)
+            compressed = environ['wsgi.input'].read(length) if length > 0 else environ['wsgi.input'].read()
+            with gzip.GzipFile(fileobj=io.BytesIO(compressed)) as body:
+                data = body.read(MAX_DECOMPRESSED_BODY + 1)
+        except (OSError, EOFError, ValueError) as e:
+            logger.warning(f"Rejecting malformed gzip request body: {e}")
+            start_response('400 Bad Request', [('Content-Type', 'application/json')])
+            return [b'{"success": false, "message": "Malformed gzip body"}']
+
+        if len(data) > MAX_DECOMPRESSED_BODY:
+            start_response('413 Request Entity Too Large', [('Content-Type', 'application/json')])
+            return [b'{"success": false, "message": "Request body too large"}']
+
+        environ['wsgi.input'] = io.BytesIO(data)
+        environ['CONTENT_LENGTH'] = str(len(data))
+        del environ['HTTP_CONTENT_ENCODING']
+        return self.wsgi_app(environ, start_response)
+
 app = Flask(__name__)
+app.wsgi_app = GzipRequestMiddleware(app.wsgi_app)
 CORS(app)
 
 def token_required(f):
@@ -46,6 +87,22 @@ def token_required(f):
         return f(*args, **kwargs)
     return decorated
 
+def firebase_user_required(f):
+    """Like token_required, but passes the caller's decoded Firebase ID token to the view"""
+    @wraps(f)
+    def decorated(*args, **kwargs):
+        auth_header = request.headers.get('Authorization', '')
+        if not auth_header.startswith('Bearer '):
+            return jsonify({'message': 'Token is missing', 'success': False}), 401
+        
+        try:
+            current_user = auth.verify_id_token(auth_header[len('Bearer '):])
+        except Exception:
+            return jsonify({'message': 'Token is invalid', 'success': False}), 401
+            
+        return f(current_user, *args, **kwargs)
+    return decorated
+
 # Initialize Firebase Admin with your service account
 cred = credentials.Certificate(os.path.join(os.path.dirname(__file__), 'startup-cf3fd-firebase-adminsdk-fbsvc-893409a921.json'))
 firebase_admin.initialize_app(cred, {
@@ -449,6 +506,18 @@ def login():
 def protected():
     return jsonify({'message': 'This is a protected route'})
 
+def conditional_json(payload):
+    """JSON response with an ETag of its body.
+
+    Clients that send the ETag back in If-None-Match get a 304 without a body
+    when the list is unchanged. no-cache makes the client revalidate every
+    time, so a cached list is never shown without the server seeing the token.
+    """
+    response = jsonify(payload)
+    response.add_etag()
+    response.headers['Cache-Control'] = 'private, no-cache'
+    return response.make_conditional(request)
+
 @app.route('/admin/users', methods=['GET'])
 @token_required
 def get_users():
@@ -464,7 +533,7 @@ def get_users():
                 del user_data['password']
             users.append(user_data)
             
-        return jsonify({
+        return conditional_json({
             'users': users,
             'success': True
         })
@@ -487,7 +556,7 @@ def get_locations():
             location_data = doc.to_dict()
             locations.append(location_data)
             
-        return jsonify({
+        return conditional_json({
             'locations': locations,
             'success': True
         })
@@ -840,6 +909,7 @@ def register_face():
     Request body should contain:
     - sevarth_id: User's Sevarth ID
     - face_image: Base64 encoded image
+    - face_cropped / face_box: Optional, set when face_image is only the face crop
     """
     data = request.get_json()
     
@@ -853,47 +923,152 @@ def register_face():
         return jsonify({'message': 'Missing required fields'}), 400
     
     try:
-        # Convert base64 to image file
+        # Convert base64 to image bytes
         image_data = base64.b64decode(face_image_b64.split(',')[1] if ',' in face_image_b64 else face_image_b64)
-        
-        # Create a temporary file to store the image
-        temp_file = tempfile.NamedTemporaryFile(delete=False, suffix='.jpg')
-        temp_file.write(image_data)
-        temp_file.close()
-        
+        return store_reference_face(sevarth_id, image_data, parse_face_box(data))
+    except Exception as e:
+        logger.error(f"Error registering face: {str(e)}")
+        return jsonify({'message': f'Error registering face: {str(e)}'}), 500
+
+@app.route('/api/register-face-upload', methods=['POST'])
+def register_face_upload():
+    """
+    Multipart variant of /api/register-face
+    Form fields:
+    - sevarth_id: User's Sevarth ID
+    - face_image: JPEG file part
+    - face_box: Optional JSON {top, right, bottom, left} when face_image is only the face crop
+    """
+    sevarth_id = request.form.get('sevarth_id')
+    face_file = request.files.get('face_image')
+    
+    if not sevarth_id or not face_file:
+        return jsonify({'message': 'Missing required fields'}), 400
+    
+    try:
+        return store_reference_face(sevarth_id, face_file.read(), parse_form_face_box(request.form))
+    except Exception as e:
+        logger.error(f"Error registering face: {str(e)}")
+        return jsonify({'message': f'Error registering face: {str(e)}'}), 500
+
+def store_reference_face(sevarth_id, image_data, face_location):
+    """
+    Upload a reference face image and flag the user as registered
+    
+    Returns:
+        tuple: Flask JSON response and status code
+    """
+    # Create a temporary file to store the image
+    temp_file = tempfile.NamedTemporaryFile(delete=False, suffix='.jpg')
+    temp_file.write(image_data)
+    temp_file.close()
+    
+    try:
         # Upload to Firebase Storage with the correct naming pattern
         image_path = f"reference_images/face_{sevarth_id}.jpg"
         logger.info(f"Uploading reference image to path: {image_path}")
         blob = storage.bucket().blob(image_path)
         blob.upload_from_filename(temp_file.name)
-        
+    finally:
         # Clean up temporary file
         os.unlink(temp_file.name)
-        
-        # Update user record in Firestore
-        user_ref = db.collection('users').document(sevarth_id)
-        user_ref.update({
-            'has_face_image': True,
-            'face_image_url': blob.public_url,
-            'face_updated_at': firestore.SERVER_TIMESTAMP
-        })
-        
-        return jsonify({
-            'message': 'Face registered successfully',
-            'face_image_url': blob.public_url
-        }), 200
-        
-    except Exception as e:
-        logger.error(f"Error registering face: {str(e)}")
-        return jsonify({'message': f'Error registering face: {str(e)}'}), 500
+    
+    # Update user record in Firestore
+    user_ref = db.collection('users').document(sevarth_id)
+    user_ref.update({
+        'has_face_image': True,
+        'face_image_url': blob.public_url,
+        'face_image_cropped': face_location is not None,
+        'face_updated_at': firestore.SERVER_TIMESTAMP
+    })
+    
+    return jsonify({
+        'message': 'Face registered successfully',
+        'face_image_url': blob.public_url
+    }), 200
 
-def verify_faces(reference_image_path, captured_image_path):
+def parse_form_face_box(form):
+    """
+    Read the optional face_box field of a multipart upload
+    
+    Returns:
+        tuple: (top, right, bottom, left) in crop pixels, or None if absent or invalid
+    """
+    raw_face_box = form.get('face_box')
+    if not raw_face_box:
+        return None
+    
+    try:
+        face_box = json.loads(raw_face_box)
+    except ValueError:
+        logger.warning(f"Ignoring unparseable face_box: {raw_face_box}")
+        return None
+    
+    return parse_face_box({'face_cropped': True, 'face_box': face_box})
+
+def parse_face_box(data):
+    """
+    Read the face location sent with a face-crop upload
+    
+    Returns:
+        tuple: (top, right, bottom, left) in crop pixels, or None if the image is not a crop
+    """
+    if not data.get('face_cropped'):
+        return None
+    
+    face_box = data.get('face_box') or {}
+    try:
+        top, right, bottom, left = (int(face_box[key]) for key in ('top', 'right', 'bottom', 'left'))
+    except (KeyError, TypeError, ValueError):
+        logger.warning(f"Ignoring malformed face_box: {face_box}")
+        return None
+    
+    if bottom <= top or right <= left:
+        logger.warning(f"Ignoring empty face_box: {face_box}")
+        return None
+    
+    return (top, right, bottom, left)
+
+# Least overlap between a detected face and the client's face box for the box to pick the face
+MIN_FACE_BOX_OVERLAP = 0.3
+
+def face_box_overlap(a, b):
+    """Intersection over union of two (top, right, bottom, left) boxes"""
+    top, right = max(a[0], b[0]), min(a[1], b[1])
+    bottom, left = min(a[2], b[2]), max(a[3], b[3])
+    if bottom <= top or right <= left:
+        return 0.0
+    intersection = (bottom - top) * (right - left)
+    area_a = (a[2] - a[0]) * (a[1] - a[3])
+    area_b = (b[2] - b[0]) * (b[1] - b[3])
+    return intersection / float(area_a + area_b - intersection)
+
+def pick_captured_face(face_locations, face_box_hint):
+    """
+    Choose the face to verify among the faces detected on the server
+    
+    The client's face box is untrusted, so it only picks between faces the server
+    found itself; without a hint, or if it matches none of them, the largest face wins.
+    """
+    largest = max(face_locations, key=lambda box: (box[2] - box[0]) * (box[1] - box[3]))
+    if not face_box_hint:
+        return largest
+    
+    best = max(face_locations, key=lambda box: face_box_overlap(box, face_box_hint))
+    if face_box_overlap(best, face_box_hint) < MIN_FACE_BOX_OVERLAP:
+        logger.warning(f"Client face box {face_box_hint} matches no detected face, using the largest face")
+        return largest
+    return best
+
+def verify_faces(reference_image_path, captured_image_path, captured_face_location=None):
     """
     Verify if two face images match
     
     Args:
         reference_image_path: Path to the reference image file
         captured_image_path: Path to the captured image file
+        captured_face_location: Optional (top, right, bottom, left) face box the device
+            found; only a hint for choosing among the faces detected on the server
         
     Returns:
         dict: Verification result with keys:
@@ -922,7 +1097,7 @@ def verify_faces(reference_image_path, captured_image_path):
                 'message': 'No face detected in reference image'
             }
         
-        # Find faces in captured image
+        # Always detect on the captured image; the client's face box is only a hint
         logger.info("Detecting faces in captured image")
         captured_face_locations = face_recognition.face_locations(captured_image)
         
@@ -939,7 +1114,8 @@ def verify_faces(reference_image_path, captured_image_path):
         reference_face_encoding = face_recognition.face_encodings(reference_image, reference_face_locations)[0]
         
         logger.info("Encoding captured face")
-        captured_face_encoding = face_recognition.face_encodings(captured_image, captured_face_locations)[0]
+        captured_face = pick_captured_face(captured_face_locations, captured_face_location)
+        captured_face_encoding = face_recognition.face_encodings(captured_image, [captured_face])[0]
         
         # Compare faces
         logger.info("Comparing face encodings")
@@ -984,9 +1160,6 @@ def verify_faces(reference_image_path, captured_image_path):
 
 @app.route('/api/verify-face', methods=['POST'])
 def verify_face():
-    temp_capture_file = None
-    temp_ref_file = None
-    
     try:
         data = request.get_json()
         if not data:
@@ -998,37 +1171,68 @@ def verify_face():
         if not sevarth_id or not face_image_b64:
             return jsonify({'message': 'Missing required fields'}), 400
         
-        # Check if user has a reference image
-        ref_image_path = f"reference_images/face_{sevarth_id}.jpg"
-        logger.info(f"Looking for reference image at path: {ref_image_path}")
-        blob = storage.bucket().blob(ref_image_path)
-        
-        if not blob.exists():
-            logger.error(f"No reference image found at {ref_image_path}")
-            return jsonify({'message': 'No reference image found for this user'}), 404
+        # Convert captured image
+        image_data = base64.b64decode(face_image_b64.split(',')[1] if ',' in face_image_b64 else face_image_b64)
         
-        # Create unique temporary file names
-        import uuid
-        temp_capture_path = os.path.join(tempfile.gettempdir(), f'capture_{uuid.uuid4()}.jpg')
-        temp_ref_path = os.path.join(tempfile.gettempdir(), f'ref_{uuid.uuid4()}.jpg')
+        # Verify faces; a face box sent with a crop only helps pick the face
+        return verify_face_bytes(sevarth_id, image_data, parse_face_box(data))
         
-        # Convert and save captured image
-        image_data = base64.b64decode(face_image_b64.split(',')[1] if ',' in face_image_b64 else face_image_b64)
+    except Exception as e:
+        logger.error(f"Error verifying face: {str(e)}")
+        return jsonify({'message': f'Error verifying face: {str(e)}'}), 500
+
+@app.route('/api/verify-face-upload', methods=['POST'])
+def verify_face_upload():
+    """
+    Multipart variant of /api/verify-face
+    Form fields:
+    - sevarth_id: User's Sevarth ID
+    - face_image: JPEG file part
+    - face_box: Optional JSON {top, right, bottom, left} when face_image is only the face crop
+    """
+    sevarth_id = request.form.get('sevarth_id')
+    face_file = request.files.get('face_image')
+    
+    if not sevarth_id or not face_file:
+        return jsonify({'message': 'Missing required fields'}), 400
+    
+    try:
+        return verify_face_bytes(sevarth_id, face_file.read(), parse_form_face_box(request.form))
+    except Exception as e:
+        logger.error(f"Error verifying face: {str(e)}")
+        return jsonify({'message': f'Error verifying face: {str(e)}'}), 500
+
+def verify_face_bytes(sevarth_id, image_data, face_location):
+    """
+    Verify captured JPEG bytes against the user's stored reference image
+    
+    Returns:
+        tuple: Flask JSON response and status code
+    """
+    # Check if user has a reference image
+    ref_image_path = f"reference_images/face_{sevarth_id}.jpg"
+    logger.info(f"Looking for reference image at path: {ref_image_path}")
+    blob = storage.bucket().blob(ref_image_path)
+    
+    if not blob.exists():
+        logger.error(f"No reference image found at {ref_image_path}")
+        return jsonify({'message': 'No reference image found for this user'}), 404
+    
+    # Create unique temporary file names
+    temp_capture_path = os.path.join(tempfile.gettempdir(), f'capture_{uuid.uuid4()}.jpg')
+    temp_ref_path = os.path.join(tempfile.gettempdir(), f'ref_{uuid.uuid4()}.jpg')
+    
+    try:
+        # Save captured image
         with open(temp_capture_path, 'wb') as f:
             f.write(image_data)
         
         # Download reference image
         blob.download_to_filename(temp_ref_path)
         
-        # Verify faces
-        verification_result = verify_faces(temp_ref_path, temp_capture_path)
-        
+        verification_result = verify_faces(temp_ref_path, temp_capture_path, face_location)
         return jsonify(verification_result), 200
         
-    except Exception as e:
-        logger.error(f"Error verifying face: {str(e)}")
-        return jsonify({'message': f'Error verifying face: {str(e)}'}), 500
-        
     finally:
         # Clean up temporary files
         try:
@@ -1081,6 +1285,208 @@ def mark_attendance():
                 'success': False
             }), 400
 
+        return record_attendance(sevarth_id, attendance_type, verification_confidence,
+                                 location_id, client_user_id, client_user_name,
+                                 recorded_at=parse_recorded_at(data.get('recorded_at')))
+
+    except Exception as e:
+        logger.error(f"Error marking attendance: {str(e)}")
+        return jsonify({
+            'message': f'Error marking attendance: {str(e)}',
+            'success': False
+        }), 500
+
+DAILY_ROLLUP_COLLECTION = 'attendance_daily'
+DAILY_ROLLUP_USERS = 'users'
+DAILY_ROLLUP_META_COLLECTION = 'attendance_daily_meta'
+
+def daily_entry_ref(date_str, sevarth_id):
+    """
+    A user's entry in the rollup for a day, attendance_daily/{date}/users/{sevarthId}.
+    One document per user keeps check-ins by different users from contending on a
+    shared daily document, and keeps a busy day clear of the 1 MiB document limit.
+    """
+    return db.collection(DAILY_ROLLUP_COLLECTION).document(date_str) \
+        .collection(DAILY_ROLLUP_USERS).document(sevarth_id)
+
+def rollup_coverage_ref():
+    """
+    attendance_daily_meta/coverage, whose completeFrom is the first date the rollup holds
+    every record for. Earlier days must be reported from the raw records.
+    """
+    return db.collection(DAILY_ROLLUP_META_COLLECTION).document('coverage')
+
+def build_daily_rollup_entry(existing_entry, attendance_data):
+    """
+    Fold one attendance record into a user's entry of the daily rollup
+    
+    Args:
+        existing_entry: The user's current rollup entry, or None
+        attendance_data: The attendance record being written
+    
+    Returns:
+        dict: Entry with the first check-in, last check-out, record count and office
+    """
+    entry = dict(existing_entry or {})
+    entry['sevarthId'] = attendance_data.get('sevarthId')
+    entry['userId'] = attendance_data.get('userId')
+    entry['userName'] = attendance_data.get('userName')
+    entry['officeName'] = attendance_data.get('officeName')
+    entry['locationId'] = attendance_data.get('locationId')
+    entry['count'] = entry.get('count', 0) + 1
+    
+    # HH:MM:SS strings compare correctly as text
+    record_time = attendance_data.get('time')
+    if attendance_data.get('type') == 'check_in':
+        if not entry.get('firstCheckIn') or record_time < entry['firstCheckIn']:
+            entry['firstCheckIn'] = record_time
+    elif attendance_data.get('type') == 'check_out':
+        if not entry.get('lastCheckOut') or record_time > entry['lastCheckOut']:
+            entry['lastCheckOut'] = record_time
+    
+    # The latest record says who is in where, for the office occupancy counters
+    if attendance_data.get('type') in ('check_in', 'check_out') and record_time \
+            and (not entry.get('lastTime') or record_time >= entry['lastTime']):
+        entry['lastType'] = attendance_data.get('type')
+        entry['lastTime'] = record_time
+        entry['lastLocationId'] = attendance_data.get('locationId')
+    return entry
+
+OCCUPANCY_COLLECTION = 'office_occupancy'
+OCCUPANCY_SHARDS = 10
+
+def present_at(entry):
+    """Location a user is checked in at according to their rollup entry, or None"""
+    if not entry or entry.get('lastType') != 'check_in':
+        return None
+    return entry.get('lastLocationId')
+
+def occupancy_shard_ref(location_id, date_str):
+    """
+    A random shard of office_occupancy/{locationId}_{date}. Spreading writes over
+    shards keeps a rush of check-ins from contending on one document.
+    """
+    shard = random.randrange(OCCUPANCY_SHARDS)
+    return db.collection(OCCUPANCY_COLLECTION).document(f"{location_id}_{date_str}") \
+        .collection('shards').document(str(shard))
+
+def write_occupancy(batch, attendance_data, entry_before, entry_after):
+    """
+    Count an attendance record on its office's sharded counter, and move the user's
+    presence if they were counted in at another office
+    """
+    location_id = attendance_data.get('locationId')
+    date_str = attendance_data.get('date')
+    if not location_id or not date_str:
+        return
+    
+    present_changes = {}
+    present_before = present_at(entry_before)
+    present_after = present_at(entry_after)
+    if present_before != present_after:
+        if present_before:
+            present_changes[present_before] = -1
+        if present_after:
+            present_changes[present_after] = 1
+    
+    increment = {'locationId': location_id, 'date': date_str}
+    if attendance_data.get('type') == 'check_in':
+        increment['checkIns'] = firestore.Increment(1)
+    elif attendance_data.get('type') == 'check_out':
+        increment['checkOuts'] = firestore.Increment(1)
+    present_delta = present_changes.pop(location_id, 0)
+    if present_delta:
+        increment['present'] = firestore.Increment(present_delta)
+    batch.set(occupancy_shard_ref(location_id, date_str), increment, merge=True)
+    
+    for other_location_id, delta in present_changes.items():
+        batch.set(occupancy_shard_ref(other_location_id, date_str), {
+            'locationId': other_location_id,
+            'date': date_str,
+            'present': firestore.Increment(delta)
+        }, merge=True)
+
+@firestore.transactional
+def commit_attendance(transaction, doc_id, attendance_data, replay=False):
+    """
+    Write one attendance record and fold it into the user's daily rollup entry
+    
+    Args:
+        replay: True for journaled events, whose document ID is stable; a record that
+                already exists was synced before, and nothing is written
+    
+    Returns:
+        tuple: The document ID written and the user's rollup entry before and after,
+               or None for a replayed record that already existed
+    """
+    doc_ref = db.collection('face-recognition-attendance').document(doc_id)
+    entry_ref = daily_entry_ref(attendance_data['date'], attendance_data['sevarthId'])
+    # Firestore transactions need every read before the first write
+    doc = doc_ref.get(transaction=transaction)
+    entry_doc = entry_ref.get(transaction=transaction)
+    # Check if document already exists
+    if doc.exists:
+        if replay:
+            return None
+        logger.warning(f"Document {doc_id} already exists, generating new ID")
+        # If exists, modify the ID slightly
+        doc_id = f"{doc_id}_retry"
+        doc_ref = db.collection('face-recognition-attendance').document(doc_id)
+    
+    transaction.set(doc_ref, attendance_data)
+    existing_entry = entry_doc.to_dict() if entry_doc.exists else None
+    updated_entry = build_daily_rollup_entry(existing_entry, attendance_data)
+    updated_entry['date'] = attendance_data['date']
+    updated_entry['updatedAt'] = firestore.SERVER_TIMESTAMP
+    transaction.set(entry_ref, updated_entry)
+    return doc_id, existing_entry, updated_entry
+
+def count_occupancy(attendance_data, entry_before, entry_after):
+    """
+    Update the office occupancy shards for a committed record in a batch of its own,
+    so the shard writes stay out of the attendance transaction. If it fails the record
+    still stands; the counters are a live view, not the record of attendance.
+    """
+    try:
+        batch = db.batch()
+        write_occupancy(batch, attendance_data, entry_before, entry_after)
+        batch.commit()
+    except Exception as e:
+        logger.error(f"Failed to update office occupancy for {attendance_data.get('sevarthId')}: {str(e)}")
+
+def get_office_name(location_id):
+    """Name of an office location, or 'Unknown Office' if it doesn't exist"""
+    location_doc = db.collection('office_locations').document(location_id).get()
+    if location_doc.exists:
+        return location_doc.to_dict().get('name', 'Unknown Office')
+    logger.warning(f"Office location not found for id: {location_id}, using default name")
+    return 'Unknown Office'
+
+def parse_recorded_at(value):
+    """The client's recorded_at in epoch milliseconds, or None if missing or not a number"""
+    try:
+        recorded_at = int(value)
+    except (TypeError, ValueError):
+        return None
+    return recorded_at if recorded_at > 0 else None
+
+def record_attendance(sevarth_id, attendance_type, verification_confidence,
+                      location_id, client_user_id=None, client_user_name=None, extra_fields=None,
+                      recorded_at=None):
+    """
+    Write one attendance record in a Firestore transaction
+    
+    Args:
+        extra_fields: Optional dict merged into the JSON response
+        recorded_at: The client's idempotency key, epoch milliseconds when the attendance was
+                     taken. The record is stored as {sevarthId}_{recorded_at}, the ID the app
+                     journals the request under if the response never arrives, so a retry or
+                     a journal replay finds the record instead of writing a second one.
+    
+    Returns:
+        tuple: Flask JSON response and status code
+    """
+    try:
         # Get current date and time in IST (UTC+5:30)
         now = datetime.datetime.now() + datetime.timedelta(hours=5, minutes=30)
         date_str = now.strftime("%Y-%m-%d")
@@ -1118,15 +1524,7 @@ def mark_attendance():
                     uid = user_data.get('uid', f"unknown_{sevarth_id}")
 
         # Get office location details
-        location_ref = db.collection('office_locations').document(location_id)
-        location_doc = location_ref.get()
-        
-        office_name = "Unknown Office"
-        if location_doc.exists:
-            location_data = location_doc.to_dict()
-            office_name = location_data.get('name', 'Unknown Office')
-        else:
-            logger.warning(f"Office location not found for id: {location_id}, using default name")
+        office_name = get_office_name(location_id)
 
         # Create attendance record
         attendance_data = {
@@ -1140,42 +1538,43 @@ def mark_attendance():
             'verificationConfidence': verification_confidence,
             'locationId': location_id,
             'officeName': office_name,
-            'timestamp': firestore.SERVER_TIMESTAMP
+            'timestamp': firestore.SERVER_TIMESTAMP,
+            # When the record reached the database; report caches sync on this
+            'syncedAt': firestore.SERVER_TIMESTAMP
         }
 
         # Generate document ID
-        doc_id = f"{sevarth_id}_{int(now.timestamp())}"
+        if recorded_at:
+            doc_id = f"{sevarth_id}_{recorded_at}"
+        else:
+            doc_id = f"{sevarth_id}_{int(now.timestamp())}"
         logger.info(f"Generated document ID: {doc_id}")
 
-        # Create a transaction to ensure data consistency
-        transaction = db.transaction()
-
-        @firestore.transactional
-        def commit_attendance(transaction, doc_id, attendance_data):
-            doc_ref = db.collection('face-recognition-attendance').document(doc_id)
-            # Check if document already exists
-            doc = doc_ref.get(transaction=transaction)
-            if doc.exists:
-                logger.warning(f"Document {doc_id} already exists, generating new ID")
-                # If exists, modify the ID slightly
-                doc_id = f"{sevarth_id}_{int(now.timestamp())}_retry"
-                doc_ref = db.collection('face-recognition-attendance').document(doc_id)
-            
-            transaction.set(doc_ref, attendance_data)
-            return doc_id
-
         try:
             # Execute the transaction
-            final_doc_id = commit_attendance(transaction, doc_id, attendance_data)
+            committed = commit_attendance(db.transaction(), doc_id, attendance_data, replay=bool(recorded_at))
+            if committed is None:
+                # An earlier attempt with the same key got through
+                existing = db.collection('face-recognition-attendance').document(doc_id).get().to_dict() or {}
+                logger.info(f"Attendance {doc_id} was already recorded")
+                final_doc_id = doc_id
+                date_str = existing.get('date', date_str)
+                time_str = existing.get('time', time_str)
+            else:
+                final_doc_id, entry_before, entry_after = committed
+                count_occupancy(attendance_data, entry_before, entry_after)
             logger.info(f"Successfully marked attendance with document ID: {final_doc_id}")
 
-            return jsonify({
+            response = {
                 'message': f'Attendance {attendance_type} marked successfully',
                 'attendance_id': final_doc_id,
                 'date': date_str,
                 'time': time_str,
                 'success': True
-            }), 200
+            }
+            if extra_fields:
+                response.update(extra_fields)
+            return jsonify(response), 200
 
         except Exception as e:
             logger.error(f"Firestore transaction failed: {str(e)}")
@@ -1191,6 +1590,179 @@ def mark_attendance():
             'success': False
         }), 500
 
+@app.route('/api/verify-and-mark', methods=['POST'])
+def verify_and_mark():
+    """
+    Verify a face and, if it matches, record attendance in the same request
+    Multipart form fields:
+    - sevarth_id, type, location_id: Required, as for /api/mark-attendance
+    - uid, user_name: Optional user details
+    - recorded_at: Optional idempotency key, see record_attendance
+    - face_image: JPEG file part
+    - face_box: Optional JSON {top, right, bottom, left} when face_image is only the face crop;
+      a hint only, the server still detects the face itself
+    
+    Returns the verification result together with the attendance id on success
+    """
+    sevarth_id = request.form.get('sevarth_id')
+    attendance_type = request.form.get('type')
+    location_id = request.form.get('location_id')
+    face_file = request.files.get('face_image')
+    
+    if not all([sevarth_id, attendance_type, location_id, face_file]):
+        return jsonify({
+            'message': 'Missing required fields',
+            'success': False
+        }), 400
+    
+    if attendance_type not in ['check_in', 'check_out']:
+        return jsonify({
+            'message': 'Invalid attendance type',
+            'success': False
+        }), 400
+    
+    try:
+        verify_response, status = verify_face_bytes(sevarth_id, face_file.read(),
+                                                    parse_form_face_box(request.form))
+        if status != 200:
+            return verify_response, status
+        
+        verification_result = verify_response.get_json()
+        if not verification_result.get('verified'):
+            logger.info(f"Face not verified for {sevarth_id}, attendance not recorded")
+            verification_result['success'] = False
+            return jsonify(verification_result), 200
+        
+        return record_attendance(sevarth_id, attendance_type, verification_result.get('confidence', 0.0),
+                                 location_id, request.form.get('uid'), request.form.get('user_name'),
+                                 extra_fields={
+                                     'verified': True,
+                                     'confidence': verification_result.get('confidence', 0.0)
+                                 },
+                                 recorded_at=parse_recorded_at(request.form.get('recorded_at')))
+    except Exception as e:
+        logger.error(f"Error in verify-and-mark: {str(e)}")
+        return jsonify({
+            'message': f'Error verifying face: {str(e)}',
+            'success': False
+        }), 500
+
+MAX_JOURNAL_BATCH = 50
+MAX_JOURNAL_EVENT_AGE = datetime.timedelta(days=7)
+MAX_JOURNAL_CLOCK_SKEW = datetime.timedelta(minutes=5)
+
+def find_user_by_uid(sevarth_id, uid):
+    """The user document for a Sevarth ID if it belongs to the Firebase user uid, or None"""
+    users = db.collection('users').where('sevarthId', '==', sevarth_id) \
+        .where('uid', '==', uid).limit(1).get()
+    return users[0].to_dict() if users else None
+
+@app.route('/api/attendance/sync', methods=['POST'])
+@firebase_user_required
+def sync_attendance_journal(current_user):
+    """
+    Replay attendance the app journaled while it couldn't reach the server.
+    Events go through the same transaction as live attendance, so the daily rollup
+    is only ever written here. Each is stored under the sevarthId_recordedAt document
+    ID the app journaled it with, so a retried batch doesn't duplicate records.
+    Events are only accepted for the caller's own Sevarth ID, recorded no more than
+    MAX_JOURNAL_EVENT_AGE ago.
+    
+    Returns:
+        synced: Document IDs written now or by an earlier sync
+        rejected: Events that will never be accepted, with the reason
+    """
+    data = request.get_json(silent=True) or {}
+    events = data.get('events')
+    if not isinstance(events, list) or not events:
+        return jsonify({
+            'message': 'No events provided',
+            'success': False
+        }), 400
+    if len(events) > MAX_JOURNAL_BATCH:
+        return jsonify({
+            'message': f'At most {MAX_JOURNAL_BATCH} events per request',
+            'success': False
+        }), 400
+    
+    uid = current_user['uid']
+    now = datetime.datetime.utcnow()
+    users = {}
+    office_names = {}
+    synced = []
+    rejected = []
+    try:
+        for event in events:
+            if not isinstance(event, dict):
+                rejected.append({'doc_id': None, 'reason': 'Invalid event'})
+                continue
+            sevarth_id = event.get('sevarth_id')
+            attendance_type = event.get('type')
+            location_id = event.get('location_id')
+            recorded_at = event.get('recorded_at')
+            if not all([sevarth_id, location_id]) or attendance_type not in ['check_in', 'check_out'] \
+                    or not isinstance(recorded_at, int):
+                rejected.append({'doc_id': event.get('doc_id'), 'reason': 'Missing or invalid fields'})
+                continue
+            doc_id = f"{sevarth_id}_{recorded_at}"
+            
+            if sevarth_id not in users:
+                users[sevarth_id] = find_user_by_uid(sevarth_id, uid)
+            user_data = users[sevarth_id]
+            if user_data is None:
+                logger.warning(f"User {uid} tried to sync attendance for sevarth_id: {sevarth_id}")
+                rejected.append({'doc_id': doc_id, 'reason': 'Sevarth ID does not belong to this user'})
+                continue
+            
+            recorded = datetime.datetime.utcfromtimestamp(recorded_at / 1000)
+            if recorded > now + MAX_JOURNAL_CLOCK_SKEW or recorded < now - MAX_JOURNAL_EVENT_AGE:
+                rejected.append({'doc_id': doc_id, 'reason': 'Recorded outside the accepted time window'})
+                continue
+            
+            if location_id not in office_names:
+                office_names[location_id] = get_office_name(location_id)
+            
+            # Date and time in IST (UTC+5:30), as for live attendance
+            recorded_ist = recorded + datetime.timedelta(hours=5, minutes=30)
+            user_name = f"{user_data.get('firstName', '')} {user_data.get('lastName', '')}".strip()
+            attendance_data = {
+                'sevarthId': sevarth_id,
+                'userId': uid,
+                'userName': user_name or event.get('user_name') or 'Unknown User',
+                'date': recorded_ist.strftime("%Y-%m-%d"),
+                'time': recorded_ist.strftime("%H:%M:%S"),
+                'type': attendance_type,
+                'status': 'Present',
+                'verificationConfidence': event.get('verification_confidence', 0.0),
+                'locationId': location_id,
+                'officeName': office_names[location_id],
+                # The event time, so history stays in the order attendance happened
+                'timestamp': recorded.replace(tzinfo=datetime.timezone.utc),
+                'syncedAt': firestore.SERVER_TIMESTAMP,
+                'syncedFromJournal': True
+            }
+            committed = commit_attendance(db.transaction(), doc_id, attendance_data, replay=True)
+            if committed is None:
+                logger.info(f"Journaled attendance {doc_id} was already synced")
+            else:
+                count_occupancy(attendance_data, committed[1], committed[2])
+            synced.append(doc_id)
+        
+        logger.info(f"Synced {len(synced)} journaled attendance events for {uid}, rejected {len(rejected)}")
+        return jsonify({
+            'message': f'Synced {len(synced)} attendance events',
+            'synced': synced,
+            'rejected': rejected,
+            'success': True
+        }), 200
+    
+    except Exception as e:
+        logger.error(f"Error syncing journaled attendance: {str(e)}")
+        return jsonify({
+            'message': f'Error syncing attendance: {str(e)}',
+            'success': False
+        }), 500
+
 @app.route('/api/attendance-history', methods=['GET'])
 def get_attendance_history():
     """
@@ -1306,6 +1878,51 @@ def delete_user(current_user, sevarth_id):
             'success': False
         }), 500
 
+@app.cli.command('backfill-attendance-rollup')
+@click.option('--since', required=True, help='First date to rebuild, YYYY-MM-DD')
+def backfill_attendance_rollup(since):
+    """
+    Rebuild the daily rollup entries from the raw attendance records, from --since
+    through today, then mark the rollup complete from that date. Run it once right
+    after deploying the rollup, with --since set to the deploy date:
+        flask --app app backfill-attendance-rollup --since 2024-01-31
+    Until then, reports keep reading the raw records for those days.
+    """
+    pairs = set()
+    for record in db.collection('face-recognition-attendance').where('date', '>=', since).stream():
+        record_data = record.to_dict()
+        if record_data.get('sevarthId') and record_data.get('date'):
+            pairs.add((record_data['date'], record_data['sevarthId']))
+    
+    @firestore.transactional
+    def rebuild_entry(transaction, date_str, sevarth_id):
+        entry_ref = daily_entry_ref(date_str, sevarth_id)
+        # Reading the entry serializes this with live attendance for the same user,
+        # so a record committed meanwhile is either in the query or added on top
+        entry_ref.get(transaction=transaction)
+        records = db.collection('face-recognition-attendance') \
+            .where('sevarthId', '==', sevarth_id).where('date', '==', date_str)
+        entry = None
+        for record in sorted((r.to_dict() for r in transaction.get(records)),
+                             key=lambda r: r.get('time') or ''):
+            entry = build_daily_rollup_entry(entry, record)
+        if entry:
+            entry['date'] = date_str
+            entry['updatedAt'] = firestore.SERVER_TIMESTAMP
+            transaction.set(entry_ref, entry)
+    
+    for date_str, sevarth_id in sorted(pairs):
+        rebuild_entry(db.transaction(), date_str, sevarth_id)
+    
+    coverage = rollup_coverage_ref().get()
+    complete_from = (coverage.to_dict() or {}).get('completeFrom') if coverage.exists else None
+    if not complete_from or since < complete_from:
+        rollup_coverage_ref().set({
+            'completeFrom': since,
+            'updatedAt': firestore.SERVER_TIMESTAMP
+        })
+    click.echo(f"Rebuilt {len(pairs)} rollup entries since {since}")
+
 if __name__ == '__main__':
     port = int(os.environ.get('PORT', 5000))
     app.run(host='0.0.0.0', port=port, debug=True) 
\ No newline at end of file
@@ -0,0 +1,105 @@
+"""
+One-off migration that gives every attendance record the canonical locationId field.
+
+Older records only name their office in officeName, locationName or office_name.
+This script resolves those names against office_locations and writes locationId
+(plus the canonical officeName), so location reports can use a single query on
+the (locationId, date) composite index from firestore.indexes.json.
+
+Usage: python migrate_location_ids.py [--dry-run]
+"""
+import firebase_admin
+from firebase_admin import credentials
+from firebase_admin import firestore
+import os
+import sys
+
+ATTENDANCE_COLLECTION = 'face-recognition-attendance'
+LEGACY_OFFICE_FIELDS = ['officeName', 'locationName', 'office_name']
+BATCH_SIZE = 400  # Firestore allows 500 writes per batch
+
+# Initialize Firebase Admin SDK
+try:
+    # Look for the service account key file next to this script
+    script_dir = os.path.dirname(os.path.abspath(__file__))
+    cred_file = next((f for f in os.listdir(script_dir) if f.endswith('.json') and 'firebase-adminsdk' in f), None)
+    
+    if not cred_file:
+        print("Error: Firebase service account key file not found.")
+        sys.exit(1)
+    
+    cred = credentials.Certificate(os.path.join(script_dir, cred_file))
+    firebase_admin.initialize_app(cred)
+    
+    db = firestore.client()
+    print("Firebase initialized successfully.")
+except Exception as e:
+    print(f"Firebase initialization error: {str(e)}")
+    sys.exit(1)
+
+def normalize_name(name):
+    return ' '.join(name.split()).lower() if isinstance(name, str) else ''
+
+def load_offices():
+    """Map office IDs and normalized office names to (id, name)"""
+    offices_by_id = {}
+    offices_by_name = {}
+    for doc in db.collection('office_locations').stream():
+        name = doc.to_dict().get('name', '')
+        offices_by_id[doc.id] = name
+        if name:
+            offices_by_name[normalize_name(name)] = (doc.id, name)
+    return offices_by_id, offices_by_name
+
+def resolve_location(record, offices_by_id, offices_by_name):
+    """Return (locationId, officeName) for a record, or None if it can't be resolved"""
+    location_id = record.get('locationId')
+    if location_id in offices_by_id:
+        return location_id, offices_by_id[location_id]
+    
+    for field in LEGACY_OFFICE_FIELDS:
+        match = offices_by_name.get(normalize_name(record.get(field)))
+        if match:
+            return match
+    return None
+
+def migrate(dry_run=False):
+    offices_by_id, offices_by_name = load_offices()
+    print(f"Loaded {len(offices_by_id)} office locations")
+    
+    batch = db.batch()
+    pending = 0
+    updated = 0
+    unresolved = 0
+    
+    for doc in db.collection(ATTENDANCE_COLLECTION).stream():
+        record = doc.to_dict()
+        resolved = resolve_location(record, offices_by_id, offices_by_name)
+        if resolved is None:
+            unresolved += 1
+            print(f"Could not resolve office for {doc.id}: "
+                  + ', '.join(f"{f}={record.get(f)!r}" for f in ['locationId'] + LEGACY_OFFICE_FIELDS))
+            continue
+        
+        location_id, office_name = resolved
+        if record.get('locationId') == location_id and record.get('officeName') == office_name:
+            continue
+        
+        updated += 1
+        if dry_run:
+            continue
+        batch.update(doc.reference, {'locationId': location_id, 'officeName': office_name})
+        pending += 1
+        if pending >= BATCH_SIZE:
+            batch.commit()
+            batch = db.batch()
+            pending = 0
+    
+    if pending and not dry_run:
+        batch.commit()
+    
+    action = "Would update" if dry_run else "Updated"
+    print(f"{action} {updated} records; {unresolved} could not be resolved")
+
+if __name__ == '__main__':
+    migrate(dry_run='--dry-run' in sys.argv)
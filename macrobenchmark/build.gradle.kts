@@ -0,0 +1,54 @@
+plugins {
+    id("com.android.test")
+    id("org.jetbrains.kotlin.android")
+}
+
+// Macrobenchmarks of the login → check-in journey, and the generator for the
+// app's baseline profile (app/src/main/baseline-prof.txt). Run against the
+// app's benchmark build type on a device:
+//   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+android {
+    namespace = "com.example.mystartup.macrobenchmark"
+    compileSdk = 34
+
+    defaultConfig {
+        // Baseline profile generation needs API 28+ (rooted) or API 33+
+        minSdk = 28
+        targetSdk = 34
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        // Matches the app's benchmark build type; debuggable only for the test APK
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_17
+        targetCompatibility = JavaVersion.VERSION_17
+    }
+
+    kotlinOptions {
+        jvmTarget = "17"
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.1.5")
+    implementation("androidx.test.uiautomator:uiautomator:2.2.0")
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.2.3")
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.mystartup.macrobenchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Generates the app's baseline profile from the check-in journey, which is
+ * mostly startup code.
+ * Run on an API 33+ device or a rooted API 28+ one:
+ *   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest \
+ *       -Pandroid.testInstrumentationRunnerArguments.class=com.example.mystartup.macrobenchmark.BaselineProfileGenerator
+ * then copy the generated *-baseline-prof.txt from the test output over
+ * app/src/main/baseline-prof.txt.
+ */
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun checkInJourney() = baselineProfileRule.collect(packageName = TARGET_PACKAGE) {
+        launchAndOpenCheckIn()
+    }
+}
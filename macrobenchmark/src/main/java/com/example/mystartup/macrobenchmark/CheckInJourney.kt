@@ -0,0 +1,47 @@
+package com.example.mystartup.macrobenchmark
+
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+
+const val TARGET_PACKAGE = "com.example.mystartup"
+
+private const val UI_TIMEOUT_MS = 10_000L
+
+/**
+ * The cold-launch → login → attendance screen journey that users feel as
+ * time-to-first-check-in. Signing in needs a test account, passed as
+ * instrumentation arguments:
+ *   -Pandroid.testInstrumentationRunnerArguments.sevarthId=...
+ *   -Pandroid.testInstrumentationRunnerArguments.password=...
+ * Without them the journey stops at the login screen. It also stops at the
+ * attendance screen, since a check-in needs a real face and office location.
+ */
+fun MacrobenchmarkScope.launchAndOpenCheckIn() {
+    pressHome()
+    startActivityAndWait()
+
+    // The splash hands over to login once the startup warm-up is done
+    device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "loginButton")), UI_TIMEOUT_MS)
+
+    val arguments = InstrumentationRegistry.getArguments()
+    val sevarthId = arguments.getString("sevarthId")
+    val password = arguments.getString("password")
+    if (sevarthId.isNullOrEmpty() || password.isNullOrEmpty()) {
+        return
+    }
+
+    device.findObject(By.res(TARGET_PACKAGE, "userRadioButton"))?.click()
+    device.findObject(By.res(TARGET_PACKAGE, "sevarthIdEditText"))?.text = sevarthId
+    device.findObject(By.res(TARGET_PACKAGE, "passwordEditText"))?.text = password
+    device.findObject(By.res(TARGET_PACKAGE, "loginButton"))?.click()
+
+    // Pick the first assigned office
+    device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "locationNameTextView")), UI_TIMEOUT_MS)
+    device.findObject(By.res(TARGET_PACKAGE, "locationNameTextView"))?.click()
+
+    // The attendance screen prewarms Storage and ML Kit once it has drawn
+    device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "checkInButton")), UI_TIMEOUT_MS)
+    device.waitForIdle()
+}
@@ -0,0 +1,40 @@
+package com.example.mystartup.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cold-start timings of the check-in journey, without and with the baseline
+ * profile, to confirm the shipped profile still pays off.
+ */
+@RunWith(AndroidJUnit4::class)
+class CheckInStartupBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun coldStartWithoutProfile() = measure(CompilationMode.None())
+
+    @Test
+    fun coldStartWithBaselineProfile() =
+        measure(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    private fun measure(compilationMode: CompilationMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric(), FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 10
+    ) {
+        launchAndOpenCheckIn()
+    }
+}
@@ -20,4 +20,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "MyStartup"
 include(":app")
+include(":macrobenchmark")
  
\ No newline at end of file